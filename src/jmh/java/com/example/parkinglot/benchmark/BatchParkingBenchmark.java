@@ -0,0 +1,63 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares parking a crowd of arrivals one by one against a single parkVehicles batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchParkingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int lotSize;
+
+    @Param({"50", "99"})
+    public int fillPercent;
+
+    @Param({"500"})
+    public int arrivals;
+
+    private ParkingLot parkingLot;
+    private List<Vehicle> vehicles;
+
+    @Setup(Level.Trial)
+    public void createArrivals() {
+        vehicles = new ArrayList<>(arrivals);
+        VehicleType[] types = VehicleType.values();
+        for (int i = 0; i < arrivals; i++) {
+            vehicles.add(new Vehicle("ARRIVAL" + i, types[i % types.length]));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createLot() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"));
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+    }
+
+    @Benchmark
+    public int sequential() {
+        int parked = 0;
+        for (Vehicle vehicle : vehicles) {
+            if (parkingLot.parkVehicle(vehicle.getId(), vehicle.getType()).isSuccess()) {
+                parked++;
+            }
+        }
+        return parked;
+    }
+
+    @Benchmark
+    public List<ParkingResult> batch() {
+        return parkingLot.parkVehicles(vehicles);
+    }
+}
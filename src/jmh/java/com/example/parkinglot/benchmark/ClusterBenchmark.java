@@ -0,0 +1,66 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLotCluster;
+import com.example.parkinglot.ShardRoutingPolicy;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Multi-threaded benchmarks for ParkingLotCluster: eight gate threads park and remove vehicles
+ * on one logical lot split into a varying number of shards. Throughput should grow with the
+ * shard count until it reaches the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ClusterBenchmark {
+
+    @Param({"1000000"})
+    public int lotSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int shardCount;
+
+    @Param({"HASHED"})
+    public String routing;
+
+    private ParkingLotCluster cluster;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ShardRoutingPolicy policy;
+        switch (routing) {
+            case "ROUND_ROBIN": policy = ShardRoutingPolicy.roundRobin(); break;
+            case "MOST_AVAILABLE": policy = ShardRoutingPolicy.mostAvailable(); break;
+            default: policy = ShardRoutingPolicy.hashed(); break;
+        }
+        cluster = ParkingLotCluster.split(LotLayout.of(LotFixtures.layout(lotSize, "MIXED")), shardCount, LotStorage.COMPACT, policy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cluster.close();
+    }
+
+    /**
+     * Per-thread gate state so every gate parks its own vehicle.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        private static final AtomicInteger NEXT_GATE = new AtomicInteger();
+        final String vehicleId = "GATE" + NEXT_GATE.getAndIncrement();
+    }
+
+    @Benchmark
+    public boolean parkAndRemove(Gate gate) {
+        ParkingResult result = cluster.parkVehicle(gate.vehicleId, VehicleType.CAR);
+        return cluster.removeVehicle(gate.vehicleId) && result.isSuccess();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.ConcurrentParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Multi-threaded benchmarks for ConcurrentParkingLot: gate threads park and remove
+ * vehicles of each type while a dashboard thread polls the lot status.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentParkingLotBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int lotSize;
+
+    @Param({"50", "99"})
+    public int fillPercent;
+
+    @Param({"MIXED"})
+    public String mix;
+
+    @Param({"SCATTERED"})
+    public String fragmentation;
+
+    private ConcurrentParkingLot parkingLot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ConcurrentParkingLot(LotFixtures.layout(lotSize, mix));
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, fragmentation);
+    }
+
+    /**
+     * Per-thread gate state so every gate parks its own vehicle.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        private static final AtomicInteger NEXT_GATE = new AtomicInteger();
+        final String vehicleId = "GATE" + NEXT_GATE.getAndIncrement();
+    }
+
+    @Benchmark
+    @Group("gates")
+    @GroupThreads(2)
+    public boolean motorcycleGate(Gate gate) {
+        return parkAndRemove(gate, VehicleType.MOTORCYCLE);
+    }
+
+    @Benchmark
+    @Group("gates")
+    @GroupThreads(4)
+    public boolean carGate(Gate gate) {
+        return parkAndRemove(gate, VehicleType.CAR);
+    }
+
+    @Benchmark
+    @Group("gates")
+    @GroupThreads(2)
+    public boolean vanGate(Gate gate) {
+        return parkAndRemove(gate, VehicleType.VAN);
+    }
+
+    @Benchmark
+    @Group("gates")
+    @GroupThreads(1)
+    public LotStatus dashboard() {
+        return parkingLot.getLotStatus();
+    }
+
+    private boolean parkAndRemove(Gate gate, VehicleType vehicleType) {
+        ParkingResult result = parkingLot.parkVehicle(gate.vehicleId, vehicleType);
+        return parkingLot.removeVehicle(gate.vehicleId) && result.isSuccess();
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures building an empty lot from per-space row arrays against building it from a run-length layout.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+
+    @Param({"5000000"})
+    public int lotSize;
+
+    @Param({"OBJECTS", "COMPACT", "OFF_HEAP"})
+    public LotStorage storage;
+
+    private List<SpaceType[]> rowConfigurations;
+    private LotLayout layout;
+    private ParkingLot lastLot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rowConfigurations = LotFixtures.layout(lotSize, "MIXED");
+        layout = LotLayout.of(rowConfigurations);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeLot() {
+        if (lastLot != null) {
+            lastLot.close();
+            lastLot = null;
+        }
+    }
+
+    @Benchmark
+    public ParkingLot fromRowConfigurations() {
+        lastLot = new ParkingLot(rowConfigurations, storage);
+        return lastLot;
+    }
+
+    @Benchmark
+    public ParkingLot fromLayout() {
+        lastLot = new ParkingLot(layout, storage);
+        return lastLot;
+    }
+}
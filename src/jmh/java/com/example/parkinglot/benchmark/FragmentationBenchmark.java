@@ -0,0 +1,105 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Simulates a busy day with first-fit and best-fit allocation for cars and motorcycles. Each operation is one
+ * tick: once the lot holds its target population, a random vehicle leaves, then a random vehicle arrives
+ * (60% cars, 25% motorcycles, 15% vans). The lot is run to a steady state before measuring, so the free
+ * spaces are as fragmented as they get by midday. The counters report accepted and rejected vehicles per
+ * second; with first fit, vans are rejected while regular spaces are still free, just not in pairs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FragmentationBenchmark {
+
+    @Param({"10000"})
+    public int lotSize;
+
+    /**
+     * Spaces the target population would need, as a percentage of the lot.
+     */
+    @Param({"90", "100"})
+    public int demandPercent;
+
+    @Param({"FIRST_FIT", "BEST_FIT"})
+    public String allocation;
+
+    private static final double SPACES_PER_VEHICLE = 0.6 + 0.25 + 0.15 * 2;
+
+    private ParkingLot parkingLot;
+    private Random random;
+    private List<String> parked;
+    private int population;
+    private long arrivals;
+
+    /**
+     * Vehicles accepted and rejected by the measured ticks.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long accepted;
+        public long rejected;
+        public long vansAccepted;
+        public long vansRejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"), LotStorage.COMPACT);
+        parkingLot.setBestFit("BEST_FIT".equals(allocation));
+        random = new Random(42);
+        parked = new ArrayList<>();
+        population = (int) (lotSize * demandPercent / 100.0 / SPACES_PER_VEHICLE);
+        Outcomes ignored = new Outcomes();
+        for (int i = 0; i < lotSize * 20; i++) {
+            tick(ignored);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public boolean tick(Outcomes outcomes) {
+        if (parked.size() >= population) {
+            int leaving = random.nextInt(parked.size());
+            String vehicleId = parked.get(leaving);
+            parked.set(leaving, parked.get(parked.size() - 1));
+            parked.remove(parked.size() - 1);
+            parkingLot.removeVehicle(vehicleId);
+        }
+        int draw = random.nextInt(100);
+        VehicleType vehicleType = draw < 60 ? VehicleType.CAR : draw < 85 ? VehicleType.MOTORCYCLE : VehicleType.VAN;
+        String vehicleId = "V" + arrivals++;
+        boolean accepted = parkingLot.parkVehicle(vehicleId, vehicleType).isSuccess();
+        if (accepted) {
+            parked.add(vehicleId);
+            outcomes.accepted++;
+        } else {
+            outcomes.rejected++;
+        }
+        if (vehicleType == VehicleType.VAN) {
+            if (accepted) {
+                outcomes.vansAccepted++;
+            } else {
+                outcomes.vansRejected++;
+            }
+        }
+        return accepted;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.ConcurrentParkingLot;
+import com.example.parkinglot.ParkingJournal;
+import com.example.parkinglot.model.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of the write-ahead journal: gate threads park and remove cars
+ * on a ConcurrentParkingLot with and without a journal attached.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JournalBenchmark {
+
+    @Param({"10000"})
+    public int lotSize;
+
+    @Param({"50"})
+    public int fillPercent;
+
+    @Param({"false", "true"})
+    public boolean journaled;
+
+    @Param({"10"})
+    public int flushIntervalMillis;
+
+    private ConcurrentParkingLot parkingLot;
+    private ParkingJournal journal;
+    private Path journalPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        parkingLot = new ConcurrentParkingLot(LotFixtures.layout(lotSize, "MIXED"));
+        if (journaled) {
+            journalPath = Files.createTempFile("parking", ".journal");
+            journal = ParkingJournal.open(journalPath, Duration.ofMillis(flushIntervalMillis));
+            journal.attach(parkingLot);
+        }
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+            Files.deleteIfExists(journalPath);
+        }
+    }
+
+    /**
+     * Per-thread gate state so every gate parks its own vehicle.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        private static final AtomicInteger NEXT_GATE = new AtomicInteger();
+        final String vehicleId = "GATE" + NEXT_GATE.getAndIncrement();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean parkAndRemove(Gate gate) {
+        return cycle(gate);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean parkAndRemoveFourGates(Gate gate) {
+        return cycle(gate);
+    }
+
+    private boolean cycle(Gate gate) {
+        ParkingResult result = parkingLot.parkVehicle(gate.vehicleId, VehicleType.CAR);
+        return parkingLot.removeVehicle(gate.vehicleId) && result.isSuccess();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.*;
+
+/**
+ * Builds parking lot layouts and occupancy patterns for the benchmarks.
+ */
+final class LotFixtures {
+    static final int ROW_LENGTH = 100;
+
+    private LotFixtures() {
+    }
+
+    /**
+     * Creates a layout of rows of {@link #ROW_LENGTH} spaces.
+     * @param totalSpaces Total number of spaces in the lot
+     * @param mix "REGULAR" for regular spaces only, "MIXED" for every fourth space compact
+     * @return Row configurations
+     */
+    static List<SpaceType[]> layout(int totalSpaces, String mix) {
+        boolean mixed = "MIXED".equals(mix);
+        List<SpaceType[]> config = new ArrayList<>();
+        for (int start = 0; start < totalSpaces; start += ROW_LENGTH) {
+            SpaceType[] row = new SpaceType[Math.min(ROW_LENGTH, totalSpaces - start)];
+            for (int s = 0; s < row.length; s++) {
+                row[s] = mixed && s % 4 == 3 ? SpaceType.COMPACT : SpaceType.REGULAR;
+            }
+            config.add(row);
+        }
+        return config;
+    }
+
+    /**
+     * Fills the lot with single-space vehicles named "F{n}".
+     * @param fillPercent Percentage of spaces to occupy
+     * @param fragmentation "CONTIGUOUS" to fill in first-fit order, "SCATTERED" to leave free spaces at random positions
+     * @return Identifier of a vehicle that remains parked, or a missing identifier for an empty lot
+     */
+    static String fill(ParkingLot parkingLot, int totalSpaces, int fillPercent, String fragmentation) {
+        int target = (int) ((long) totalSpaces * fillPercent / 100);
+        if ("SCATTERED".equals(fragmentation) && target > 0) {
+            for (int i = 0; i < totalSpaces; i++) {
+                parkingLot.parkVehicle("F" + i, VehicleType.MOTORCYCLE);
+            }
+            int[] order = shuffledIndexes(totalSpaces, 42L);
+            for (int i = 0; i < totalSpaces - target; i++) {
+                parkingLot.removeVehicle("F" + order[i]);
+            }
+            return "F" + order[totalSpaces - 1];
+        }
+        for (int i = 0; i < target; i++) {
+            parkingLot.parkVehicle("F" + i, VehicleType.MOTORCYCLE);
+        }
+        return "F0";
+    }
+
+    private static int[] shuffledIndexes(int size, long seed) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        Random random = new Random(seed);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = tmp;
+        }
+        return indexes;
+    }
+}
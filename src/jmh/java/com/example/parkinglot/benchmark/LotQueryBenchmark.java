@@ -0,0 +1,70 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single-threaded benchmarks for the ParkingLot queries,
+ * parameterized by lot size, fill level, space mix, fragmentation pattern and storage layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LotQueryBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int lotSize;
+
+    @Param({"0", "50", "99"})
+    public int fillPercent;
+
+    @Param({"REGULAR", "MIXED"})
+    public String mix;
+
+    @Param({"CONTIGUOUS", "SCATTERED"})
+    public String fragmentation;
+
+    @Param({"OBJECTS", "COMPACT", "OFF_HEAP"})
+    public LotStorage storage;
+
+    private ParkingLot parkingLot;
+    private String parkedVehicleId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, mix), storage);
+        parkedVehicleId = LotFixtures.fill(parkingLot, lotSize, fillPercent, fragmentation);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public LotStatus getLotStatus() {
+        return parkingLot.getLotStatus();
+    }
+
+    @Benchmark
+    public List<String> getRowSummaries() {
+        return parkingLot.getRowSummaries();
+    }
+
+    @Benchmark
+    public List<RowStatus> getRowStatuses() {
+        return parkingLot.getRowStatuses();
+    }
+
+    @Benchmark
+    public List<String> getVehicleSpaces() {
+        return parkingLot.getVehicleSpaces(parkedVehicleId);
+    }
+}
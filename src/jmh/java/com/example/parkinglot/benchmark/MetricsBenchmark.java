@@ -0,0 +1,54 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of the operation metrics: a single gate parks and removes vehicles
+ * through the callback API with metrics disabled and enabled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    @Param({"10000"})
+    public int lotSize;
+
+    @Param({"50", "99"})
+    public int fillPercent;
+
+    @Param({"CAR", "VAN"})
+    public VehicleType vehicleType;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private static final ParkingCallback NO_OP_CALLBACK = (spaceHandle, alreadyParked) -> { };
+
+    private ParkingLot parkingLot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"), LotStorage.COMPACT);
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+        parkingLot.setMetricsEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public boolean parkAndRemoveWithCallback() {
+        boolean parked = parkingLot.parkVehicle("BENCH", vehicleType, NO_OP_CALLBACK);
+        return parkingLot.removeVehicle("BENCH") && parked;
+    }
+}
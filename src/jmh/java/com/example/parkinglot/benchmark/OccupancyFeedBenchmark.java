@@ -0,0 +1,66 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.OccupancyFeed;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of publishing occupancy changes: a single gate parks and removes vehicles
+ * through the callback API with and without a feed that a consumer thread follows.
+ * Run with -prof gc to check that publishing does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OccupancyFeedBenchmark {
+
+    @Param({"10000"})
+    public int lotSize;
+
+    @Param({"50"})
+    public int fillPercent;
+
+    @Param({"CAR", "VAN"})
+    public VehicleType vehicleType;
+
+    @Param({"false", "true"})
+    public boolean published;
+
+    private static final ParkingCallback NO_OP_CALLBACK = (spaceHandle, alreadyParked) -> { };
+
+    private ParkingLot parkingLot;
+    private OccupancyFeed.Subscription subscription;
+    private final AtomicLong consumed = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"), LotStorage.COMPACT);
+        if (published) {
+            OccupancyFeed feed = new OccupancyFeed(1 << 16);
+            feed.attach(parkingLot);
+            subscription = feed.subscribe(event -> consumed.lazySet(event.getSequence()));
+        }
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (subscription != null) {
+            subscription.close();
+        }
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public boolean parkAndRemoveWithCallback() {
+        boolean parked = parkingLot.parkVehicle("BENCH", vehicleType, NO_OP_CALLBACK);
+        return parkingLot.removeVehicle("BENCH") && parked;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single-threaded benchmarks for parking and removing a vehicle,
+ * parameterized by lot size, fill level, space mix, fragmentation pattern, vehicle type and storage layout.
+ * Queries, which do not depend on the vehicle type, are in {@link LotQueryBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParkingLotBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int lotSize;
+
+    @Param({"0", "50", "99"})
+    public int fillPercent;
+
+    @Param({"REGULAR", "MIXED"})
+    public String mix;
+
+    @Param({"CONTIGUOUS", "SCATTERED"})
+    public String fragmentation;
+
+    @Param({"MOTORCYCLE", "CAR", "VAN"})
+    public VehicleType vehicleType;
+
+    @Param({"OBJECTS", "COMPACT", "OFF_HEAP"})
+    public LotStorage storage;
+
+    private static final ParkingCallback NO_OP_CALLBACK = (spaceHandle, alreadyParked) -> { };
+
+    private ParkingLot parkingLot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, mix), storage);
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, fragmentation);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    /**
+     * Parks and removes one vehicle so the lot stays at the configured fill level.
+     */
+    @Benchmark
+    public boolean parkAndRemove() {
+        ParkingResult result = parkingLot.parkVehicle("BENCH", vehicleType);
+        return parkingLot.removeVehicle("BENCH") && result.isSuccess();
+    }
+
+    /**
+     * Same as {@link #parkAndRemove()} through the callback API, which does not allocate;
+     * run with -prof gc to compare the allocation rates.
+     */
+    @Benchmark
+    public boolean parkAndRemoveWithCallback() {
+        boolean parked = parkingLot.parkVehicle("BENCH", vehicleType, NO_OP_CALLBACK);
+        return parkingLot.removeVehicle("BENCH") && parked;
+    }
+}
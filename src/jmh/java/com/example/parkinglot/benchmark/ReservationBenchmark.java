@@ -0,0 +1,73 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures reservations against a lot whose first spaces are taken either by parked vehicles or by
+ * outstanding holds: holding and cancelling, and holding then arriving and leaving, next to a plain
+ * park and remove. Both fillings make first fit skip the same spaces, so the difference is the cost of
+ * the outstanding holds; it should not grow with their number, since the timing wheel never scans them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationBenchmark {
+
+    @Param({"100000"})
+    public int lotSize;
+
+    @Param({"1000", "50000"})
+    public int takenSpaces;
+
+    @Param({"PARKED", "HELD"})
+    public String takenBy;
+
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    private ParkingLot parkingLot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"), LotStorage.COMPACT);
+        for (int i = 0; i < takenSpaces; i++) {
+            if ("HELD".equals(takenBy)) {
+                // Spread over a day, so holds are in every level of the wheel
+                parkingLot.reserve("H" + i, VehicleType.MOTORCYCLE, Duration.ofSeconds(3600 + i % 86400));
+            } else {
+                parkingLot.parkVehicle("H" + i, VehicleType.MOTORCYCLE);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public boolean parkAndRemove() {
+        parkingLot.parkVehicle("BENCH", VehicleType.CAR);
+        return parkingLot.removeVehicle("BENCH");
+    }
+
+    @Benchmark
+    public boolean reserveAndCancel() {
+        parkingLot.reserve("BENCH", VehicleType.CAR, TTL);
+        return parkingLot.cancelReservation("BENCH");
+    }
+
+    @Benchmark
+    public boolean reserveArriveAndRemove() {
+        parkingLot.reserve("BENCH", VehicleType.CAR, TTL);
+        parkingLot.parkVehicle("BENCH", VehicleType.CAR);
+        return parkingLot.removeVehicle("BENCH");
+    }
+}
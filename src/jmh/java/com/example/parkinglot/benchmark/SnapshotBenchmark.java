@@ -0,0 +1,63 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.LotSnapshot;
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the cost of publishing occupancy snapshots: a park and remove with a publish after
+ * each operation, or after a batch of 64 operations, next to the same operations without snapshots.
+ * A publish copies only the chunks of rows and vehicles that changed, so its cost should not grow
+ * much with the size of the lot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int lotSize;
+
+    @Param({"50"})
+    public int fillPercent;
+
+    @Param({"OFF", "EVERY_OPERATION", "EVERY_64"})
+    public String publish;
+
+    private ParkingLot parkingLot;
+    private int operations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        parkingLot = new ParkingLot(LotFixtures.layout(lotSize, "MIXED"), LotStorage.COMPACT);
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+        parkingLot.setSnapshotsEnabled(!"OFF".equals(publish));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        parkingLot.close();
+    }
+
+    @Benchmark
+    public boolean parkAndRemove() {
+        parkingLot.parkVehicle("BENCH", VehicleType.CAR);
+        boolean removed = parkingLot.removeVehicle("BENCH");
+        if ("EVERY_OPERATION".equals(publish) || ("EVERY_64".equals(publish) && (++operations & 63) == 0)) {
+            parkingLot.publishSnapshot();
+        }
+        return removed;
+    }
+
+    @Benchmark
+    public LotStatus readSnapshotStatus() {
+        LotSnapshot snapshot = "OFF".equals(publish) ? null : parkingLot.getSnapshot();
+        return snapshot != null ? snapshot.getLotStatus() : parkingLot.getLotStatus();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.parkinglot.benchmark;
+
+import com.example.parkinglot.ConcurrentParkingLot;
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.ParkingLotWriter;
+import com.example.parkinglot.model.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Multi-threaded benchmarks comparing ways to share one lot between eight gate threads:
+ * a single writer thread fed by the command queue, a plain lot behind one lock,
+ * and the lock-striped ConcurrentParkingLot. Writer gates submit the park and the remove
+ * before waiting, so the two commands usually reach the writer in one batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class WriterBenchmark {
+
+    @Param({"100000"})
+    public int lotSize;
+
+    @Param({"50"})
+    public int fillPercent;
+
+    @Param({"WRITER", "LOCKED", "CONCURRENT"})
+    public String frontEnd;
+
+    private ParkingLot parkingLot;
+    private ParkingLotWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LotLayout layout = LotLayout.of(LotFixtures.layout(lotSize, "MIXED"));
+        parkingLot = frontEnd.equals("CONCURRENT")
+                ? new ConcurrentParkingLot(layout, LotStorage.COMPACT)
+                : new ParkingLot(layout, LotStorage.COMPACT);
+        LotFixtures.fill(parkingLot, lotSize, fillPercent, "SCATTERED");
+        if (frontEnd.equals("WRITER")) {
+            writer = new ParkingLotWriter(parkingLot, 1024, ParkingLotWriter.WhenFull.BLOCK);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (writer != null) {
+            writer.close();
+        } else {
+            parkingLot.close();
+        }
+    }
+
+    /**
+     * Per-thread gate state so every gate parks its own vehicle.
+     */
+    @State(Scope.Thread)
+    public static class Gate {
+        private static final AtomicInteger NEXT_GATE = new AtomicInteger();
+        final String vehicleId = "GATE" + NEXT_GATE.getAndIncrement();
+    }
+
+    @Benchmark
+    public boolean parkAndRemove(Gate gate) {
+        switch (frontEnd) {
+            case "WRITER": {
+                CompletableFuture<ParkingResult> parked = writer.parkVehicle(gate.vehicleId, VehicleType.CAR);
+                CompletableFuture<Boolean> removed = writer.removeVehicle(gate.vehicleId);
+                return removed.join() && parked.join().isSuccess();
+            }
+            case "LOCKED":
+                synchronized (parkingLot) {
+                    ParkingResult result = parkingLot.parkVehicle(gate.vehicleId, VehicleType.CAR);
+                    return parkingLot.removeVehicle(gate.vehicleId) && result.isSuccess();
+                }
+            default: {
+                ParkingResult result = parkingLot.parkVehicle(gate.vehicleId, VehicleType.CAR);
+                return parkingLot.removeVehicle(gate.vehicleId) && result.isSuccess();
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+
+/**
+ * Struct-of-arrays space store: space types in a byte[] and occupant handles in an int[],
+ * so a row is a contiguous slice of both arrays. A space costs five bytes instead of a
+ * ParkingSpace object and its identifier string.
+ */
+class CompactSpaceStore extends FlatSpaceStore {
+    private static final VarHandle OCCUPANTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final byte[] types;
+    private final int[] occupants;
+
+    CompactSpaceStore(LotLayout layout, VehicleRegistry registry, boolean parallel) {
+        super(layout, registry);
+        this.types = new byte[getSpaceCount()];
+        this.occupants = new int[getSpaceCount()];
+        initializeSlots(layout, parallel);
+    }
+
+    @Override
+    byte getType(int slot) {
+        return types[slot];
+    }
+
+    @Override
+    void fillSlots(int fromSlot, int toSlot, byte type) {
+        Arrays.fill(types, fromSlot, toSlot, type);
+        Arrays.fill(occupants, fromSlot, toSlot, VehicleRegistry.NO_VEHICLE);
+    }
+
+    @Override
+    int getOccupant(int slot) {
+        return (int) OCCUPANTS.getAcquire(occupants, slot);
+    }
+
+    @Override
+    void setOccupant(int slot, int vehicleHandle) {
+        OCCUPANTS.setRelease(occupants, slot, vehicleHandle);
+    }
+
+    @Override
+    boolean compareAndSetOccupant(int slot, int expectedHandle, int vehicleHandle) {
+        return OCCUPANTS.compareAndSet(occupants, slot, expectedHandle, vehicleHandle);
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.jfr.AllocationEvent;
+import com.example.parkinglot.model.*;
+import com.example.parkinglot.strategy.*;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe parking lot for lots served by several gates at once.
+ * Each row has its own lock: vans only ever need one row and cars and motorcycles a single space,
+ * so a park or remove locks just the row it touches. Strategies scan the occupancy index without
+ * holding any lock, and the chosen spaces are re-validated once their row is locked.
+ * Single-space vehicles skip the row lock for allocation altogether: they claim the space with a
+ * compare-and-set and, when another gate wins the race, search again without the lost space.
+ * Reservations claim their spaces the same way; the timing wheel that expires them has a lock of its
+ * own, and whichever gate finds it free advances it.
+ *
+ * <p>Every operation updates the counters and the vehicle registry while it holds the locks of the rows
+ * it changes, so locking every row, as a snapshot publish does, finds the lot between operations.
+ * Locks are taken in the order: rows in ascending order, the reservation lock, then the registry's;
+ * expiry claims the expired holds under the reservation lock and releases their spaces after dropping it.
+ */
+public class ConcurrentParkingLot extends ParkingLot {
+    private final ReentrantLock[] rowLocks;
+    private final ReentrantLock reservationLock = new ReentrantLock();
+    
+    /**
+     * Initializes the concurrent parking lot with the given configuration.
+     * @param rowConfigurations List of space type arrays, one for each row
+     */
+    public ConcurrentParkingLot(List<SpaceType[]> rowConfigurations) {
+        this(rowConfigurations, LotStorage.OBJECTS);
+    }
+    
+    /**
+     * Initializes the concurrent parking lot with the given configuration and storage layout.
+     * @param rowConfigurations List of space type arrays, one for each row
+     * @param storage How the spaces are stored
+     */
+    public ConcurrentParkingLot(List<SpaceType[]> rowConfigurations, LotStorage storage) {
+        this(LotLayout.of(rowConfigurations), storage);
+    }
+    
+    /**
+     * Initializes the concurrent parking lot from a run-length layout and storage layout.
+     * @param layout Rows of the lot
+     * @param storage How the spaces are stored
+     */
+    public ConcurrentParkingLot(LotLayout layout, LotStorage storage) {
+        super(layout, storage, true);
+        this.rowLocks = new ReentrantLock[spaces.getRowCount()];
+        for (int rowIndex = 0; rowIndex < rowLocks.length; rowIndex++) {
+            rowLocks[rowIndex] = new ReentrantLock();
+        }
+    }
+    
+    @Override
+    ParkingResult doParkVehicle(String vehicleId, VehicleType vehicleType) {
+        ParkingResult invalid = validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            return invalid;
+        }
+        
+        checkJournal();
+        return claimSpaces(vehicleId.trim(), vehicleType, 0);
+    }
+    
+    @Override
+    ParkingResult doReserve(String vehicleId, VehicleType vehicleType, long ttlNanos) {
+        return claimSpaces(vehicleId, vehicleType, ttlNanos);
+    }
+    
+    /**
+     * Parks a vehicle, or reserves spaces for it when a time to live is given.
+     * @param ttlNanos How long a reservation holds the spaces, or 0 to park
+     */
+    private ParkingResult claimSpaces(String vehicleId, VehicleType vehicleType, long ttlNanos) {
+        boolean hold = ttlNanos > 0;
+        ParkingStrategy strategy;
+        try {
+            strategy = strategyFor(vehicleType);
+        } catch (IllegalArgumentException e) {
+            return ParkingResult.failure("Unsupported vehicle type: " + vehicleType);
+        }
+        
+        // Register the vehicle ID before allocating so concurrent parks of the same vehicle cannot both succeed
+        int vehicleHandle;
+        while ((vehicleHandle = registry.register(vehicleId, vehicleType)) == VehicleRegistry.NO_VEHICLE) {
+            List<String> existingSpaces = registry.getSpaceIds(vehicleId);
+            if (existingSpaces != null) {
+                return hold ? ParkingResult.alreadyParked(existingSpaces) : parkRegistered(vehicleId, vehicleType, existingSpaces);
+            }
+            // Another gate is parking or removing this vehicle; wait for it to finish
+            Thread.onSpinWait();
+        }
+        
+        boolean claimed = false;
+        try {
+            if (strategy instanceof SingleSpaceParkingStrategy) {
+                ParkingResult result = claimSingleSpace((SingleSpaceParkingStrategy) strategy,
+                                                        vehicleId, vehicleHandle, vehicleType, ttlNanos);
+                claimed = result.isSuccess();
+                return result;
+            }
+            while (true) {
+                AllocationEvent allocation = new AllocationEvent();
+                allocation.begin();
+                ParkingResult result = strategy.allocateSpaces(vehicleId, spaces.getRows(), occupancyIndex);
+                allocation.record(vehicleType, strategy, occupancyIndex, SpaceHandle.of(0, 0), result);
+                if (!result.isSuccess()) {
+                    return result;
+                }
+                if (tryClaimSpaces(resolveSpaces(result), vehicleId, vehicleHandle, vehicleType, ttlNanos)) {
+                    claimed = true;
+                    return hold ? reservedResult(result) : result;
+                }
+                // Another gate took one of the spaces between the scan and the lock; scan again
+            }
+        } finally {
+            if (!claimed) {
+                registry.unregister(vehicleHandle);
+            }
+        }
+    }
+    
+    /**
+     * Parks a vehicle and reports the outcome to a callback. Vehicles that need a single space
+     * only allocate the compact success result; the spaces are reported from it.
+     */
+    @Override
+    public boolean parkVehicle(String vehicleId, VehicleType vehicleType, ParkingCallback callback) {
+        return reportResult(parkVehicle(vehicleId, vehicleType), callback);
+    }
+    
+    /**
+     * Lock-free allocation for vehicles that need a single space.
+     * The space is claimed with a compare-and-set; the row lock is only taken afterwards,
+     * briefly, to update the occupancy index, the counters and the registry.
+     */
+    private ParkingResult claimSingleSpace(SingleSpaceParkingStrategy strategy, String vehicleId,
+                                           int vehicleHandle, VehicleType vehicleType, long ttlNanos) {
+        long fromHandle = SpaceHandle.of(0, 0);
+        long lostHandle = SpaceHandle.NONE;
+        while (true) {
+            AllocationEvent allocation = new AllocationEvent();
+            allocation.begin();
+            long handle = lostHandle == SpaceHandle.NONE
+                    ? strategy.findSpaces(occupancyIndex, fromHandle)
+                    : strategy.findSpacesExcluding(occupancyIndex, lostHandle);
+            allocation.record(vehicleType, strategy, occupancyIndex, fromHandle, handle);
+            if (handle == SpaceHandle.NONE) {
+                return strategy.getNoSpaceResult();
+            }
+            int rowIndex = SpaceHandle.rowIndex(handle);
+            int spaceIndex = SpaceHandle.spaceIndex(handle);
+            if (spaces.tryOccupy(rowIndex, spaceIndex, vehicleId, vehicleHandle)) {
+                rowLocks[rowIndex].lock();
+                try {
+                    if (ttlNanos > 0) {
+                        recordHeld(rowIndex, spaceIndex);
+                        scheduleHold(vehicleHandle, new long[]{handle}, ttlNanos);
+                        vehicleChanged(vehicleId);
+                        return ParkingResult.reserved(handle, 1);
+                    }
+                    recordOccupied(rowIndex, spaceIndex, vehicleType);
+                    try {
+                        recordPark(vehicleId, vehicleType, handle, 1);
+                    } catch (RuntimeException e) {
+                        vacateSpace(rowIndex, spaceIndex, vehicleType); // The caller releases the handle
+                        throw e;
+                    }
+                    registry.assignSpaces(vehicleHandle, handle, 1);
+                    vehicleChanged(vehicleId);
+                    return ParkingResult.success(handle);
+                } finally {
+                    rowLocks[rowIndex].unlock();
+                }
+            }
+            // Lost the race for this space; search again without it, since the winner may not have indexed it yet
+            lostHandle = handle;
+            fromHandle = SpaceHandle.of(rowIndex, spaceIndex + 1);
+        }
+    }
+    
+    /**
+     * Occupies or holds the given spaces if they are all still free, locking their rows in ascending order.
+     * Each space is still claimed with a compare-and-set, since single-space vehicles claim without the row lock.
+     * @param ttlNanos How long a reservation holds the spaces, or 0 to park
+     * @return true if the spaces were claimed, false if any of them was taken concurrently
+     */
+    private boolean tryClaimSpaces(long[] handles, String vehicleId, int vehicleHandle, VehicleType vehicleType,
+                                   long ttlNanos) {
+        int[] lockedRows = distinctRows(handles);
+        lockRows(lockedRows);
+        try {
+            for (int i = 0; i < handles.length; i++) {
+                if (!spaces.tryOccupy(SpaceHandle.rowIndex(handles[i]), SpaceHandle.spaceIndex(handles[i]),
+                                      vehicleId, vehicleHandle)) {
+                    // Release the spaces claimed so far
+                    for (int j = 0; j < i; j++) {
+                        spaces.vacate(SpaceHandle.rowIndex(handles[j]), SpaceHandle.spaceIndex(handles[j]));
+                    }
+                    return false;
+                }
+            }
+            if (ttlNanos > 0) {
+                for (long handle : handles) {
+                    recordHeld(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle));
+                }
+                scheduleHold(vehicleHandle, handles, ttlNanos);
+                vehicleChanged(vehicleId);
+                return true;
+            }
+            for (long handle : handles) {
+                recordOccupied(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle), vehicleType);
+            }
+            try {
+                recordPark(vehicleId, vehicleType, handles);
+            } catch (RuntimeException e) {
+                for (long handle : handles) {
+                    vacateSpace(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle), vehicleType);
+                }
+                throw e;
+            }
+            registry.assignSpaces(vehicleHandle, handles);
+            vehicleChanged(vehicleId);
+            return true;
+        } finally {
+            unlockRows(lockedRows);
+        }
+    }
+    
+    private void lockRows(int[] rowIndexes) {
+        for (int rowIndex : rowIndexes) {
+            rowLocks[rowIndex].lock();
+        }
+    }
+    
+    private void unlockRows(int[] rowIndexes) {
+        for (int i = rowIndexes.length - 1; i >= 0; i--) {
+            rowLocks[rowIndexes[i]].unlock();
+        }
+    }
+    
+    /**
+     * Locks every row in ascending order, which waits for the operations in progress to finish
+     * their updates and keeps new ones from starting theirs.
+     */
+    void lockAllRows() {
+        for (ReentrantLock rowLock : rowLocks) {
+            rowLock.lock();
+        }
+    }
+    
+    void unlockAllRows() {
+        for (int rowIndex = rowLocks.length - 1; rowIndex >= 0; rowIndex--) {
+            rowLocks[rowIndex].unlock();
+        }
+    }
+    
+    /**
+     * Gets the rows of the spaces assigned to a vehicle, in ascending order.
+     */
+    private int[] rowsOf(int vehicleHandle) {
+        long[] handles = new long[registry.getSpaceCount(vehicleHandle)];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = registry.getSpace(vehicleHandle, i);
+        }
+        return distinctRows(handles);
+    }
+    
+    private static int[] distinctRows(long[] handles) {
+        int firstRow = SpaceHandle.rowIndex(handles[0]);
+        boolean singleRow = true;
+        for (long handle : handles) {
+            singleRow &= SpaceHandle.rowIndex(handle) == firstRow;
+        }
+        if (singleRow) {
+            return new int[]{firstRow}; // Built-in strategies always allocate within one row
+        }
+        int[] rowIndexes = new int[handles.length];
+        for (int i = 0; i < handles.length; i++) {
+            rowIndexes[i] = SpaceHandle.rowIndex(handles[i]);
+        }
+        return Arrays.stream(rowIndexes).sorted().distinct().toArray();
+    }
+    
+    @Override
+    VehicleType doRemoveVehicle(String vehicleId) {
+        if (vehicleId == null || vehicleId.trim().isEmpty()) {
+            return null;
+        }
+        
+        vehicleId = vehicleId.trim();
+        checkJournal();
+        int vehicleHandle = registry.beginRemoval(vehicleId);
+        
+        if (vehicleHandle == VehicleRegistry.NO_VEHICLE) {
+            return null; // Vehicle not found or already being removed
+        }
+        
+        // Free all spaces occupied by this vehicle, then release its handle, with their rows locked
+        int[] lockedRows = rowsOf(vehicleHandle);
+        lockRows(lockedRows);
+        try {
+            recordRemoveOrCancel(vehicleId, vehicleHandle);
+            VehicleType vehicleType = registry.getType(vehicleHandle);
+            vacateVehicleSpaces(vehicleHandle);
+            registry.unregister(vehicleHandle);
+            vehicleChanged(vehicleId);
+            return vehicleType;
+        } finally {
+            unlockRows(lockedRows);
+        }
+    }
+    
+    @Override
+    ParkingResult convertHold(String vehicleId, int vehicleHandle) {
+        int[] lockedRows = rowsOf(vehicleHandle);
+        lockRows(lockedRows);
+        try {
+            return super.convertHold(vehicleId, vehicleHandle);
+        } finally {
+            unlockRows(lockedRows);
+        }
+    }
+    
+    @Override
+    void releaseHeldSpaces(int vehicleHandle) {
+        int[] lockedRows = rowsOf(vehicleHandle);
+        lockRows(lockedRows);
+        try {
+            super.releaseHeldSpaces(vehicleHandle);
+        } finally {
+            unlockRows(lockedRows);
+        }
+    }
+    
+    @Override
+    void scheduleHold(int vehicleHandle, long[] spaceHandles, long ttlNanos) {
+        // Marked held under the wheel lock, so an arriving vehicle can only claim a hold that is scheduled
+        reservationLock.lock();
+        try {
+            super.scheduleHold(vehicleHandle, spaceHandles, ttlNanos);
+        } finally {
+            reservationLock.unlock();
+        }
+    }
+    
+    @Override
+    void cancelHoldTimer(int vehicleHandle) {
+        reservationLock.lock();
+        try {
+            super.cancelHoldTimer(vehicleHandle);
+        } finally {
+            reservationLock.unlock();
+        }
+    }
+    
+    /**
+     * Releases the holds whose time to live has run out. A gate that finds another one
+     * advancing the timing wheel skips it rather than waiting. The expired holds are claimed
+     * under the wheel's lock and their spaces released once it is dropped, since row locks
+     * come before it.
+     */
+    @Override
+    public void expireReservations() {
+        if (reservations.isEmpty() || !reservationLock.tryLock()) {
+            return;
+        }
+        List<Integer> expired = new ArrayList<>();
+        try {
+            reservations.advance(clock.getAsLong(), vehicleHandle -> {
+                if (registry.beginRelease(vehicleHandle)) { // Not claimed by an arrival or cancellation meanwhile
+                    expired.add(vehicleHandle);
+                }
+            });
+        } finally {
+            reservationLock.unlock();
+        }
+        for (int vehicleHandle : expired) {
+            releaseHeldSpaces(vehicleHandle);
+        }
+    }
+    
+    /**
+     * Parks a batch of vehicles. Other gates may free spaces while the batch runs, so the
+     * per-type cursors of the single-threaded lot do not apply; each vehicle is parked in turn.
+     */
+    @Override
+    public List<ParkingResult> parkVehicles(List<Vehicle> vehicles) {
+        if (vehicles == null) {
+            return Collections.emptyList();
+        }
+        List<ParkingResult> results = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            results.add(vehicle == null
+                    ? MISSING_VEHICLE
+                    : parkVehicle(vehicle.getId(), vehicle.getType()));
+        }
+        return results;
+    }
+    
+    /**
+     * Closes the lot while gates, the snapshot publisher or a writer may still be using it. The off-heap
+     * memory of a {@link LotStorage#OFF_HEAP} lot is not freed at once but left to the garbage collector,
+     * so operations still in progress never read freed memory; later ones throw IllegalStateException.
+     */
+    @Override
+    public void close() {
+        spaces.close(true);
+    }
+    
+    /**
+     * Snapshots of a concurrent lot record the changes of every gate, and can be enabled
+     * and published from any thread; gates wait while a publish holds the row locks.
+     */
+    @Override
+    SnapshotPublisher newSnapshotPublisher() {
+        return new ConcurrentSnapshotPublisher(this);
+    }
+}
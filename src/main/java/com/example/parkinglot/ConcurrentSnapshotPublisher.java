@@ -0,0 +1,94 @@
+package com.example.parkinglot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot publisher for the concurrent lot, where gates change rows under different row locks and any
+ * thread may publish. Gates record a changed row by setting its bit in a bitmap, with an atomic OR only
+ * when the bit is not already set, and a changed vehicle in a concurrent set.
+ * A gate updates the rows, counters and registry of an operation while it holds the locks of the rows
+ * it changes, so the first scan and each publish lock every row, in ascending order like the gates do:
+ * the snapshot then holds every operation either in full or not at all, and publishes are serialized.
+ */
+class ConcurrentSnapshotPublisher extends SnapshotPublisher {
+    private static final VarHandle DIRTY_ROWS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] dirtyRowBits;
+    private final Set<String> dirtyVehicles = ConcurrentHashMap.newKeySet();
+    private final ConcurrentParkingLot lot;
+
+    ConcurrentSnapshotPublisher(ConcurrentParkingLot lot) {
+        super(lot);
+        this.lot = lot;
+        this.dirtyRowBits = new long[(lot.rowCounters.getRowCount() + 63) >>> 6];
+    }
+
+    @Override
+    void start() {
+        lot.lockAllRows();
+        try {
+            super.start();
+        } finally {
+            lot.unlockAllRows();
+        }
+    }
+
+    @Override
+    void rowChanged(int rowIndex) {
+        int word = rowIndex >>> 6;
+        long bit = 1L << rowIndex;
+        if (((long) DIRTY_ROWS.getVolatile(dirtyRowBits, word) & bit) == 0) {
+            DIRTY_ROWS.getAndBitwiseOr(dirtyRowBits, word, bit);
+        }
+    }
+
+    @Override
+    void vehicleChanged(String vehicleId) {
+        dirtyVehicles.add(vehicleId);
+    }
+
+    @Override
+    int takeDirtyRows() {
+        int count = 0;
+        for (int word = 0; word < dirtyRowBits.length; word++) {
+            if ((long) DIRTY_ROWS.getVolatile(dirtyRowBits, word) == 0) {
+                continue;
+            }
+            long bits = (long) DIRTY_ROWS.getAndSet(dirtyRowBits, word, 0L);
+            while (bits != 0) {
+                if (count == dirtyRows.length) {
+                    dirtyRows = Arrays.copyOf(dirtyRows, count * 2);
+                }
+                dirtyRows[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    Collection<String> takeDirtyVehicles() {
+        if (dirtyVehicles.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> taken = new ArrayList<>();
+        for (Iterator<String> vehicleIds = dirtyVehicles.iterator(); vehicleIds.hasNext(); ) {
+            taken.add(vehicleIds.next());
+            vehicleIds.remove();
+        }
+        return taken;
+    }
+
+    @Override
+    LotSnapshot publish() {
+        lot.lockAllRows();
+        try {
+            return super.publish();
+        } finally {
+            lot.unlockAllRows();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+
+/**
+ * Base for space stores that keep every space in one flat slot range: the spaces of a row
+ * are a contiguous run of slots, located through an int[] of row offsets. Each slot holds the
+ * space type as a byte and the occupant handle as an int; subclasses decide where the slots live.
+ * ParkingSpace instances are only created as read-only views when the rows are requested.
+ */
+abstract class FlatSpaceStore extends SpaceStore {
+    private static final SpaceType[] SPACE_TYPES = SpaceType.values();
+
+    private final int[] rowOffsets; // Row -> slot of its first space; one extra entry marks the end
+    private final VehicleRegistry registry;
+    private final List<List<ParkingSpace>> rowViews = new RowsView();
+
+    FlatSpaceStore(LotLayout layout, VehicleRegistry registry) {
+        this.registry = registry;
+        this.rowOffsets = new int[layout.getRowCount() + 1];
+        for (int rowIndex = 0; rowIndex < layout.getRowCount(); rowIndex++) {
+            rowOffsets[rowIndex + 1] = rowOffsets[rowIndex] + layout.getRowLength(rowIndex);
+        }
+    }
+
+    /**
+     * Writes the space types of an empty lot into the slots, one run at a time.
+     */
+    void initializeSlots(LotLayout layout, boolean parallel) {
+        initializeRows(layout.getRowCount(), parallel, rowIndex -> {
+            int slot = rowOffsets[rowIndex];
+            for (int run = 0; run < layout.getRunCount(rowIndex); run++) {
+                int runLength = layout.getRunLength(rowIndex, run);
+                fillSlots(slot, slot + runLength, (byte) layout.getRunType(rowIndex, run).ordinal());
+                slot += runLength;
+            }
+        });
+    }
+
+    int getSpaceCount() {
+        return rowOffsets[rowOffsets.length - 1];
+    }
+
+    abstract byte getType(int slot);
+
+    /**
+     * Initializes a range of slots as free spaces of the given type.
+     * @param fromSlot First slot, inclusive
+     * @param toSlot Last slot, exclusive
+     */
+    abstract void fillSlots(int fromSlot, int toSlot, byte type);
+
+    /**
+     * Reads the occupant handle of a slot with acquire semantics.
+     */
+    abstract int getOccupant(int slot);
+
+    /**
+     * Writes the occupant handle of a slot with release semantics.
+     */
+    abstract void setOccupant(int slot, int vehicleHandle);
+
+    abstract boolean compareAndSetOccupant(int slot, int expectedHandle, int vehicleHandle);
+
+    @Override
+    int getRowCount() {
+        return rowOffsets.length - 1;
+    }
+
+    @Override
+    int getRowLength(int rowIndex) {
+        return rowOffsets[rowIndex + 1] - rowOffsets[rowIndex];
+    }
+
+    @Override
+    SpaceType getType(int rowIndex, int spaceIndex) {
+        return SPACE_TYPES[getType(slot(rowIndex, spaceIndex))];
+    }
+
+    @Override
+    String getIdentifier(int rowIndex, int spaceIndex) {
+        slot(rowIndex, spaceIndex); // Bounds check
+        return SpaceHandle.format(rowIndex, spaceIndex);
+    }
+
+    @Override
+    boolean isOccupied(int rowIndex, int spaceIndex) {
+        return getOccupant(rowIndex, spaceIndex) != VehicleRegistry.NO_VEHICLE;
+    }
+
+    @Override
+    int getOccupant(int rowIndex, int spaceIndex) {
+        return getOccupant(slot(rowIndex, spaceIndex));
+    }
+
+    @Override
+    boolean tryOccupy(int rowIndex, int spaceIndex, String vehicleId, int vehicleHandle) {
+        return compareAndSetOccupant(slot(rowIndex, spaceIndex), VehicleRegistry.NO_VEHICLE, vehicleHandle);
+    }
+
+    @Override
+    void vacate(int rowIndex, int spaceIndex) {
+        setOccupant(slot(rowIndex, spaceIndex), VehicleRegistry.NO_VEHICLE);
+    }
+
+    @Override
+    int countOccupied(int rowIndex) {
+        int occupied = 0;
+        for (int slot = rowOffsets[rowIndex], end = rowOffsets[rowIndex + 1]; slot < end; slot++) {
+            if (getOccupant(slot) != VehicleRegistry.NO_VEHICLE) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    @Override
+    List<List<ParkingSpace>> getRows() {
+        return rowViews;
+    }
+
+    private int slot(int rowIndex, int spaceIndex) {
+        int offset = rowOffsets[rowIndex];
+        if (spaceIndex < 0 || spaceIndex >= rowOffsets[rowIndex + 1] - offset) {
+            throw new IndexOutOfBoundsException("Space index " + spaceIndex + " out of bounds for row " + (rowIndex + 1));
+        }
+        return offset + spaceIndex;
+    }
+
+    private final class RowsView extends AbstractList<List<ParkingSpace>> implements RandomAccess {
+        @Override
+        public List<ParkingSpace> get(int rowIndex) {
+            Objects.checkIndex(rowIndex, size());
+            return new RowView(rowIndex);
+        }
+
+        @Override
+        public int size() {
+            return getRowCount();
+        }
+    }
+
+    private final class RowView extends AbstractList<ParkingSpace> implements RandomAccess {
+        private final int rowIndex;
+
+        RowView(int rowIndex) {
+            this.rowIndex = rowIndex;
+        }
+
+        @Override
+        public ParkingSpace get(int spaceIndex) {
+            Objects.checkIndex(spaceIndex, size());
+            return new SpaceView(rowIndex, spaceIndex);
+        }
+
+        @Override
+        public int size() {
+            return getRowLength(rowIndex);
+        }
+    }
+
+    /**
+     * Read-only ParkingSpace view of one slot of the arrays. Strategies never occupy the spaces they
+     * are shown (see ParkingStrategy); the lot claims them through the store.
+     */
+    private final class SpaceView extends ParkingSpace {
+        private final int rowIndex;
+        private final int spaceIndex;
+
+        SpaceView(int rowIndex, int spaceIndex) {
+            this.rowIndex = rowIndex;
+            this.spaceIndex = spaceIndex;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return SpaceHandle.format(rowIndex, spaceIndex);
+        }
+
+        @Override
+        public SpaceType getType() {
+            return FlatSpaceStore.this.getType(rowIndex, spaceIndex);
+        }
+
+        @Override
+        public boolean isOccupied() {
+            return FlatSpaceStore.this.isOccupied(rowIndex, spaceIndex);
+        }
+
+        @Override
+        public String getOccupiedBy() {
+            int vehicleHandle = getOccupant(rowIndex, spaceIndex);
+            return vehicleHandle == VehicleRegistry.NO_VEHICLE ? null : registry.getId(vehicleHandle);
+        }
+
+        @Override
+        public boolean tryOccupy(String vehicleId) {
+            throw new UnsupportedOperationException("Space views of a flat lot store are read-only; the lot claims the spaces a strategy returns");
+        }
+
+        @Override
+        public void vacate() {
+            throw new UnsupportedOperationException("Space views of a flat lot store are read-only; the lot claims the spaces a strategy returns");
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load simulator that drives a parking lot with thousands of gates. Vehicles arrive at a
+ * configurable rate and vehicle mix, stay for a random dwell time and leave. The simulator reports
+ * throughput, latency percentiles, rejection rates and occupancy over time.
+ *
+ * <p>Arrivals are open-loop: each gate has its own Poisson arrival stream, and latency is measured
+ * from the scheduled arrival, not from when the request finally ran. A lot that falls behind
+ * therefore shows up as queueing in the latency, not as a lower arrival rate. Service time, from
+ * the moment the request starts, is reported separately.
+ *
+ * <p>A gate is a small task that reschedules itself on a shared scheduler rather than a thread,
+ * so thousands of gates run on a few worker threads. A {@link Mode#SINGLE single-threaded} lot is
+ * shared by the workers under one lock; a {@link Mode#CONCURRENT concurrent} lot is called directly.
+ *
+ * <pre>
+ * mvn exec:java -Dexec.mainClass=com.example.parkinglot.LoadSimulator \
+ *     -Dexec.args="--layout='200 * R x40, C x10' --mode=concurrent --gates=2000 --rate=5000 --dwell-ms=1500"
+ * </pre>
+ */
+public class LoadSimulator {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    /**
+     * How the simulated lot is shared between the worker threads.
+     */
+    public enum Mode {
+        SINGLE,
+        CONCURRENT
+    }
+
+    private final Options options;
+    private final ParkingLot lot;
+    private final Object lotLock; // Serializes calls to a single-threaded lot; null for a concurrent lot
+    private final ScheduledThreadPoolExecutor scheduler;
+    private volatile boolean arriving = true;
+
+    private final LongAdder[] arrivals = adders(VEHICLE_TYPES.length);
+    private final LongAdder[] parked = adders(VEHICLE_TYPES.length);
+    private final LongAdder[] removed = adders(VEHICLE_TYPES.length);
+    private final LongAdder[] rejected = adders(VEHICLE_TYPES.length);
+    private final ConcurrentHashMap<String, LongAdder> rejectionReasons = new ConcurrentHashMap<>();
+    private final LatencyHistogram parkLatency = new LatencyHistogram();
+    private volatile LatencyHistogram intervalParkLatency = new LatencyHistogram(); // Replaced every report interval
+    private final LatencyHistogram parkServiceTime = new LatencyHistogram();
+    private final LatencyHistogram removeLatency = new LatencyHistogram();
+    private final LatencyHistogram removeServiceTime = new LatencyHistogram();
+    private final List<OccupancySample> samples = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Creates a simulator for a new lot built from the options.
+     */
+    public LoadSimulator(Options options) {
+        this(options, options.mode == Mode.CONCURRENT
+                ? new ConcurrentParkingLot(options.layout, options.storage)
+                : new ParkingLot(options.layout, options.storage));
+    }
+
+    /**
+     * Creates a simulator for an existing empty lot. The lot is called concurrently only if it is a
+     * ConcurrentParkingLot, whatever the mode in the options.
+     */
+    public LoadSimulator(Options options, ParkingLot lot) {
+        if (options == null || lot == null) {
+            throw new IllegalArgumentException("Options and parking lot cannot be null");
+        }
+        this.options = options;
+        this.lot = lot;
+        this.lotLock = lot instanceof ConcurrentParkingLot ? null : new Object();
+        if (lotLock != null) {
+            lot.setSnapshotsEnabled(true); // The reporter reads snapshots rather than waiting for the gates
+        }
+        this.scheduler = new ScheduledThreadPoolExecutor(options.threads, runnable -> {
+            Thread thread = new Thread(runnable, "simulated-gates");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public ParkingLot getLot() {
+        return lot;
+    }
+
+    /**
+     * Runs the simulation for the configured duration. Vehicles still parked at the end stay in the lot.
+     * @param out Receives a line per report interval, or null for no progress output
+     * @return Report of the whole run
+     */
+    public Report run(PrintStream out) throws InterruptedException {
+        long start = System.nanoTime();
+        double gateRate = options.arrivalsPerSecond / options.gates;
+        for (int id = 0; id < options.gates; id++) {
+            Gate gate = new Gate(id, new SplittableRandom(options.seed * 31 + id), gateRate);
+            gate.nextArrival = start + gate.interArrivalNanos();
+            schedule(gate, gate.nextArrival);
+        }
+
+        long intervalNanos = options.reportInterval.toNanos();
+        long[] previous = new long[4];
+        if (out != null) {
+            out.printf("%8s %10s %10s %10s %9s %10s %12s%n",
+                    "time(s)", "arrivals/s", "parks/s", "removes/s", "rejected", "occupancy", "park p99(us)");
+        }
+        ScheduledFuture<?> reporter = scheduler.scheduleAtFixedRate(() -> {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] totals = {sum(arrivals), sum(parked), sum(removed), sum(rejected)};
+            double intervalSeconds = intervalNanos / 1e9;
+            LotStatus status = lotLock == null ? lot.getLotStatus() : lot.getSnapshot().getLotStatus();
+            LatencyHistogram interval = intervalParkLatency;
+            intervalParkLatency = new LatencyHistogram();
+            double occupancy = status.getTotalSpaces() == 0 ? 0 : (double) status.getOccupiedSpaces() / status.getTotalSpaces();
+            samples.add(new OccupancySample(seconds, status.getOccupiedSpaces(), occupancy));
+            if (out != null) {
+                long intervalArrivals = totals[0] - previous[0];
+                out.printf("%8.1f %10.0f %10.0f %10.0f %8.1f%% %9.1f%% %12.1f%n", seconds,
+                        intervalArrivals / intervalSeconds, (totals[1] - previous[1]) / intervalSeconds,
+                        (totals[2] - previous[2]) / intervalSeconds,
+                        intervalArrivals == 0 ? 0 : 100.0 * (totals[3] - previous[3]) / intervalArrivals,
+                        100 * occupancy, interval.summarize().getP99() / 1e3);
+            }
+            System.arraycopy(totals, 0, previous, 0, totals.length);
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        TimeUnit.NANOSECONDS.sleep(options.duration.toNanos());
+        arriving = false;
+        reporter.cancel(false);
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        return new Report((System.nanoTime() - start) / 1e9);
+    }
+
+    private void schedule(Runnable task, long atNanos) {
+        try {
+            scheduler.schedule(task, Math.max(0, atNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // The run is over; departures after the end are not simulated
+        }
+    }
+
+    private static long sum(LongAdder[] adders) {
+        long total = 0;
+        for (LongAdder adder : adders) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    private ParkingResult park(String vehicleId, VehicleType vehicleType) {
+        if (lotLock == null) {
+            return lot.parkVehicle(vehicleId, vehicleType);
+        }
+        synchronized (lotLock) {
+            ParkingResult result = lot.parkVehicle(vehicleId, vehicleType);
+            lot.publishSnapshot();
+            return result;
+        }
+    }
+
+    private boolean remove(String vehicleId) {
+        if (lotLock == null) {
+            return lot.removeVehicle(vehicleId);
+        }
+        synchronized (lotLock) {
+            boolean removed = lot.removeVehicle(vehicleId);
+            lot.publishSnapshot();
+            return removed;
+        }
+    }
+
+    /**
+     * A gate with its own arrival stream. Runs on one worker at a time, so its random source needs no locking.
+     */
+    private final class Gate implements Runnable {
+        private final int id;
+        private final SplittableRandom random;
+        private final double meanInterArrivalNanos;
+        private long nextArrival;
+        private int sequence;
+
+        Gate(int id, SplittableRandom random, double arrivalsPerSecond) {
+            this.id = id;
+            this.random = random;
+            this.meanInterArrivalNanos = 1e9 / arrivalsPerSecond;
+        }
+
+        long interArrivalNanos() {
+            return exponential(random, meanInterArrivalNanos);
+        }
+
+        @Override
+        public void run() {
+            if (!arriving) {
+                return;
+            }
+            long scheduled = nextArrival;
+            VehicleType vehicleType = pickType(random);
+            String vehicleId = "G" + id + "-" + sequence++;
+            long dwellNanos = exponential(random, options.meanDwellMillis * 1e6);
+
+            long start = System.nanoTime();
+            ParkingResult result = park(vehicleId, vehicleType);
+            long end = System.nanoTime();
+            parkLatency.record(end - scheduled);
+            intervalParkLatency.record(end - scheduled);
+            parkServiceTime.record(end - start);
+            arrivals[vehicleType.ordinal()].increment();
+            if (result.isSuccess()) {
+                parked[vehicleType.ordinal()].increment();
+                long departure = end + dwellNanos;
+                schedule(() -> depart(vehicleId, vehicleType, departure), departure);
+            } else {
+                rejected[vehicleType.ordinal()].increment();
+                rejectionReasons.computeIfAbsent(result.getMessage(), reason -> new LongAdder()).increment();
+            }
+
+            nextArrival += interArrivalNanos();
+            schedule(this, nextArrival);
+        }
+    }
+
+    private void depart(String vehicleId, VehicleType vehicleType, long scheduled) {
+        long start = System.nanoTime();
+        boolean wasRemoved = remove(vehicleId);
+        long end = System.nanoTime();
+        removeLatency.record(end - scheduled);
+        removeServiceTime.record(end - start);
+        if (wasRemoved) {
+            removed[vehicleType.ordinal()].increment();
+        }
+    }
+
+    private VehicleType pickType(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < VEHICLE_TYPES.length; i++) {
+            roll -= options.mix[i];
+            if (roll < 0) {
+                return VEHICLE_TYPES[i];
+            }
+        }
+        return VEHICLE_TYPES[VEHICLE_TYPES.length - 1];
+    }
+
+    private static long exponential(SplittableRandom random, double mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    /**
+     * Occupancy of the lot at one point of the run.
+     */
+    public static final class OccupancySample {
+        private final double seconds;
+        private final int occupiedSpaces;
+        private final double occupancy;
+
+        OccupancySample(double seconds, int occupiedSpaces, double occupancy) {
+            this.seconds = seconds;
+            this.occupiedSpaces = occupiedSpaces;
+            this.occupancy = occupancy;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        public int getOccupiedSpaces() {
+            return occupiedSpaces;
+        }
+
+        /**
+         * Gets the fraction of all spaces that are occupied, between 0 and 1.
+         */
+        public double getOccupancy() {
+            return occupancy;
+        }
+    }
+
+    /**
+     * Results of a simulation run.
+     */
+    public final class Report {
+        private final double elapsedSeconds;
+        private final long[] arrivalCounts = new long[VEHICLE_TYPES.length];
+        private final long[] parkedCounts = new long[VEHICLE_TYPES.length];
+        private final long[] removedCounts = new long[VEHICLE_TYPES.length];
+        private final long[] rejectedCounts = new long[VEHICLE_TYPES.length];
+        private final Map<String, Long> rejectionCounts = new TreeMap<>();
+        private final LatencySummary parkLatencySummary = parkLatency.summarize();
+        private final LatencySummary parkServiceSummary = parkServiceTime.summarize();
+        private final LatencySummary removeLatencySummary = removeLatency.summarize();
+        private final LatencySummary removeServiceSummary = removeServiceTime.summarize();
+        private final List<OccupancySample> occupancySamples = List.copyOf(samples);
+        private final LotStatus finalStatus = lot.getLotStatus();
+
+        private Report(double elapsedSeconds) {
+            this.elapsedSeconds = elapsedSeconds;
+            for (int i = 0; i < VEHICLE_TYPES.length; i++) {
+                arrivalCounts[i] = arrivals[i].sum();
+                parkedCounts[i] = parked[i].sum();
+                removedCounts[i] = removed[i].sum();
+                rejectedCounts[i] = rejected[i].sum();
+            }
+            rejectionReasons.forEach((reason, count) -> rejectionCounts.put(reason, count.sum()));
+        }
+
+        public double getElapsedSeconds() {
+            return elapsedSeconds;
+        }
+
+        public long getArrivals(VehicleType vehicleType) {
+            return arrivalCounts[vehicleType.ordinal()];
+        }
+
+        public long getParked(VehicleType vehicleType) {
+            return parkedCounts[vehicleType.ordinal()];
+        }
+
+        public long getRemoved(VehicleType vehicleType) {
+            return removedCounts[vehicleType.ordinal()];
+        }
+
+        public long getRejected(VehicleType vehicleType) {
+            return rejectedCounts[vehicleType.ordinal()];
+        }
+
+        /**
+         * Gets the fraction of arrivals of a vehicle type that were rejected, between 0 and 1.
+         */
+        public double getRejectionRate(VehicleType vehicleType) {
+            long arrived = getArrivals(vehicleType);
+            return arrived == 0 ? 0 : (double) getRejected(vehicleType) / arrived;
+        }
+
+        public Map<String, Long> getRejectionReasons() {
+            return Collections.unmodifiableMap(rejectionCounts);
+        }
+
+        /**
+         * Gets the park and remove requests completed per second over the run.
+         */
+        public double getThroughput() {
+            long operations = 0;
+            for (int i = 0; i < VEHICLE_TYPES.length; i++) {
+                operations += arrivalCounts[i];
+            }
+            return (operations + removeLatencySummary.getCount()) / elapsedSeconds;
+        }
+
+        /**
+         * Gets the park latency measured from the scheduled arrival, including time spent waiting for a worker.
+         */
+        public LatencySummary getParkLatency() {
+            return parkLatencySummary;
+        }
+
+        public LatencySummary getParkServiceTime() {
+            return parkServiceSummary;
+        }
+
+        /**
+         * Gets the remove latency measured from the scheduled departure.
+         */
+        public LatencySummary getRemoveLatency() {
+            return removeLatencySummary;
+        }
+
+        public LatencySummary getRemoveServiceTime() {
+            return removeServiceSummary;
+        }
+
+        public List<OccupancySample> getOccupancySamples() {
+            return occupancySamples;
+        }
+
+        public LotStatus getFinalStatus() {
+            return finalStatus;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Ran %.1f s: %.0f operations/s%n", elapsedSeconds, getThroughput()));
+            for (VehicleType vehicleType : VEHICLE_TYPES) {
+                sb.append(String.format("  %-10s arrivals=%d parked=%d removed=%d rejected=%.2f%%%n", vehicleType,
+                        getArrivals(vehicleType), getParked(vehicleType), getRemoved(vehicleType),
+                        100 * getRejectionRate(vehicleType)));
+            }
+            rejectionCounts.forEach((reason, count) -> sb.append(String.format("  rejected %d: %s%n", count, reason)));
+            sb.append(formatLatency("park latency", parkLatencySummary));
+            sb.append(formatLatency("park service", parkServiceSummary));
+            sb.append(formatLatency("remove latency", removeLatencySummary));
+            sb.append(formatLatency("remove service", removeServiceSummary));
+            sb.append(String.format("  final occupancy %d/%d spaces%n", finalStatus.getOccupiedSpaces(), finalStatus.getTotalSpaces()));
+            return sb.toString();
+        }
+
+        private String formatLatency(String label, LatencySummary summary) {
+            return String.format("  %-15s p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n", label,
+                    summary.getP50() / 1e3, summary.getP99() / 1e3, summary.getP999() / 1e3, summary.getMax() / 1e3);
+        }
+    }
+
+    /**
+     * Settings of a simulation run, with defaults for a 10,000-space lot under steady load.
+     */
+    public static final class Options {
+        private LotLayout layout = LotLayout.parse("200 * R x40, C x10");
+        private Mode mode = Mode.CONCURRENT;
+        private LotStorage storage = LotStorage.COMPACT;
+        private int gates = 2000;
+        private double arrivalsPerSecond = 5000;
+        private long meanDwellMillis = 1500;
+        private int[] mix = {20, 70, 10}; // Percent of motorcycles, cars and vans
+        private Duration duration = Duration.ofSeconds(10);
+        private Duration reportInterval = Duration.ofSeconds(1);
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private long seed = 1;
+
+        /**
+         * Parses command line options such as "--gates=2000 --rate=5000 --mix=20,70,10".
+         * @throws IllegalArgumentException for an unknown option or invalid value
+         */
+        public static Options parse(String... args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+                }
+                String name = arg.substring(2, equals);
+                String value = arg.substring(equals + 1);
+                try {
+                    switch (name) {
+                        case "layout": options.layout(LotLayout.parse(value.replace("'", ""))); break;
+                        case "mode": options.mode(Mode.valueOf(value.toUpperCase(Locale.ROOT))); break;
+                        case "storage": options.storage(LotStorage.valueOf(value.toUpperCase(Locale.ROOT))); break;
+                        case "gates": options.gates(Integer.parseInt(value)); break;
+                        case "rate": options.arrivalsPerSecond(Double.parseDouble(value)); break;
+                        case "dwell-ms": options.meanDwellMillis(Long.parseLong(value)); break;
+                        case "mix": options.mix(Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()); break;
+                        case "duration": options.duration(Duration.ofMillis((long) (Double.parseDouble(value) * 1000))); break;
+                        case "interval": options.reportInterval(Duration.ofMillis((long) (Double.parseDouble(value) * 1000))); break;
+                        case "threads": options.threads(Integer.parseInt(value)); break;
+                        case "seed": options.seed(Long.parseLong(value)); break;
+                        default: throw new IllegalArgumentException("Unknown option: --" + name);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for --" + name + ": " + value, e);
+                }
+            }
+            return options;
+        }
+
+        public Options layout(LotLayout layout) {
+            if (layout == null) {
+                throw new IllegalArgumentException("Lot layout cannot be null");
+            }
+            this.layout = layout;
+            return this;
+        }
+
+        public Options mode(Mode mode) {
+            if (mode == null) {
+                throw new IllegalArgumentException("Mode cannot be null");
+            }
+            this.mode = mode;
+            return this;
+        }
+
+        public Options storage(LotStorage storage) {
+            if (storage == null) {
+                throw new IllegalArgumentException("Lot storage cannot be null");
+            }
+            this.storage = storage;
+            return this;
+        }
+
+        public Options gates(int gates) {
+            this.gates = positive(gates, "Gate count");
+            return this;
+        }
+
+        /**
+         * Sets the total arrival rate of all gates, in vehicles per second.
+         */
+        public Options arrivalsPerSecond(double arrivalsPerSecond) {
+            if (!(arrivalsPerSecond > 0)) {
+                throw new IllegalArgumentException("Arrival rate must be positive");
+            }
+            this.arrivalsPerSecond = arrivalsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the mean of the exponentially distributed time a vehicle stays parked.
+         */
+        public Options meanDwellMillis(long meanDwellMillis) {
+            this.meanDwellMillis = positive(meanDwellMillis, "Dwell time");
+            return this;
+        }
+
+        /**
+         * Sets the percentage of motorcycles, cars and vans among the arrivals.
+         */
+        public Options mix(int... percentages) {
+            if (percentages == null || percentages.length != VEHICLE_TYPES.length
+                    || Arrays.stream(percentages).anyMatch(p -> p < 0) || Arrays.stream(percentages).sum() != 100) {
+                throw new IllegalArgumentException("Vehicle mix must be " + VEHICLE_TYPES.length
+                        + " non-negative percentages adding up to 100");
+            }
+            this.mix = percentages.clone();
+            return this;
+        }
+
+        public Options duration(Duration duration) {
+            this.duration = positive(duration, "Duration");
+            return this;
+        }
+
+        public Options reportInterval(Duration reportInterval) {
+            this.reportInterval = positive(reportInterval, "Report interval");
+            return this;
+        }
+
+        public Options threads(int threads) {
+            this.threads = positive(threads, "Thread count");
+            return this;
+        }
+
+        public Options seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        private static int positive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static long positive(long value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+
+        private static Duration positive(Duration value, String name) {
+            if (value == null || value.isZero() || value.isNegative()) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return value;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Options options = Options.parse(args);
+        LoadSimulator simulator = new LoadSimulator(options);
+        System.out.printf("Simulating %d gates at %.0f arrivals/s against a %s lot of %d spaces for %s%n",
+                options.gates, options.arrivalsPerSecond, options.mode, options.layout.getTotalSpaces(), options.duration);
+        Report report = simulator.run(System.out);
+        System.out.println();
+        System.out.print(report);
+        simulator.getLot().close();
+    }
+}
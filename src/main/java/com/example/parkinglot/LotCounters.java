@@ -0,0 +1,103 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Occupancy counters maintained incrementally by the occupy/vacate paths,
+ * so the lot status can be built in constant time.
+ * Occupancy counters are atomic so they stay exact when rows are updated from several threads.
+ * Spaces held by reservations are counted apart from occupied spaces until the vehicle arrives.
+ */
+class LotCounters {
+    private final int[] totalBySpaceType = new int[SpaceType.values().length];
+    private final AtomicIntegerArray occupiedBySpaceType = new AtomicIntegerArray(SpaceType.values().length);
+    private final AtomicIntegerArray occupiedByVehicleType = new AtomicIntegerArray(VehicleType.values().length);
+    private final AtomicIntegerArray heldBySpaceType = new AtomicIntegerArray(SpaceType.values().length);
+
+    void addSpaces(SpaceType spaceType, int count) {
+        totalBySpaceType[spaceType.ordinal()] += count;
+    }
+
+    void spaceOccupied(SpaceType spaceType, VehicleType vehicleType) {
+        occupiedBySpaceType.incrementAndGet(spaceType.ordinal());
+        occupiedByVehicleType.incrementAndGet(vehicleType.ordinal());
+    }
+
+    void spaceVacated(SpaceType spaceType, VehicleType vehicleType) {
+        occupiedBySpaceType.decrementAndGet(spaceType.ordinal());
+        occupiedByVehicleType.decrementAndGet(vehicleType.ordinal());
+    }
+
+    void spaceHeld(SpaceType spaceType) {
+        heldBySpaceType.incrementAndGet(spaceType.ordinal());
+    }
+
+    void holdReleased(SpaceType spaceType) {
+        heldBySpaceType.decrementAndGet(spaceType.ordinal());
+    }
+
+    /**
+     * Counts a held space as occupied once its vehicle has arrived.
+     */
+    void holdConverted(SpaceType spaceType, VehicleType vehicleType) {
+        occupiedBySpaceType.incrementAndGet(spaceType.ordinal());
+        occupiedByVehicleType.incrementAndGet(vehicleType.ordinal());
+        heldBySpaceType.decrementAndGet(spaceType.ordinal());
+    }
+
+    int getOccupiedSpaces(VehicleType vehicleType) {
+        return occupiedByVehicleType.get(vehicleType.ordinal());
+    }
+
+    int getTotalSpaces(SpaceType spaceType) {
+        return totalBySpaceType[spaceType.ordinal()];
+    }
+
+    int getOccupiedSpaces(SpaceType spaceType) {
+        return occupiedBySpaceType.get(spaceType.ordinal());
+    }
+
+    int getHeldSpaces(SpaceType spaceType) {
+        return heldBySpaceType.get(spaceType.ordinal());
+    }
+
+    int getAvailableSpaces() {
+        int available = 0;
+        for (int i = 0; i < totalBySpaceType.length; i++) {
+            available += totalBySpaceType[i] - occupiedBySpaceType.get(i) - heldBySpaceType.get(i);
+        }
+        return available;
+    }
+
+    LotStatus toLotStatus() {
+        int totalCompactSpaces = totalBySpaceType[SpaceType.COMPACT.ordinal()];
+        int totalRegularSpaces = totalBySpaceType[SpaceType.REGULAR.ordinal()];
+        int occupiedCompactSpaces = occupiedBySpaceType.get(SpaceType.COMPACT.ordinal());
+        int occupiedRegularSpaces = occupiedBySpaceType.get(SpaceType.REGULAR.ordinal());
+        return buildStatus(totalCompactSpaces, totalRegularSpaces,
+                occupiedCompactSpaces, occupiedRegularSpaces, getOccupiedSpaces(VehicleType.VAN),
+                getHeldSpaces(SpaceType.COMPACT), getHeldSpaces(SpaceType.REGULAR));
+    }
+
+    static LotStatus buildStatus(int totalCompactSpaces, int totalRegularSpaces,
+                                 int occupiedCompactSpaces, int occupiedRegularSpaces,
+                                 int vanOccupiedSpaces, int heldCompactSpaces, int heldRegularSpaces) {
+        int totalSpaces = totalCompactSpaces + totalRegularSpaces;
+        int occupiedSpaces = occupiedCompactSpaces + occupiedRegularSpaces;
+        int availableCompactSpaces = totalCompactSpaces - occupiedCompactSpaces - heldCompactSpaces;
+        int availableRegularSpaces = totalRegularSpaces - occupiedRegularSpaces - heldRegularSpaces;
+        int availableSpaces = availableCompactSpaces + availableRegularSpaces;
+
+        boolean isFull = availableSpaces == 0;
+        boolean isEmpty = availableSpaces == totalSpaces;
+        boolean allCompactOccupied = totalCompactSpaces > 0 && availableCompactSpaces == 0;
+        boolean allRegularOccupied = totalRegularSpaces > 0 && availableRegularSpaces == 0;
+
+        return new LotStatus(totalSpaces, totalCompactSpaces, totalRegularSpaces,
+                           availableSpaces, availableCompactSpaces, availableRegularSpaces,
+                           occupiedSpaces, occupiedCompactSpaces, occupiedRegularSpaces,
+                           vanOccupiedSpaces, heldCompactSpaces, heldRegularSpaces,
+                           isFull, isEmpty, allCompactOccupied, allRegularOccupied);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+
+/**
+ * Immutable view of a parking lot's occupancy as of one epoch, published by the thread that updates the lot
+ * (or by any thread, for a {@link ConcurrentParkingLot}).
+ * Any number of threads can read it without blocking parks and removes. Successive snapshots share the rows
+ * and vehicles that did not change between them: both are kept in chunks of 64, and a publish only copies
+ * the chunks that hold a changed row or vehicle.
+ *
+ * @see ParkingLot#publishSnapshot()
+ */
+public final class LotSnapshot {
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long epoch;
+    private final LotStatus status;
+    private final int rowCount;
+    private final RowStatus[][] rows; // By chunk
+    private final Map<String, List<String>>[][] vehicles; // Space IDs by vehicle ID, by chunk of hash segments
+    private final int vehicleCount;
+
+    LotSnapshot(long epoch, LotStatus status, int rowCount, RowStatus[][] rows,
+                Map<String, List<String>>[][] vehicles, int vehicleCount) {
+        this.epoch = epoch;
+        this.status = status;
+        this.rowCount = rowCount;
+        this.rows = rows;
+        this.vehicles = vehicles;
+        this.vehicleCount = vehicleCount;
+    }
+
+    /**
+     * Gets the number of the publish that produced this snapshot, counting from 1 for the first.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public LotStatus getLotStatus() {
+        return status;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the number of vehicles that are parked or hold a reservation.
+     */
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    /**
+     * Gets a summary of occupied and available spots per row, in the format of {@link ParkingLot#getRowSummaries()}.
+     */
+    public List<String> getRowSummaries() {
+        List<String> summaries = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            summaries.add(rows[i >>> CHUNK_SHIFT][i & CHUNK_MASK].getSummary());
+        }
+        return summaries;
+    }
+
+    /**
+     * Gets the occupancy of every row by space type, as of this snapshot.
+     */
+    public List<RowStatus> getRowStatuses() {
+        List<RowStatus> statuses = new ArrayList<>(rowCount);
+        for (RowStatus[] chunk : rows) {
+            statuses.addAll(Arrays.asList(chunk));
+        }
+        return statuses;
+    }
+
+    /**
+     * Gets the spaces occupied by a vehicle, or held for it by a reservation, as of this snapshot.
+     * @return List of space identifiers, or empty list if vehicle not found
+     */
+    public List<String> getVehicleSpaces(String vehicleId) {
+        if (vehicleId == null) {
+            return Collections.emptyList();
+        }
+        vehicleId = vehicleId.trim();
+        int segment = segmentOf(vehicleId, vehicles.length * CHUNK_SIZE - 1);
+        List<String> spaces = vehicles[segment >>> CHUNK_SHIFT][segment & CHUNK_MASK].get(vehicleId);
+        return spaces != null ? spaces : Collections.emptyList();
+    }
+
+    static int segmentOf(String vehicleId, int mask) {
+        int hash = vehicleId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LotSnapshot{epoch=%d, vehicles=%d, status=%s}", epoch, vehicleCount, status);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.parkinglot;
+
+/**
+ * Storage layouts for the spaces of a parking lot.
+ */
+public enum LotStorage {
+    /** One ParkingSpace object per space, in a list per row. */
+    OBJECTS,
+    /**
+     * Struct-of-arrays layout: a byte per space type and an int per occupant handle, in flat arrays
+     * indexed through per-row offsets. ParkingSpace objects are only created as views on request.
+     */
+    COMPACT,
+    /**
+     * The COMPACT layout kept in a direct buffer outside the Java heap, so the heap size and
+     * garbage collection pauses do not grow with the number of spaces. The memory is released
+     * when the lot is closed.
+     */
+    OFF_HEAP
+}
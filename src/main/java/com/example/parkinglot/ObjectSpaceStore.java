@@ -0,0 +1,93 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+
+/**
+ * Space store holding one ParkingSpace object per space, in a list per row.
+ * The ParkingSpace is the source of truth for occupancy; the occupant handles are kept alongside it.
+ */
+class ObjectSpaceStore extends SpaceStore {
+    private final List<List<ParkingSpace>> rows;
+    private final int[][] occupants; // Row -> space index -> vehicle handle
+
+    ObjectSpaceStore(LotLayout layout, boolean parallel) {
+        int rowCount = layout.getRowCount();
+        this.rows = new ArrayList<>(Collections.nCopies(rowCount, null));
+        this.occupants = new int[rowCount][];
+        initializeRows(rowCount, parallel, rowIndex -> {
+            List<ParkingSpace> row = new ArrayList<>(layout.getRowLength(rowIndex));
+            for (int run = 0; run < layout.getRunCount(rowIndex); run++) {
+                SpaceType spaceType = layout.getRunType(rowIndex, run);
+                for (int i = layout.getRunLength(rowIndex, run); i > 0; i--) {
+                    // Identifiers are formatted on first use rather than for every space up front
+                    row.add(new ParkingSpace(rowIndex, row.size(), spaceType));
+                }
+            }
+            rows.set(rowIndex, row); // Rows are set in place, so parallel initializers never resize the list
+            occupants[rowIndex] = new int[row.size()];
+            Arrays.fill(occupants[rowIndex], VehicleRegistry.NO_VEHICLE);
+        });
+    }
+
+    @Override
+    int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    int getRowLength(int rowIndex) {
+        return rows.get(rowIndex).size();
+    }
+
+    @Override
+    SpaceType getType(int rowIndex, int spaceIndex) {
+        return rows.get(rowIndex).get(spaceIndex).getType();
+    }
+
+    @Override
+    String getIdentifier(int rowIndex, int spaceIndex) {
+        return rows.get(rowIndex).get(spaceIndex).getIdentifier();
+    }
+
+    @Override
+    boolean isOccupied(int rowIndex, int spaceIndex) {
+        return rows.get(rowIndex).get(spaceIndex).isOccupied();
+    }
+
+    @Override
+    int getOccupant(int rowIndex, int spaceIndex) {
+        return occupants[rowIndex][spaceIndex];
+    }
+
+    @Override
+    boolean tryOccupy(int rowIndex, int spaceIndex, String vehicleId, int vehicleHandle) {
+        if (!rows.get(rowIndex).get(spaceIndex).tryOccupy(vehicleId)) {
+            return false;
+        }
+        occupants[rowIndex][spaceIndex] = vehicleHandle;
+        return true;
+    }
+
+    @Override
+    void vacate(int rowIndex, int spaceIndex) {
+        occupants[rowIndex][spaceIndex] = VehicleRegistry.NO_VEHICLE;
+        rows.get(rowIndex).get(spaceIndex).vacate();
+    }
+
+    @Override
+    int countOccupied(int rowIndex) {
+        int occupied = 0;
+        for (ParkingSpace space : rows.get(rowIndex)) {
+            if (space.isOccupied()) {
+                occupied++;
+            }
+        }
+        return occupied;
+    }
+
+    @Override
+    List<List<ParkingSpace>> getRows() {
+        return rows;
+    }
+}
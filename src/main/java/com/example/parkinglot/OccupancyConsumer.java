@@ -0,0 +1,22 @@
+package com.example.parkinglot;
+
+/**
+ * Receives the occupancy changes published on an {@link OccupancyFeed}, in sequence order.
+ */
+@FunctionalInterface
+public interface OccupancyConsumer {
+    /**
+     * Called for each change. The event is reused once the call returns.
+     * @param event The change
+     */
+    void onEvent(OccupancyEvent event);
+
+    /**
+     * Called when the consumer fell so far behind that the feed overwrote events it had not read yet.
+     * The consumer continues with the oldest event still in the feed; a consumer that keeps derived
+     * state should rebuild it from the lot.
+     * @param count Number of events skipped
+     */
+    default void onEventsLost(long count) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.SpaceHandle;
+import com.example.parkinglot.model.VehicleType;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A vehicle parking in or leaving the lot, as published on an {@link OccupancyFeed}.
+ * Events are preallocated and reused: an event passed to a consumer is only valid during the
+ * call, so consumers copy what they need to keep.
+ */
+public final class OccupancyEvent {
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(OccupancyEvent.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static final long UNPUBLISHED = -1; // Sequence of a ring slot that is empty or being written
+
+    public enum Kind {
+        PARKED,
+        REMOVED
+    }
+
+    @SuppressWarnings("unused") // Accessed through SEQUENCE
+    private long sequence = UNPUBLISHED;
+    Kind kind;
+    String vehicleId;
+    VehicleType vehicleType;
+    long timestamp;
+    int spaceCount;
+    long[] spaceHandles = new long[2]; // Grown for strategies that allocate more spaces
+
+    OccupancyEvent() {
+    }
+
+    public long getSequence() {
+        return (long) SEQUENCE.getOpaque(this);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    /**
+     * Gets the wall-clock time of the change, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getSpaceCount() {
+        return spaceCount;
+    }
+
+    /**
+     * Gets the handle of a space taken or freed by the vehicle, see {@link SpaceHandle}.
+     */
+    public long getSpaceHandle(int index) {
+        return spaceHandles[index];
+    }
+
+    /**
+     * Formats the "R{row}-{space}" identifier of a space taken or freed by the vehicle.
+     */
+    public String getSpaceIdentifier(int index) {
+        long handle = spaceHandles[index];
+        return SpaceHandle.format(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle));
+    }
+
+    /**
+     * Prepares a ring slot for writing, so readers racing with the write see it as unpublished.
+     */
+    void beginWrite(Kind kind, String vehicleId, VehicleType vehicleType, int spaceCount) {
+        SEQUENCE.setOpaque(this, UNPUBLISHED);
+        VarHandle.storeStoreFence();
+        this.kind = kind;
+        this.vehicleId = vehicleId;
+        this.vehicleType = vehicleType;
+        this.timestamp = System.currentTimeMillis();
+        this.spaceCount = spaceCount;
+        if (spaceHandles.length < spaceCount) {
+            spaceHandles = new long[spaceCount];
+        }
+    }
+
+    void publish(long sequence) {
+        SEQUENCE.setRelease(this, sequence);
+    }
+
+    long acquireSequence() {
+        return (long) SEQUENCE.getAcquire(this);
+    }
+
+    /**
+     * Copies a ring slot read with {@link #acquireSequence()}. The copy is only valid if the slot
+     * still has the same sequence afterwards, since the producer may overwrite it meanwhile.
+     * @return true if the copy is consistent
+     */
+    boolean copyFrom(OccupancyEvent slot, long sequence) {
+        kind = slot.kind;
+        vehicleId = slot.vehicleId;
+        vehicleType = slot.vehicleType;
+        timestamp = slot.timestamp;
+        long[] handles = slot.spaceHandles;
+        int count = Math.min(slot.spaceCount, handles.length);
+        if (spaceHandles.length < count) {
+            spaceHandles = new long[count];
+        }
+        System.arraycopy(handles, 0, spaceHandles, 0, count);
+        spaceCount = count;
+        VarHandle.loadLoadFence();
+        if (slot.getSequence() != sequence) {
+            return false;
+        }
+        SEQUENCE.setOpaque(this, sequence);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "OccupancyEvent{sequence=" + getSequence() + ", kind=" + kind + ", vehicleId='" + vehicleId
+                + "', vehicleType=" + vehicleType + ", timestamp=" + timestamp
+                + ", spaces=" + Arrays.toString(Arrays.copyOf(spaceHandles, spaceCount)) + "}";
+    }
+}
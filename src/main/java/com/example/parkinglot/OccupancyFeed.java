@@ -0,0 +1,232 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.SpaceHandle;
+import com.example.parkinglot.model.VehicleType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the occupancy changes of a parking lot to consumers such as signage, billing and analytics,
+ * so they no longer need to poll the lot status.
+ *
+ * <p>Changes are written into a preallocated ring of reusable events, so publishing does not allocate
+ * on the park and remove paths. The producer never waits for consumers: each consumer reads the ring
+ * through its own {@link Cursor}, and a consumer that falls a full ring behind skips the overwritten
+ * events and is told how many it lost. Events of one vehicle are published in order, a park before
+ * its remove, and the remove of a vehicle before the park of the next vehicle in the same spaces.
+ *
+ * <p>A single-threaded lot is the only producer of its feed. The gates of a ConcurrentParkingLot
+ * claim sequence numbers with an atomic increment; the ring must then be larger than the number of gates.
+ */
+public class OccupancyFeed {
+    private static final int POLL_BATCH = 256;
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final OccupancyEvent[] ring;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private ParkingLot lot;
+
+    /**
+     * Creates a feed that keeps the given number of recent events.
+     * @param capacity Size of the ring, a power of two
+     */
+    public OccupancyFeed(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Feed capacity must be a power of two, at least 2");
+        }
+        this.ring = new OccupancyEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new OccupancyEvent();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publishes the changes of a lot from now on. Must be called before the lot is shared between threads.
+     * @throws IllegalStateException if the feed or the lot is already attached
+     */
+    public void attach(ParkingLot parkingLot) {
+        if (lot != null) {
+            throw new IllegalStateException("Feed is already attached to a parking lot");
+        }
+        if (parkingLot.occupancyFeed != null) {
+            throw new IllegalStateException("Parking lot already has an occupancy feed");
+        }
+        lot = parkingLot;
+        parkingLot.occupancyFeed = this;
+    }
+
+    public ParkingLot getLot() {
+        return lot;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Gets the number of events published so far, which is also the sequence number of the next event.
+     */
+    public long getPublishedCount() {
+        return nextSequence.get();
+    }
+
+    void publishPark(String vehicleId, VehicleType vehicleType, long firstSpace, int spaceCount) {
+        long sequence = nextSequence.getAndIncrement();
+        OccupancyEvent slot = ring[(int) sequence & mask];
+        slot.beginWrite(OccupancyEvent.Kind.PARKED, vehicleId, vehicleType, spaceCount);
+        int rowIndex = SpaceHandle.rowIndex(firstSpace);
+        int spaceIndex = SpaceHandle.spaceIndex(firstSpace);
+        for (int i = 0; i < spaceCount; i++) {
+            slot.spaceHandles[i] = SpaceHandle.of(rowIndex, spaceIndex + i);
+        }
+        slot.publish(sequence);
+    }
+
+    void publishPark(String vehicleId, VehicleType vehicleType, long[] spaceHandles) {
+        long sequence = nextSequence.getAndIncrement();
+        OccupancyEvent slot = ring[(int) sequence & mask];
+        slot.beginWrite(OccupancyEvent.Kind.PARKED, vehicleId, vehicleType, spaceHandles.length);
+        System.arraycopy(spaceHandles, 0, slot.spaceHandles, 0, spaceHandles.length);
+        slot.publish(sequence);
+    }
+
+    void publishRemove(String vehicleId, VehicleRegistry registry, int vehicleHandle) {
+        long sequence = nextSequence.getAndIncrement();
+        OccupancyEvent slot = ring[(int) sequence & mask];
+        int spaceCount = registry.getSpaceCount(vehicleHandle);
+        slot.beginWrite(OccupancyEvent.Kind.REMOVED, vehicleId, registry.getType(vehicleHandle), spaceCount);
+        for (int i = 0; i < spaceCount; i++) {
+            slot.spaceHandles[i] = registry.getSpace(vehicleHandle, i);
+        }
+        slot.publish(sequence);
+    }
+
+    /**
+     * Creates a cursor that reads the events published from now on.
+     */
+    public Cursor newCursor() {
+        return new Cursor(nextSequence.get());
+    }
+
+    /**
+     * Delivers the events published from now on to a consumer on its own daemon thread.
+     * The thread polls the feed and backs off briefly while it is empty.
+     * @param consumer Receives the events
+     * @return Subscription to close once the consumer is no longer needed
+     */
+    public Subscription subscribe(OccupancyConsumer consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Consumer cannot be null");
+        }
+        return new Subscription(newCursor(), consumer);
+    }
+
+    /**
+     * Reads the feed in sequence order. A cursor is used by one thread at a time.
+     */
+    public final class Cursor {
+        private final OccupancyEvent event = new OccupancyEvent();
+        private long next;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Gets the sequence number of the next event this cursor reads.
+         */
+        public long getPosition() {
+            return next;
+        }
+
+        /**
+         * Delivers the events published since the last poll, up to the given number.
+         * Stops at an event that has been claimed but not yet published.
+         * @param consumer Receives the events
+         * @param maxEvents Maximum number of events to deliver
+         * @return Number of events delivered
+         */
+        public int poll(OccupancyConsumer consumer, int maxEvents) {
+            int delivered = 0;
+            while (delivered < maxEvents) {
+                OccupancyEvent slot = ring[(int) next & mask];
+                long sequence = slot.acquireSequence();
+                if (sequence == next && event.copyFrom(slot, sequence)) {
+                    consumer.onEvent(event);
+                    next++;
+                    delivered++;
+                } else if (nextSequence.get() - next > ring.length) {
+                    // Overwritten before it was read; resume at the oldest event the ring still holds
+                    long oldest = nextSequence.get() - ring.length;
+                    consumer.onEventsLost(oldest - next);
+                    next = oldest;
+                } else {
+                    break; // Not published yet
+                }
+            }
+            return delivered;
+        }
+    }
+
+    /**
+     * A consumer reading the feed on its own thread.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Cursor cursor;
+        private final OccupancyConsumer consumer;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile RuntimeException failure;
+
+        private Subscription(Cursor cursor, OccupancyConsumer consumer) {
+            this.cursor = cursor;
+            this.consumer = consumer;
+            this.thread = new Thread(this::run, "occupancy-feed-consumer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    if (cursor.poll(consumer, POLL_BATCH) == 0) {
+                        LockSupport.parkNanos(IDLE_NANOS);
+                    }
+                }
+                while (cursor.poll(consumer, POLL_BATCH) > 0) {
+                    // Deliver what was published before the subscription was closed
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Gets the sequence number of the next event the consumer receives.
+         */
+        public long getPosition() {
+            return cursor.getPosition();
+        }
+
+        /**
+         * Delivers the events already published, then stops the consumer thread.
+         * @throws IllegalStateException if the consumer threw an exception, which stopped the subscription
+         */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Occupancy consumer failed", failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Flat space store kept in a direct ByteBuffer, outside the Java heap: the occupant handles
+ * as native-order ints, followed by the space types as bytes. The heap only holds the buffer
+ * object and the row offsets, so the garbage collector never scans or copies the space state.
+ * The memory is released by {@link #close(boolean)} rather than by the garbage collector, unless
+ * other threads may still be reading it.
+ */
+class OffHeapSpaceStore extends FlatSpaceStore {
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private final int typesOffset;
+    private volatile ByteBuffer slots; // null once closed
+
+    OffHeapSpaceStore(LotLayout layout, VehicleRegistry registry, boolean parallel) {
+        super(layout, registry);
+        long bytes = (long) getSpaceCount() * (Integer.BYTES + 1);
+        if (bytes + Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Lot too large for off-heap storage: " + getSpaceCount() + " spaces");
+        }
+        // Occupant handles are updated with compare-and-set, which needs 4-byte aligned ints
+        this.slots = ByteBuffer.allocateDirect((int) bytes + Integer.BYTES).alignedSlice(Integer.BYTES);
+        this.typesOffset = getSpaceCount() * Integer.BYTES;
+        initializeSlots(layout, parallel);
+    }
+
+    @Override
+    byte getType(int slot) {
+        return slots().get(typesOffset + slot);
+    }
+
+    @Override
+    void fillSlots(int fromSlot, int toSlot, byte type) {
+        ByteBuffer buffer = slots();
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            INTS.set(buffer, slot * Integer.BYTES, VehicleRegistry.NO_VEHICLE);
+            buffer.put(typesOffset + slot, type);
+        }
+    }
+
+    @Override
+    int getOccupant(int slot) {
+        return (int) INTS.getAcquire(slots(), slot * Integer.BYTES);
+    }
+
+    @Override
+    void setOccupant(int slot, int vehicleHandle) {
+        INTS.setRelease(slots(), slot * Integer.BYTES, vehicleHandle);
+    }
+
+    @Override
+    boolean compareAndSetOccupant(int slot, int expectedHandle, int vehicleHandle) {
+        return INTS.compareAndSet(slots(), slot * Integer.BYTES, expectedHandle, vehicleHandle);
+    }
+
+    /**
+     * Closes the store; later reads and updates throw IllegalStateException. An unshared store frees its
+     * memory at once, and no other thread may use it while or after it is closed. A shared store only drops
+     * its reference: readers that already hold the buffer keep it reachable, so its cleaner frees the memory
+     * once the last of them is done, rather than under their feet.
+     */
+    @Override
+    synchronized void close(boolean shared) {
+        ByteBuffer released = slots;
+        if (released == null) {
+            return;
+        }
+        slots = null;
+        if (!shared && INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact(released);
+            } catch (Throwable e) {
+                // The buffer's cleaner frees the memory once it is garbage collected instead
+            }
+        }
+    }
+
+    @Override
+    void checkOpen() {
+        slots();
+    }
+
+    private ByteBuffer slots() {
+        ByteBuffer buffer = slots;
+        if (buffer == null) {
+            throw new IllegalStateException("Parking lot is closed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Looks up sun.misc.Unsafe.invokeCleaner, which frees a direct buffer immediately.
+     * @return Handle taking the buffer to free, or null if it is not available
+     */
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .unreflect(unsafeClass.getMethod("invokeCleaner", ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Periodic checkpoints of a journaled lot, so a restart maps one file and replays only the journal tail.
+ * A checkpoint holds the row layout, the space types and every parked vehicle with its spaces, together
+ * with the journal offset it is current up to.
+ *
+ * <p>Checkpoints are not taken from the live lot. A background thread keeps a compact shadow lot that
+ * applies the journal records written since the previous checkpoint, and writes the shadow out. The
+ * journal order is a valid serial order of the operations, so every checkpoint is a consistent cut,
+ * and parking traffic never waits for it.
+ *
+ * <p>File layout: a 32-byte header (magic, version, journal offset, row count, vehicle count and the
+ * CRC32C of the body), then the row lengths, one byte per space for its type, and for each vehicle its
+ * type, ID and space handles. A checkpoint is written to a temporary file and moved over the previous
+ * one, so the file at the checkpoint path is always complete.
+ */
+public class ParkingCheckpoint implements AutoCloseable {
+    static final int MAGIC = 0x504C434B; // "PLCK"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final SpaceType[] SPACE_TYPES = SpaceType.values();
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final ParkingJournal journal;
+    private final Path path;
+    private final ParkingLot shadow; // Guarded by this
+    private long shadowPosition; // Journal offset the shadow is current up to, guarded by this
+    private final ScheduledExecutorService scheduler;
+    private volatile IOException failure;
+
+    private ParkingCheckpoint(ParkingJournal journal, Path path, ParkingLot shadow, long shadowPosition,
+                              Duration interval) {
+        this.journal = journal;
+        this.path = path;
+        this.shadow = shadow;
+        this.shadowPosition = shadowPosition;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "parking-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::checkpointQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts taking checkpoints of the lot a journal is attached to. The checkpoints continue from
+     * the existing checkpoint at the path, if any, so it must belong to the same journal.
+     * @param journal Journal attached to the lot
+     * @param path Checkpoint file
+     * @param interval How often a checkpoint is taken
+     * @return Running checkpointer
+     * @throws IOException if the existing checkpoint cannot be read
+     */
+    public static ParkingCheckpoint start(ParkingJournal journal, Path path, Duration interval) throws IOException {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+        }
+        ParkingLot lot = journal.getLot();
+        if (lot == null) {
+            throw new IllegalStateException("Journal is not attached to a parking lot");
+        }
+        if (Files.exists(path)) {
+            Image<ParkingLot> image = read(path, config -> new ParkingLot(config, LotStorage.COMPACT));
+            return new ParkingCheckpoint(journal, path, image.lot, image.journalPosition, interval);
+        }
+        ParkingLot shadow = new ParkingLot(layoutOf(lot.spaces), LotStorage.COMPACT);
+        return new ParkingCheckpoint(journal, path, shadow, ParkingJournal.HEADER_SIZE, interval);
+    }
+
+    /**
+     * Rebuilds a lot from the checkpoint at a path and the journal records written after it,
+     * then attaches the journal to the lot.
+     * @param path Checkpoint file
+     * @param journal Journal the checkpoint was taken from
+     * @param lotFactory Creates the empty lot for the checkpointed layout, e.g.
+     *                   {@code layout -> new ConcurrentParkingLot(layout, LotStorage.COMPACT)}
+     * @return Recovered lot, recording to the journal
+     * @throws IOException if the checkpoint or the journal cannot be read
+     * @throws IllegalStateException if the journal does not match the checkpoint
+     */
+    public static <T extends ParkingLot> T recover(Path path, ParkingJournal journal,
+                                                   Function<LotLayout, T> lotFactory) throws IOException {
+        Image<T> image = read(path, lotFactory);
+        try {
+            journal.attach(image.lot, image.journalPosition);
+        } catch (IOException | RuntimeException e) {
+            image.lot.close();
+            throw e;
+        }
+        return image.lot;
+    }
+
+    /**
+     * Takes a checkpoint now, covering every journal record written to disk so far.
+     * @throws IOException if the journal cannot be read or the checkpoint cannot be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw error;
+        }
+        try {
+            long end = journal.getPosition();
+            if (end == shadowPosition && Files.exists(path)) {
+                return;
+            }
+            long applied = journal.replay(shadow, shadowPosition, end);
+            shadowPosition = applied;
+            if (applied != end) {
+                throw new IOException("Journal " + journal.getPath() + " is corrupt at offset " + applied);
+            }
+            write(shadow, end, path);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            // The shadow may be half way through a record, so later checkpoints cannot be trusted
+            failure = new IOException("Checkpoint of " + journal.getPath() + " failed", e);
+            throw failure;
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            // Recorded in failure; the next checkpoint call reports it
+        }
+    }
+
+    /**
+     * Stops taking checkpoints. The last checkpoint stays in place.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            shadow.close();
+        }
+    }
+
+    static void write(ParkingLot lot, long journalPosition, Path path) throws IOException {
+        SpaceStore spaces = lot.spaces;
+        VehicleRegistry registry = lot.registry;
+        int rowCount = spaces.getRowCount();
+        long size = HEADER_SIZE + (long) rowCount * Integer.BYTES;
+        for (int r = 0; r < rowCount; r++) {
+            size += spaces.getRowLength(r);
+        }
+        long[] vehicleBytes = new long[1];
+        int[] vehicleCount = new int[1];
+        registry.forEachParked(handle -> {
+            vehicleBytes[0] += 1 + Integer.BYTES + registry.getId(handle).getBytes(StandardCharsets.UTF_8).length
+                    + Integer.BYTES + (long) registry.getSpaceCount(handle) * Long.BYTES;
+            vehicleCount[0]++;
+        });
+        size += vehicleBytes[0];
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Parking lot is too large for a checkpoint: " + size + " bytes");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(HEADER_SIZE);
+            for (int r = 0; r < rowCount; r++) {
+                buffer.putInt(spaces.getRowLength(r));
+            }
+            for (int r = 0; r < rowCount; r++) {
+                for (int s = 0; s < spaces.getRowLength(r); s++) {
+                    buffer.put((byte) spaces.getType(r, s).ordinal());
+                }
+            }
+            registry.forEachParked(handle -> {
+                byte[] id = registry.getId(handle).getBytes(StandardCharsets.UTF_8);
+                int spaceCount = registry.getSpaceCount(handle);
+                buffer.put((byte) registry.getType(handle).ordinal()).putInt(id.length).put(id).putInt(spaceCount);
+                for (int i = 0; i < spaceCount; i++) {
+                    buffer.putLong(registry.getSpace(handle, i));
+                }
+            });
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_SIZE, (int) size - HEADER_SIZE));
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, journalPosition)
+                    .putInt(16, rowCount).putInt(20, vehicleCount[0]).putInt(24, (int) crc.getValue());
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static <T extends ParkingLot> Image<T> read(Path path, Function<LotLayout, T> lotFactory)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a parking checkpoint: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a parking checkpoint: " + path);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported parking checkpoint version " + version + ": " + path);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(24)) {
+            throw new IOException("Parking checkpoint is corrupt: " + path);
+        }
+        long journalPosition = buffer.getLong(8);
+        int rowCount = buffer.getInt(16);
+        int vehicleCount = buffer.getInt(20);
+
+        buffer.position(HEADER_SIZE);
+        int[] rowLengths = new int[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            rowLengths[r] = buffer.getInt();
+        }
+        LotLayout.Builder layout = LotLayout.builder();
+        for (int r = 0; r < rowCount; r++) {
+            for (int s = 0; s < rowLengths[r]; s++) {
+                layout.addRun(SPACE_TYPES[buffer.get()], 1);
+            }
+            layout.endRow();
+        }
+        T lot = lotFactory.apply(layout.build());
+        try {
+            for (int v = 0; v < vehicleCount; v++) {
+                VehicleType vehicleType = VEHICLE_TYPES[buffer.get()];
+                byte[] id = new byte[buffer.getInt()];
+                buffer.get(id);
+                long[] spaceHandles = new long[buffer.getInt()];
+                for (int i = 0; i < spaceHandles.length; i++) {
+                    spaceHandles[i] = buffer.getLong();
+                }
+                lot.restoreVehicle(new String(id, StandardCharsets.UTF_8), vehicleType, spaceHandles);
+            }
+        } catch (RuntimeException e) {
+            lot.close();
+            throw e;
+        }
+        return new Image<>(lot, journalPosition);
+    }
+
+    private static LotLayout layoutOf(SpaceStore spaces) {
+        LotLayout.Builder layout = LotLayout.builder();
+        for (int r = 0; r < spaces.getRowCount(); r++) {
+            for (int s = 0; s < spaces.getRowLength(r); s++) {
+                layout.addRun(spaces.getType(r, s), 1);
+            }
+            layout.endRow();
+        }
+        return layout.build();
+    }
+
+    /**
+     * A lot rebuilt from a checkpoint and the journal offset it is current up to.
+     */
+    private static final class Image<T extends ParkingLot> {
+        final T lot;
+        final long journalPosition;
+
+        Image(T lot, long journalPosition) {
+            this.lot = lot;
+            this.journalPosition = journalPosition;
+        }
+    }
+}
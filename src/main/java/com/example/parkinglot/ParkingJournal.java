@@ -0,0 +1,454 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead journal of park and remove outcomes, so a lot can be rebuilt after a restart.
+ * Records are appended to an in-memory buffer by the parking operations and written with group commit:
+ * a background thread writes and fsyncs everything appended since the last flush once per flush interval,
+ * so one fsync covers many operations. An operation is durable once the next flush completes;
+ * {@link #sync()} forces a flush for callers that must not acknowledge before that.
+ *
+ * <p>Each record is framed as its payload length and CRC32C followed by the payload, so a record torn
+ * by a crash is detected on recovery and the journal is truncated to the last complete record.
+ */
+public class ParkingJournal implements AutoCloseable {
+    static final int MAGIC = 0x504C4A4E; // "PLJN"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+
+    static final byte PARK = 1;
+    static final byte REMOVE = 2;
+
+    private static final int FRAME_SIZE = 8; // Payload length + CRC32C
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final CRC32C checksum = new CRC32C(); // Guarded by appendLock
+    private ByteBuffer active = ByteBuffer.allocate(INITIAL_BUFFER_SIZE); // Guarded by appendLock
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE); // Guarded by flushLock
+    private long position; // End of the journal on disk, guarded by flushLock
+    private volatile IOException failure;
+    private volatile boolean closed;
+    private ParkingLot lot;
+
+    private ParkingJournal(Path path, FileChannel channel, Duration flushInterval) {
+        this.path = path;
+        this.channel = channel;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "parking-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Opens a journal, creating the file if it does not exist.
+     * @param path Journal file
+     * @param flushInterval How often appended records are written and fsynced
+     * @return Open journal, not yet attached to a lot
+     * @throws IOException if the file cannot be opened or is not a parking journal
+     */
+    public static ParkingJournal open(Path path, Duration flushInterval) throws IOException {
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                    // Keep reading until the header is complete or the file ends
+                }
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                    throw new IOException("Not a parking journal: " + path);
+                }
+                int version = header.getInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported parking journal version " + version + ": " + path);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return new ParkingJournal(path, channel, flushInterval);
+    }
+
+    /**
+     * Replays the journal into an empty lot with the configuration it was written for,
+     * then records the park and remove outcomes of the lot from now on.
+     * A record torn by a crash at the end of the journal is discarded.
+     * @param parkingLot Empty lot to rebuild
+     * @throws IOException if the journal cannot be read
+     * @throws IllegalStateException if the journal does not match the lot
+     */
+    public void attach(ParkingLot parkingLot) throws IOException {
+        attach(parkingLot, HEADER_SIZE);
+    }
+
+    /**
+     * Replays the journal from the given offset into a lot, then records its outcomes from now on.
+     */
+    void attach(ParkingLot parkingLot, long fromPosition) throws IOException {
+        if (lot != null) {
+            throw new IllegalStateException("Journal is already attached to a parking lot");
+        }
+        if (parkingLot.journal != null) {
+            throw new IllegalStateException("Parking lot already has a journal");
+        }
+        flushLock.lock();
+        try {
+            if (fromPosition > channel.size()) {
+                throw new IllegalStateException("Journal " + path + " ends before offset " + fromPosition);
+            }
+            position = replay(parkingLot, fromPosition, Long.MAX_VALUE);
+            channel.truncate(position); // Drop a torn record so new records follow the last complete one
+            lot = parkingLot;
+            parkingLot.journal = this;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the records between two offsets to a lot, stopping early at a torn or corrupt record.
+     * Records before an offset returned by {@link #getPosition()} are complete, so this can run
+     * on another thread while the journal is being appended to.
+     * @return Offset just past the last record applied
+     */
+    long replay(ParkingLot parkingLot, long fromPosition, long toPosition) throws IOException {
+        RecordReader reader = new RecordReader(channel, fromPosition);
+        long recordPosition = fromPosition;
+        while (recordPosition < toPosition && reader.fill(FRAME_SIZE)) {
+            int length = reader.buffer.getInt(reader.buffer.position());
+            if (length <= 0 || length > MAX_RECORD_SIZE || !reader.fill(FRAME_SIZE + length)) {
+                break; // Torn or garbage record after the last complete one
+            }
+            ByteBuffer buffer = reader.buffer;
+            buffer.getInt();
+            int expectedChecksum = buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            CRC32C crc = new CRC32C();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedChecksum) {
+                break;
+            }
+            try {
+                apply(parkingLot, payload);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Journal record at offset " + recordPosition + " of " + path
+                        + " does not match the parking lot", e);
+            }
+            buffer.position(buffer.position() + length);
+            recordPosition += FRAME_SIZE + length;
+        }
+        return recordPosition;
+    }
+
+    private static void apply(ParkingLot parkingLot, ByteBuffer payload) {
+        byte operation = payload.get();
+        if (operation == PARK) {
+            VehicleType vehicleType = VEHICLE_TYPES[payload.get()];
+            String vehicleId = readId(payload);
+            long[] spaceHandles = new long[payload.getInt()];
+            for (int i = 0; i < spaceHandles.length; i++) {
+                spaceHandles[i] = payload.getLong();
+            }
+            parkingLot.restoreVehicle(vehicleId, vehicleType, spaceHandles);
+        } else if (operation == REMOVE) {
+            String vehicleId = readId(payload);
+            if (!parkingLot.removeVehicle(vehicleId)) {
+                throw new IllegalStateException("Vehicle " + vehicleId + " is not parked");
+            }
+        } else {
+            throw new IllegalStateException("Unknown journal operation " + operation);
+        }
+    }
+
+    private static String readId(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the outcome of parking a vehicle in a run of contiguous spaces.
+     */
+    void appendPark(String vehicleId, VehicleType vehicleType, long firstSpace, int spaceCount) {
+        appendLock.lock();
+        try {
+            int start = beginRecord(1 + 1 + idSize(vehicleId) + 4 + spaceCount * Long.BYTES);
+            active.put(PARK).put((byte) vehicleType.ordinal());
+            putId(vehicleId);
+            active.putInt(spaceCount);
+            for (int i = 0; i < spaceCount; i++) {
+                active.putLong(firstSpace + i);
+            }
+            endRecord(start);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the outcome of parking a vehicle in the given spaces.
+     */
+    void appendPark(String vehicleId, VehicleType vehicleType, long[] spaceHandles) {
+        appendLock.lock();
+        try {
+            int start = beginRecord(1 + 1 + idSize(vehicleId) + 4 + spaceHandles.length * Long.BYTES);
+            active.put(PARK).put((byte) vehicleType.ordinal());
+            putId(vehicleId);
+            active.putInt(spaceHandles.length);
+            for (long spaceHandle : spaceHandles) {
+                active.putLong(spaceHandle);
+            }
+            endRecord(start);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the outcome of removing a vehicle.
+     */
+    void appendRemove(String vehicleId) {
+        appendLock.lock();
+        try {
+            int start = beginRecord(1 + idSize(vehicleId));
+            active.put(REMOVE);
+            putId(vehicleId);
+            endRecord(start);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Fails if records can no longer be appended, so an operation can be rejected before it changes the lot.
+     * @throws IllegalStateException if the journal is closed or a write has failed
+     */
+    void checkWritable() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed: " + path);
+        }
+        IOException error = failure;
+        if (error != null) {
+            throw new IllegalStateException("Journal write failed: " + path, error);
+        }
+    }
+
+    private int beginRecord(int payloadSize) {
+        checkWritable();
+        if (active.remaining() < FRAME_SIZE + payloadSize) {
+            int capacity = Math.max(active.capacity() * 2, active.position() + FRAME_SIZE + payloadSize);
+            active = ByteBuffer.allocate(capacity).put(active.flip());
+        }
+        int start = active.position();
+        active.putInt(payloadSize).putInt(0); // Checksum is filled in once the payload is written
+        return start;
+    }
+
+    private void endRecord(int start) {
+        int payloadStart = start + FRAME_SIZE;
+        checksum.reset();
+        checksum.update(active.array(), payloadStart, active.position() - payloadStart);
+        active.putInt(start + 4, (int) checksum.getValue());
+    }
+
+    private static int idSize(String vehicleId) {
+        int size = 4;
+        for (int i = 0; i < vehicleId.length(); i++) {
+            if (vehicleId.charAt(i) >= 0x80) {
+                return 4 + vehicleId.getBytes(StandardCharsets.UTF_8).length;
+            }
+            size++;
+        }
+        return size;
+    }
+
+    private void putId(String vehicleId) {
+        int lengthPosition = active.position();
+        active.putInt(0);
+        boolean ascii = true;
+        for (int i = 0; i < vehicleId.length() && ascii; i++) {
+            ascii = vehicleId.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            // Vehicle IDs are almost always ASCII; copy them without encoding to a temporary array
+            for (int i = 0; i < vehicleId.length(); i++) {
+                active.put((byte) vehicleId.charAt(i));
+            }
+        } else {
+            active.put(vehicleId.getBytes(StandardCharsets.UTF_8));
+        }
+        active.putInt(lengthPosition, active.position() - lengthPosition - 4);
+    }
+
+    /**
+     * Writes and fsyncs every record appended so far. Does nothing if nothing was appended since the last flush,
+     * so an idle lot costs the flusher no fsyncs.
+     * @throws IOException if the journal cannot be written
+     */
+    public void sync() throws IOException {
+        flushLock.lock();
+        try {
+            IOException error = failure;
+            if (error != null) {
+                throw error;
+            }
+            ByteBuffer pending;
+            appendLock.lock();
+            try {
+                if (active.position() == 0) {
+                    return;
+                }
+                pending = active;
+                active = spare;
+            } finally {
+                appendLock.unlock();
+            }
+            pending.flip();
+            try {
+                while (pending.hasRemaining()) {
+                    position += channel.write(pending, position);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            spare = pending.clear();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // Recorded in failure; the next append or sync reports it
+        }
+    }
+
+    /**
+     * Gets the offset just past the last record written to disk.
+     */
+    long getPosition() {
+        flushLock.lock();
+        try {
+            return position;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the lot the journal records, or null if it is not attached yet.
+     */
+    ParkingLot getLot() {
+        flushLock.lock();
+        try {
+            return lot;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Sequential reader that keeps whole records in its buffer.
+     */
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE).flip();
+        private long readPosition;
+
+        RecordReader(FileChannel channel, long readPosition) {
+            this.channel = channel;
+            this.readPosition = readPosition;
+        }
+
+        /**
+         * Reads until the buffer holds at least the given number of bytes.
+         * @return false if the journal ends first
+         */
+        boolean fill(int needed) throws IOException {
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocate(needed).put(buffer).flip();
+            }
+            while (buffer.remaining() < needed) {
+                buffer.compact();
+                int read = channel.read(buffer, readPosition);
+                buffer.flip();
+                if (read < 0) {
+                    return false;
+                }
+                readPosition += read;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Flushes the remaining records and closes the journal. Later park and remove operations
+     * on the attached lot throw IllegalStateException.
+     * @throws IOException if the remaining records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true; // Appends check this under the lock, so nothing is appended after the final sync
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
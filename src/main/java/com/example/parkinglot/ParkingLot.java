@@ -1,48 +1,96 @@
 package com.example.parkinglot;
 
+import com.example.parkinglot.jfr.*;
 import com.example.parkinglot.model.*;
 import com.example.parkinglot.strategy.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.LongSupplier;
 
 /**
  * Main class implementing the parking lot management system.
  * Supports parking motorcycles, cars, and vans with different space requirements.
+ * Lots created with {@link LotStorage#OFF_HEAP} storage must be closed to release their memory.
  */
-public class ParkingLot {
-    private final List<List<ParkingSpace>> rows;
-    private final Map<String, List<String>> vehicleToSpaces; // Vehicle ID -> List of space IDs
-    private final Map<String, String> spaceToVehicle; // Space ID -> Vehicle ID
+public class ParkingLot implements AutoCloseable {
+    static final ParkingResult INVALID_VEHICLE_ID = ParkingResult.failure("Vehicle ID cannot be null or empty");
+    static final ParkingResult MISSING_VEHICLE_TYPE = ParkingResult.failure("Vehicle type cannot be null");
+    static final ParkingResult MISSING_VEHICLE = ParkingResult.failure("Vehicle cannot be null");
+    static final ParkingResult INVALID_RESERVATION_TIME =
+            ParkingResult.failure("Reservation time must be positive and at most 365 days");
+    static final ParkingResult RESERVED_FOR_OTHER_TYPE =
+            ParkingResult.failure("Vehicle has a reservation for another vehicle type");
+    static final int PARALLEL_INIT_SPACES = 1 << 20; // Smaller lots build faster than a parallel stream starts
+    static final Duration MAX_RESERVATION = Duration.ofDays(365);
+    
+    // Package-private so the concurrent mode in ConcurrentParkingLot can share the state
+    final SpaceStore spaces;
+    final VehicleRegistry registry; // Vehicle ID <-> vehicle handle <-> occupied spaces
+    final OccupancyIndex occupancyIndex;
+    final LotCounters counters;
+    final RowCounters rowCounters;
+    final ReservationWheel reservations = new ReservationWheel();
+    LongSupplier clock = System::nanoTime; // Time source for reservation expiry; replaced by tests
+    ParkingJournal journal; // Set by ParkingJournal.attach before the lot is used
+    OccupancyFeed occupancyFeed; // Set by OccupancyFeed.attach before the lot is used
+    volatile SnapshotPublisher snapshots; // Records the changes to publish while snapshots are enabled
+    private volatile ParkingStrategy[] bestFitStrategies; // By vehicle type while best fit is on, null otherwise
+    private boolean verifyCounters = Boolean.getBoolean("parkinglot.verifyCounters");
+    private volatile ParkingMetrics metrics = Boolean.getBoolean("parkinglot.metrics") ? new ParkingMetrics() : null;
+    private final ParkingMetrics.OutcomeRecorder outcomeRecorder = new ParkingMetrics.OutcomeRecorder();
     
     /**
      * Initializes the parking lot with the given configuration.
      * @param rowConfigurations List of space type arrays, one for each row
      */
     public ParkingLot(List<SpaceType[]> rowConfigurations) {
-        if (rowConfigurations == null || rowConfigurations.isEmpty()) {
-            throw new IllegalArgumentException("Row configurations cannot be null or empty");
-        }
-        
-        this.rows = new ArrayList<>();
-        this.vehicleToSpaces = new HashMap<>();
-        this.spaceToVehicle = new HashMap<>();
-        
-        initializeRows(rowConfigurations);
+        this(rowConfigurations, LotStorage.OBJECTS);
     }
     
-    private void initializeRows(List<SpaceType[]> rowConfigurations) {
-        for (int rowIndex = 0; rowIndex < rowConfigurations.size(); rowIndex++) {
-            SpaceType[] rowConfig = rowConfigurations.get(rowIndex);
-            if (rowConfig == null || rowConfig.length == 0) {
-                throw new IllegalArgumentException("Row configuration cannot be null or empty");
-            }
-            
-            List<ParkingSpace> row = new ArrayList<>();
-            for (int spaceIndex = 0; spaceIndex < rowConfig.length; spaceIndex++) {
-                String spaceId = String.format("R%d-%d", rowIndex + 1, spaceIndex + 1);
-                row.add(new ParkingSpace(spaceId, rowConfig[spaceIndex]));
-            }
-            rows.add(row);
+    /**
+     * Initializes the parking lot with the given configuration and storage layout.
+     * @param rowConfigurations List of space type arrays, one for each row
+     * @param storage How the spaces are stored; COMPACT suits lots with millions of spaces
+     */
+    public ParkingLot(List<SpaceType[]> rowConfigurations, LotStorage storage) {
+        this(LotLayout.of(rowConfigurations), storage, false);
+    }
+    
+    /**
+     * Initializes the parking lot from a run-length layout, such as {@code LotLayout.parse("40000 * R x120, C x8")}.
+     * The spaces are set up a run at a time, which is the fastest way to build a lot with millions of spaces.
+     * @param layout Rows of the lot
+     * @param storage How the spaces are stored; COMPACT suits lots with millions of spaces
+     */
+    public ParkingLot(LotLayout layout, LotStorage storage) {
+        this(layout, storage, false);
+    }
+    
+    /**
+     * Initializes the parking lot, lock-striping the vehicle registry when the lot is shared between threads.
+     * Layouts of at least {@link #PARALLEL_INIT_SPACES} spaces have their rows initialized in parallel.
+     * @param layout Rows of the lot
+     * @param storage How the spaces are stored
+     * @param concurrent true to make the vehicle registry safe for concurrent use
+     */
+    ParkingLot(LotLayout layout, LotStorage storage, boolean concurrent) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Lot layout cannot be null");
+        }
+        if (storage == null) {
+            throw new IllegalArgumentException("Lot storage cannot be null");
         }
+        
+        this.counters = new LotCounters();
+        for (SpaceType spaceType : SpaceType.values()) {
+            counters.addSpaces(spaceType, layout.getSpaceCount(spaceType));
+        }
+        this.rowCounters = new RowCounters(layout);
+        
+        boolean parallel = layout.getTotalSpaces() >= PARALLEL_INIT_SPACES;
+        this.registry = new VehicleRegistry(concurrent);
+        this.spaces = SpaceStore.create(storage, layout, registry, parallel);
+        this.occupancyIndex = new OccupancyIndex(layout, parallel);
     }
     
     /**
@@ -52,43 +100,619 @@ public class ParkingLot {
      * @return ParkingResult indicating success/failure and allocated spaces
      */
     public ParkingResult parkVehicle(String vehicleId, VehicleType vehicleType) {
-        if (vehicleId == null || vehicleId.trim().isEmpty()) {
-            return ParkingResult.failure("Vehicle ID cannot be null or empty");
+        expireReservations();
+        ParkEvent event = new ParkEvent();
+        event.begin();
+        ParkingMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        ParkingResult result = doParkVehicle(vehicleId, vehicleType);
+        if (metrics != null) {
+            metrics.recordPark(vehicleType, result, System.nanoTime() - start);
         }
-        if (vehicleType == null) {
-            return ParkingResult.failure("Vehicle type cannot be null");
+        event.record(vehicleId, vehicleType, result);
+        return result;
+    }
+    
+    /**
+     * Parks a vehicle without recording metrics or events; overridden by the concurrent mode.
+     */
+    ParkingResult doParkVehicle(String vehicleId, VehicleType vehicleType) {
+        ParkingResult invalid = validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            return invalid;
         }
         
         vehicleId = vehicleId.trim();
+        checkJournal();
         
-        // Check if vehicle is already parked
-        if (vehicleToSpaces.containsKey(vehicleId)) {
-            return ParkingResult.alreadyParked(vehicleToSpaces.get(vehicleId));
+        // Check if vehicle is already parked or arriving for its reservation
+        List<String> existingSpaces = registry.getSpaceIds(vehicleId);
+        if (existingSpaces != null) {
+            return parkRegistered(vehicleId, vehicleType, existingSpaces);
         }
         
         // Use Strategy Pattern to get the appropriate allocation strategy
         try {
-            ParkingStrategy strategy = ParkingStrategyFactory.getStrategy(vehicleType);
-            ParkingResult result = strategy.allocateSpaces(vehicleId, rows);
+            ParkingStrategy strategy = strategyFor(vehicleType);
+            return allocateAndOccupy(vehicleId, vehicleType, strategy, SpaceHandle.of(0, 0));
+        } catch (IllegalArgumentException e) {
+            return ParkingResult.failure("Unsupported vehicle type: " + vehicleType);
+        }
+    }
+    
+    /**
+     * Parks a batch of vehicles in one pass, with the same outcome as calling
+     * {@link #parkVehicle(String, VehicleType)} for each vehicle in order.
+     * Since a batch only occupies spaces, the first fit for a vehicle type can only move forward:
+     * each type keeps a cursor where its next scan resumes, and once a type fails to find space
+     * the remaining vehicles of that type fail without scanning again. Best-fit strategies ignore the cursor
+     * and search the whole lot, but a type that failed still cannot succeed later in the batch.
+     * @param vehicles Vehicles to park, in arrival order
+     * @return One ParkingResult per vehicle, in the same order
+     */
+    public List<ParkingResult> parkVehicles(List<Vehicle> vehicles) {
+        if (vehicles == null) {
+            return Collections.emptyList();
+        }
+        
+        expireReservations();
+        checkJournal();
+        List<ParkingResult> results = new ArrayList<>(vehicles.size());
+        long[] cursors = new long[VehicleType.values().length]; // Resume handle per vehicle type
+        ParkingResult[] exhausted = new ParkingResult[VehicleType.values().length];
+        
+        ParkingMetrics metrics = this.metrics;
+        for (Vehicle vehicle : vehicles) {
+            if (vehicle == null) {
+                results.add(MISSING_VEHICLE);
+                continue;
+            }
+            // Vehicle IDs are validated and trimmed on construction
+            ParkEvent event = new ParkEvent();
+            event.begin();
+            long start = metrics != null ? System.nanoTime() : 0;
+            String vehicleId = vehicle.getId();
+            VehicleType vehicleType = vehicle.getType();
+            int typeIndex = vehicleType.ordinal();
             
-            // If allocation was successful, occupy the spaces
-            if (result.isSuccess()) {
-                for (String spaceId : result.getAllocatedSpaces()) {
-                    ParkingSpace space = findSpaceById(spaceId);
-                    occupySpace(space, vehicleId);
+            ParkingResult result;
+            List<String> existingSpaces = registry.getSpaceIds(vehicleId);
+            if (existingSpaces != null) {
+                result = parkRegistered(vehicleId, vehicleType, existingSpaces); // Converting a hold frees no space
+            } else if (exhausted[typeIndex] != null) {
+                result = exhausted[typeIndex];
+            } else {
+                try {
+                    ParkingStrategy strategy = strategyFor(vehicleType);
+                    result = allocateAndOccupy(vehicleId, vehicleType, strategy, cursors[typeIndex]);
+                } catch (IllegalArgumentException e) {
+                    result = ParkingResult.failure("Unsupported vehicle type: " + vehicleType);
+                }
+                if (result.isSuccess()) {
+                    cursors[typeIndex] = resolveSpaces(result)[0];
+                } else {
+                    exhausted[typeIndex] = result;
                 }
             }
-            
-            return result;
+            results.add(result);
+            if (metrics != null) {
+                metrics.recordPark(vehicleType, result, System.nanoTime() - start);
+            }
+            event.record(vehicleId, vehicleType, result);
+        }
+        return results;
+    }
+    
+    /**
+     * Allocates spaces with the given strategy, resuming its scan from the given space, and occupies them.
+     */
+    private ParkingResult allocateAndOccupy(String vehicleId, VehicleType vehicleType,
+                                            ParkingStrategy strategy, long fromHandle) {
+        AllocationEvent allocation = new AllocationEvent();
+        allocation.begin();
+        ParkingResult result = strategy.allocateSpaces(vehicleId, spaces.getRows(), occupancyIndex, fromHandle);
+        allocation.record(vehicleType, strategy, occupancyIndex, fromHandle, result);
+        
+        // If allocation was successful, register the vehicle and occupy the spaces
+        if (result.isSuccess()) {
+            int vehicleHandle = registry.register(vehicleId, vehicleType);
+            long firstSpace = result.getFirstSpaceHandle();
+            if (firstSpace != SpaceHandle.NONE) {
+                occupyRun(vehicleId, vehicleHandle, vehicleType, firstSpace, result.getSpaceCount());
+            } else {
+                long[] spaceHandles = resolveSpaces(result);
+                for (long spaceHandle : spaceHandles) {
+                    occupySpace(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle),
+                                vehicleId, vehicleHandle, vehicleType);
+                }
+                try {
+                    recordPark(vehicleId, vehicleType, spaceHandles);
+                } catch (RuntimeException e) {
+                    for (long spaceHandle : spaceHandles) {
+                        vacateSpace(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle), vehicleType);
+                    }
+                    registry.unregister(vehicleHandle);
+                    throw e;
+                }
+                registry.assignSpaces(vehicleHandle, spaceHandles);
+            }
+            vehicleChanged(vehicleId);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Occupies a run of contiguous spaces in one row and assigns them to a registered vehicle.
+     */
+    private void occupyRun(String vehicleId, int vehicleHandle, VehicleType vehicleType, long firstSpace, int spaceCount) {
+        int rowIndex = SpaceHandle.rowIndex(firstSpace);
+        int spaceIndex = SpaceHandle.spaceIndex(firstSpace);
+        for (int i = 0; i < spaceCount; i++) {
+            occupySpace(rowIndex, spaceIndex + i, vehicleId, vehicleHandle, vehicleType);
+        }
+        try {
+            recordPark(vehicleId, vehicleType, firstSpace, spaceCount);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < spaceCount; i++) {
+                vacateSpace(rowIndex, spaceIndex + i, vehicleType);
+            }
+            registry.unregister(vehicleHandle);
+            throw e;
+        }
+        registry.assignSpaces(vehicleHandle, firstSpace, spaceCount);
+    }
+    
+    /**
+     * Fails before an operation that is journaled changes the lot, if the journal can no longer record it.
+     * @throws IllegalStateException if the journal is closed or a write has failed
+     */
+    void checkJournal() {
+        if (journal != null) {
+            journal.checkWritable();
+        }
+    }
+    
+    /**
+     * Appends a park outcome to the journal and the occupancy feed, if any. Called once the spaces
+     * are claimed and before the vehicle becomes removable, so its remove can only follow this one.
+     * If the journal rejects the record, which only happens when it is closed or fails after
+     * {@link #checkJournal()}, nothing is appended and the caller frees the claimed spaces.
+     */
+    void recordPark(String vehicleId, VehicleType vehicleType, long firstSpace, int spaceCount) {
+        if (journal != null) {
+            journal.appendPark(vehicleId, vehicleType, firstSpace, spaceCount);
+        }
+        if (occupancyFeed != null) {
+            occupancyFeed.publishPark(vehicleId, vehicleType, firstSpace, spaceCount);
+        }
+    }
+    
+    void recordPark(String vehicleId, VehicleType vehicleType, long[] spaceHandles) {
+        if (journal != null) {
+            journal.appendPark(vehicleId, vehicleType, spaceHandles);
+        }
+        if (occupancyFeed != null) {
+            occupancyFeed.publishPark(vehicleId, vehicleType, spaceHandles);
+        }
+    }
+    
+    /**
+     * Appends a remove outcome to the journal and the occupancy feed, if any. Called before the spaces
+     * are vacated, so the park of the next vehicle in those spaces can only follow this one.
+     */
+    void recordRemove(String vehicleId, int vehicleHandle) {
+        if (journal != null) {
+            journal.appendRemove(vehicleId);
+        }
+        if (occupancyFeed != null) {
+            occupancyFeed.publishRemove(vehicleId, registry, vehicleHandle);
+        }
+    }
+    
+    /**
+     * Records the remove of a vehicle whose removal has begun; if the journal rejects the record,
+     * the vehicle is parked again before the exception is rethrown.
+     */
+    void recordRemoveOrCancel(String vehicleId, int vehicleHandle) {
+        try {
+            recordRemove(vehicleId, vehicleHandle);
+        } catch (RuntimeException e) {
+            registry.cancelRemoval(vehicleHandle);
+            throw e;
+        }
+    }
+    
+    /**
+     * Parks a vehicle in the given spaces while a journal is replayed.
+     * @throws IllegalStateException if the vehicle is already parked or a space is occupied or does not exist
+     */
+    void restoreVehicle(String vehicleId, VehicleType vehicleType, long[] spaceHandles) {
+        for (long spaceHandle : spaceHandles) {
+            int rowIndex = SpaceHandle.rowIndex(spaceHandle);
+            int spaceIndex = SpaceHandle.spaceIndex(spaceHandle);
+            if (rowIndex < 0 || rowIndex >= spaces.getRowCount() || spaceIndex < 0 || spaceIndex >= spaces.getRowLength(rowIndex)) {
+                throw new IllegalStateException("Space not found: " + SpaceHandle.format(rowIndex, spaceIndex));
+            }
+        }
+        int vehicleHandle = registry.register(vehicleId, vehicleType);
+        if (vehicleHandle == VehicleRegistry.NO_VEHICLE) {
+            throw new IllegalStateException("Vehicle " + vehicleId + " is already parked");
+        }
+        for (long spaceHandle : spaceHandles) {
+            occupySpace(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle),
+                        vehicleId, vehicleHandle, vehicleType);
+        }
+        registry.assignSpaces(vehicleHandle, spaceHandles);
+        vehicleChanged(vehicleId);
+    }
+    
+    /**
+     * Resolves the spaces of a successful result to handles.
+     */
+    long[] resolveSpaces(ParkingResult result) {
+        long[] spaceHandles = new long[result.getSpaceCount()];
+        long firstSpace = result.getFirstSpaceHandle();
+        List<String> spaceIds = firstSpace == SpaceHandle.NONE ? result.getAllocatedSpaces() : null;
+        for (int i = 0; i < spaceHandles.length; i++) {
+            spaceHandles[i] = spaceIds != null ? findSpaceById(spaceIds.get(i)) : firstSpace + i;
+        }
+        return spaceHandles;
+    }
+    
+    /**
+     * Parks a vehicle and reports the outcome to a callback instead of returning a ParkingResult.
+     * With the built-in strategies the spaces are found and occupied without allocating,
+     * so this is the fast path for callers that park at a high rate.
+     * @param vehicleId Unique identifier for the vehicle
+     * @param vehicleType Type of vehicle (MOTORCYCLE, CAR, VAN)
+     * @param callback Receives the spaces held by the vehicle, or the failure reason
+     * @return true if the vehicle is parked, either by this request or before it
+     */
+    public boolean parkVehicle(String vehicleId, VehicleType vehicleType, ParkingCallback callback) {
+        expireReservations();
+        ParkEvent event = new ParkEvent();
+        ParkingMetrics metrics = this.metrics;
+        if (metrics == null && !event.isEnabled()) {
+            return doParkVehicle(vehicleId, vehicleType, callback);
+        }
+        event.begin();
+        long start = System.nanoTime();
+        ParkingMetrics.OutcomeRecorder outcome = outcomeRecorder.wrap(callback);
+        boolean parked = doParkVehicle(vehicleId, vehicleType, outcome);
+        if (metrics != null) {
+            metrics.recordPark(vehicleType, parked, outcome.wasParked, outcome.failureReason, System.nanoTime() - start);
+        }
+        event.record(vehicleId, vehicleType, parked, outcome.wasParked, outcome.failureReason, outcome.spaceCount);
+        return parked;
+    }
+    
+    private boolean doParkVehicle(String vehicleId, VehicleType vehicleType, ParkingCallback callback) {
+        ParkingResult invalid = validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            callback.onFailure(invalid.getMessage());
+            return false;
+        }
+        
+        vehicleId = vehicleId.trim();
+        checkJournal();
+        
+        int existingHandle = registry.findParked(vehicleId);
+        if (existingHandle != VehicleRegistry.NO_VEHICLE) {
+            int heldHandle = registry.beginArrival(vehicleId, vehicleType);
+            if (heldHandle == VehicleRegistry.HELD_FOR_OTHER_TYPE) {
+                callback.onFailure(RESERVED_FOR_OTHER_TYPE.getMessage());
+                return false;
+            }
+            if (heldHandle != VehicleRegistry.NO_VEHICLE) {
+                convertHold(vehicleId, heldHandle);
+                reportSpaces(heldHandle, false, callback);
+                return true;
+            }
+            reportSpaces(existingHandle, true, callback);
+            return true;
+        }
+        
+        ParkingStrategy strategy;
+        try {
+            strategy = strategyFor(vehicleType);
+        } catch (IllegalArgumentException e) {
+            callback.onFailure("Unsupported vehicle type: " + vehicleType);
+            return false;
+        }
+        
+        if (strategy instanceof ContiguousParkingStrategy) {
+            ContiguousParkingStrategy contiguous = (ContiguousParkingStrategy) strategy;
+            AllocationEvent allocation = new AllocationEvent();
+            allocation.begin();
+            long firstSpace = contiguous.findSpaces(occupancyIndex, SpaceHandle.of(0, 0));
+            allocation.record(vehicleType, strategy, occupancyIndex, SpaceHandle.of(0, 0), firstSpace);
+            if (firstSpace == SpaceHandle.NONE) {
+                callback.onFailure(contiguous.getNoSpaceResult().getMessage());
+                return false;
+            }
+            int vehicleHandle = registry.register(vehicleId, vehicleType);
+            occupyRun(vehicleId, vehicleHandle, vehicleType, firstSpace, contiguous.getSpaceCount());
+            reportSpaces(vehicleHandle, false, callback);
+            return true;
+        }
+        
+        // Custom strategies only report their spaces through a ParkingResult
+        ParkingResult result = allocateAndOccupy(vehicleId, vehicleType, strategy, SpaceHandle.of(0, 0));
+        return reportResult(result, callback);
+    }
+    
+    private void reportSpaces(int vehicleHandle, boolean alreadyParked, ParkingCallback callback) {
+        int spaceCount = registry.getSpaceCount(vehicleHandle);
+        for (int i = 0; i < spaceCount; i++) {
+            callback.onSpaceAllocated(registry.getSpace(vehicleHandle, i), alreadyParked);
+        }
+    }
+    
+    /**
+     * Reports a ParkingResult to a callback.
+     * @return true if the result is a success
+     */
+    boolean reportResult(ParkingResult result, ParkingCallback callback) {
+        if (!result.isSuccess()) {
+            callback.onFailure(result.getMessage());
+            return false;
+        }
+        for (long spaceHandle : resolveSpaces(result)) {
+            callback.onSpaceAllocated(spaceHandle, result.isAlreadyParked());
+        }
+        return true;
+    }
+    
+    /**
+     * Validates the inputs of a park request.
+     * @return Failure result describing the invalid input, or null if the request is valid
+     */
+    static ParkingResult validateParkRequest(String vehicleId, VehicleType vehicleType) {
+        if (vehicleId == null || vehicleId.trim().isEmpty()) {
+            return INVALID_VEHICLE_ID;
+        }
+        if (vehicleType == null) {
+            return MISSING_VEHICLE_TYPE;
+        }
+        return null;
+    }
+    
+    /**
+     * Reserves spaces for a vehicle that has not arrived yet. The spaces are chosen by the same strategies
+     * as a park and held until the vehicle parks, which turns the hold into occupied spaces, or until the
+     * time to live runs out and the spaces are released. Held spaces are reported apart from occupied
+     * spaces in the lot status. Holds are neither journaled nor published to the occupancy feed; the
+     * park of the arriving vehicle is.
+     * @param vehicleId Unique identifier for the vehicle
+     * @param vehicleType Type of vehicle (MOTORCYCLE, CAR, VAN)
+     * @param ttl How long the spaces are held, at most {@link #MAX_RESERVATION}
+     * @return ParkingResult with the held spaces; a vehicle already parked or holding a reservation
+     *         gets its current spaces as an already-parked result
+     */
+    public ParkingResult reserve(String vehicleId, VehicleType vehicleType, Duration ttl) {
+        ParkingResult invalid = validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            return invalid;
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero() || ttl.compareTo(MAX_RESERVATION) > 0) {
+            return INVALID_RESERVATION_TIME;
+        }
+        expireReservations();
+        return doReserve(vehicleId.trim(), vehicleType, ttl.toNanos());
+    }
+    
+    /**
+     * Reserves spaces for a validated, trimmed vehicle ID; overridden by the concurrent mode.
+     */
+    ParkingResult doReserve(String vehicleId, VehicleType vehicleType, long ttlNanos) {
+        List<String> existingSpaces = registry.getSpaceIds(vehicleId);
+        if (existingSpaces != null) {
+            return ParkingResult.alreadyParked(existingSpaces);
+        }
+        
+        ParkingStrategy strategy;
+        try {
+            strategy = strategyFor(vehicleType);
         } catch (IllegalArgumentException e) {
             return ParkingResult.failure("Unsupported vehicle type: " + vehicleType);
         }
+        AllocationEvent allocation = new AllocationEvent();
+        allocation.begin();
+        ParkingResult result = strategy.allocateSpaces(vehicleId, spaces.getRows(), occupancyIndex, SpaceHandle.of(0, 0));
+        allocation.record(vehicleType, strategy, occupancyIndex, SpaceHandle.of(0, 0), result);
+        if (!result.isSuccess()) {
+            return result;
+        }
+        
+        long[] spaceHandles = resolveSpaces(result);
+        int vehicleHandle = registry.register(vehicleId, vehicleType);
+        for (long spaceHandle : spaceHandles) {
+            int rowIndex = SpaceHandle.rowIndex(spaceHandle);
+            int spaceIndex = SpaceHandle.spaceIndex(spaceHandle);
+            if (!spaces.tryOccupy(rowIndex, spaceIndex, vehicleId, vehicleHandle)) {
+                throw new IllegalStateException("Space " + spaces.getIdentifier(rowIndex, spaceIndex) + " is already occupied");
+            }
+            recordHeld(rowIndex, spaceIndex);
+        }
+        scheduleHold(vehicleHandle, spaceHandles, ttlNanos);
+        vehicleChanged(vehicleId);
+        return reservedResult(result);
+    }
+    
+    static ParkingResult reservedResult(ParkingResult allocation) {
+        long firstSpace = allocation.getFirstSpaceHandle();
+        return firstSpace != SpaceHandle.NONE
+                ? ParkingResult.reserved(firstSpace, allocation.getSpaceCount())
+                : ParkingResult.reserved(allocation.getAllocatedSpaces());
+    }
+    
+    /**
+     * Updates the index and counters for a space that has just been claimed by a reservation.
+     */
+    void recordHeld(int rowIndex, int spaceIndex) {
+        occupancyIndex.markOccupied(rowIndex, spaceIndex);
+        SpaceType spaceType = spaces.getType(rowIndex, spaceIndex);
+        counters.spaceHeld(spaceType);
+        rowCounters.spaceHeld(rowIndex, spaceType);
+        rowChanged(rowIndex);
+    }
+    
+    /**
+     * Marks the claimed spaces of a registered vehicle as held and schedules their release;
+     * overridden by the concurrent mode to serialize access to the timing wheel.
+     */
+    void scheduleHold(int vehicleHandle, long[] spaceHandles, long ttlNanos) {
+        registry.holdSpaces(vehicleHandle, spaceHandles);
+        long now = clock.getAsLong();
+        reservations.schedule(vehicleHandle, now + ttlNanos, now);
+    }
+    
+    void cancelHoldTimer(int vehicleHandle) {
+        reservations.cancel(vehicleHandle);
+    }
+    
+    /**
+     * Parks a vehicle that is already registered: turns its hold into occupied spaces if it has a
+     * reservation, otherwise reports it as already parked.
+     */
+    ParkingResult parkRegistered(String vehicleId, VehicleType vehicleType, List<String> existingSpaces) {
+        int heldHandle = registry.beginArrival(vehicleId, vehicleType);
+        if (heldHandle == VehicleRegistry.HELD_FOR_OTHER_TYPE) {
+            return RESERVED_FOR_OTHER_TYPE;
+        }
+        if (heldHandle != VehicleRegistry.NO_VEHICLE) {
+            return convertHold(vehicleId, heldHandle);
+        }
+        return ParkingResult.alreadyParked(existingSpaces);
     }
     
-    private void occupySpace(ParkingSpace space, String vehicleId) {
-        space.occupy(vehicleId);
-        spaceToVehicle.put(space.getIdentifier(), vehicleId);
-        vehicleToSpaces.computeIfAbsent(vehicleId, k -> new ArrayList<>()).add(space.getIdentifier());
+    /**
+     * Turns the held spaces of an arriving vehicle into occupied spaces. The caller has claimed the hold
+     * with {@link VehicleRegistry#beginArrival}, so it can no longer expire or be cancelled.
+     */
+    ParkingResult convertHold(String vehicleId, int vehicleHandle) {
+        cancelHoldTimer(vehicleHandle);
+        VehicleType vehicleType = registry.getType(vehicleHandle);
+        long[] spaceHandles = new long[registry.getSpaceCount(vehicleHandle)];
+        boolean contiguous = true;
+        for (int i = 0; i < spaceHandles.length; i++) {
+            spaceHandles[i] = registry.getSpace(vehicleHandle, i);
+            contiguous &= spaceHandles[i] == spaceHandles[0] + i;
+        }
+        try {
+            recordPark(vehicleId, vehicleType, spaceHandles);
+        } catch (RuntimeException e) {
+            releaseHeldSpaces(vehicleHandle); // Its timer is cancelled, so the hold cannot be kept
+            throw e;
+        }
+        for (long spaceHandle : spaceHandles) {
+            int rowIndex = SpaceHandle.rowIndex(spaceHandle);
+            SpaceType spaceType = spaces.getType(rowIndex, SpaceHandle.spaceIndex(spaceHandle));
+            counters.holdConverted(spaceType, vehicleType);
+            rowCounters.holdConverted(rowIndex, spaceType);
+            rowChanged(rowIndex);
+        }
+        registry.finishArrival(vehicleHandle);
+        vehicleChanged(vehicleId); // Same spaces, but the status counts them as occupied now
+        if (contiguous) {
+            return ParkingResult.success(spaceHandles[0], spaceHandles.length);
+        }
+        List<String> spaceIds = new ArrayList<>(spaceHandles.length);
+        for (long spaceHandle : spaceHandles) {
+            spaceIds.add(SpaceHandle.format(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle)));
+        }
+        return ParkingResult.success(spaceIds);
+    }
+    
+    /**
+     * Cancels the reservation of a vehicle that has not arrived and releases its spaces.
+     * @param vehicleId Identifier of the vehicle holding the reservation
+     * @return true if a hold was released, false if the vehicle has none
+     */
+    public boolean cancelReservation(String vehicleId) {
+        if (vehicleId == null || vehicleId.trim().isEmpty()) {
+            return false;
+        }
+        int vehicleHandle = registry.beginRelease(vehicleId.trim());
+        if (vehicleHandle == VehicleRegistry.NO_VEHICLE) {
+            return false;
+        }
+        cancelHoldTimer(vehicleHandle);
+        releaseHeldSpaces(vehicleHandle);
+        return true;
+    }
+    
+    /**
+     * Releases the holds whose time to live has run out. Every park, remove, reserve and status request
+     * does this first while holds are outstanding, so an idle lot only needs it called to free the spaces
+     * before the next request. Each expired hold costs O(1), however many holds are outstanding.
+     * A single-threaded lot must be called from the thread that uses it.
+     */
+    public void expireReservations() {
+        if (!reservations.isEmpty()) {
+            reservations.advance(clock.getAsLong(), this::releaseExpiredHold);
+        }
+    }
+    
+    /**
+     * Gets the number of reservations whose vehicle has not arrived yet.
+     */
+    public int getReservationCount() {
+        return reservations.size();
+    }
+    
+    private void releaseExpiredHold(int vehicleHandle) {
+        if (registry.beginRelease(vehicleHandle)) { // Not claimed by an arrival or cancellation meanwhile
+            releaseHeldSpaces(vehicleHandle);
+        }
+    }
+    
+    /**
+     * Frees the spaces of a hold claimed for release and unregisters its vehicle;
+     * overridden by the concurrent mode to lock their rows.
+     */
+    void releaseHeldSpaces(int vehicleHandle) {
+        int spaceCount = registry.getSpaceCount(vehicleHandle);
+        for (int i = 0; i < spaceCount; i++) {
+            long spaceHandle = registry.getSpace(vehicleHandle, i);
+            releaseHeldSpace(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle));
+        }
+        String vehicleId = snapshots != null ? registry.getId(vehicleHandle) : null;
+        registry.unregister(vehicleHandle);
+        if (vehicleId != null) {
+            vehicleChanged(vehicleId); // Once unregistered, so a concurrent publish cannot read the hold back
+        }
+    }
+    
+    /**
+     * Frees a held space.
+     */
+    void releaseHeldSpace(int rowIndex, int spaceIndex) {
+        spaces.vacate(rowIndex, spaceIndex);
+        occupancyIndex.markFree(rowIndex, spaceIndex);
+        SpaceType spaceType = spaces.getType(rowIndex, spaceIndex);
+        counters.holdReleased(spaceType);
+        rowCounters.holdReleased(rowIndex, spaceType);
+        rowChanged(rowIndex);
+    }
+    
+    void occupySpace(int rowIndex, int spaceIndex, String vehicleId, int vehicleHandle, VehicleType vehicleType) {
+        if (!spaces.tryOccupy(rowIndex, spaceIndex, vehicleId, vehicleHandle)) {
+            throw new IllegalStateException("Space " + spaces.getIdentifier(rowIndex, spaceIndex) + " is already occupied");
+        }
+        recordOccupied(rowIndex, spaceIndex, vehicleType);
+    }
+    
+    /**
+     * Updates the index and counters for a space that has just been claimed.
+     */
+    void recordOccupied(int rowIndex, int spaceIndex, VehicleType vehicleType) {
+        occupancyIndex.markOccupied(rowIndex, spaceIndex);
+        SpaceType spaceType = spaces.getType(rowIndex, spaceIndex);
+        counters.spaceOccupied(spaceType, vehicleType);
+        rowCounters.spaceOccupied(rowIndex, spaceType);
+        rowChanged(rowIndex);
     }
     
     /**
@@ -97,104 +721,311 @@ public class ParkingLot {
      * @return true if vehicle was found and removed, false otherwise
      */
     public boolean removeVehicle(String vehicleId) {
+        expireReservations();
+        RemoveEvent event = new RemoveEvent();
+        event.begin();
+        ParkingMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        VehicleType removedType = doRemoveVehicle(vehicleId);
+        if (metrics != null) {
+            metrics.recordRemove(removedType, System.nanoTime() - start);
+        }
+        event.record(vehicleId, removedType);
+        return removedType != null;
+    }
+    
+    /**
+     * Removes a vehicle without recording metrics or events; overridden by the concurrent mode.
+     * @return Type of the removed vehicle, or null if it was not parked
+     */
+    VehicleType doRemoveVehicle(String vehicleId) {
         if (vehicleId == null || vehicleId.trim().isEmpty()) {
-            return false;
+            return null;
         }
         
         vehicleId = vehicleId.trim();
-        List<String> spaceIds = vehicleToSpaces.remove(vehicleId);
+        checkJournal();
+        int vehicleHandle = registry.beginRemoval(vehicleId);
         
-        if (spaceIds == null) {
-            return false; // Vehicle not found
+        if (vehicleHandle == VehicleRegistry.NO_VEHICLE) {
+            return null; // Vehicle not found
         }
         
-        // Free all spaces occupied by this vehicle
-        for (String spaceId : spaceIds) {
-            spaceToVehicle.remove(spaceId);
-            findSpaceById(spaceId).vacate();
-        }
+        // Free all spaces occupied by this vehicle, then release its handle
+        VehicleType vehicleType = registry.getType(vehicleHandle);
+        recordRemoveOrCancel(vehicleId, vehicleHandle);
+        vacateVehicleSpaces(vehicleHandle);
+        registry.unregister(vehicleHandle);
+        vehicleChanged(vehicleId);
         
-        return true;
+        return vehicleType;
     }
     
-    private ParkingSpace findSpaceById(String spaceId) {
-        for (List<ParkingSpace> row : rows) {
-            for (ParkingSpace space : row) {
-                if (space.getIdentifier().equals(spaceId)) {
-                    return space;
-                }
+    /**
+     * Removes a batch of vehicles, with the same outcome as calling
+     * {@link #removeVehicle(String)} for each vehicle in order.
+     * @param vehicleIds Identifiers of the vehicles to remove
+     * @return One result per vehicle: true if it was found and removed, false otherwise
+     */
+    public List<Boolean> removeVehicles(List<String> vehicleIds) {
+        if (vehicleIds == null) {
+            return Collections.emptyList();
+        }
+        List<Boolean> results = new ArrayList<>(vehicleIds.size());
+        for (String vehicleId : vehicleIds) {
+            results.add(removeVehicle(vehicleId));
+        }
+        return results;
+    }
+    
+    void vacateVehicleSpaces(int vehicleHandle) {
+        VehicleType vehicleType = registry.getType(vehicleHandle);
+        int spaceCount = registry.getSpaceCount(vehicleHandle);
+        for (int i = 0; i < spaceCount; i++) {
+            long spaceHandle = registry.getSpace(vehicleHandle, i);
+            vacateSpace(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle), vehicleType);
+        }
+    }
+    
+    void vacateSpace(int rowIndex, int spaceIndex, VehicleType vehicleType) {
+        spaces.vacate(rowIndex, spaceIndex);
+        occupancyIndex.markFree(rowIndex, spaceIndex);
+        SpaceType spaceType = spaces.getType(rowIndex, spaceIndex);
+        counters.spaceVacated(spaceType, vehicleType);
+        rowCounters.spaceVacated(rowIndex, spaceType);
+        rowChanged(rowIndex);
+    }
+    
+    void rowChanged(int rowIndex) {
+        SnapshotPublisher snapshots = this.snapshots;
+        if (snapshots != null) {
+            snapshots.rowChanged(rowIndex);
+        }
+    }
+    
+    void vehicleChanged(String vehicleId) {
+        SnapshotPublisher snapshots = this.snapshots;
+        if (snapshots != null) {
+            snapshots.vehicleChanged(vehicleId);
+        }
+    }
+    
+    /**
+     * Resolves a space identifier to its row/index handle in constant time.
+     * The handle is decoded from the "R{row}-{space}" identifier and verified against the lot.
+     */
+    long findSpaceById(String spaceId) {
+        long handle = SpaceHandle.parse(spaceId);
+        if (handle != SpaceHandle.NONE) {
+            int rowIndex = SpaceHandle.rowIndex(handle);
+            int spaceIndex = SpaceHandle.spaceIndex(handle);
+            if (rowIndex < spaces.getRowCount() && spaceIndex < spaces.getRowLength(rowIndex)
+                    && spaces.getIdentifier(rowIndex, spaceIndex).equals(spaceId)) {
+                return handle;
             }
         }
         throw new IllegalStateException("Space not found: " + spaceId);
     }
     
+    /**
+     * Releases the off-heap memory of a lot created with {@link LotStorage#OFF_HEAP} storage.
+     * Operations that read or update the spaces of a closed lot throw IllegalStateException.
+     * No other thread may use the lot while or after it is closed.
+     * Closing a lot stored on the heap has no effect.
+     */
+    @Override
+    public void close() {
+        spaces.close(false);
+    }
+    
     /**
      * Gets the current status of the parking lot.
+     * Built in constant time from counters maintained by the occupy/vacate paths.
      * @return LotStatus object containing detailed statistics
      */
     public LotStatus getLotStatus() {
-        int totalSpaces = 0;
+        expireReservations();
+        LotStatusEvent event = new LotStatusEvent();
+        event.begin();
+        ParkingMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
+        LotStatus status = counters.toLotStatus();
+        if (verifyCounters) {
+            LotStatus scanned = computeLotStatusByScan();
+            if (!scanned.equals(status)) {
+                throw new IllegalStateException("Lot counters out of sync: counters=" + status + ", scan=" + scanned);
+            }
+            verifyRowCounters();
+        }
+        if (metrics != null) {
+            metrics.recordStatus(System.nanoTime() - start);
+        }
+        event.record(status, verifyCounters);
+        return status;
+    }
+    
+    /**
+     * Enables or disables the debug mode that cross-checks the counters against a full scan
+     * on every status request. Also enabled with the system property parkinglot.verifyCounters.
+     * @param verifyCounters true to verify counters on every status request
+     */
+    public void setVerifyCounters(boolean verifyCounters) {
+        this.verifyCounters = verifyCounters;
+    }
+    
+    /**
+     * Switches the cars and motorcycles of this lot between the strategies of {@link ParkingStrategyFactory}
+     * and the best-fit ones, which keep long runs of regular spaces free for vans. Vans and other lots are
+     * not affected. Each operation uses the strategies in effect when it starts, so a {@link ConcurrentParkingLot}
+     * can switch while its gates are parking.
+     * @param bestFit true for {@link BestFitCarParkingStrategy} and {@link BestFitMotorcycleParkingStrategy},
+     *                false for the factory's strategies
+     */
+    public void setBestFit(boolean bestFit) {
+        ParkingStrategy[] strategies = null;
+        if (bestFit) {
+            strategies = new ParkingStrategy[VehicleType.values().length];
+            strategies[VehicleType.MOTORCYCLE.ordinal()] = new BestFitMotorcycleParkingStrategy();
+            strategies[VehicleType.CAR.ordinal()] = new BestFitCarParkingStrategy();
+        }
+        this.bestFitStrategies = strategies;
+    }
+    
+    /**
+     * Gets the strategy this lot allocates with for a vehicle type.
+     * @throws IllegalArgumentException if the vehicle type is not supported
+     */
+    ParkingStrategy strategyFor(VehicleType vehicleType) {
+        ParkingStrategy[] strategies = bestFitStrategies;
+        ParkingStrategy strategy = strategies != null ? strategies[vehicleType.ordinal()] : null;
+        return strategy != null ? strategy : ParkingStrategyFactory.getStrategy(vehicleType);
+    }
+    
+    /**
+     * Enables or disables the operation metrics: latency histograms per operation and vehicle type,
+     * and outcome counters. Enabling them again starts from zero. Also enabled with the system property
+     * parkinglot.metrics. Recording reads the clock twice and updates two atomic counters per operation,
+     * which costs a few tens of nanoseconds where System.nanoTime is cheap.
+     * @param enabled true to record metrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        this.metrics = enabled ? new ParkingMetrics() : null;
+    }
+    
+    /**
+     * Enables or disables immutable snapshots of the occupancy, for readers that must not block the thread
+     * updating the lot. Enabling scans the lot to build the first snapshot; from then on the lot records which
+     * rows and vehicles change, and {@link #publishSnapshot()} turns those changes into the next snapshot.
+     * Must be called from the thread that updates the lot, or from any thread for a {@link ConcurrentParkingLot}.
+     * @param enabled true to record changes and publish snapshots
+     */
+    public void setSnapshotsEnabled(boolean enabled) {
+        if (!enabled) {
+            this.snapshots = null;
+            return;
+        }
+        SnapshotPublisher publisher = newSnapshotPublisher();
+        this.snapshots = publisher; // Record changes before the scan, so none made during it is lost
+        publisher.start();
+    }
+    
+    /**
+     * Creates the publisher that records changes for snapshots; overridden by the concurrent mode.
+     */
+    SnapshotPublisher newSnapshotPublisher() {
+        return new SnapshotPublisher(this);
+    }
+    
+    boolean isSnapshotsEnabled() {
+        return snapshots != null;
+    }
+    
+    /**
+     * Publishes the changes since the last publish as a new snapshot, after releasing expired holds.
+     * Must be called from the thread that updates the lot, between operations; a thread driving the lot
+     * typically publishes after each batch of requests, and readers see the lot as of that point.
+     * A {@link ConcurrentParkingLot} publishes from any thread: the publish locks every row, so it waits for
+     * the operations in progress and holds up new ones while it copies the changes. Its cost also grows by
+     * one lock per row.
+     * Costs time in proportion to the rows and vehicles that changed, not to the size of the lot.
+     * @return The new snapshot, or the current one if nothing has changed
+     * @throws IllegalStateException if snapshots are not enabled
+     */
+    public LotSnapshot publishSnapshot() {
+        SnapshotPublisher snapshots = this.snapshots;
+        if (snapshots == null) {
+            throw new IllegalStateException("Parking lot snapshots are not enabled");
+        }
+        expireReservations();
+        return snapshots.publish();
+    }
+    
+    /**
+     * Gets the last published snapshot. Safe to call from any thread, and never waits for the thread updating the lot.
+     * @throws IllegalStateException if snapshots are not enabled, or the first snapshot is still being built
+     */
+    public LotSnapshot getSnapshot() {
+        SnapshotPublisher snapshots = this.snapshots;
+        LotSnapshot snapshot = snapshots != null ? snapshots.getSnapshot() : null;
+        if (snapshot == null) {
+            throw new IllegalStateException("Parking lot snapshots are not enabled");
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Gets the metrics recorded since they were enabled.
+     * @return Snapshot of the latencies and outcome counters
+     * @throws IllegalStateException if metrics are not enabled
+     */
+    public MetricsSnapshot getMetricsSnapshot() {
+        ParkingMetrics metrics = this.metrics;
+        if (metrics == null) {
+            throw new IllegalStateException("Parking lot metrics are not enabled");
+        }
+        return metrics.snapshot();
+    }
+    
+    private LotStatus computeLotStatusByScan() {
         int totalCompactSpaces = 0;
         int totalRegularSpaces = 0;
-        int availableSpaces = 0;
-        int availableCompactSpaces = 0;
-        int availableRegularSpaces = 0;
-        int occupiedSpaces = 0;
         int occupiedCompactSpaces = 0;
         int occupiedRegularSpaces = 0;
         
-        for (List<ParkingSpace> row : rows) {
-            for (ParkingSpace space : row) {
-                totalSpaces++;
-                
-                if (space.getType() == SpaceType.COMPACT) {
+        for (int rowIndex = 0; rowIndex < spaces.getRowCount(); rowIndex++) {
+            for (int spaceIndex = 0; spaceIndex < spaces.getRowLength(rowIndex); spaceIndex++) {
+                boolean occupied = spaces.isOccupied(rowIndex, spaceIndex);
+                if (spaces.getType(rowIndex, spaceIndex) == SpaceType.COMPACT) {
                     totalCompactSpaces++;
-                    if (!space.isOccupied()) {
-                        availableCompactSpaces++;
-                    } else {
+                    if (occupied) {
                         occupiedCompactSpaces++;
                     }
                 } else {
                     totalRegularSpaces++;
-                    if (!space.isOccupied()) {
-                        availableRegularSpaces++;
-                    } else {
+                    if (occupied) {
                         occupiedRegularSpaces++;
                     }
                 }
-                
-                if (!space.isOccupied()) {
-                    availableSpaces++;
-                } else {
-                    occupiedSpaces++;
-                }
             }
         }
         
-        int vanOccupiedSpaces = countVanOccupiedSpaces();
-        boolean isFull = availableSpaces == 0;
-        boolean isEmpty = occupiedSpaces == 0;
-        boolean allCompactOccupied = totalCompactSpaces > 0 && availableCompactSpaces == 0;
-        boolean allRegularOccupied = totalRegularSpaces > 0 && availableRegularSpaces == 0;
-        
-        return new LotStatus(totalSpaces, totalCompactSpaces, totalRegularSpaces,
-                           availableSpaces, availableCompactSpaces, availableRegularSpaces,
-                           occupiedSpaces, occupiedCompactSpaces, occupiedRegularSpaces,
-                           vanOccupiedSpaces, isFull, isEmpty, allCompactOccupied, allRegularOccupied);
-    }
-    
-    private int countVanOccupiedSpaces() {
-        int count = 0;
-        for (List<String> spaceIds : vehicleToSpaces.values()) {
-            if (spaceIds.size() == 2) { // Vans occupy exactly 2 spaces
-                count += 2;
+        int[] heldSpaces = new int[SpaceType.values().length];
+        registry.forEachHeld(vehicleHandle -> {
+            for (int i = 0; i < registry.getSpaceCount(vehicleHandle); i++) {
+                long spaceHandle = registry.getSpace(vehicleHandle, i);
+                heldSpaces[spaces.getType(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle)).ordinal()]++;
             }
-        }
-        return count;
+        });
+        int heldCompactSpaces = heldSpaces[SpaceType.COMPACT.ordinal()];
+        int heldRegularSpaces = heldSpaces[SpaceType.REGULAR.ordinal()];
+        
+        return LotCounters.buildStatus(totalCompactSpaces, totalRegularSpaces,
+                occupiedCompactSpaces - heldCompactSpaces, occupiedRegularSpaces - heldRegularSpaces,
+                registry.countOccupiedSpaces(VehicleType.VAN), heldCompactSpaces, heldRegularSpaces);
     }
     
     /**
-     * Gets the spaces currently occupied by a specific vehicle.
+     * Gets the spaces currently occupied by a specific vehicle, or held for it by a reservation.
      * @param vehicleId The vehicle identifier
      * @return List of space identifiers, or empty list if vehicle not found
      */
@@ -202,23 +1033,58 @@ public class ParkingLot {
         if (vehicleId == null) {
             return Collections.emptyList();
         }
-        List<String> spaces = vehicleToSpaces.get(vehicleId.trim());
-        return spaces != null ? new ArrayList<>(spaces) : Collections.emptyList();
+        List<String> spaces = registry.getSpaceIds(vehicleId.trim());
+        return spaces != null ? spaces : Collections.emptyList();
     }
     
     /**
      * Gets a summary of occupied and available spots per row.
+     * Each row's line is cached and only formatted again once the row's counts change.
      * @return List of row summaries
      */
     public List<String> getRowSummaries() {
-        List<String> summaries = new ArrayList<>();
-        for (int i = 0; i < rows.size(); i++) {
-            List<ParkingSpace> row = rows.get(i);
-            long occupied = row.stream().mapToLong(space -> space.isOccupied() ? 1 : 0).sum();
-            long available = row.size() - occupied;
-            summaries.add(String.format("Row %d: %d occupied, %d available", 
-                                      i + 1, occupied, available));
+        spaces.checkOpen();
+        List<String> summaries = new ArrayList<>(rowCounters.getRowCount());
+        for (int i = 0; i < rowCounters.getRowCount(); i++) {
+            summaries.add(rowCounters.getRowStatus(i).getSummary());
         }
         return summaries;
     }
+    
+    /**
+     * Gets the occupancy of every row by space type, for programmatic consumers of the row summaries.
+     * Built from counters maintained by the occupy/vacate paths; unchanged rows reuse their last status.
+     * @return One RowStatus per row, in row order
+     */
+    public List<RowStatus> getRowStatuses() {
+        spaces.checkOpen();
+        List<RowStatus> statuses = new ArrayList<>(rowCounters.getRowCount());
+        for (int i = 0; i < rowCounters.getRowCount(); i++) {
+            statuses.add(rowCounters.getRowStatus(i));
+        }
+        return statuses;
+    }
+    
+    /**
+     * Gets the occupancy of one row by space type.
+     * @param rowIndex Index of the row, from 0
+     * @return Status of the row
+     */
+    public RowStatus getRowStatus(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCounters.getRowCount()) {
+            throw new IllegalArgumentException("Row index out of range: " + rowIndex);
+        }
+        spaces.checkOpen();
+        return rowCounters.getRowStatus(rowIndex);
+    }
+    
+    private void verifyRowCounters() {
+        for (int rowIndex = 0; rowIndex < spaces.getRowCount(); rowIndex++) {
+            int scanned = spaces.countOccupied(rowIndex);
+            if (scanned != rowCounters.getTakenSpaces(rowIndex)) {
+                throw new IllegalStateException("Row counters out of sync: counters=" + rowCounters.getRowStatus(rowIndex)
+                        + ", scan=" + scanned + " occupied or held");
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs several parking lots as shards of one service, each on its own thread.
+ * A shard is a plain single-threaded ParkingLot confined to its thread, so shards never contend
+ * with each other and throughput grows with the number of shards up to the number of cores.
+ *
+ * <p>New vehicles are routed by a {@link ShardRoutingPolicy}; when the chosen shard has no
+ * suitable space, the following shards are tried in order. A global index from vehicle ID to
+ * shard routes removals and lookups, and makes sure a vehicle is parked in at most one shard.
+ * Space identifiers in results are local to the shard the vehicle is parked in, see {@link #getShard(String)}.
+ */
+public class ParkingLotCluster implements AutoCloseable {
+    private final ParkingLot[] shards;
+    private final ExecutorService[] executors;
+    private final ShardRoutingPolicy routingPolicy;
+    private final ConcurrentHashMap<String, Integer> vehicleShards = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cluster that takes ownership of the given lots. The lots must not be used
+     * directly once they belong to the cluster.
+     * @param lots Shards of the cluster, in the order spill-over tries them
+     * @param routingPolicy Chooses the first shard for each new vehicle
+     */
+    public ParkingLotCluster(List<? extends ParkingLot> lots, ShardRoutingPolicy routingPolicy) {
+        if (lots == null || lots.isEmpty()) {
+            throw new IllegalArgumentException("Cluster needs at least one parking lot");
+        }
+        if (routingPolicy == null) {
+            throw new IllegalArgumentException("Routing policy cannot be null");
+        }
+        this.shards = lots.toArray(new ParkingLot[0]);
+        this.routingPolicy = routingPolicy;
+        this.executors = new ExecutorService[shards.length];
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (shards[shard] == null) {
+                throw new IllegalArgumentException("Parking lot cannot be null");
+            }
+            String threadName = "parking-shard-" + (shard + 1);
+            executors[shard] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Splits one logical lot into shards of consecutive rows.
+     * @param layout Rows of the whole lot
+     * @param shardCount Number of shards, at most the number of rows
+     * @param storage How each shard stores its spaces
+     * @param routingPolicy Chooses the first shard for each new vehicle
+     * @return Cluster whose shard i holds the i-th block of rows
+     */
+    public static ParkingLotCluster split(LotLayout layout, int shardCount, LotStorage storage,
+                                          ShardRoutingPolicy routingPolicy) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Lot layout cannot be null");
+        }
+        if (shardCount <= 0 || shardCount > layout.getRowCount()) {
+            throw new IllegalArgumentException("Shard count must be between 1 and the number of rows");
+        }
+        List<ParkingLot> lots = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int fromRow = (int) ((long) layout.getRowCount() * shard / shardCount);
+            int toRow = (int) ((long) layout.getRowCount() * (shard + 1) / shardCount);
+            lots.add(new ParkingLot(layout.subLayout(fromRow, toRow), storage));
+        }
+        return new ParkingLotCluster(lots, routingPolicy);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the number of available spaces of a shard without waiting for its thread.
+     */
+    public int getAvailableSpaces(int shard) {
+        return shards[shard].counters.getAvailableSpaces();
+    }
+
+    /**
+     * Gets the shard a vehicle is parked in, or being parked in.
+     * @return Shard index, or -1 if the vehicle is not in the cluster
+     */
+    public int getShard(String vehicleId) {
+        Integer shard = vehicleId != null ? vehicleShards.get(vehicleId.trim()) : null;
+        return shard != null ? shard : -1;
+    }
+
+    /**
+     * Parks a vehicle in the shard chosen by the routing policy, spilling over to the following shards when it is full.
+     * @param vehicleId Unique identifier for the vehicle across the cluster
+     * @param vehicleType Type of vehicle
+     * @return Future completed with the result on the shard's thread
+     */
+    public CompletableFuture<ParkingResult> parkVehicleAsync(String vehicleId, VehicleType vehicleType) {
+        ParkingResult invalid = ParkingLot.validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
+        String id = vehicleId.trim();
+        int shard = Math.floorMod(routingPolicy.selectShard(id, vehicleType, this), shards.length);
+        Integer parkedShard = vehicleShards.putIfAbsent(id, shard);
+        if (parkedShard != null) {
+            // Runs after any park of the same vehicle already queued on that shard
+            return submit(parkedShard, () -> shards[parkedShard].getVehicleSpaces(id))
+                    .thenCompose(spaces -> spaces.isEmpty()
+                            ? parkVehicleAsync(id, vehicleType) // That park failed or moved on; route again
+                            : CompletableFuture.completedFuture(ParkingResult.alreadyParked(spaces)));
+        }
+        return parkInShard(id, vehicleType, shard, 1);
+    }
+
+    private CompletableFuture<ParkingResult> parkInShard(String vehicleId, VehicleType vehicleType,
+                                                         int shard, int attempt) {
+        return submit(shard, () -> shards[shard].parkVehicle(vehicleId, vehicleType)).thenCompose(result -> {
+            if (result.isSuccess()) {
+                return CompletableFuture.completedFuture(result);
+            }
+            if (attempt == shards.length) {
+                vehicleShards.remove(vehicleId, shard);
+                return CompletableFuture.completedFuture(result);
+            }
+            int next = (shard + 1) % shards.length;
+            vehicleShards.replace(vehicleId, shard, next);
+            return parkInShard(vehicleId, vehicleType, next, attempt + 1);
+        });
+    }
+
+    /**
+     * Removes a vehicle from the shard it is parked in.
+     * @return Future completed with true if the vehicle was removed
+     */
+    public CompletableFuture<Boolean> removeVehicleAsync(String vehicleId) {
+        if (vehicleId == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String id = vehicleId.trim();
+        Integer shard = vehicleShards.get(id);
+        if (shard == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return submit(shard, () -> {
+            boolean removed = shards[shard].removeVehicle(id);
+            if (removed) {
+                vehicleShards.remove(id, shard);
+            }
+            return removed;
+        });
+    }
+
+    public ParkingResult parkVehicle(String vehicleId, VehicleType vehicleType) {
+        return join(parkVehicleAsync(vehicleId, vehicleType));
+    }
+
+    public boolean removeVehicle(String vehicleId) {
+        return join(removeVehicleAsync(vehicleId));
+    }
+
+    /**
+     * Gets the identifiers of the spaces a vehicle occupies in its shard.
+     * @return Shard-local space identifiers, or an empty list if the vehicle is not parked
+     */
+    public List<String> getVehicleSpaces(String vehicleId) {
+        int shard = getShard(vehicleId);
+        if (shard < 0) {
+            return Collections.emptyList();
+        }
+        return join(submit(shard, () -> shards[shard].getVehicleSpaces(vehicleId)));
+    }
+
+    /**
+     * Gets the status of one shard, computed on its thread.
+     */
+    public LotStatus getShardStatus(int shard) {
+        return join(submit(shard, shards[shard]::getLotStatus));
+    }
+
+    /**
+     * Gets the combined status of all shards. Each shard's counters are read without waiting
+     * for its thread, so the totals are exact but operations in flight may be partly counted.
+     */
+    public LotStatus getLotStatus() {
+        int totalCompactSpaces = 0;
+        int totalRegularSpaces = 0;
+        int occupiedCompactSpaces = 0;
+        int occupiedRegularSpaces = 0;
+        int vanOccupiedSpaces = 0;
+        int heldCompactSpaces = 0;
+        int heldRegularSpaces = 0;
+        for (ParkingLot shard : shards) {
+            LotCounters counters = shard.counters;
+            totalCompactSpaces += counters.getTotalSpaces(SpaceType.COMPACT);
+            totalRegularSpaces += counters.getTotalSpaces(SpaceType.REGULAR);
+            occupiedCompactSpaces += counters.getOccupiedSpaces(SpaceType.COMPACT);
+            occupiedRegularSpaces += counters.getOccupiedSpaces(SpaceType.REGULAR);
+            vanOccupiedSpaces += counters.getOccupiedSpaces(VehicleType.VAN);
+            heldCompactSpaces += counters.getHeldSpaces(SpaceType.COMPACT);
+            heldRegularSpaces += counters.getHeldSpaces(SpaceType.REGULAR);
+        }
+        return LotCounters.buildStatus(totalCompactSpaces, totalRegularSpaces,
+                occupiedCompactSpaces, occupiedRegularSpaces, vanOccupiedSpaces, heldCompactSpaces, heldRegularSpaces);
+    }
+
+    private <T> CompletableFuture<T> submit(int shard, Supplier<T> operation) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executors[shard]);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Parking lot cluster is closed", e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the shard threads once the queued operations have run, then closes the lots.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        for (ExecutorService executor : executors) {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (ParkingLot shard : shards) {
+            shard.close();
+        }
+    }
+}
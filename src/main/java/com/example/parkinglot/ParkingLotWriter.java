@@ -0,0 +1,487 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Drives a parking lot from one dedicated writer thread, so a plain single-threaded ParkingLot
+ * can serve many gates without locks. Gates submit commands to a bounded multi-producer,
+ * single-consumer queue and get a CompletableFuture back; the writer runs the commands in
+ * submission order and completes the futures.
+ *
+ * <p>The writer takes whatever is queued as one batch, and runs consecutive parks through
+ * {@link ParkingLot#parkVehicles}, which resumes each vehicle type's scan where the previous park left off.
+ * When the queue is full, submissions either wait for room or fail fast, see {@link WhenFull}.
+ * The delay between submitting a command and the writer taking it is recorded per command type.
+ * If the lot has snapshots enabled, the writer publishes one after each batch, so dashboards can read
+ * the status, row summaries and vehicle spaces from {@link #getSnapshot()} without queueing behind gates.
+ *
+ * <p>Futures are completed on the writer thread, so dependent stages run there unless they use the
+ * async variants of CompletableFuture; slow stages delay every gate.
+ *
+ * <p>A command that throws fails its own future. If the writer itself stops, for example on an Error
+ * thrown by a query, the commands of the batch it was running fail with that error, and every command
+ * queued or submitted from then on fails with a RejectedExecutionException instead of waiting forever.
+ */
+public class ParkingLotWriter implements AutoCloseable {
+    private static final int MAX_BATCH = 256;
+    private static final int SPIN_ROUNDS = 64;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final int CLOSED = 1 << 30;
+    private static final CommandType[] COMMAND_TYPES = CommandType.values();
+
+    /**
+     * What a submission does when the queue is full.
+     */
+    public enum WhenFull {
+        /** Wait until the writer has made room. */
+        BLOCK,
+        /** Fail the future at once with a RejectedExecutionException. */
+        REJECT
+    }
+
+    /**
+     * Kinds of commands, for the queueing-delay metrics.
+     */
+    public enum CommandType {
+        PARK,
+        REMOVE,
+        RESERVE,
+        QUERY
+    }
+
+    private final ParkingLot lot;
+    private final WhenFull whenFull;
+    private final Thread writer;
+
+    // Vyukov-style bounded queue: a slot's sequence says whether it is free for sequence s (s) or holds s (s + 1)
+    private final Command[] ring;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // Next sequence a producer claims
+    private volatile long head; // Next sequence the writer takes; written by the writer only
+
+    private final AtomicInteger producers = new AtomicInteger(); // Submissions in flight, plus CLOSED once closed
+    private volatile boolean sleeping;
+    private volatile Throwable stoppedBy; // Set if the writer thread died
+
+    private final LatencyHistogram[] queueingDelays = new LatencyHistogram[COMMAND_TYPES.length];
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final AtomicLong taken = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Creates a writer that takes ownership of a lot. The lot must not be used directly once it belongs to the writer.
+     * @param lot Lot to drive; a single-threaded ParkingLot is enough
+     * @param capacity Size of the command queue, a power of two
+     * @param whenFull What submissions do when the queue is full
+     */
+    public ParkingLotWriter(ParkingLot lot, int capacity, WhenFull whenFull) {
+        if (lot == null) {
+            throw new IllegalArgumentException("Parking lot cannot be null");
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two, at least 2");
+        }
+        if (whenFull == null) {
+            throw new IllegalArgumentException("Back-pressure policy cannot be null");
+        }
+        this.lot = lot;
+        this.whenFull = whenFull;
+        this.ring = new Command[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        for (int i = 0; i < queueingDelays.length; i++) {
+            queueingDelays[i] = new LatencyHistogram();
+        }
+        this.writer = new Thread(this::run, "parking-lot-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Gets the number of commands waiting for the writer.
+     */
+    public int getQueueSize() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Gets the snapshot the writer published after its last batch.
+     * @throws IllegalStateException if snapshots were not enabled on the lot before it was given to the writer
+     */
+    public LotSnapshot getSnapshot() {
+        return lot.getSnapshot();
+    }
+
+    /**
+     * Parks a vehicle on the writer thread.
+     * @return Future completed with the result; invalid requests complete at once
+     * @throws IllegalStateException if the writer is closed
+     */
+    public CompletableFuture<ParkingResult> parkVehicle(String vehicleId, VehicleType vehicleType) {
+        ParkingResult invalid = ParkingLot.validateParkRequest(vehicleId, vehicleType);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(invalid);
+        }
+        return enqueue(new Command(CommandType.PARK, new Vehicle(vehicleId, vehicleType), null, null));
+    }
+
+    /**
+     * Removes a vehicle on the writer thread.
+     * @return Future completed with true if the vehicle was found and removed
+     * @throws IllegalStateException if the writer is closed
+     */
+    public CompletableFuture<Boolean> removeVehicle(String vehicleId) {
+        return enqueue(new Command(CommandType.REMOVE, vehicleId, null, null));
+    }
+
+    /**
+     * Reserves spaces on the writer thread, see {@link ParkingLot#reserve}.
+     * @throws IllegalStateException if the writer is closed
+     */
+    public CompletableFuture<ParkingResult> reserve(String vehicleId, VehicleType vehicleType, Duration ttl) {
+        return enqueue(new Command(CommandType.RESERVE, vehicleId, vehicleType, ttl));
+    }
+
+    /**
+     * Runs any other operation on the writer thread, such as {@code ParkingLot::getLotStatus}.
+     * @param query Operation on the lot; it must not keep the lot for use outside the writer thread
+     * @throws IllegalStateException if the writer is closed
+     */
+    public <T> CompletableFuture<T> submit(Function<ParkingLot, T> query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        return enqueue(new Command(CommandType.QUERY, query, null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> enqueue(Command command) {
+        if ((producers.incrementAndGet() & CLOSED) != 0) {
+            producers.decrementAndGet();
+            throw new IllegalStateException("Parking lot writer is closed");
+        }
+        try {
+            if (stoppedBy != null) {
+                command.future.completeExceptionally(stopped(stoppedBy));
+                return (CompletableFuture<T>) command.future;
+            }
+            command.submittedAt = System.nanoTime();
+            if (!offer(command)) {
+                if (whenFull == WhenFull.REJECT) {
+                    rejected.increment();
+                    command.future.completeExceptionally(new RejectedExecutionException("Parking lot command queue is full"));
+                    return (CompletableFuture<T>) command.future;
+                }
+                blocked.increment();
+                do {
+                    if (stoppedBy != null) {
+                        command.future.completeExceptionally(stopped(stoppedBy)); // Nobody will make room
+                        return (CompletableFuture<T>) command.future;
+                    }
+                    LockSupport.parkNanos(BACKOFF_NANOS);
+                } while (!offer(command));
+            }
+        } finally {
+            producers.decrementAndGet();
+        }
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return (CompletableFuture<T>) command.future;
+    }
+
+    private boolean offer(Command command) {
+        while (true) {
+            long sequence = tail.get();
+            int index = (int) sequence & mask;
+            long slotSequence = sequences.get(index);
+            if (slotSequence == sequence) {
+                if (tail.compareAndSet(sequence, sequence + 1)) {
+                    ring[index] = command;
+                    sequences.set(index, sequence + 1); // Publishes the command to the writer
+                    return true;
+                }
+            } else if (slotSequence < sequence) {
+                return false; // The writer has not taken the command from a lap ago yet
+            }
+            // Another producer claimed this sequence; try the next one
+        }
+    }
+
+    private Command poll() {
+        long sequence = head;
+        int index = (int) sequence & mask;
+        if (sequences.get(index) != sequence + 1) {
+            return null;
+        }
+        Command command = ring[index];
+        ring[index] = null;
+        sequences.lazySet(index, sequence + ring.length); // Free for the next lap
+        head = sequence + 1;
+        return command;
+    }
+
+    private boolean isEmpty() {
+        long sequence = head;
+        return sequences.get((int) sequence & mask) != sequence + 1;
+    }
+
+    private static RejectedExecutionException stopped(Throwable cause) {
+        return new RejectedExecutionException("Parking lot writer has stopped", cause);
+    }
+
+    private void run() {
+        Command[] batch = new Command[MAX_BATCH];
+        try {
+            runBatches(batch);
+        } catch (Throwable t) {
+            stop(batch, t);
+            throw t; // Still reported by the thread's uncaught exception handler
+        }
+    }
+
+    private void runBatches(Command[] batch) {
+        int idleRounds = 0;
+        while (true) {
+            int count = 0;
+            Command command;
+            while (count < batch.length && (command = poll()) != null) {
+                batch[count++] = command;
+            }
+            if (count > 0) {
+                idleRounds = 0;
+                long now = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    queueingDelays[batch[i].type.ordinal()].record(now - batch[i].submittedAt);
+                }
+                batches.incrementAndGet();
+                taken.addAndGet(count);
+                execute(batch, count);
+                if (lot.isSnapshotsEnabled()) {
+                    publishSnapshot(batch, count);
+                }
+                for (int i = 0; i < count; i++) {
+                    batch[i].complete();
+                }
+                Arrays.fill(batch, 0, count, null);
+            } else if (producers.get() == CLOSED && isEmpty()) {
+                return; // Closed, no submission in flight, and everything submitted has run
+            } else if (++idleRounds < SPIN_ROUNDS) {
+                Thread.onSpinWait();
+            } else {
+                sleeping = true;
+                if (isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    /**
+     * Publishes a snapshot before the batch's futures complete, so a gate sees its own command in it.
+     * If publishing fails, so do the batch's futures: their gates would not find their commands in the snapshot.
+     */
+    private void publishSnapshot(Command[] batch, int count) {
+        try {
+            lot.publishSnapshot();
+        } catch (RuntimeException e) {
+            for (int i = 0; i < count; i++) {
+                batch[i].failure = e;
+            }
+        }
+    }
+
+    /**
+     * Fails the commands of the batch the writer was running when it died, then those queued or still
+     * being queued. Gates that submit after stoppedBy is set fail at once, so once no submission is in
+     * flight and the queue is empty, no command can be left behind.
+     */
+    private void stop(Command[] batch, Throwable cause) {
+        stoppedBy = cause;
+        for (Command command : batch) {
+            if (command != null) {
+                command.future.completeExceptionally(cause);
+            }
+        }
+        RejectedExecutionException rejection = stopped(cause);
+        while (true) {
+            Command command;
+            while ((command = poll()) != null) {
+                command.future.completeExceptionally(rejection);
+            }
+            if ((producers.get() & ~CLOSED) == 0 && isEmpty()) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Runs a batch in order, parking each run of consecutive park commands in one call.
+     * The futures are completed once the whole batch has run.
+     */
+    private void execute(Command[] batch, int count) {
+        int i = 0;
+        while (i < count) {
+            if (batch[i].type != CommandType.PARK) {
+                batch[i].execute(lot);
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < count && batch[end].type == CommandType.PARK) {
+                end++;
+            }
+            if (end - i == 1) {
+                batch[i].execute(lot);
+            } else {
+                parkAll(batch, i, end);
+            }
+            i = end;
+        }
+    }
+
+    private void parkAll(Command[] batch, int from, int to) {
+        List<Vehicle> vehicles = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            vehicles.add((Vehicle) batch[i].argument);
+        }
+        List<ParkingResult> results;
+        try {
+            results = lot.parkVehicles(vehicles);
+        } catch (RuntimeException e) {
+            for (int i = from; i < to; i++) {
+                batch[i].failure = e;
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            batch[i].result = results.get(i - from);
+        }
+    }
+
+    /**
+     * Gets the time commands of a type waited in the queue before the writer took them.
+     */
+    public LatencySummary getQueueingDelay(CommandType commandType) {
+        return queueingDelays[commandType.ordinal()].summarize();
+    }
+
+    /**
+     * Gets the number of submissions that failed because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of submissions that had to wait for room in the queue.
+     */
+    public long getBlockedCount() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets the number of commands the writer has taken from the queue.
+     */
+    public long getTakenCount() {
+        return taken.get();
+    }
+
+    /**
+     * Gets the number of batches the writer has taken; taken commands divided by batches is the mean batch size.
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Stops accepting commands, waits for the writer to run those already submitted, then closes the lot.
+     */
+    @Override
+    public void close() {
+        int state;
+        do {
+            state = producers.get();
+            if ((state & CLOSED) != 0) {
+                return;
+            }
+        } while (!producers.compareAndSet(state, state | CLOSED));
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lot.close();
+    }
+
+    /**
+     * A submitted command and the future it completes.
+     */
+    private static final class Command {
+        final CommandType type;
+        final Object argument; // Vehicle to park, vehicle ID, or query
+        final VehicleType vehicleType;
+        final Duration ttl;
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        long submittedAt;
+        Object result; // Set by the writer when the command runs
+        RuntimeException failure;
+
+        Command(CommandType type, Object argument, VehicleType vehicleType, Duration ttl) {
+            this.type = type;
+            this.argument = argument;
+            this.vehicleType = vehicleType;
+            this.ttl = ttl;
+        }
+
+        @SuppressWarnings("unchecked")
+        void execute(ParkingLot lot) {
+            try {
+                switch (type) {
+                    case PARK:
+                        Vehicle vehicle = (Vehicle) argument;
+                        result = lot.parkVehicle(vehicle.getId(), vehicle.getType());
+                        break;
+                    case REMOVE:
+                        result = lot.removeVehicle((String) argument);
+                        break;
+                    case RESERVE:
+                        result = lot.reserve((String) argument, vehicleType, ttl);
+                        break;
+                    default:
+                        result = ((Function<ParkingLot, ?>) argument).apply(lot);
+                        break;
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operation metrics of a parking lot: a latency histogram per operation and vehicle type,
+ * and outcome counters. All updates are lock-free, so gates of a concurrent lot record in parallel.
+ */
+class ParkingMetrics {
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final LatencyHistogram[] parkLatency = histograms(VEHICLE_TYPES.length);
+    private final LatencyHistogram[] removeLatency = histograms(VEHICLE_TYPES.length);
+    private final LatencyHistogram statusLatency = new LatencyHistogram();
+    private final AtomicLongArray parked = new AtomicLongArray(VEHICLE_TYPES.length);
+    private final AtomicLongArray alreadyParked = new AtomicLongArray(VEHICLE_TYPES.length);
+    private final AtomicLongArray removed = new AtomicLongArray(VEHICLE_TYPES.length);
+    private final AtomicLong removeMisses = new AtomicLong();
+    private final ConcurrentHashMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    private static LatencyHistogram[] histograms(int count) {
+        LatencyHistogram[] histograms = new LatencyHistogram[count];
+        for (int i = 0; i < count; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+
+    void recordPark(VehicleType vehicleType, ParkingResult result, long nanos) {
+        recordPark(vehicleType, result.isSuccess(), result.isAlreadyParked(), result.getMessage(), nanos);
+    }
+
+    /**
+     * Records the outcome of a park request.
+     * @param vehicleType Requested type, or null if the request had none
+     * @param failureReason Message of the failure; ignored for successful requests
+     */
+    void recordPark(VehicleType vehicleType, boolean success, boolean wasParked, String failureReason, long nanos) {
+        if (!success) {
+            failures.computeIfAbsent(failureReason, reason -> new LongAdder()).increment();
+        }
+        if (vehicleType == null) {
+            return;
+        }
+        int type = vehicleType.ordinal();
+        if (success) {
+            (wasParked ? alreadyParked : parked).getAndIncrement(type);
+        }
+        parkLatency[type].record(nanos);
+    }
+
+    /**
+     * Records the outcome of a remove request.
+     * @param vehicleType Type of the removed vehicle, or null if it was not parked
+     */
+    void recordRemove(VehicleType vehicleType, long nanos) {
+        if (vehicleType == null) {
+            removeMisses.getAndIncrement();
+            return;
+        }
+        removed.getAndIncrement(vehicleType.ordinal());
+        removeLatency[vehicleType.ordinal()].record(nanos);
+    }
+
+    void recordStatus(long nanos) {
+        statusLatency.record(nanos);
+    }
+
+    MetricsSnapshot snapshot() {
+        LatencySummary[] park = new LatencySummary[VEHICLE_TYPES.length];
+        LatencySummary[] remove = new LatencySummary[VEHICLE_TYPES.length];
+        long[] parkedCounts = new long[VEHICLE_TYPES.length];
+        long[] alreadyParkedCounts = new long[VEHICLE_TYPES.length];
+        long[] removedCounts = new long[VEHICLE_TYPES.length];
+        for (int i = 0; i < VEHICLE_TYPES.length; i++) {
+            park[i] = parkLatency[i].summarize();
+            remove[i] = removeLatency[i].summarize();
+            parkedCounts[i] = parked.get(i);
+            alreadyParkedCounts[i] = alreadyParked.get(i);
+            removedCounts[i] = removed.get(i);
+        }
+        Map<String, Long> failureCounts = new HashMap<>();
+        failures.forEach((reason, count) -> failureCounts.put(reason, count.sum()));
+        return new MetricsSnapshot(park, remove, statusLatency.summarize(), parkedCounts, alreadyParkedCounts,
+                removedCounts, removeMisses.get(), failureCounts);
+    }
+
+    /**
+     * Passes the outcome of a callback park request on to the caller's callback and keeps it for the metrics and events.
+     * Reused across requests, so it serves a single-threaded lot only.
+     */
+    static final class OutcomeRecorder implements ParkingCallback {
+        private ParkingCallback delegate;
+        boolean wasParked;
+        String failureReason;
+        int spaceCount;
+
+        OutcomeRecorder wrap(ParkingCallback callback) {
+            delegate = callback;
+            wasParked = false;
+            failureReason = null;
+            spaceCount = 0;
+            return this;
+        }
+
+        @Override
+        public void onSpaceAllocated(long spaceHandle, boolean alreadyParked) {
+            wasParked = alreadyParked;
+            spaceCount++;
+            delegate.onSpaceAllocated(spaceHandle, alreadyParked);
+        }
+
+        @Override
+        public void onFailure(String reason) {
+            failureReason = reason;
+            delegate.onFailure(reason);
+        }
+    }
+}
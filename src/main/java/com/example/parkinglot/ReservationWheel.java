@@ -0,0 +1,158 @@
+package com.example.parkinglot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Hierarchical timing wheel that expires reservation holds without scanning them.
+ * Each level is a ring of 64 buckets, and each bucket is a doubly linked list of the holds
+ * due within its span; a hold goes to the finest level whose ring covers its remaining time.
+ * Advancing the clock only visits the buckets whose span has passed: holds that are due expire,
+ * the others cascade to a finer level. Scheduling and cancelling are O(1), and a hold cascades
+ * at most once per level, so each expiry costs O(1) however many holds are outstanding.
+ *
+ * <p>A hold expires at the first advance after the bucket of its deadline has passed,
+ * so up to one finest bucket span (about 67 ms) late. Not thread-safe; the lot serializes access.
+ */
+class ReservationWheel {
+    private static final int[] SHIFTS = {26, 32, 38, 44}; // Buckets of about 67 ms, 4.3 s, 4.6 min and 4.9 h
+    private static final int BUCKETS = 64;
+    private static final int MASK = BUCKETS - 1;
+
+    private final Node[][] wheel = new Node[SHIFTS.length][BUCKETS];
+    private final Map<Integer, Node> nodes = new HashMap<>(); // By vehicle handle, for cancelling
+    private long time;
+    private volatile int size; // Read without the lot's lock to skip advancing an empty wheel
+
+    ReservationWheel() {
+        for (Node[] level : wheel) {
+            for (int i = 0; i < BUCKETS; i++) {
+                level[i] = new Node(-1, 0);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the expiry of a hold.
+     * @param vehicleHandle Handle of the vehicle holding the spaces
+     * @param deadline Clock time at which the hold expires
+     * @param now Current clock time
+     */
+    void schedule(int vehicleHandle, long deadline, long now) {
+        if (size == 0) {
+            time = now; // Nothing to expire in between, so skip the buckets an idle wheel would visit
+        }
+        Node node = new Node(vehicleHandle, deadline);
+        nodes.put(vehicleHandle, node);
+        link(node);
+        size++;
+    }
+
+    /**
+     * Cancels the expiry of a hold whose vehicle arrived or whose reservation was cancelled.
+     * @return true if the hold was scheduled, false if it has already expired
+     */
+    boolean cancel(int vehicleHandle) {
+        Node node = nodes.remove(vehicleHandle);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the clock and passes the vehicle handle of every expired hold to an action.
+     * @return Number of holds that expired
+     */
+    int advance(long now, IntConsumer expired) {
+        long previous = time;
+        if (now - previous <= 0) {
+            return 0;
+        }
+        time = now;
+        int count = 0;
+        for (int level = 0; level < SHIFTS.length; level++) {
+            long previousTicks = previous >> SHIFTS[level];
+            long currentTicks = now >> SHIFTS[level];
+            if (currentTicks == previousTicks) {
+                break; // Coarser levels have not moved either
+            }
+            count += expireBuckets(level, previousTicks, currentTicks, expired);
+        }
+        return count;
+    }
+
+    /**
+     * Visits the buckets of one level from the previous tick to the current one.
+     * The bucket of the previous tick is included: holds due later in that tick were put back into it.
+     */
+    private int expireBuckets(int level, long previousTicks, long currentTicks, IntConsumer expired) {
+        long delta = currentTicks - previousTicks;
+        int bucketCount = delta >= BUCKETS ? BUCKETS : (int) delta + 1;
+        int start = (int) (previousTicks & MASK);
+        int count = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            Node sentinel = wheel[level][(start + i) & MASK];
+            Node node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.previous = sentinel;
+            while (node != sentinel) {
+                Node next = node.next;
+                if (node.deadline - time <= 0) {
+                    nodes.remove(node.vehicleHandle);
+                    size--;
+                    count++;
+                    expired.accept(node.vehicleHandle);
+                } else {
+                    link(node); // Cascade to the level that now covers its remaining time
+                }
+                node = next;
+            }
+        }
+        return count;
+    }
+
+    private void link(Node node) {
+        long remaining = node.deadline - time;
+        int level = 0;
+        while (level < SHIFTS.length - 1 && remaining >= 1L << SHIFTS[level + 1]) {
+            level++;
+        }
+        Node sentinel = wheel[level][(int) ((node.deadline >> SHIFTS[level]) & MASK)];
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private static void unlink(Node node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+    }
+
+    /**
+     * A scheduled hold, or the sentinel of a bucket.
+     */
+    private static final class Node {
+        final int vehicleHandle;
+        final long deadline;
+        Node previous = this;
+        Node next = this;
+
+        Node(int vehicleHandle, long deadline) {
+            this.vehicleHandle = vehicleHandle;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Per-row occupancy counters by space type, maintained by the occupy/vacate paths alongside LotCounters,
+ * so a row's status never needs a scan of its spaces. Each row caches the last RowStatus built for it,
+ * and with it the formatted summary line; the cache is reused until one of the row's counts changes,
+ * so polling the row summaries only formats the rows that changed since the last poll.
+ * Counters are atomic: held spaces are converted to occupied ones without the row lock of the concurrent mode.
+ */
+class RowCounters {
+    private static final int SPACE_TYPES = SpaceType.values().length;
+    private static final int COMPACT = SpaceType.COMPACT.ordinal();
+    private static final int REGULAR = SpaceType.REGULAR.ordinal();
+
+    private final int[] totals; // Indexed by row * SPACE_TYPES + space type
+    private final AtomicIntegerArray occupied;
+    private final AtomicIntegerArray held;
+    private final AtomicReferenceArray<RowStatus> statuses; // Last status built per row
+
+    RowCounters(LotLayout layout) {
+        int rowCount = layout.getRowCount();
+        this.totals = new int[rowCount * SPACE_TYPES];
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            for (int run = 0; run < layout.getRunCount(rowIndex); run++) {
+                totals[rowIndex * SPACE_TYPES + layout.getRunType(rowIndex, run).ordinal()] += layout.getRunLength(rowIndex, run);
+            }
+        }
+        this.occupied = new AtomicIntegerArray(totals.length);
+        this.held = new AtomicIntegerArray(totals.length);
+        this.statuses = new AtomicReferenceArray<>(rowCount);
+    }
+
+    int getRowCount() {
+        return statuses.length();
+    }
+
+    void spaceOccupied(int rowIndex, SpaceType spaceType) {
+        occupied.incrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+    }
+
+    void spaceVacated(int rowIndex, SpaceType spaceType) {
+        occupied.decrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+    }
+
+    void spaceHeld(int rowIndex, SpaceType spaceType) {
+        held.incrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+    }
+
+    void holdReleased(int rowIndex, SpaceType spaceType) {
+        held.decrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+    }
+
+    void holdConverted(int rowIndex, SpaceType spaceType) {
+        held.decrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+        occupied.incrementAndGet(rowIndex * SPACE_TYPES + spaceType.ordinal());
+    }
+
+    /**
+     * Gets the occupied and held spaces of a row, as counted by the row summaries.
+     */
+    int getTakenSpaces(int rowIndex) {
+        int base = rowIndex * SPACE_TYPES;
+        return occupied.get(base + COMPACT) + occupied.get(base + REGULAR) + held.get(base + COMPACT) + held.get(base + REGULAR);
+    }
+
+    /**
+     * Gets the status of a row, reusing the cached one if the row's counts have not changed since it was built.
+     * With gates updating the row concurrently, the counts are read one at a time, like the lot status.
+     */
+    RowStatus getRowStatus(int rowIndex) {
+        int base = rowIndex * SPACE_TYPES;
+        int occupiedCompact = occupied.get(base + COMPACT);
+        int occupiedRegular = occupied.get(base + REGULAR);
+        int heldCompact = held.get(base + COMPACT);
+        int heldRegular = held.get(base + REGULAR);
+        RowStatus cached = statuses.get(rowIndex);
+        if (cached != null
+                && cached.getOccupiedSpaces(SpaceType.COMPACT) == occupiedCompact
+                && cached.getOccupiedSpaces(SpaceType.REGULAR) == occupiedRegular
+                && cached.getHeldSpaces(SpaceType.COMPACT) == heldCompact
+                && cached.getHeldSpaces(SpaceType.REGULAR) == heldRegular) {
+            return cached;
+        }
+        RowStatus status = new RowStatus(rowIndex + 1, totals[base + COMPACT], totals[base + REGULAR],
+                occupiedCompact, occupiedRegular, heldCompact, heldRegular);
+        statuses.lazySet(rowIndex, status);
+        return status;
+    }
+}
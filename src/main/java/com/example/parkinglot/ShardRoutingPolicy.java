@@ -0,0 +1,58 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.VehicleType;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chooses the shard of a {@link ParkingLotCluster} that a new vehicle is parked in first.
+ * If that shard has no suitable space, the cluster tries the following shards in order.
+ * Policies are called concurrently from the threads parking vehicles, so they must be thread-safe.
+ */
+@FunctionalInterface
+public interface ShardRoutingPolicy {
+
+    /**
+     * Selects the first shard to try for a vehicle.
+     * @param vehicleId Trimmed vehicle identifier
+     * @param vehicleType Type of vehicle
+     * @param cluster Cluster being routed, for reading shard loads
+     * @return Shard index between 0 and {@code cluster.getShardCount() - 1}
+     */
+    int selectShard(String vehicleId, VehicleType vehicleType, ParkingLotCluster cluster);
+
+    /**
+     * Routes by a hash of the vehicle ID, so a returning vehicle goes to the same shard while it has space.
+     */
+    static ShardRoutingPolicy hashed() {
+        return (vehicleId, vehicleType, cluster) -> {
+            int h = vehicleId.hashCode() * 0x9E3779B9;
+            return Math.floorMod(h ^ (h >>> 16), cluster.getShardCount());
+        };
+    }
+
+    /**
+     * Spreads arrivals evenly over the shards in turn.
+     */
+    static ShardRoutingPolicy roundRobin() {
+        AtomicInteger next = new AtomicInteger();
+        return (vehicleId, vehicleType, cluster) -> Math.floorMod(next.getAndIncrement(), cluster.getShardCount());
+    }
+
+    /**
+     * Routes to the shard with the most available spaces, balancing occupancy across lots.
+     */
+    static ShardRoutingPolicy mostAvailable() {
+        return (vehicleId, vehicleType, cluster) -> {
+            int best = 0;
+            int bestAvailable = -1;
+            for (int shard = 0; shard < cluster.getShardCount(); shard++) {
+                int available = cluster.getAvailableSpaces(shard);
+                if (available > bestAvailable) {
+                    best = shard;
+                    bestAvailable = available;
+                }
+            }
+            return best;
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.RowStatus;
+import java.util.*;
+
+/**
+ * Records the rows and vehicles a single-threaded lot changes, and publishes them as a new LotSnapshot
+ * that shares every unchanged chunk with the previous one. Publishing costs O(changed rows + changed vehicles
+ * + chunk count / 64), whatever the size of the lot; row statuses come from the lot's row counters. Not thread-safe: the lot's own
+ * thread records changes and publishes, other threads only read the published snapshot.
+ * {@link ConcurrentSnapshotPublisher} records changes from any number of gates.
+ */
+class SnapshotPublisher {
+    private static final int CHUNK_SHIFT = LotSnapshot.CHUNK_SHIFT;
+    private static final int CHUNK_SIZE = LotSnapshot.CHUNK_SIZE;
+    private static final int CHUNK_MASK = LotSnapshot.CHUNK_MASK;
+    private static final int MIN_SEGMENTS = CHUNK_SIZE;
+    private static final int MAX_SEGMENTS = 1 << 20;
+    private static final int SPACES_PER_SEGMENT = 16;
+
+    private final ParkingLot lot;
+    private final int rowCount;
+    private final int vehicleMask;
+    private RowStatus[][] rows;
+    private Map<String, List<String>>[][] vehicles;
+    private int vehicleCount;
+    private long epoch;
+
+    private final boolean[] rowDirty;
+    int[] dirtyRows = new int[16]; // Filled by takeDirtyRows()
+    private int dirtyRowCount;
+    private Set<String> dirtyVehicles = new HashSet<>();
+
+    private volatile LotSnapshot snapshot;
+
+    /**
+     * Creates a publisher for the lot; {@link #start()} builds the first snapshot.
+     */
+    SnapshotPublisher(ParkingLot lot) {
+        this.lot = lot;
+        this.rowCount = lot.rowCounters.getRowCount();
+        this.rowDirty = new boolean[rowCount];
+        this.rows = new RowStatus[(rowCount + CHUNK_MASK) >>> CHUNK_SHIFT][];
+        for (int chunk = 0; chunk < rows.length; chunk++) {
+            rows[chunk] = new RowStatus[Math.min(CHUNK_SIZE, rowCount - (chunk << CHUNK_SHIFT))];
+        }
+        long totalSpaces = 0;
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            totalSpaces += lot.spaces.getRowLength(rowIndex);
+        }
+
+        int segments = MIN_SEGMENTS;
+        while (segments < MAX_SEGMENTS && (long) segments * SPACES_PER_SEGMENT < totalSpaces) {
+            segments <<= 1;
+        }
+        this.vehicleMask = segments - 1;
+        this.vehicles = newVehicleChunks(segments >>> CHUNK_SHIFT);
+        for (Map<String, List<String>>[] chunk : vehicles) {
+            Arrays.fill(chunk, Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Builds the first snapshot by scanning the lot. The lot records its changes here before the scan starts,
+     * so a row or vehicle that a gate changes during the scan is published again with the next snapshot.
+     */
+    void start() {
+        for (int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+            rows[rowIndex >>> CHUNK_SHIFT][rowIndex & CHUNK_MASK] = lot.rowCounters.getRowStatus(rowIndex);
+        }
+        lot.registry.forEachParked(this::addVehicle);
+        lot.registry.forEachHeld(this::addVehicle);
+        publish();
+    }
+
+    @SuppressWarnings("unchecked") // Arrays of a generic type can only be created raw
+    private static Map<String, List<String>>[][] newVehicleChunks(int chunkCount) {
+        return (Map<String, List<String>>[][]) new Map<?, ?>[chunkCount][CHUNK_SIZE];
+    }
+
+    private void addVehicle(int vehicleHandle) {
+        String vehicleId = lot.registry.getId(vehicleHandle);
+        List<String> spaceIds = vehicleId != null ? lot.registry.getSpaceIds(vehicleId) : null;
+        if (spaceIds == null) {
+            return; // Released by a gate since the registry listed it
+        }
+        int segment = LotSnapshot.segmentOf(vehicleId, vehicleMask);
+        Map<String, List<String>>[] chunk = vehicles[segment >>> CHUNK_SHIFT];
+        if (chunk[segment & CHUNK_MASK].isEmpty()) {
+            chunk[segment & CHUNK_MASK] = new HashMap<>();
+        }
+        if (chunk[segment & CHUNK_MASK].put(vehicleId, Collections.unmodifiableList(spaceIds)) == null) {
+            vehicleCount++; // A gate may have parked it again, and had it listed twice, during the scan
+        }
+    }
+
+    LotSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    void rowChanged(int rowIndex) {
+        if (!rowDirty[rowIndex]) {
+            rowDirty[rowIndex] = true;
+            if (dirtyRowCount == dirtyRows.length) {
+                dirtyRows = Arrays.copyOf(dirtyRows, dirtyRowCount * 2);
+            }
+            dirtyRows[dirtyRowCount++] = rowIndex;
+        }
+    }
+
+    void vehicleChanged(String vehicleId) {
+        dirtyVehicles.add(vehicleId);
+    }
+
+    /**
+     * Takes the rows changed since the last call into {@link #dirtyRows} and stops tracking them,
+     * so changes made from then on are recorded for the next publish.
+     * @return Number of changed rows
+     */
+    int takeDirtyRows() {
+        int count = dirtyRowCount;
+        for (int i = 0; i < count; i++) {
+            rowDirty[dirtyRows[i]] = false;
+        }
+        dirtyRowCount = 0;
+        return count;
+    }
+
+    /**
+     * Takes the vehicles changed since the last call and stops tracking them.
+     */
+    Collection<String> takeDirtyVehicles() {
+        if (dirtyVehicles.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> taken = dirtyVehicles;
+        dirtyVehicles = new HashSet<>();
+        return taken;
+    }
+
+    /**
+     * Publishes the changes recorded since the last publish as a new snapshot.
+     * A row or vehicle is read after it is taken from the changes, so one that changes again
+     * meanwhile is recorded again and published with the next snapshot.
+     * @return The new snapshot, or the current one if nothing has changed
+     */
+    LotSnapshot publish() {
+        int changedRows = takeDirtyRows();
+        Collection<String> changedVehicles = takeDirtyVehicles();
+        if (snapshot != null && changedRows == 0 && changedVehicles.isEmpty()) {
+            return snapshot;
+        }
+        if (changedRows > 0) {
+            rows = publishRows(changedRows);
+        }
+        if (!changedVehicles.isEmpty()) {
+            vehicles = publishVehicles(changedVehicles);
+        }
+        snapshot = new LotSnapshot(++epoch, lot.counters.toLotStatus(), rowCount, rows, vehicles, vehicleCount);
+        return snapshot;
+    }
+
+    private RowStatus[][] publishRows(int changedRows) {
+        RowStatus[][] published = rows;
+        RowStatus[][] next = published.clone();
+        for (int i = 0; i < changedRows; i++) {
+            int rowIndex = dirtyRows[i];
+            int chunk = rowIndex >>> CHUNK_SHIFT;
+            if (next[chunk] == published[chunk]) {
+                next[chunk] = published[chunk].clone(); // First change to this chunk in this epoch
+            }
+            next[chunk][rowIndex & CHUNK_MASK] = lot.rowCounters.getRowStatus(rowIndex);
+        }
+        return next;
+    }
+
+    private Map<String, List<String>>[][] publishVehicles(Collection<String> changedVehicles) {
+        Map<String, List<String>>[][] published = vehicles;
+        Map<String, List<String>>[][] next = published.clone();
+        Map<Integer, Map<String, List<String>>> copied = new HashMap<>(); // Segments copied in this epoch
+        for (String vehicleId : changedVehicles) {
+            int segment = LotSnapshot.segmentOf(vehicleId, vehicleMask);
+            int chunk = segment >>> CHUNK_SHIFT;
+            if (next[chunk] == published[chunk]) {
+                next[chunk] = published[chunk].clone();
+            }
+            Map<String, List<String>> spacesById = copied.computeIfAbsent(segment,
+                    s -> new HashMap<>(published[chunk][segment & CHUNK_MASK]));
+            List<String> spaceIds = lot.registry.getSpaceIds(vehicleId);
+            List<String> previous = spaceIds != null
+                    ? spacesById.put(vehicleId, Collections.unmodifiableList(spaceIds))
+                    : spacesById.remove(vehicleId);
+            if (previous == null && spaceIds != null) {
+                vehicleCount++;
+            } else if (previous != null && spaceIds == null) {
+                vehicleCount--;
+            }
+        }
+        for (Map.Entry<Integer, Map<String, List<String>>> entry : copied.entrySet()) {
+            int segment = entry.getKey();
+            Map<String, List<String>> spacesById = entry.getValue();
+            next[segment >>> CHUNK_SHIFT][segment & CHUNK_MASK] = spacesById.isEmpty() ? Collections.emptyMap() : spacesById;
+        }
+        return next;
+    }
+}
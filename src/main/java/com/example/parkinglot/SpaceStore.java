@@ -0,0 +1,91 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Storage for the spaces of a parking lot: their types and the handle of the vehicle occupying each one.
+ * Occupying a space is a compare-and-set, so concurrent gates can race for a space without locking.
+ */
+abstract class SpaceStore {
+
+    /**
+     * Creates an empty store with the given layout.
+     * @param storage Storage layout
+     * @param layout Rows of the lot
+     * @param registry Registry resolving occupant handles to vehicle IDs
+     * @param parallel true to initialize the rows in parallel
+     * @return Space store
+     */
+    static SpaceStore create(LotStorage storage, LotLayout layout, VehicleRegistry registry, boolean parallel) {
+        switch (storage) {
+            case COMPACT:
+                return new CompactSpaceStore(layout, registry, parallel);
+            case OFF_HEAP:
+                return new OffHeapSpaceStore(layout, registry, parallel);
+            case OBJECTS:
+            default:
+                return new ObjectSpaceStore(layout, parallel);
+        }
+    }
+
+    /**
+     * Runs a row initializer for every row, in parallel if requested. Rows are independent,
+     * so each initializer only writes the state of its own row.
+     */
+    static void initializeRows(int rowCount, boolean parallel, IntConsumer rowInitializer) {
+        IntStream rowIndexes = IntStream.range(0, rowCount);
+        (parallel ? rowIndexes.parallel() : rowIndexes).forEach(rowInitializer);
+    }
+
+    abstract int getRowCount();
+
+    abstract int getRowLength(int rowIndex);
+
+    abstract SpaceType getType(int rowIndex, int spaceIndex);
+
+    abstract String getIdentifier(int rowIndex, int spaceIndex);
+
+    abstract boolean isOccupied(int rowIndex, int spaceIndex);
+
+    /**
+     * Gets the handle of the vehicle occupying a space.
+     * @return Vehicle handle, or {@link VehicleRegistry#NO_VEHICLE} if the space is free
+     */
+    abstract int getOccupant(int rowIndex, int spaceIndex);
+
+    /**
+     * Atomically occupies a space if it is free.
+     * @return true if the space was claimed, false if it was already occupied
+     */
+    abstract boolean tryOccupy(int rowIndex, int spaceIndex, String vehicleId, int vehicleHandle);
+
+    abstract void vacate(int rowIndex, int spaceIndex);
+
+    /**
+     * Counts the occupied spaces of a row by scanning it.
+     */
+    abstract int countOccupied(int rowIndex);
+
+    /**
+     * Gets the spaces as rows of ParkingSpace, as passed to the parking strategies.
+     */
+    abstract List<List<ParkingSpace>> getRows();
+
+    /**
+     * Checks that the store can still be read, for operations answered from counters rather than the spaces.
+     * @throws IllegalStateException if the store is closed
+     */
+    void checkOpen() {
+    }
+
+    /**
+     * Releases memory that is not managed by the garbage collector. Stores on the heap have nothing to release.
+     * @param shared true if other threads may still be reading the store, in which case the memory is left
+     *               to the garbage collector rather than freed while they use it
+     */
+    void close(boolean shared) {
+    }
+}
@@ -0,0 +1,541 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Registry of parked vehicles that interns each vehicle ID to an int handle.
+ * Vehicle IDs are found through an open-addressing table of handles, and each handle keeps its
+ * vehicle type and the packed range of spaces it occupies (first space handle plus count) in
+ * primitive arrays. The space store keeps the handle of the vehicle occupying each space.
+ *
+ * <p>A vehicle with a reservation is registered in the HELD state: its spaces are claimed but it
+ * cannot be removed until it arrives, or until the hold is released.
+ *
+ * <p>The concurrent variant splits the registry into lock-striped segments selected by the
+ * vehicle ID hash; the single-threaded variant uses one segment and never locks.
+ */
+class VehicleRegistry {
+    static final int NO_VEHICLE = -1;
+    static final int HELD_FOR_OTHER_TYPE = -2;
+
+    private static final byte FREE = 0;
+    private static final byte PENDING = 1; // Registered, spaces not assigned yet
+    private static final byte PARKED = 2;
+    private static final byte REMOVING = 3; // Being removed, or a hold being released or converted; owned by one caller
+    private static final byte HELD = 4;
+    private static final byte SCATTERED = -1; // Space count marker for non-contiguous allocations
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values(); // values() clones on every call
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final boolean concurrent;
+
+    /**
+     * Creates an empty registry.
+     * @param concurrent true to lock-stripe the registry for use from several threads
+     */
+    VehicleRegistry(boolean concurrent) {
+        this.concurrent = concurrent;
+        int segmentCount = concurrent ? 64 : 1;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Registers a vehicle ID with putIfAbsent semantics.
+     * @return Handle of the newly registered vehicle, or {@link #NO_VEHICLE} if the ID is already registered
+     */
+    int register(String vehicleId, VehicleType vehicleType) {
+        int hash = hash(vehicleId);
+        int segmentIndex = hash & (segments.length - 1);
+        Segment segment = segments[segmentIndex];
+        lock(segment);
+        try {
+            if (segment.find(vehicleId, hash) != NO_VEHICLE) {
+                return NO_VEHICLE;
+            }
+            int local = segment.insert(vehicleId, hash, vehicleType);
+            return (local << segmentShift) | segmentIndex;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Records the spaces occupied by a registered vehicle, packing contiguous spaces of one row into a range.
+     */
+    void assignSpaces(int handle, long[] spaceHandles) {
+        assignSpaces(handle, spaceHandles, PARKED);
+    }
+
+    /**
+     * Records the spaces held by a reservation for a registered vehicle.
+     */
+    void holdSpaces(int handle, long[] spaceHandles) {
+        assignSpaces(handle, spaceHandles, HELD);
+    }
+
+    private void assignSpaces(int handle, long[] spaceHandles, byte state) {
+        long first = spaceHandles[0];
+        boolean contiguous = spaceHandles.length <= Byte.MAX_VALUE;
+        for (int i = 1; i < spaceHandles.length && contiguous; i++) {
+            contiguous = spaceHandles[i] == first + i;
+        }
+        if (contiguous) {
+            assignSpaces(handle, first, spaceHandles.length, state);
+            return;
+        }
+        Segment segment = segmentOf(handle);
+        int local = handle >>> segmentShift;
+        lock(segment);
+        try {
+            segment.firstSpaces[local] = first;
+            segment.spaceCounts[local] = SCATTERED;
+            segment.scatteredSpaces.put(local, spaceHandles.clone());
+            segment.states[local] = state;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Records a run of contiguous spaces in one row as the spaces occupied by a registered vehicle.
+     */
+    void assignSpaces(int handle, long firstSpace, int spaceCount) {
+        assignSpaces(handle, firstSpace, spaceCount, PARKED);
+    }
+
+    private void assignSpaces(int handle, long firstSpace, int spaceCount, byte state) {
+        Segment segment = segmentOf(handle);
+        int local = handle >>> segmentShift;
+        lock(segment);
+        try {
+            segment.firstSpaces[local] = firstSpace;
+            segment.spaceCounts[local] = (byte) spaceCount;
+            segment.states[local] = state;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Starts removing a parked vehicle. Only one caller can start the removal of a vehicle.
+     * @return Handle of the vehicle, or {@link #NO_VEHICLE} if it is not parked or already being removed
+     */
+    int beginRemoval(String vehicleId) {
+        int hash = hash(vehicleId);
+        int segmentIndex = hash & (segments.length - 1);
+        Segment segment = segments[segmentIndex];
+        lock(segment);
+        try {
+            int local = segment.find(vehicleId, hash);
+            if (local == NO_VEHICLE || segment.states[local] != PARKED) {
+                return NO_VEHICLE;
+            }
+            segment.states[local] = REMOVING;
+            return (local << segmentShift) | segmentIndex;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Returns a vehicle whose removal has begun to the parked state, when the removal cannot go ahead.
+     */
+    void cancelRemoval(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            segment.states[handle >>> segmentShift] = PARKED;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Starts converting the hold of an arriving vehicle. Only one caller can claim a hold,
+     * whether to convert or release it; {@link #finishArrival} then marks the vehicle parked.
+     * @return Handle of the vehicle, {@link #HELD_FOR_OTHER_TYPE} if the hold is for another vehicle type,
+     *         or {@link #NO_VEHICLE} if the vehicle has no hold
+     */
+    int beginArrival(String vehicleId, VehicleType vehicleType) {
+        int hash = hash(vehicleId);
+        int segmentIndex = hash & (segments.length - 1);
+        Segment segment = segments[segmentIndex];
+        lock(segment);
+        try {
+            int local = segment.find(vehicleId, hash);
+            if (local == NO_VEHICLE || segment.states[local] != HELD) {
+                return NO_VEHICLE;
+            }
+            if (segment.types[local] != vehicleType.ordinal()) {
+                return HELD_FOR_OTHER_TYPE;
+            }
+            segment.states[local] = REMOVING;
+            return (local << segmentShift) | segmentIndex;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    void finishArrival(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            segment.states[handle >>> segmentShift] = PARKED;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Starts releasing the hold of a vehicle that has not arrived.
+     * @return Handle of the vehicle, or {@link #NO_VEHICLE} if it has no hold or the hold is already claimed
+     */
+    int beginRelease(String vehicleId) {
+        int hash = hash(vehicleId);
+        int segmentIndex = hash & (segments.length - 1);
+        Segment segment = segments[segmentIndex];
+        lock(segment);
+        try {
+            int local = segment.find(vehicleId, hash);
+            if (local == NO_VEHICLE || segment.states[local] != HELD) {
+                return NO_VEHICLE;
+            }
+            segment.states[local] = REMOVING;
+            return (local << segmentShift) | segmentIndex;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Starts releasing an expired hold.
+     * @return true if the handle still holds spaces, false if its vehicle arrived or the hold was cancelled
+     */
+    boolean beginRelease(int handle) {
+        Segment segment = segmentOf(handle);
+        int local = handle >>> segmentShift;
+        lock(segment);
+        try {
+            if (segment.states[local] != HELD) {
+                return false;
+            }
+            segment.states[local] = REMOVING;
+            return true;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Removes a vehicle from the registry and recycles its handle.
+     */
+    void unregister(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            segment.delete(handle >>> segmentShift);
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Finds a vehicle whose spaces have been assigned, without allocating.
+     * @return Handle of the vehicle, or {@link #NO_VEHICLE} if it is not registered or has no spaces assigned yet
+     */
+    int findParked(String vehicleId) {
+        int hash = hash(vehicleId);
+        int segmentIndex = hash & (segments.length - 1);
+        Segment segment = segments[segmentIndex];
+        lock(segment);
+        try {
+            int local = segment.find(vehicleId, hash);
+            if (local == NO_VEHICLE || segment.states[local] == PENDING) {
+                return NO_VEHICLE;
+            }
+            return (local << segmentShift) | segmentIndex;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Gets the identifiers of the spaces occupied by a vehicle.
+     * @return Space identifiers, or null if the vehicle is not registered or has no spaces assigned yet
+     */
+    List<String> getSpaceIds(String vehicleId) {
+        int hash = hash(vehicleId);
+        Segment segment = segments[hash & (segments.length - 1)];
+        lock(segment);
+        try {
+            int local = segment.find(vehicleId, hash);
+            if (local == NO_VEHICLE || segment.states[local] == PENDING) {
+                return null;
+            }
+            int count = segment.spaceCount(local);
+            List<String> spaceIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long space = segment.space(local, i);
+                spaceIds.add(SpaceHandle.format(SpaceHandle.rowIndex(space), SpaceHandle.spaceIndex(space)));
+            }
+            return spaceIds;
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    VehicleType getType(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            return VEHICLE_TYPES[segment.types[handle >>> segmentShift]];
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    int getSpaceCount(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            return segment.spaceCount(handle >>> segmentShift);
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Gets the handle of the i-th space occupied by a vehicle.
+     */
+    long getSpace(int handle, int i) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            return segment.space(handle >>> segmentShift, i);
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    /**
+     * Counts the spaces occupied by parked vehicles of the given type by scanning the registry.
+     */
+    int countOccupiedSpaces(VehicleType vehicleType) {
+        int count = 0;
+        for (Segment segment : segments) {
+            lock(segment);
+            try {
+                for (int local = 0; local < segment.nextHandle; local++) {
+                    byte state = segment.states[local];
+                    if ((state == PARKED || state == REMOVING) && segment.types[local] == vehicleType.ordinal()) {
+                        count += segment.spaceCount(local);
+                    }
+                }
+            } finally {
+                unlock(segment);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Passes the handle of every parked vehicle to an action, one segment at a time.
+     * The action may read the vehicle through the handle but must not register or remove vehicles.
+     */
+    void forEachParked(IntConsumer action) {
+        for (int segmentIndex = 0; segmentIndex < segments.length; segmentIndex++) {
+            Segment segment = segments[segmentIndex];
+            lock(segment);
+            try {
+                for (int local = 0; local < segment.nextHandle; local++) {
+                    if (segment.states[local] == PARKED) {
+                        action.accept((local << segmentShift) | segmentIndex);
+                    }
+                }
+            } finally {
+                unlock(segment);
+            }
+        }
+    }
+
+    /**
+     * Passes the handle of every vehicle holding a reservation to an action, one segment at a time.
+     */
+    void forEachHeld(IntConsumer action) {
+        for (int segmentIndex = 0; segmentIndex < segments.length; segmentIndex++) {
+            Segment segment = segments[segmentIndex];
+            lock(segment);
+            try {
+                for (int local = 0; local < segment.nextHandle; local++) {
+                    if (segment.states[local] == HELD) {
+                        action.accept((local << segmentShift) | segmentIndex);
+                    }
+                }
+            } finally {
+                unlock(segment);
+            }
+        }
+    }
+
+    /**
+     * Gets the ID of a registered vehicle.
+     * @return Vehicle ID, or null if the handle has been released
+     */
+    String getId(int handle) {
+        Segment segment = segmentOf(handle);
+        lock(segment);
+        try {
+            return segment.ids[handle >>> segmentShift];
+        } finally {
+            unlock(segment);
+        }
+    }
+
+    private Segment segmentOf(int handle) {
+        return segments[handle & (segments.length - 1)];
+    }
+
+    private void lock(Segment segment) {
+        if (concurrent) {
+            segment.lock.lock();
+        }
+    }
+
+    private void unlock(Segment segment) {
+        if (concurrent) {
+            segment.lock.unlock();
+        }
+    }
+
+    private static int hash(String vehicleId) {
+        int h = vehicleId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * One open-addressing table with its handle arrays.
+     * Slots hold local handle + 1 (0 marks an empty slot) and are probed linearly.
+     */
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        int[] slots = new int[16];
+        int size;
+
+        String[] ids = new String[8];
+        byte[] types = new byte[8];
+        byte[] states = new byte[8];
+        long[] firstSpaces = new long[8];
+        byte[] spaceCounts = new byte[8];
+        final Map<Integer, long[]> scatteredSpaces = new HashMap<>();
+
+        int nextHandle;
+        int[] freeHandles = new int[8];
+        int freeCount;
+
+        int find(String vehicleId, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = (hash >>> 6) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int local = slots[slot] - 1;
+                if (ids[local].equals(vehicleId)) {
+                    return local;
+                }
+            }
+            return NO_VEHICLE;
+        }
+
+        int insert(String vehicleId, int hash, VehicleType vehicleType) {
+            if ((size + 1) * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+            int local = allocateHandle();
+            ids[local] = vehicleId;
+            types[local] = (byte) vehicleType.ordinal();
+            states[local] = PENDING;
+            spaceCounts[local] = 0;
+            placeInSlot(local, hash);
+            size++;
+            return local;
+        }
+
+        void delete(int local) {
+            int mask = slots.length - 1;
+            int slot = (hash(ids[local]) >>> 6) & mask;
+            while (slots[slot] != local + 1) {
+                slot = (slot + 1) & mask;
+            }
+            // Backward-shift deletion keeps probe sequences intact without tombstones
+            int next = (slot + 1) & mask;
+            while (slots[next] != 0) {
+                int home = (hash(ids[slots[next] - 1]) >>> 6) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    slots[slot] = slots[next];
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+            slots[slot] = 0;
+            size--;
+
+            if (spaceCounts[local] == SCATTERED) {
+                scatteredSpaces.remove(local);
+            }
+            ids[local] = null;
+            states[local] = FREE;
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = local;
+        }
+
+        int spaceCount(int local) {
+            byte count = spaceCounts[local];
+            return count == SCATTERED ? scatteredSpaces.get(local).length : count;
+        }
+
+        long space(int local, int i) {
+            return spaceCounts[local] == SCATTERED ? scatteredSpaces.get(local)[i] : firstSpaces[local] + i;
+        }
+
+        private int allocateHandle() {
+            if (freeCount > 0) {
+                return freeHandles[--freeCount];
+            }
+            if (nextHandle == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                types = Arrays.copyOf(types, capacity);
+                states = Arrays.copyOf(states, capacity);
+                firstSpaces = Arrays.copyOf(firstSpaces, capacity);
+                spaceCounts = Arrays.copyOf(spaceCounts, capacity);
+            }
+            return nextHandle++;
+        }
+
+        private void placeInSlot(int local, int hash) {
+            int mask = slots.length - 1;
+            int slot = (hash >>> 6) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = local + 1;
+        }
+
+        private void rehash(int capacity) {
+            int[] old = slots;
+            slots = new int[capacity];
+            for (int entry : old) {
+                if (entry != 0) {
+                    placeInSlot(entry - 1, hash(ids[entry - 1]));
+                }
+            }
+        }
+    }
+}
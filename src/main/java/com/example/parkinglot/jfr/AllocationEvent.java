@@ -0,0 +1,103 @@
+package com.example.parkinglot.jfr;
+
+import com.example.parkinglot.model.ParkingResult;
+import com.example.parkinglot.model.SpaceHandle;
+import com.example.parkinglot.model.VehicleType;
+import com.example.parkinglot.strategy.OccupancyIndex;
+import com.example.parkinglot.strategy.ParkingStrategy;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one search of a parking strategy for free spaces.
+ * A concurrent lot records one event per attempt when gates race for the same space.
+ */
+@Name("com.example.parkinglot.Allocation")
+@Label("Strategy Allocation")
+@Category("Parking Lot")
+@Description("One search of a parking strategy for free spaces")
+@StackTrace(false)
+public final class AllocationEvent extends Event {
+    @Label("Vehicle Type")
+    String vehicleType;
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Spaces Inspected")
+    @Description("Spaces from the start of the scan up to the chosen space, or to the end of the lot if none was found")
+    long spacesInspected;
+
+    @Label("Row Index")
+    @Description("Zero-based row of the chosen spaces, -1 if none was found")
+    int rowIndex;
+
+    @Label("Outcome")
+    @Description("FOUND or NO_SPACE")
+    String outcome;
+
+    /**
+     * Ends the event and commits it with the space found, if it is being recorded.
+     * @param fromHandle Handle of the space the scan started from
+     * @param chosenHandle Handle of the first chosen space, or {@link SpaceHandle#NONE} if none was found
+     */
+    public void record(VehicleType vehicleType, ParkingStrategy strategy, OccupancyIndex index,
+                       long fromHandle, long chosenHandle) {
+        end();
+        if (shouldCommit()) {
+            set(vehicleType, strategy, index, fromHandle, chosenHandle);
+            commit();
+        }
+    }
+
+    /**
+     * Ends the event and commits it with the result of the strategy, if it is being recorded.
+     */
+    public void record(VehicleType vehicleType, ParkingStrategy strategy, OccupancyIndex index,
+                       long fromHandle, ParkingResult result) {
+        end();
+        if (shouldCommit()) {
+            long chosenHandle = SpaceHandle.NONE;
+            if (result.isSuccess()) {
+                chosenHandle = result.getFirstSpaceHandle() != SpaceHandle.NONE
+                        ? result.getFirstSpaceHandle()
+                        : SpaceHandle.parse(result.getAllocatedSpaces().get(0));
+            }
+            set(vehicleType, strategy, index, fromHandle, chosenHandle);
+            commit();
+        }
+    }
+
+    private void set(VehicleType vehicleType, ParkingStrategy strategy, OccupancyIndex index,
+                     long fromHandle, long chosenHandle) {
+        this.vehicleType = vehicleType.name();
+        this.strategy = strategy.getClass().getSimpleName();
+        this.spacesInspected = spacesBetween(index, fromHandle, chosenHandle);
+        this.rowIndex = chosenHandle != SpaceHandle.NONE ? SpaceHandle.rowIndex(chosenHandle) : -1;
+        this.outcome = chosenHandle != SpaceHandle.NONE ? "FOUND" : "NO_SPACE";
+    }
+
+    /**
+     * Counts the spaces in scan order from one space up to and including another, or to the end of the lot.
+     * Walks the rows in between, which is only done while the event is recorded.
+     */
+    static long spacesBetween(OccupancyIndex index, long fromHandle, long toHandle) {
+        int fromRow = SpaceHandle.rowIndex(fromHandle);
+        int toRow = toHandle != SpaceHandle.NONE ? SpaceHandle.rowIndex(toHandle) : index.getRowCount();
+        long count = 0;
+        for (int row = fromRow; row < toRow; row++) {
+            count += index.getRowLength(row);
+        }
+        if (fromRow < index.getRowCount()) {
+            count -= Math.min(SpaceHandle.spaceIndex(fromHandle), index.getRowLength(fromRow));
+        }
+        if (toHandle != SpaceHandle.NONE) {
+            count += SpaceHandle.spaceIndex(toHandle) + 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.parkinglot.jfr;
+
+import com.example.parkinglot.model.LotStatus;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a lot status computation.
+ */
+@Name("com.example.parkinglot.LotStatus")
+@Label("Lot Status")
+@Category("Parking Lot")
+@Description("Computation of the lot status from the occupancy counters")
+@StackTrace(false)
+public final class LotStatusEvent extends Event {
+    @Label("Occupied Spaces")
+    int occupiedSpaces;
+
+    @Label("Available Spaces")
+    int availableSpaces;
+
+    @Label("Held Spaces")
+    @Description("Spaces held by reservations whose vehicle has not arrived")
+    int heldSpaces;
+
+    @Label("Verified")
+    @Description("Whether the counters were cross-checked against a full scan")
+    boolean verified;
+
+    /**
+     * Ends the event and commits it, if it is being recorded.
+     */
+    public void record(LotStatus status, boolean verified) {
+        end();
+        if (shouldCommit()) {
+            this.occupiedSpaces = status.getOccupiedSpaces();
+            this.availableSpaces = status.getAvailableSpaces();
+            this.heldSpaces = status.getHeldSpaces();
+            this.verified = verified;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.parkinglot.jfr;
+
+import com.example.parkinglot.model.ParkingResult;
+import com.example.parkinglot.model.VehicleType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a park request, from validation until the spaces are occupied.
+ */
+@Name("com.example.parkinglot.Park")
+@Label("Park Vehicle")
+@Category("Parking Lot")
+@Description("A park request, from validation until the spaces are occupied")
+@StackTrace(false)
+public final class ParkEvent extends Event {
+    @Label("Vehicle ID")
+    String vehicleId;
+
+    @Label("Vehicle Type")
+    String vehicleType;
+
+    @Label("Outcome")
+    @Description("PARKED, ALREADY_PARKED or FAILED")
+    String outcome;
+
+    @Label("Failure Reason")
+    String failureReason;
+
+    @Label("Spaces")
+    @Description("Number of spaces held by the vehicle after the request")
+    int spaceCount;
+
+    /**
+     * Ends the event and commits it with the outcome of the request, if it is being recorded.
+     */
+    public void record(String vehicleId, VehicleType vehicleType, ParkingResult result) {
+        end();
+        if (shouldCommit()) {
+            set(vehicleId, vehicleType, result.isSuccess(), result.isAlreadyParked(),
+                    result.isSuccess() ? null : result.getMessage(), result.getSpaceCount());
+            commit();
+        }
+    }
+
+    /**
+     * Ends the event and commits it with an outcome reported through a callback, if it is being recorded.
+     */
+    public void record(String vehicleId, VehicleType vehicleType, boolean success, boolean alreadyParked,
+                       String failureReason, int spaceCount) {
+        end();
+        if (shouldCommit()) {
+            set(vehicleId, vehicleType, success, alreadyParked, failureReason, spaceCount);
+            commit();
+        }
+    }
+
+    private void set(String vehicleId, VehicleType vehicleType, boolean success, boolean alreadyParked,
+                     String failureReason, int spaceCount) {
+        this.vehicleId = vehicleId;
+        this.vehicleType = vehicleType != null ? vehicleType.name() : null;
+        this.outcome = !success ? "FAILED" : alreadyParked ? "ALREADY_PARKED" : "PARKED";
+        this.failureReason = failureReason;
+        this.spaceCount = spaceCount;
+    }
+}
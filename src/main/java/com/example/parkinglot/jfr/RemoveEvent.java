@@ -0,0 +1,43 @@
+package com.example.parkinglot.jfr;
+
+import com.example.parkinglot.model.VehicleType;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a remove request.
+ */
+@Name("com.example.parkinglot.Remove")
+@Label("Remove Vehicle")
+@Category("Parking Lot")
+@Description("A remove request, until the vehicle's spaces are vacated")
+@StackTrace(false)
+public final class RemoveEvent extends Event {
+    @Label("Vehicle ID")
+    String vehicleId;
+
+    @Label("Vehicle Type")
+    @Description("Type of the removed vehicle, empty if it was not parked")
+    String vehicleType;
+
+    @Label("Removed")
+    boolean removed;
+
+    /**
+     * Ends the event and commits it, if it is being recorded.
+     * @param removedType Type of the removed vehicle, or null if it was not parked
+     */
+    public void record(String vehicleId, VehicleType removedType) {
+        end();
+        if (shouldCommit()) {
+            this.vehicleId = vehicleId;
+            this.vehicleType = removedType != null ? removedType.name() : null;
+            this.removed = removedType != null;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.parkinglot.model;
+
+/**
+ * Latency percentiles of one operation, in nanoseconds.
+ * Percentiles come from log-bucketed histograms and are reported as the upper bound of
+ * their bucket, within 1/16 (6.25%) of the exact value; the maximum is exact.
+ */
+public class LatencySummary {
+    public static final LatencySummary EMPTY = new LatencySummary(0, 0, 0, 0, 0);
+    
+    private final long count;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+    
+    public LatencySummary(long count, long p50, long p99, long p999, long max) {
+        this.count = count;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public long getP50() {
+        return p50;
+    }
+    
+    public long getP99() {
+        return p99;
+    }
+    
+    public long getP999() {
+        return p999;
+    }
+    
+    public long getMax() {
+        return max;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("LatencySummary{count=%d, p50=%dns, p99=%dns, p99.9=%dns, max=%dns}",
+                count, p50, p99, p999, max);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.parkinglot.model;
+
+import java.util.*;
+
+/**
+ * Describes the rows of a parking lot as runs of spaces of the same type, such as
+ * "120 regular spaces followed by 8 compact spaces". Identical rows share their runs, so a
+ * layout of millions of spaces takes a few kilobytes and a lot can be built from it a run at a time.
+ *
+ * <p>A layout can be parsed from a descriptor with one row per line (or per ';'). Each row is a
+ * comma-separated list of runs, "R" for regular and "C" for compact spaces, optionally followed
+ * by "x" and a length. A row may be prefixed with a repeat count and '*':
+ * <pre>
+ * 40000 * R x120, C x8
+ * C x4, R x2, C x4
+ * </pre>
+ */
+public final class LotLayout {
+    private static final SpaceType[] SPACE_TYPES = SpaceType.values();
+
+    private final int[] rowLengths;
+    private final int[] rowFirstRuns; // Row -> index of its first run; repeated rows share runs
+    private final int[] rowRunCounts;
+    private final byte[] runTypes;
+    private final int[] runLengths;
+    private final int[] spaceCounts; // Space type -> number of spaces
+    private final int totalSpaces;
+
+    private LotLayout(Builder builder) {
+        this.rowLengths = Arrays.copyOf(builder.rowLengths, builder.rowCount);
+        this.rowFirstRuns = Arrays.copyOf(builder.rowFirstRuns, builder.rowCount);
+        this.rowRunCounts = Arrays.copyOf(builder.rowRunCounts, builder.rowCount);
+        this.runTypes = Arrays.copyOf(builder.runTypes, builder.runCount);
+        this.runLengths = Arrays.copyOf(builder.runLengths, builder.runCount);
+        this.spaceCounts = new int[SPACE_TYPES.length];
+        for (int i = 0; i < spaceCounts.length; i++) {
+            spaceCounts[i] = (int) builder.spaceCounts[i];
+        }
+        this.totalSpaces = (int) builder.totalSpaces;
+    }
+
+    /**
+     * Creates a layout from one array of space types per row.
+     * @param rowConfigurations List of space type arrays, one for each row
+     * @return Layout with the same rows
+     * @throws IllegalArgumentException if there are no rows, a row is empty, or a space type is missing
+     */
+    public static LotLayout of(List<SpaceType[]> rowConfigurations) {
+        if (rowConfigurations == null || rowConfigurations.isEmpty()) {
+            throw new IllegalArgumentException("Row configurations cannot be null or empty");
+        }
+        Builder builder = builder();
+        for (SpaceType[] rowConfig : rowConfigurations) {
+            if (rowConfig == null || rowConfig.length == 0) {
+                throw new IllegalArgumentException("Row configuration cannot be null or empty");
+            }
+            for (SpaceType spaceType : rowConfig) {
+                builder.addRun(spaceType, 1);
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parses a layout descriptor such as "40000 * R x120, C x8; C x4".
+     * @param descriptor Rows separated by newlines or ';'
+     * @return Parsed layout
+     * @throws IllegalArgumentException if the descriptor is malformed or describes no spaces
+     */
+    public static LotLayout parse(String descriptor) {
+        if (descriptor == null || descriptor.isBlank()) {
+            throw new IllegalArgumentException("Layout descriptor cannot be null or empty");
+        }
+        Builder builder = builder();
+        for (String line : descriptor.split("[;\n]")) {
+            String row = line.trim();
+            if (row.isEmpty()) {
+                continue;
+            }
+            int repeat = 1;
+            int star = row.indexOf('*');
+            if (star >= 0) {
+                repeat = parseCount(row.substring(0, star), line);
+                row = row.substring(star + 1);
+            }
+            for (String run : row.split(",")) {
+                String token = run.trim();
+                if (token.isEmpty()) {
+                    throw new IllegalArgumentException("Empty run in layout row: " + line.trim());
+                }
+                SpaceType spaceType;
+                if (token.charAt(0) == 'R') {
+                    spaceType = SpaceType.REGULAR;
+                } else if (token.charAt(0) == 'C') {
+                    spaceType = SpaceType.COMPACT;
+                } else {
+                    throw new IllegalArgumentException("Unknown space type in layout run: " + token);
+                }
+                String length = token.substring(1).trim();
+                if (length.isEmpty()) {
+                    builder.addRun(spaceType, 1);
+                } else if (length.charAt(0) == 'x') {
+                    builder.addRun(spaceType, parseCount(length.substring(1), token));
+                } else {
+                    throw new IllegalArgumentException("Malformed layout run: " + token);
+                }
+            }
+            builder.endRow(repeat);
+        }
+        return builder.build();
+    }
+
+    private static int parseCount(String count, String context) {
+        try {
+            int value = Integer.parseInt(count.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Count must be a positive number in layout: " + context.trim());
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getRowCount() {
+        return rowLengths.length;
+    }
+
+    public int getRowLength(int rowIndex) {
+        return rowLengths[rowIndex];
+    }
+
+    public int getTotalSpaces() {
+        return totalSpaces;
+    }
+
+    public int getSpaceCount(SpaceType spaceType) {
+        return spaceCounts[spaceType.ordinal()];
+    }
+
+    /**
+     * Gets the number of runs in a row. Adjacent runs of a row always have different types.
+     */
+    public int getRunCount(int rowIndex) {
+        return rowRunCounts[rowIndex];
+    }
+
+    public SpaceType getRunType(int rowIndex, int run) {
+        return SPACE_TYPES[runTypes[runIndex(rowIndex, run)]];
+    }
+
+    public int getRunLength(int rowIndex, int run) {
+        return runLengths[runIndex(rowIndex, run)];
+    }
+
+    /**
+     * Gets the type of a single space by walking the runs of its row.
+     */
+    public SpaceType getType(int rowIndex, int spaceIndex) {
+        Objects.checkIndex(spaceIndex, rowLengths[rowIndex]);
+        int run = rowFirstRuns[rowIndex];
+        int start = 0;
+        while (start + runLengths[run] <= spaceIndex) {
+            start += runLengths[run++];
+        }
+        return SPACE_TYPES[runTypes[run]];
+    }
+
+    /**
+     * Gets the layout of a range of rows, for example to split a lot into shards.
+     * @param fromRow First row, inclusive
+     * @param toRow Last row, exclusive
+     * @return Layout of the rows in the range
+     */
+    public LotLayout subLayout(int fromRow, int toRow) {
+        Objects.checkFromToIndex(fromRow, toRow, getRowCount());
+        Builder builder = builder();
+        for (int rowIndex = fromRow; rowIndex < toRow; rowIndex++) {
+            for (int run = 0; run < rowRunCounts[rowIndex]; run++) {
+                builder.addRun(getRunType(rowIndex, run), getRunLength(rowIndex, run));
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    private int runIndex(int rowIndex, int run) {
+        Objects.checkIndex(run, rowRunCounts[rowIndex]);
+        return rowFirstRuns[rowIndex] + run;
+    }
+
+    /**
+     * Builds a layout row by row: add the runs of a row, then end the row once or several times.
+     */
+    public static final class Builder {
+        private int[] rowLengths = new int[16];
+        private int[] rowFirstRuns = new int[16];
+        private int[] rowRunCounts = new int[16];
+        private int rowCount;
+
+        private byte[] runTypes = new byte[16];
+        private int[] runLengths = new int[16];
+        private int runCount;
+        private int rowStartRun; // First run of the row being built
+        private long rowLength;
+
+        private final long[] spaceCounts = new long[SPACE_TYPES.length];
+        private long totalSpaces;
+
+        private Builder() {
+        }
+
+        /**
+         * Appends a run of spaces to the current row, merging it with the previous run of the same type.
+         */
+        public Builder addRun(SpaceType spaceType, int length) {
+            if (spaceType == null) {
+                throw new IllegalArgumentException("Space type cannot be null");
+            }
+            if (length <= 0) {
+                throw new IllegalArgumentException("Run length must be positive");
+            }
+            rowLength += length;
+            if (rowLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Row is too long: " + rowLength + " spaces");
+            }
+            if (runCount > rowStartRun && runTypes[runCount - 1] == spaceType.ordinal()) {
+                runLengths[runCount - 1] += length;
+                return this;
+            }
+            if (runCount == runTypes.length) {
+                runTypes = Arrays.copyOf(runTypes, runCount * 2);
+                runLengths = Arrays.copyOf(runLengths, runCount * 2);
+            }
+            runTypes[runCount] = (byte) spaceType.ordinal();
+            runLengths[runCount] = length;
+            runCount++;
+            return this;
+        }
+
+        public Builder endRow() {
+            return endRow(1);
+        }
+
+        /**
+         * Ends the current row, adding it the given number of times.
+         */
+        public Builder endRow(int times) {
+            if (runCount == rowStartRun) {
+                throw new IllegalArgumentException("Row configuration cannot be null or empty");
+            }
+            if (times <= 0) {
+                throw new IllegalArgumentException("Row repeat count must be positive");
+            }
+            totalSpaces += rowLength * times;
+            if (totalSpaces > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Lot is too large: " + totalSpaces + " spaces");
+            }
+            for (int run = rowStartRun; run < runCount; run++) {
+                spaceCounts[runTypes[run]] += (long) runLengths[run] * times;
+            }
+            if (rowCount + times > rowLengths.length) {
+                int capacity = Math.max(rowLengths.length * 2, rowCount + times);
+                rowLengths = Arrays.copyOf(rowLengths, capacity);
+                rowFirstRuns = Arrays.copyOf(rowFirstRuns, capacity);
+                rowRunCounts = Arrays.copyOf(rowRunCounts, capacity);
+            }
+            Arrays.fill(rowLengths, rowCount, rowCount + times, (int) rowLength);
+            Arrays.fill(rowFirstRuns, rowCount, rowCount + times, rowStartRun);
+            Arrays.fill(rowRunCounts, rowCount, rowCount + times, runCount - rowStartRun);
+            rowCount += times;
+            rowStartRun = runCount;
+            rowLength = 0;
+            return this;
+        }
+
+        /**
+         * Builds the layout, ending the current row if it has runs.
+         * @throws IllegalArgumentException if no row was added
+         */
+        public LotLayout build() {
+            if (runCount > rowStartRun) {
+                endRow();
+            }
+            if (rowCount == 0) {
+                throw new IllegalArgumentException("Row configurations cannot be null or empty");
+            }
+            return new LotLayout(this);
+        }
+    }
+}
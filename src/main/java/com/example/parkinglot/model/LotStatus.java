@@ -1,7 +1,10 @@
 package com.example.parkinglot.model;
 
+import java.util.Objects;
+
 /**
  * Represents the status and statistics of the parking lot.
+ * Spaces held by reservations are counted separately: they are neither occupied nor available.
  */
 public class LotStatus {
     private final int totalSpaces;
@@ -14,6 +17,9 @@ public class LotStatus {
     private final int occupiedCompactSpaces;
     private final int occupiedRegularSpaces;
     private final int vanOccupiedSpaces;
+    private final int heldSpaces;
+    private final int heldCompactSpaces;
+    private final int heldRegularSpaces;
     private final boolean isFull;
     private final boolean isEmpty;
     private final boolean allCompactOccupied;
@@ -24,6 +30,17 @@ public class LotStatus {
                      int occupiedSpaces, int occupiedCompactSpaces, int occupiedRegularSpaces,
                      int vanOccupiedSpaces, boolean isFull, boolean isEmpty,
                      boolean allCompactOccupied, boolean allRegularOccupied) {
+        this(totalSpaces, totalCompactSpaces, totalRegularSpaces,
+             availableSpaces, availableCompactSpaces, availableRegularSpaces,
+             occupiedSpaces, occupiedCompactSpaces, occupiedRegularSpaces,
+             vanOccupiedSpaces, 0, 0, isFull, isEmpty, allCompactOccupied, allRegularOccupied);
+    }
+    
+    public LotStatus(int totalSpaces, int totalCompactSpaces, int totalRegularSpaces,
+                     int availableSpaces, int availableCompactSpaces, int availableRegularSpaces,
+                     int occupiedSpaces, int occupiedCompactSpaces, int occupiedRegularSpaces,
+                     int vanOccupiedSpaces, int heldCompactSpaces, int heldRegularSpaces,
+                     boolean isFull, boolean isEmpty, boolean allCompactOccupied, boolean allRegularOccupied) {
         this.totalSpaces = totalSpaces;
         this.totalCompactSpaces = totalCompactSpaces;
         this.totalRegularSpaces = totalRegularSpaces;
@@ -34,6 +51,9 @@ public class LotStatus {
         this.occupiedCompactSpaces = occupiedCompactSpaces;
         this.occupiedRegularSpaces = occupiedRegularSpaces;
         this.vanOccupiedSpaces = vanOccupiedSpaces;
+        this.heldSpaces = heldCompactSpaces + heldRegularSpaces;
+        this.heldCompactSpaces = heldCompactSpaces;
+        this.heldRegularSpaces = heldRegularSpaces;
         this.isFull = isFull;
         this.isEmpty = isEmpty;
         this.allCompactOccupied = allCompactOccupied;
@@ -51,22 +71,57 @@ public class LotStatus {
     public int getOccupiedCompactSpaces() { return occupiedCompactSpaces; }
     public int getOccupiedRegularSpaces() { return occupiedRegularSpaces; }
     public int getVanOccupiedSpaces() { return vanOccupiedSpaces; }
+    public int getHeldSpaces() { return heldSpaces; }
+    public int getHeldCompactSpaces() { return heldCompactSpaces; }
+    public int getHeldRegularSpaces() { return heldRegularSpaces; }
     public boolean isFull() { return isFull; }
     public boolean isEmpty() { return isEmpty; }
     public boolean isAllCompactOccupied() { return allCompactOccupied; }
     public boolean isAllRegularOccupied() { return allRegularOccupied; }
     
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        LotStatus other = (LotStatus) obj;
+        return totalSpaces == other.totalSpaces
+            && totalCompactSpaces == other.totalCompactSpaces
+            && totalRegularSpaces == other.totalRegularSpaces
+            && availableSpaces == other.availableSpaces
+            && availableCompactSpaces == other.availableCompactSpaces
+            && availableRegularSpaces == other.availableRegularSpaces
+            && occupiedSpaces == other.occupiedSpaces
+            && occupiedCompactSpaces == other.occupiedCompactSpaces
+            && occupiedRegularSpaces == other.occupiedRegularSpaces
+            && vanOccupiedSpaces == other.vanOccupiedSpaces
+            && heldCompactSpaces == other.heldCompactSpaces
+            && heldRegularSpaces == other.heldRegularSpaces
+            && isFull == other.isFull
+            && isEmpty == other.isEmpty
+            && allCompactOccupied == other.allCompactOccupied
+            && allRegularOccupied == other.allRegularOccupied;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(totalSpaces, totalCompactSpaces, totalRegularSpaces,
+            availableSpaces, availableCompactSpaces, availableRegularSpaces,
+            occupiedSpaces, occupiedCompactSpaces, occupiedRegularSpaces,
+            vanOccupiedSpaces, heldCompactSpaces, heldRegularSpaces,
+            isFull, isEmpty, allCompactOccupied, allRegularOccupied);
+    }
+    
     @Override
     public String toString() {
         return String.format(
             "LotStatus{total=%d, available=%d, occupied=%d, " +
             "compact(total=%d, available=%d, occupied=%d), " +
             "regular(total=%d, available=%d, occupied=%d), " +
-            "vanSpaces=%d, full=%s, empty=%s}",
+            "vanSpaces=%d, held=%d, full=%s, empty=%s}",
             totalSpaces, availableSpaces, occupiedSpaces,
             totalCompactSpaces, availableCompactSpaces, occupiedCompactSpaces,
             totalRegularSpaces, availableRegularSpaces, occupiedRegularSpaces,
-            vanOccupiedSpaces, isFull, isEmpty
+            vanOccupiedSpaces, heldSpaces, isFull, isEmpty
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.parkinglot.model;
+
+import java.util.*;
+
+/**
+ * Point-in-time view of the operation metrics of a parking lot: latency percentiles per
+ * operation and vehicle type, and outcome counters.
+ * Counters are read one after the other while operations may still run, so they are not
+ * an atomic cut across all counters.
+ */
+public class MetricsSnapshot {
+    private final LatencySummary[] parkLatency;
+    private final LatencySummary[] removeLatency;
+    private final LatencySummary statusLatency;
+    private final long[] parkedCounts;
+    private final long[] alreadyParkedCounts;
+    private final long[] removedCounts;
+    private final long removeMissCount;
+    private final Map<String, Long> failureCounts;
+    
+    /**
+     * @param parkLatency Park latency indexed by vehicle type ordinal
+     * @param removeLatency Remove latency indexed by vehicle type ordinal
+     * @param statusLatency Lot status latency
+     * @param parkedCounts Vehicles parked, indexed by vehicle type ordinal
+     * @param alreadyParkedCounts Park requests for vehicles already parked, indexed by vehicle type ordinal
+     * @param removedCounts Vehicles removed, indexed by vehicle type ordinal
+     * @param removeMissCount Remove requests for vehicles that were not parked
+     * @param failureCounts Failed park requests by failure message
+     */
+    public MetricsSnapshot(LatencySummary[] parkLatency, LatencySummary[] removeLatency, LatencySummary statusLatency,
+                           long[] parkedCounts, long[] alreadyParkedCounts, long[] removedCounts,
+                           long removeMissCount, Map<String, Long> failureCounts) {
+        this.parkLatency = parkLatency.clone();
+        this.removeLatency = removeLatency.clone();
+        this.statusLatency = statusLatency;
+        this.parkedCounts = parkedCounts.clone();
+        this.alreadyParkedCounts = alreadyParkedCounts.clone();
+        this.removedCounts = removedCounts.clone();
+        this.removeMissCount = removeMissCount;
+        this.failureCounts = Collections.unmodifiableMap(new TreeMap<>(failureCounts));
+    }
+    
+    public LatencySummary getParkLatency(VehicleType vehicleType) {
+        return parkLatency[vehicleType.ordinal()];
+    }
+    
+    public LatencySummary getRemoveLatency(VehicleType vehicleType) {
+        return removeLatency[vehicleType.ordinal()];
+    }
+    
+    public LatencySummary getStatusLatency() {
+        return statusLatency;
+    }
+    
+    public long getParkedCount(VehicleType vehicleType) {
+        return parkedCounts[vehicleType.ordinal()];
+    }
+    
+    public long getAlreadyParkedCount(VehicleType vehicleType) {
+        return alreadyParkedCounts[vehicleType.ordinal()];
+    }
+    
+    public long getRemovedCount(VehicleType vehicleType) {
+        return removedCounts[vehicleType.ordinal()];
+    }
+    
+    public long getRemoveMissCount() {
+        return removeMissCount;
+    }
+    
+    /**
+     * Gets the number of failed park requests by failure reason, as returned by {@link ParkingResult#getMessage()}.
+     * @return Unmodifiable map sorted by reason
+     */
+    public Map<String, Long> getFailureCounts() {
+        return failureCounts;
+    }
+    
+    public long getFailureCount(String reason) {
+        return failureCounts.getOrDefault(reason, 0L);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MetricsSnapshot{");
+        for (VehicleType vehicleType : VehicleType.values()) {
+            int i = vehicleType.ordinal();
+            sb.append(vehicleType).append("{parked=").append(parkedCounts[i])
+              .append(", alreadyParked=").append(alreadyParkedCounts[i])
+              .append(", removed=").append(removedCounts[i])
+              .append(", park=").append(parkLatency[i])
+              .append(", remove=").append(removeLatency[i]).append("}, ");
+        }
+        return sb.append("removeMisses=").append(removeMissCount)
+                 .append(", failures=").append(failureCounts)
+                 .append(", status=").append(statusLatency).append("}").toString();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.parkinglot.model;
+
+/**
+ * Receives the outcome of a park request without a ParkingResult being created.
+ * Spaces are reported as handles (see {@link SpaceHandle}), so a steady stream of park requests
+ * through this callback does not allocate.
+ */
+public interface ParkingCallback {
+    /**
+     * Called once for each space held by the vehicle after a successful request.
+     * @param spaceHandle Handle of the space
+     * @param alreadyParked true if the vehicle was already parked before this request
+     */
+    void onSpaceAllocated(long spaceHandle, boolean alreadyParked);
+    
+    /**
+     * Called when the vehicle could not be parked.
+     * @param reason Failure message, as returned by {@link ParkingResult#getMessage()}
+     */
+    default void onFailure(String reason) {
+    }
+}
@@ -4,51 +4,140 @@ import java.util.*;
 
 /**
  * Represents the result of a parking operation.
+ * Results returned by the built-in strategies are compact: they hold the handle of the first
+ * allocated space and the number of contiguous spaces, and only format the space identifiers
+ * when {@link #getAllocatedSpaces()} is called. Results are immutable, so failures are usually
+ * shared constants rather than built per request.
  */
 public class ParkingResult {
+    private static final String PARKED_MESSAGE = "Vehicle parked successfully";
+    private static final String ALREADY_PARKED_MESSAGE = "Vehicle is already parked";
+    private static final String RESERVED_MESSAGE = "Spaces reserved for vehicle";
+    
     private final boolean success;
+    private final boolean alreadyParked;
     private final String message;
-    private final List<String> allocatedSpaces;
+    private final long firstSpace; // SpaceHandle.NONE unless the spaces are a contiguous run
+    private final int spaceCount;
+    private List<String> allocatedSpaces; // Formatted lazily for compact results
     
-    private ParkingResult(boolean success, String message, List<String> allocatedSpaces) {
+    private ParkingResult(boolean success, boolean alreadyParked, String message, List<String> allocatedSpaces) {
         this.success = success;
+        this.alreadyParked = alreadyParked;
         this.message = message;
-        this.allocatedSpaces = allocatedSpaces != null ? 
-            Collections.unmodifiableList(new ArrayList<>(allocatedSpaces)) : 
-            Collections.emptyList();
+        this.firstSpace = SpaceHandle.NONE;
+        this.allocatedSpaces = allocatedSpaces != null ? List.copyOf(allocatedSpaces) : List.of();
+        this.spaceCount = this.allocatedSpaces.size();
+    }
+    
+    private ParkingResult(String message, long firstSpace, int spaceCount) {
+        this.success = true;
+        this.alreadyParked = false;
+        this.message = message;
+        this.firstSpace = firstSpace;
+        this.spaceCount = spaceCount;
     }
     
     public static ParkingResult success(List<String> allocatedSpaces) {
-        return new ParkingResult(true, "Vehicle parked successfully", allocatedSpaces);
+        return new ParkingResult(true, false, PARKED_MESSAGE, allocatedSpaces);
     }
     
     public static ParkingResult success(String allocatedSpace) {
-        return new ParkingResult(true, "Vehicle parked successfully", List.of(allocatedSpace));
+        return new ParkingResult(true, false, PARKED_MESSAGE, List.of(allocatedSpace));
+    }
+    
+    /**
+     * Creates a compact success result for a single space.
+     * @param spaceHandle Handle of the allocated space
+     * @return Success result
+     */
+    public static ParkingResult success(long spaceHandle) {
+        return new ParkingResult(PARKED_MESSAGE, spaceHandle, 1);
+    }
+    
+    /**
+     * Creates a compact success result for a run of contiguous spaces in one row.
+     * @param firstSpaceHandle Handle of the first allocated space
+     * @param spaceCount Number of contiguous spaces allocated
+     * @return Success result
+     */
+    public static ParkingResult success(long firstSpaceHandle, int spaceCount) {
+        return new ParkingResult(PARKED_MESSAGE, firstSpaceHandle, spaceCount);
+    }
+    
+    /**
+     * Creates a compact result for spaces held by a reservation until the vehicle arrives.
+     * @param firstSpaceHandle Handle of the first held space
+     * @param spaceCount Number of contiguous spaces held
+     * @return Success result
+     */
+    public static ParkingResult reserved(long firstSpaceHandle, int spaceCount) {
+        return new ParkingResult(RESERVED_MESSAGE, firstSpaceHandle, spaceCount);
+    }
+    
+    public static ParkingResult reserved(List<String> heldSpaces) {
+        return new ParkingResult(true, false, RESERVED_MESSAGE, heldSpaces);
     }
     
     public static ParkingResult alreadyParked(List<String> existingSpaces) {
-        return new ParkingResult(true, "Vehicle is already parked", existingSpaces);
+        return new ParkingResult(true, true, ALREADY_PARKED_MESSAGE, existingSpaces);
     }
     
+    /**
+     * Creates a failure result. Callers that reject for a fixed reason should keep
+     * the result in a constant instead of creating one per request.
+     * @param reason Failure message
+     * @return Failure result
+     */
     public static ParkingResult failure(String reason) {
-        return new ParkingResult(false, reason, Collections.emptyList());
+        return new ParkingResult(false, false, reason, List.of());
     }
     
     public boolean isSuccess() {
         return success;
     }
     
+    /**
+     * Checks whether the request found the vehicle already parked rather than allocating new spaces.
+     * @return true if the vehicle was already parked
+     */
+    public boolean isAlreadyParked() {
+        return alreadyParked;
+    }
+    
     public String getMessage() {
         return message;
     }
     
     public List<String> getAllocatedSpaces() {
-        return allocatedSpaces;
+        List<String> spaces = allocatedSpaces;
+        if (spaces == null) {
+            String[] identifiers = new String[spaceCount];
+            for (int i = 0; i < spaceCount; i++) {
+                identifiers[i] = SpaceHandle.format(SpaceHandle.rowIndex(firstSpace), SpaceHandle.spaceIndex(firstSpace) + i);
+            }
+            // List.of is immutable with final fields, so racing initializations are harmless
+            spaces = List.of(identifiers);
+            allocatedSpaces = spaces;
+        }
+        return spaces;
+    }
+    
+    /**
+     * Gets the handle of the first allocated space of a compact result.
+     * @return Handle of the first space, or {@link SpaceHandle#NONE} if the result holds space identifiers
+     */
+    public long getFirstSpaceHandle() {
+        return firstSpace;
+    }
+    
+    public int getSpaceCount() {
+        return spaceCount;
     }
     
     @Override
     public String toString() {
-        return String.format("ParkingResult{success=%s, message='%s', spaces=%s}", 
-                success, message, allocatedSpaces);
+        return String.format("ParkingResult{success=%s, message='%s', spaces=%s}",
+                success, message, getAllocatedSpaces());
     }
-}
\ No newline at end of file
+}
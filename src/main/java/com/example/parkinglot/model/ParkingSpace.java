@@ -1,21 +1,62 @@
 package com.example.parkinglot.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents a parking space with a unique identifier, type, and occupancy status.
+ * Occupancy is claimed with a compare-and-set so concurrent gates can race for a space without locking.
  */
 public class ParkingSpace {
-    private final String identifier;
+    private static final VarHandle OCCUPIED_BY;
+    
+    static {
+        try {
+            OCCUPIED_BY = MethodHandles.lookup().findVarHandle(ParkingSpace.class, "occupiedBy", String.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private String identifier; // Formatted on first use for spaces created from a row and space index
+    private final long handle;
     private final SpaceType type;
-    private String occupiedBy; // Vehicle identifier that occupies this space
+    private volatile String occupiedBy; // Vehicle identifier that occupies this space
     
     public ParkingSpace(String identifier, SpaceType type) {
         this.identifier = identifier;
+        this.handle = SpaceHandle.NONE;
         this.type = type;
         this.occupiedBy = null;
     }
     
+    /**
+     * Creates a space whose "R{row}-{space}" identifier is only formatted when it is first requested,
+     * so building a large lot does not format millions of identifiers.
+     * @param rowIndex Zero-based row index
+     * @param spaceIndex Zero-based space index within the row
+     * @param type Space type
+     */
+    public ParkingSpace(int rowIndex, int spaceIndex, SpaceType type) {
+        this.handle = SpaceHandle.of(rowIndex, spaceIndex);
+        this.type = type;
+    }
+    
+    /**
+     * Constructor for views over compact lot storage, which override the accessors.
+     */
+    protected ParkingSpace() {
+        this(null, null);
+    }
+    
     public String getIdentifier() {
-        return identifier;
+        String id = identifier;
+        if (id == null && handle != SpaceHandle.NONE) {
+            // Strings are immutable with final fields, so racing initializations are harmless
+            id = SpaceHandle.format(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle));
+            identifier = id;
+        }
+        return id;
     }
     
     public SpaceType getType() {
@@ -31,12 +72,24 @@ public class ParkingSpace {
     }
     
     public void occupy(String vehicleId) {
-        if (isOccupied()) {
-            throw new IllegalStateException("Space " + identifier + " is already occupied");
+        if (!tryOccupy(vehicleId)) {
+            throw new IllegalStateException("Space " + getIdentifier() + " is already occupied");
         }
-        this.occupiedBy = vehicleId;
     }
     
+    /**
+     * Atomically occupies the space if it is free.
+     * Views over COMPACT and OFF_HEAP lot storage are read-only and throw UnsupportedOperationException.
+     * @param vehicleId Vehicle identifier that occupies this space
+     * @return true if the space was claimed, false if it was already occupied
+     */
+    public boolean tryOccupy(String vehicleId) {
+        return OCCUPIED_BY.compareAndSet(this, (String) null, vehicleId);
+    }
+    
+    /**
+     * Frees the space. Views over COMPACT and OFF_HEAP lot storage are read-only and throw UnsupportedOperationException.
+     */
     public void vacate() {
         this.occupiedBy = null;
     }
@@ -44,6 +97,6 @@ public class ParkingSpace {
     @Override
     public String toString() {
         return String.format("ParkingSpace{id='%s', type=%s, occupied=%s}", 
-                identifier, type, isOccupied() ? occupiedBy : "false");
+                getIdentifier(), getType(), isOccupied() ? getOccupiedBy() : "false");
     }
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.example.parkinglot.model;
+
+import java.util.Objects;
+
+/**
+ * Occupancy of one row of the parking lot, by space type.
+ * Like {@link LotStatus}, spaces held by reservations are counted separately: they are neither occupied nor available.
+ */
+public class RowStatus {
+    private final int rowNumber;
+    private final int totalCompactSpaces;
+    private final int totalRegularSpaces;
+    private final int occupiedCompactSpaces;
+    private final int occupiedRegularSpaces;
+    private final int heldCompactSpaces;
+    private final int heldRegularSpaces;
+    private String summary; // Formatted on first use; racing threads format the same string
+    
+    /**
+     * @param rowNumber Number of the row, from 1, as in its space identifiers
+     */
+    public RowStatus(int rowNumber, int totalCompactSpaces, int totalRegularSpaces,
+                     int occupiedCompactSpaces, int occupiedRegularSpaces,
+                     int heldCompactSpaces, int heldRegularSpaces) {
+        this.rowNumber = rowNumber;
+        this.totalCompactSpaces = totalCompactSpaces;
+        this.totalRegularSpaces = totalRegularSpaces;
+        this.occupiedCompactSpaces = occupiedCompactSpaces;
+        this.occupiedRegularSpaces = occupiedRegularSpaces;
+        this.heldCompactSpaces = heldCompactSpaces;
+        this.heldRegularSpaces = heldRegularSpaces;
+    }
+    
+    public int getRowNumber() {
+        return rowNumber;
+    }
+    
+    public int getTotalSpaces() {
+        return totalCompactSpaces + totalRegularSpaces;
+    }
+    
+    public int getOccupiedSpaces() {
+        return occupiedCompactSpaces + occupiedRegularSpaces;
+    }
+    
+    public int getHeldSpaces() {
+        return heldCompactSpaces + heldRegularSpaces;
+    }
+    
+    public int getAvailableSpaces() {
+        return getTotalSpaces() - getOccupiedSpaces() - getHeldSpaces();
+    }
+    
+    public int getTotalSpaces(SpaceType spaceType) {
+        return spaceType == SpaceType.COMPACT ? totalCompactSpaces : totalRegularSpaces;
+    }
+    
+    public int getOccupiedSpaces(SpaceType spaceType) {
+        return spaceType == SpaceType.COMPACT ? occupiedCompactSpaces : occupiedRegularSpaces;
+    }
+    
+    public int getHeldSpaces(SpaceType spaceType) {
+        return spaceType == SpaceType.COMPACT ? heldCompactSpaces : heldRegularSpaces;
+    }
+    
+    public int getAvailableSpaces(SpaceType spaceType) {
+        return getTotalSpaces(spaceType) - getOccupiedSpaces(spaceType) - getHeldSpaces(spaceType);
+    }
+    
+    /**
+     * Gets the row's line of the row summaries, such as "Row 3: 12 occupied, 108 available".
+     * Spaces held by a reservation are counted as occupied in the line; {@link #getHeldSpaces()} reports them separately.
+     */
+    public String getSummary() {
+        String summary = this.summary;
+        if (summary == null) {
+            int taken = getOccupiedSpaces() + getHeldSpaces();
+            summary = "Row " + rowNumber + ": " + taken + " occupied, " + (getTotalSpaces() - taken) + " available";
+            this.summary = summary;
+        }
+        return summary;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        RowStatus other = (RowStatus) obj;
+        return rowNumber == other.rowNumber
+            && totalCompactSpaces == other.totalCompactSpaces
+            && totalRegularSpaces == other.totalRegularSpaces
+            && occupiedCompactSpaces == other.occupiedCompactSpaces
+            && occupiedRegularSpaces == other.occupiedRegularSpaces
+            && heldCompactSpaces == other.heldCompactSpaces
+            && heldRegularSpaces == other.heldRegularSpaces;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowNumber, totalCompactSpaces, totalRegularSpaces,
+            occupiedCompactSpaces, occupiedRegularSpaces, heldCompactSpaces, heldRegularSpaces);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(
+            "RowStatus{row=%d, total=%d, available=%d, occupied=%d, held=%d, " +
+            "compact(total=%d, available=%d, occupied=%d), regular(total=%d, available=%d, occupied=%d)}",
+            rowNumber, getTotalSpaces(), getAvailableSpaces(), getOccupiedSpaces(), getHeldSpaces(),
+            totalCompactSpaces, getAvailableSpaces(SpaceType.COMPACT), occupiedCompactSpaces,
+            totalRegularSpaces, getAvailableSpaces(SpaceType.REGULAR), occupiedRegularSpaces
+        );
+    }
+}
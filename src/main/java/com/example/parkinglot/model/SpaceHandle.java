@@ -0,0 +1,81 @@
+package com.example.parkinglot.model;
+
+/**
+ * Utility for working with structured space handles.
+ * A handle packs the zero-based row and space index of a parking space into a single long,
+ * and can be derived directly from a space identifier in the "R{row}-{space}" format
+ * without searching the lot.
+ */
+public final class SpaceHandle {
+
+    /** Returned by {@link #parse(String)} when an identifier is not in the "R{row}-{space}" format. */
+    public static final long NONE = -1L;
+
+    private SpaceHandle() {
+    }
+
+    /**
+     * Creates a handle for the given zero-based row and space index.
+     * @param rowIndex Zero-based row index
+     * @param spaceIndex Zero-based space index within the row
+     * @return Packed handle
+     */
+    public static long of(int rowIndex, int spaceIndex) {
+        return ((long) rowIndex << 32) | (spaceIndex & 0xFFFFFFFFL);
+    }
+
+    public static int rowIndex(long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    public static int spaceIndex(long handle) {
+        return (int) handle;
+    }
+
+    /**
+     * Formats the identifier for the given zero-based row and space index.
+     * @param rowIndex Zero-based row index
+     * @param spaceIndex Zero-based space index within the row
+     * @return Identifier such as "R1-1"
+     */
+    public static String format(int rowIndex, int spaceIndex) {
+        return "R" + (rowIndex + 1) + "-" + (spaceIndex + 1);
+    }
+
+    /**
+     * Parses a "R{row}-{space}" identifier into a handle without allocating.
+     * @param spaceId Space identifier
+     * @return Packed handle, or {@link #NONE} if the identifier is malformed
+     */
+    public static long parse(String spaceId) {
+        if (spaceId == null || spaceId.length() < 4 || spaceId.charAt(0) != 'R') {
+            return NONE;
+        }
+        int row = 0;
+        int pos = 1;
+        int length = spaceId.length();
+        while (pos < length && spaceId.charAt(pos) != '-') {
+            int digit = spaceId.charAt(pos) - '0';
+            if (digit < 0 || digit > 9 || row > (Integer.MAX_VALUE - digit) / 10) {
+                return NONE;
+            }
+            row = row * 10 + digit;
+            pos++;
+        }
+        if (pos == 1 || pos >= length - 1) {
+            return NONE;
+        }
+        int space = 0;
+        for (pos = pos + 1; pos < length; pos++) {
+            int digit = spaceId.charAt(pos) - '0';
+            if (digit < 0 || digit > 9 || space > (Integer.MAX_VALUE - digit) / 10) {
+                return NONE;
+            }
+            space = space * 10 + digit;
+        }
+        if (row == 0 || space == 0) {
+            return NONE;
+        }
+        return of(row - 1, space - 1);
+    }
+}
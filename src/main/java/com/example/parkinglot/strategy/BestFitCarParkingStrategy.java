@@ -0,0 +1,37 @@
+package com.example.parkinglot.strategy;
+
+import com.example.parkinglot.model.*;
+import java.util.List;
+
+/**
+ * Fragmentation-aware parking strategy for cars.
+ * Cars can only park in regular spaces; instead of the first free one, a car takes the end of the
+ * shortest free run that it can shorten without costing a van its pair of contiguous spaces.
+ * The whole lot is searched on every call, so the resume hint of the lot is ignored; after losing a race,
+ * the search skips the lost space instead.
+ *
+ * @see OccupancyIndex#findBestFitRegular()
+ */
+public class BestFitCarParkingStrategy implements SingleSpaceParkingStrategy {
+    private static final ParkingResult NO_SPACE = ParkingResult.failure("No available regular space for car");
+    
+    @Override
+    public ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows) {
+        return allocateSpaces(vehicleId, rows, OccupancyIndex.fromRows(rows));
+    }
+    
+    @Override
+    public long findSpaces(OccupancyIndex index, long fromHandle) {
+        return index.findBestFitRegular();
+    }
+    
+    @Override
+    public long findSpacesExcluding(OccupancyIndex index, long lostHandle) {
+        return index.findBestFitRegular(lostHandle);
+    }
+    
+    @Override
+    public ParkingResult getNoSpaceResult() {
+        return NO_SPACE;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.parkinglot.strategy;
+
+import com.example.parkinglot.model.*;
+import java.util.List;
+
+/**
+ * Fragmentation-aware parking strategy for motorcycles.
+ * Motorcycles take a free compact space first, since cars and vans cannot use it,
+ * and otherwise the regular space a {@link BestFitCarParkingStrategy} would take.
+ * The whole lot is searched on every call, so the resume hint of the lot is ignored; after losing a race,
+ * the search skips the lost space instead.
+ */
+public class BestFitMotorcycleParkingStrategy implements SingleSpaceParkingStrategy {
+    private static final ParkingResult NO_SPACE = ParkingResult.failure("No available space for motorcycle");
+    
+    @Override
+    public ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows) {
+        return allocateSpaces(vehicleId, rows, OccupancyIndex.fromRows(rows));
+    }
+    
+    @Override
+    public long findSpaces(OccupancyIndex index, long fromHandle) {
+        return findSpacesExcluding(index, SpaceHandle.NONE);
+    }
+    
+    @Override
+    public long findSpacesExcluding(OccupancyIndex index, long lostHandle) {
+        long handle = index.findFirstFreeCompact(SpaceHandle.of(0, 0));
+        if (handle != SpaceHandle.NONE && handle == lostHandle) {
+            handle = index.findFirstFreeCompact(SpaceHandle.of(SpaceHandle.rowIndex(lostHandle), SpaceHandle.spaceIndex(lostHandle) + 1));
+        }
+        return handle != SpaceHandle.NONE ? handle : index.findBestFitRegular(lostHandle);
+    }
+    
+    @Override
+    public ParkingResult getNoSpaceResult() {
+        return NO_SPACE;
+    }
+}
\ No newline at end of file
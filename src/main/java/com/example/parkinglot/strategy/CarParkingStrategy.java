@@ -7,7 +7,8 @@ import java.util.List;
  * Parking strategy for cars.
  * Cars can only park in regular spaces.
  */
-public class CarParkingStrategy implements ParkingStrategy {
+public class CarParkingStrategy implements SingleSpaceParkingStrategy {
+    private static final ParkingResult NO_SPACE = ParkingResult.failure("No available regular space for car");
     
     @Override
     public ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows) {
@@ -19,6 +20,17 @@ public class CarParkingStrategy implements ParkingStrategy {
                 }
             }
         }
-        return ParkingResult.failure("No available regular space for car");
+        return NO_SPACE;
+    }
+    
+    @Override
+    public long findSpaces(OccupancyIndex index, long fromHandle) {
+        // Cars can only park in regular spaces
+        return index.findFirstFreeRegular(fromHandle);
+    }
+    
+    @Override
+    public ParkingResult getNoSpaceResult() {
+        return NO_SPACE;
     }
 }
\ No newline at end of file
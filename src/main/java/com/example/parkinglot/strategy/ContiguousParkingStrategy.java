@@ -0,0 +1,49 @@
+package com.example.parkinglot.strategy;
+
+import com.example.parkinglot.model.ParkingSpace;
+import com.example.parkinglot.model.ParkingResult;
+import com.example.parkinglot.model.SpaceHandle;
+import java.util.List;
+
+/**
+ * Strategy for vehicles that occupy a fixed number of contiguous spaces in one row.
+ * The spaces are located directly in the occupancy index as the handle of the first space,
+ * so the parking lot can allocate without creating a ParkingResult at all.
+ */
+public interface ContiguousParkingStrategy extends ParkingStrategy {
+    /**
+     * Gets the number of contiguous spaces a vehicle occupies.
+     * @return Number of spaces, at least one
+     */
+    int getSpaceCount();
+    
+    /**
+     * Finds the first suitable run of spaces at or after the given space using the occupancy index.
+     * 
+     * @param index Occupancy index kept consistent with the rows
+     * @param fromHandle Handle of the space to resume scanning from
+     * @return Handle of the first space of the run, or {@link SpaceHandle#NONE} if none is available
+     */
+    long findSpaces(OccupancyIndex index, long fromHandle);
+    
+    /**
+     * Gets the shared result returned when no suitable space is available.
+     * @return Failure result
+     */
+    ParkingResult getNoSpaceResult();
+    
+    @Override
+    default ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows, OccupancyIndex index) {
+        return allocateSpaces(vehicleId, rows, index, SpaceHandle.of(0, 0));
+    }
+    
+    @Override
+    default ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows,
+                                         OccupancyIndex index, long fromHandle) {
+        long handle = findSpaces(index, fromHandle);
+        if (handle == SpaceHandle.NONE) {
+            return getNoSpaceResult();
+        }
+        return ParkingResult.success(handle, getSpaceCount());
+    }
+}
@@ -7,7 +7,8 @@ import java.util.List;
  * Parking strategy for motorcycles.
  * Motorcycles can park in any available space (compact or regular).
  */
-public class MotorcycleParkingStrategy implements ParkingStrategy {
+public class MotorcycleParkingStrategy implements SingleSpaceParkingStrategy {
+    private static final ParkingResult NO_SPACE = ParkingResult.failure("No available space for motorcycle");
     
     @Override
     public ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows) {
@@ -19,6 +20,17 @@ public class MotorcycleParkingStrategy implements ParkingStrategy {
                 }
             }
         }
-        return ParkingResult.failure("No available space for motorcycle");
+        return NO_SPACE;
+    }
+    
+    @Override
+    public long findSpaces(OccupancyIndex index, long fromHandle) {
+        // Motorcycles can park in any available space (compact or regular)
+        return index.findFirstFree(fromHandle);
+    }
+    
+    @Override
+    public ParkingResult getNoSpaceResult() {
+        return NO_SPACE;
     }
 }
\ No newline at end of file
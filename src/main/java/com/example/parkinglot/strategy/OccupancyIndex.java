@@ -0,0 +1,553 @@
+package com.example.parkinglot.strategy;
+
+import com.example.parkinglot.model.LotLayout;
+import com.example.parkinglot.model.ParkingSpace;
+import com.example.parkinglot.model.SpaceHandle;
+import com.example.parkinglot.model.SpaceType;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Bitmap-backed occupancy index used by the built-in strategies.
+ * Each row keeps one bit per space in a "free" bitmap, alongside an immutable "is REGULAR" mask
+ * built from the row configuration, so the first eligible space is found 64 spaces at a time.
+ * A third per-row bitmap marks every space that starts a pair of contiguous free REGULAR spaces,
+ * maintained incrementally so van allocation is a word scan that skips rows without pairs.
+ * Runs of contiguous free REGULAR spaces are also counted per row by length, in buckets of
+ * 1 to {@link #LONG_RUN} spaces, with a lot-wide bitmap per bucket marking the rows that have such a run,
+ * so the best-fit strategies find the shortest run without scanning every row.
+ * The index must be updated on every occupy/vacate to stay consistent with the parking spaces.
+ */
+public class OccupancyIndex {
+    /**
+     * Length from which free REGULAR runs are counted together in the last bucket.
+     */
+    public static final int LONG_RUN = 16;
+
+    private static final VarHandle RUN_ROWS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int[] BEST_FIT_ORDER = bestFitOrder();
+
+    private final int[] rowLengths;
+    private final long[][] free;
+    private final long[][] regular;
+    private final int[] freeCounts;
+    private final int[] freeRegularCounts;
+    private final long[][] pairStarts;
+    private final int[] pairCounts;
+    private final int[] runCounts; // Indexed by row * LONG_RUN + bucket
+    private final long[][] runRows; // By bucket, one bit per row with a run in that bucket
+
+    /**
+     * Builds an index for an empty lot with the given configuration.
+     * @param rowConfigurations List of space type arrays, one for each row
+     */
+    public OccupancyIndex(List<SpaceType[]> rowConfigurations) {
+        this(LotLayout.of(rowConfigurations), false);
+    }
+
+    /**
+     * Builds an index for an empty lot with the given layout, setting the bits of each run a word at a time.
+     * @param layout Lot layout
+     * @param parallel true to initialize the rows in parallel, for layouts with millions of spaces
+     */
+    public OccupancyIndex(LotLayout layout, boolean parallel) {
+        this(layout.getRowCount());
+        IntStream rowIndexes = IntStream.range(0, layout.getRowCount());
+        (parallel ? rowIndexes.parallel() : rowIndexes).forEach(rowIndex -> {
+            int length = layout.getRowLength(rowIndex);
+            initializeRow(rowIndex, length);
+            setBits(free[rowIndex], 0, length);
+            int start = 0;
+            for (int run = 0; run < layout.getRunCount(rowIndex); run++) {
+                int runLength = layout.getRunLength(rowIndex, run);
+                if (layout.getRunType(rowIndex, run) == SpaceType.REGULAR) {
+                    setBits(regular[rowIndex], start, start + runLength);
+                    freeRegularCounts[rowIndex] += runLength;
+                }
+                start += runLength;
+            }
+            freeCounts[rowIndex] = length;
+            computePairStarts(rowIndex);
+            computeRuns(rowIndex);
+        });
+    }
+
+    private OccupancyIndex(int rowCount) {
+        this.rowLengths = new int[rowCount];
+        this.free = new long[rowCount][];
+        this.regular = new long[rowCount][];
+        this.freeCounts = new int[rowCount];
+        this.freeRegularCounts = new int[rowCount];
+        this.pairStarts = new long[rowCount][];
+        this.pairCounts = new int[rowCount];
+        this.runCounts = new int[rowCount * LONG_RUN];
+        this.runRows = new long[LONG_RUN][(rowCount + 63) >>> 6];
+    }
+
+    /**
+     * Builds an index reflecting the current state of the given rows.
+     * @param rows The parking lot rows containing spaces
+     * @return Index consistent with the rows
+     */
+    public static OccupancyIndex fromRows(List<List<ParkingSpace>> rows) {
+        OccupancyIndex index = new OccupancyIndex(rows.size());
+        for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+            List<ParkingSpace> row = rows.get(rowIndex);
+            index.initializeRow(rowIndex, row.size());
+            for (int spaceIndex = 0; spaceIndex < row.size(); spaceIndex++) {
+                ParkingSpace space = row.get(spaceIndex);
+                index.setInitialState(rowIndex, spaceIndex, space.getType(), space.isOccupied());
+            }
+            index.computePairStarts(rowIndex);
+            index.computeRuns(rowIndex);
+        }
+        return index;
+    }
+
+    private void initializeRow(int rowIndex, int length) {
+        int words = (length + 63) >>> 6;
+        rowLengths[rowIndex] = length;
+        free[rowIndex] = new long[words];
+        regular[rowIndex] = new long[words];
+        pairStarts[rowIndex] = new long[words];
+    }
+
+    /**
+     * Sets the bits from index {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    private static void setBits(long[] words, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        words[firstWord] |= firstMask;
+        Arrays.fill(words, firstWord + 1, lastWord, -1L);
+        words[lastWord] |= lastMask;
+    }
+
+    private void setInitialState(int rowIndex, int spaceIndex, SpaceType type, boolean occupied) {
+        long bit = 1L << spaceIndex;
+        int word = spaceIndex >>> 6;
+        if (type == SpaceType.REGULAR) {
+            regular[rowIndex][word] |= bit;
+        }
+        if (!occupied) {
+            free[rowIndex][word] |= bit;
+            freeCounts[rowIndex]++;
+            if (type == SpaceType.REGULAR) {
+                freeRegularCounts[rowIndex]++;
+            }
+        }
+    }
+
+    /**
+     * Computes the pair-start bitmap of a row as free&regular & (free&regular >>> 1),
+     * carrying the lowest bit of the next word across word boundaries.
+     */
+    private void computePairStarts(int rowIndex) {
+        long[] rowFree = free[rowIndex];
+        long[] rowRegular = regular[rowIndex];
+        long[] rowPairs = pairStarts[rowIndex];
+        int count = 0;
+        for (int word = 0; word < rowFree.length; word++) {
+            long current = rowFree[word] & rowRegular[word];
+            long next = word + 1 < rowFree.length ? rowFree[word + 1] & rowRegular[word + 1] : 0L;
+            rowPairs[word] = current & ((current >>> 1) | (next << 63));
+            count += Long.bitCount(rowPairs[word]);
+        }
+        pairCounts[rowIndex] = count;
+    }
+
+    /**
+     * Recomputes whether a pair of free REGULAR spaces starts at the given index.
+     */
+    private void updatePairStart(int rowIndex, int spaceIndex) {
+        if (spaceIndex < 0 || spaceIndex + 1 >= rowLengths[rowIndex]) {
+            return;
+        }
+        boolean isPair = isFree(rowIndex, spaceIndex) && isRegular(rowIndex, spaceIndex)
+                && isFree(rowIndex, spaceIndex + 1) && isRegular(rowIndex, spaceIndex + 1);
+        int word = spaceIndex >>> 6;
+        long bit = 1L << spaceIndex;
+        boolean wasPair = (pairStarts[rowIndex][word] & bit) != 0;
+        if (isPair && !wasPair) {
+            pairStarts[rowIndex][word] |= bit;
+            pairCounts[rowIndex]++;
+        } else if (!isPair && wasPair) {
+            pairStarts[rowIndex][word] &= ~bit;
+            pairCounts[rowIndex]--;
+        }
+    }
+
+    /**
+     * Orders the run buckets from the best fit for a single space to the worst. Taking a space at the end of
+     * a run of odd length leaves as many disjoint pairs for vans as before, while an even run loses one,
+     * so odd runs come first, shortest first, then even runs, then long runs.
+     */
+    private static int[] bestFitOrder() {
+        int[] order = new int[LONG_RUN];
+        int next = 0;
+        for (int length = 1; length < LONG_RUN; length += 2) {
+            order[next++] = length - 1;
+        }
+        for (int length = 2; length < LONG_RUN; length += 2) {
+            order[next++] = length - 1;
+        }
+        order[next] = LONG_RUN - 1;
+        return order;
+    }
+
+    private static int bucketOf(int runLength) {
+        return Math.min(runLength, LONG_RUN) - 1;
+    }
+
+    /**
+     * Counts the free REGULAR runs of a row from its bitmaps.
+     */
+    private void computeRuns(int rowIndex) {
+        int start = nextFreeRegular(rowIndex, 0);
+        while (start >= 0) {
+            int runLength = freeRegularRunFrom(rowIndex, start);
+            addRun(rowIndex, runLength);
+            start = nextFreeRegular(rowIndex, start + runLength);
+        }
+    }
+
+    /**
+     * Replaces the run around a space that has just been occupied by the runs on either side of it,
+     * or joins the runs on either side of a space that has just been vacated.
+     */
+    private void updateRuns(int rowIndex, int spaceIndex, boolean occupied) {
+        int before = freeRegularRunTo(rowIndex, spaceIndex - 1);
+        int after = freeRegularRunFrom(rowIndex, spaceIndex + 1);
+        if (occupied) {
+            removeRun(rowIndex, before + 1 + after);
+            addRun(rowIndex, before);
+            addRun(rowIndex, after);
+        } else {
+            removeRun(rowIndex, before);
+            removeRun(rowIndex, after);
+            addRun(rowIndex, before + 1 + after);
+        }
+    }
+
+    private void addRun(int rowIndex, int runLength) {
+        if (runLength == 0) {
+            return;
+        }
+        int bucket = bucketOf(runLength);
+        if (runCounts[rowIndex * LONG_RUN + bucket]++ == 0) {
+            // Rows sharing the word are updated under other row locks in the concurrent lot
+            RUN_ROWS.getAndBitwiseOr(runRows[bucket], rowIndex >>> 6, 1L << rowIndex);
+        }
+    }
+
+    private void removeRun(int rowIndex, int runLength) {
+        if (runLength == 0) {
+            return;
+        }
+        int bucket = bucketOf(runLength);
+        if (--runCounts[rowIndex * LONG_RUN + bucket] == 0) {
+            RUN_ROWS.getAndBitwiseAnd(runRows[bucket], rowIndex >>> 6, ~(1L << rowIndex));
+        }
+    }
+
+    /**
+     * Finds the first free REGULAR space of a row at or after the given index.
+     * @return Index of the space, or -1 if there is none
+     */
+    private int nextFreeRegular(int rowIndex, int fromIndex) {
+        long[] rowFree = free[rowIndex];
+        long[] rowRegular = regular[rowIndex];
+        for (int word = fromIndex >>> 6; word < rowFree.length && fromIndex < rowLengths[rowIndex]; word++) {
+            long candidates = rowFree[word] & rowRegular[word];
+            if (word == fromIndex >>> 6) {
+                candidates &= -1L << fromIndex;
+            }
+            if (candidates != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(candidates);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the contiguous free REGULAR spaces starting at the given index, a word at a time.
+     */
+    private int freeRegularRunFrom(int rowIndex, int spaceIndex) {
+        int length = 0;
+        while (spaceIndex < rowLengths[rowIndex]) {
+            int word = spaceIndex >>> 6;
+            int offset = spaceIndex & 63;
+            long gaps = ~(free[rowIndex][word] & regular[rowIndex][word]) >>> offset;
+            int count = Math.min(Long.numberOfTrailingZeros(gaps), 64 - offset);
+            length += count;
+            spaceIndex += count;
+            if (offset + count < 64) {
+                break; // Stopped at a space that is taken or compact; bits past the row end are never free
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Counts the contiguous free REGULAR spaces ending at the given index, a word at a time.
+     */
+    private int freeRegularRunTo(int rowIndex, int spaceIndex) {
+        int length = 0;
+        while (spaceIndex >= 0) {
+            int word = spaceIndex >>> 6;
+            int offset = spaceIndex & 63;
+            long gaps = ~(free[rowIndex][word] & regular[rowIndex][word]) << (63 - offset);
+            int count = Math.min(Long.numberOfLeadingZeros(gaps), offset + 1);
+            length += count;
+            spaceIndex -= count;
+            if (count <= offset) {
+                break;
+            }
+        }
+        return length;
+    }
+
+    public int getRowCount() {
+        return rowLengths.length;
+    }
+
+    public int getRowLength(int rowIndex) {
+        return rowLengths[rowIndex];
+    }
+
+    public int getFreeCount(int rowIndex) {
+        return freeCounts[rowIndex];
+    }
+
+    /**
+     * Gets the number of runs of contiguous free REGULAR spaces in a row, by length.
+     * @return Array where element i counts the runs of i + 1 spaces, and the last element
+     *         the runs of {@link #LONG_RUN} spaces or more
+     */
+    public int[] getFreeRegularRuns(int rowIndex) {
+        return Arrays.copyOfRange(runCounts, rowIndex * LONG_RUN, (rowIndex + 1) * LONG_RUN);
+    }
+
+    public boolean isFree(int rowIndex, int spaceIndex) {
+        return (free[rowIndex][spaceIndex >>> 6] & (1L << spaceIndex)) != 0;
+    }
+
+    public boolean isRegular(int rowIndex, int spaceIndex) {
+        return (regular[rowIndex][spaceIndex >>> 6] & (1L << spaceIndex)) != 0;
+    }
+
+    /**
+     * Records that a space has been occupied.
+     * @throws IllegalStateException if the space is already marked as occupied
+     */
+    public void markOccupied(int rowIndex, int spaceIndex) {
+        int word = spaceIndex >>> 6;
+        long bit = 1L << spaceIndex;
+        if ((free[rowIndex][word] & bit) == 0) {
+            throw new IllegalStateException("Space " + SpaceHandle.format(rowIndex, spaceIndex) + " is already occupied");
+        }
+        free[rowIndex][word] &= ~bit;
+        freeCounts[rowIndex]--;
+        if ((regular[rowIndex][word] & bit) != 0) {
+            freeRegularCounts[rowIndex]--;
+            updatePairStart(rowIndex, spaceIndex - 1);
+            updatePairStart(rowIndex, spaceIndex);
+            updateRuns(rowIndex, spaceIndex, true);
+        }
+    }
+
+    /**
+     * Records that a space has been vacated. Vacating a free space has no effect.
+     */
+    public void markFree(int rowIndex, int spaceIndex) {
+        int word = spaceIndex >>> 6;
+        long bit = 1L << spaceIndex;
+        if ((free[rowIndex][word] & bit) != 0) {
+            return;
+        }
+        free[rowIndex][word] |= bit;
+        freeCounts[rowIndex]++;
+        if ((regular[rowIndex][word] & bit) != 0) {
+            freeRegularCounts[rowIndex]++;
+            updatePairStart(rowIndex, spaceIndex - 1);
+            updatePairStart(rowIndex, spaceIndex);
+            updateRuns(rowIndex, spaceIndex, false);
+        }
+    }
+
+    /**
+     * Finds the first free space in lowest-row/lowest-index order.
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if the lot is full
+     */
+    public long findFirstFree() {
+        return findFirstFree(SpaceHandle.of(0, 0));
+    }
+
+    /**
+     * Finds the first free space at or after the given space, in lowest-row/lowest-index order.
+     * @param fromHandle Handle of the space to start from; the index may be past the end of its row
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFree(long fromHandle) {
+        return findFirst(fromHandle, null);
+    }
+
+    /**
+     * Finds the first free REGULAR space in lowest-row/lowest-index order.
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFreeRegular() {
+        return findFirstFreeRegular(SpaceHandle.of(0, 0));
+    }
+
+    /**
+     * Finds the first free REGULAR space at or after the given space, in lowest-row/lowest-index order.
+     * @param fromHandle Handle of the space to start from; the index may be past the end of its row
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFreeRegular(long fromHandle) {
+        return findFirst(fromHandle, SpaceType.REGULAR);
+    }
+
+    /**
+     * Finds the first free COMPACT space at or after the given space, in lowest-row/lowest-index order.
+     * @param fromHandle Handle of the space to start from; the index may be past the end of its row
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFreeCompact(long fromHandle) {
+        return findFirst(fromHandle, SpaceType.COMPACT);
+    }
+
+    /**
+     * Finds the first free space of the given type, or of any type if it is null.
+     */
+    private long findFirst(long fromHandle, SpaceType type) {
+        int startIndex = SpaceHandle.spaceIndex(fromHandle);
+        for (int rowIndex = SpaceHandle.rowIndex(fromHandle); rowIndex < rowLengths.length; rowIndex++, startIndex = 0) {
+            int count = type == null ? freeCounts[rowIndex]
+                    : type == SpaceType.REGULAR ? freeRegularCounts[rowIndex]
+                    : freeCounts[rowIndex] - freeRegularCounts[rowIndex];
+            if (count == 0 || startIndex >= rowLengths[rowIndex]) {
+                continue;
+            }
+            long[] rowFree = free[rowIndex];
+            long[] rowRegular = regular[rowIndex];
+            for (int word = startIndex >>> 6; word < rowFree.length; word++) {
+                long candidates = type == null ? rowFree[word]
+                        : type == SpaceType.REGULAR ? rowFree[word] & rowRegular[word]
+                        : rowFree[word] & ~rowRegular[word];
+                if (word == startIndex >>> 6) {
+                    candidates &= -1L << startIndex; // Ignore spaces before the starting point
+                }
+                if (candidates != 0) {
+                    return SpaceHandle.of(rowIndex, (word << 6) + Long.numberOfTrailingZeros(candidates));
+                }
+            }
+        }
+        return SpaceHandle.NONE;
+    }
+
+    /**
+     * Finds the first pair of contiguous free REGULAR spaces in lowest-row/lowest-index order.
+     * @return Handle of the first space of the pair, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFreeRegularPair() {
+        return findFirstFreeRegularPair(SpaceHandle.of(0, 0));
+    }
+
+    /**
+     * Finds the first pair of contiguous free REGULAR spaces starting at or after the given space.
+     * @param fromHandle Handle of the space to start from; the index may be past the end of its row
+     * @return Handle of the first space of the pair, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findFirstFreeRegularPair(long fromHandle) {
+        int startIndex = SpaceHandle.spaceIndex(fromHandle);
+        for (int rowIndex = SpaceHandle.rowIndex(fromHandle); rowIndex < rowLengths.length; rowIndex++, startIndex = 0) {
+            if (pairCounts[rowIndex] == 0 || startIndex >= rowLengths[rowIndex]) {
+                continue;
+            }
+            long[] rowPairs = pairStarts[rowIndex];
+            for (int word = startIndex >>> 6; word < rowPairs.length; word++) {
+                long candidates = rowPairs[word];
+                if (word == startIndex >>> 6) {
+                    candidates &= -1L << startIndex; // Ignore pairs before the starting point
+                }
+                if (candidates != 0) {
+                    return SpaceHandle.of(rowIndex, (word << 6) + Long.numberOfTrailingZeros(candidates));
+                }
+            }
+        }
+        return SpaceHandle.NONE;
+    }
+
+    /**
+     * Finds the free REGULAR space whose occupation least fragments the lot: the first space of the
+     * shortest free REGULAR run of odd length, else of the shortest run of even length, else of a long run.
+     * Runs of {@link #LONG_RUN} spaces or more are not told apart, so among them the first in row order is taken.
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findBestFitRegular() {
+        return findBestFitRegular(SpaceHandle.NONE);
+    }
+
+    /**
+     * Finds the best-fit free REGULAR space other than the given one. A gate that has just lost the race
+     * for a space passes it here, since the index shows it as free until the winner has updated it.
+     * @param excludedHandle Handle of the space to skip, or {@link SpaceHandle#NONE}
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    public long findBestFitRegular(long excludedHandle) {
+        int excludedRow = excludedHandle != SpaceHandle.NONE ? SpaceHandle.rowIndex(excludedHandle) : -1;
+        for (int bucket : BEST_FIT_ORDER) {
+            long[] rows = runRows[bucket];
+            for (int word = 0; word < rows.length; word++) {
+                long candidates = rows[word];
+                while (candidates != 0) {
+                    int rowIndex = (word << 6) + Long.numberOfTrailingZeros(candidates);
+                    int spaceIndex = findRun(rowIndex, bucket,
+                            rowIndex == excludedRow ? SpaceHandle.spaceIndex(excludedHandle) : -1);
+                    if (spaceIndex >= 0) {
+                        return SpaceHandle.of(rowIndex, spaceIndex);
+                    }
+                    candidates &= candidates - 1; // Changed under a concurrent update; try the next row
+                }
+            }
+        }
+        return SpaceHandle.NONE;
+    }
+
+    /**
+     * Finds the first space of the first free REGULAR run of a row whose length falls in the given bucket.
+     * If that space is the excluded one, the run really starts at the next space.
+     * @param excludedIndex Index of the space to skip, or -1
+     * @return Index of the space, or -1 if the row has no such run
+     */
+    private int findRun(int rowIndex, int bucket, int excludedIndex) {
+        int start = nextFreeRegular(rowIndex, 0);
+        while (start >= 0) {
+            int runLength = freeRegularRunFrom(rowIndex, start);
+            if (runLength > 0 && bucketOf(runLength) == bucket) {
+                if (start != excludedIndex) {
+                    return start;
+                }
+                if (runLength > 1) {
+                    return start + 1;
+                }
+            }
+            start = nextFreeRegular(rowIndex, start + Math.max(runLength, 1));
+        }
+        return -1;
+    }
+}
\ No newline at end of file
@@ -6,14 +6,48 @@ import java.util.List;
 
 /**
  * Strategy interface for different vehicle parking allocation strategies.
+ * 
+ * <p>Strategies only choose spaces: the lot claims the spaces of a successful result itself, keeping
+ * its counters and occupancy index in step. The rows are read-only, and a strategy must not occupy
+ * or vacate their spaces; with COMPACT and OFF_HEAP storage they are views that throw
+ * UnsupportedOperationException if it does.
  */
 public interface ParkingStrategy {
     /**
      * Attempts to find and allocate suitable parking space(s) for a vehicle.
      * 
      * @param vehicleId The unique identifier of the vehicle to park
-     * @param rows The parking lot rows containing spaces
+     * @param rows The parking lot rows containing spaces, read-only
      * @return ParkingResult indicating success/failure and allocated spaces
      */
     ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows);
+    
+    /**
+     * Attempts to find and allocate suitable parking space(s) using the lot's occupancy index.
+     * Strategies that do not use the index fall back to scanning the rows.
+     * 
+     * @param vehicleId The unique identifier of the vehicle to park
+     * @param rows The parking lot rows containing spaces, read-only
+     * @param index Occupancy index kept consistent with the rows
+     * @return ParkingResult indicating success/failure and allocated spaces
+     */
+    default ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows, OccupancyIndex index) {
+        return allocateSpaces(vehicleId, rows);
+    }
+    
+    /**
+     * Attempts to find and allocate suitable parking space(s) at or after the given space.
+     * The caller guarantees no eligible space exists before it, so strategies that do not
+     * resume their scan may ignore the hint.
+     * 
+     * @param vehicleId The unique identifier of the vehicle to park
+     * @param rows The parking lot rows containing spaces, read-only
+     * @param index Occupancy index kept consistent with the rows
+     * @param fromHandle Handle of the space to resume scanning from
+     * @return ParkingResult indicating success/failure and allocated spaces
+     */
+    default ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows,
+                                         OccupancyIndex index, long fromHandle) {
+        return allocateSpaces(vehicleId, rows, index);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.example.parkinglot.strategy;
+
+import com.example.parkinglot.model.SpaceHandle;
+
+/**
+ * Strategy for vehicles that always occupy exactly one space.
+ * Allocation can resume from a given space, so a gate that loses the race for a space
+ * continues scanning from where it failed instead of starting over.
+ */
+public interface SingleSpaceParkingStrategy extends ContiguousParkingStrategy {
+    @Override
+    default int getSpaceCount() {
+        return 1;
+    }
+    
+    /**
+     * Finds a space after the caller lost the race for the given one to another gate. The index shows the
+     * lost space as free until the winner has updated it, so the search must not return it again.
+     * Strategies that scan in order continue after it.
+     * 
+     * @param index Occupancy index kept consistent with the rows
+     * @param lostHandle Handle of the space that was lost
+     * @return Handle of the space, or {@link SpaceHandle#NONE} if none is available
+     */
+    default long findSpacesExcluding(OccupancyIndex index, long lostHandle) {
+        return findSpaces(index, SpaceHandle.of(SpaceHandle.rowIndex(lostHandle), SpaceHandle.spaceIndex(lostHandle) + 1));
+    }
+}
@@ -7,7 +7,8 @@ import java.util.List;
  * Parking strategy for vans.
  * Vans require two contiguous regular spaces in the same row.
  */
-public class VanParkingStrategy implements ParkingStrategy {
+public class VanParkingStrategy implements ContiguousParkingStrategy {
+    private static final ParkingResult NO_SPACE = ParkingResult.failure("No two contiguous regular spaces available for van");
     
     @Override
     public ParkingResult allocateSpaces(String vehicleId, List<List<ParkingSpace>> rows) {
@@ -24,6 +25,22 @@ public class VanParkingStrategy implements ParkingStrategy {
                 }
             }
         }
-        return ParkingResult.failure("No two contiguous regular spaces available for van");
+        return NO_SPACE;
+    }
+    
+    @Override
+    public int getSpaceCount() {
+        return 2;
+    }
+    
+    @Override
+    public long findSpaces(OccupancyIndex index, long fromHandle) {
+        // Vans need two contiguous regular spaces in the same row
+        return index.findFirstFreeRegularPair(fromHandle);
+    }
+    
+    @Override
+    public ParkingResult getNoSpaceResult() {
+        return NO_SPACE;
     }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static com.example.parkinglot.TestLots.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the thread-safe ConcurrentParkingLot
+ */
+public class ConcurrentParkingLotTest {
+    
+    private static final int THREADS = 16;
+    
+    @Test
+    void testBehavesLikeParkingLotWhenSingleThreaded() {
+        List<SpaceType[]> config = Arrays.asList(
+            new SpaceType[]{SpaceType.REGULAR, SpaceType.REGULAR, SpaceType.COMPACT},
+            new SpaceType[]{SpaceType.REGULAR, SpaceType.REGULAR, SpaceType.REGULAR},
+            new SpaceType[]{SpaceType.COMPACT, SpaceType.REGULAR, SpaceType.REGULAR}
+        );
+        ParkingLot expected = new ParkingLot(config);
+        ConcurrentParkingLot actual = new ConcurrentParkingLot(config);
+        
+        String[] ids = {"CAR1", "VAN1", "BIKE1", "CAR1", "VAN2", "CAR2", "VAN3", "BIKE2"};
+        VehicleType[] types = {VehicleType.CAR, VehicleType.VAN, VehicleType.MOTORCYCLE, VehicleType.CAR,
+                               VehicleType.VAN, VehicleType.CAR, VehicleType.VAN, VehicleType.MOTORCYCLE};
+        for (int i = 0; i < ids.length; i++) {
+            ParkingResult expectedResult = expected.parkVehicle(ids[i], types[i]);
+            ParkingResult actualResult = actual.parkVehicle(ids[i], types[i]);
+            assertEquals(expectedResult.toString(), actualResult.toString());
+        }
+        assertTrue(actual.removeVehicle("VAN1"));
+        assertTrue(expected.removeVehicle("VAN1"));
+        assertFalse(actual.removeVehicle("VAN1"));
+        assertEquals(expected.getLotStatus(), actual.getLotStatus());
+        assertEquals(expected.getRowSummaries(), actual.getRowSummaries());
+    }
+    
+    @Test
+    void testConcurrentParkAndRemoveKeepsLotConsistent() throws Exception {
+        ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(20, 50));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            final int gate = t;
+            futures.add(executor.submit(() -> {
+                VehicleType[] types = VehicleType.values();
+                for (int i = 0; i < 2000; i++) {
+                    String vehicleId = "G" + gate + "-" + (i % 40);
+                    if (parkingLot.getVehicleSpaces(vehicleId).isEmpty()) {
+                        parkingLot.parkVehicle(vehicleId, types[i % types.length]);
+                    } else {
+                        assertTrue(parkingLot.removeVehicle(vehicleId));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        // No space may be assigned to more than one vehicle
+        Set<String> assignedSpaces = new HashSet<>();
+        int parkedSpaces = 0;
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < 40; i++) {
+                for (String spaceId : parkingLot.getVehicleSpaces("G" + t + "-" + i)) {
+                    assertTrue(assignedSpaces.add(spaceId), "Space assigned twice: " + spaceId);
+                    parkedSpaces++;
+                }
+            }
+        }
+        
+        parkingLot.setVerifyCounters(true);
+        LotStatus status = parkingLot.getLotStatus();
+        assertEquals(parkedSpaces, status.getOccupiedSpaces());
+    }
+    
+    @Test
+    void testLockFreeAllocationFillsEveryEligibleSpaceOnce() throws Exception {
+        assertFillsEveryRegularSpaceOnce(new ConcurrentParkingLot(createConfig(10, 100)));
+    }
+    
+    @Test
+    void testLockFreeAllocationFillsEveryEligibleSpaceOnceWithCompactStorage() throws Exception {
+        assertFillsEveryRegularSpaceOnce(new ConcurrentParkingLot(createConfig(10, 100), LotStorage.COMPACT));
+    }
+    
+    @Test
+    void testLockFreeAllocationFillsEveryEligibleSpaceOnceWithOffHeapStorage() throws Exception {
+        try (ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(10, 100), LotStorage.OFF_HEAP)) {
+            assertFillsEveryRegularSpaceOnce(parkingLot);
+        }
+    }
+    
+    @Test
+    void testCloseWhileGatesRunStopsThemWithIllegalStateException() throws Exception {
+        ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(10, 100), LotStorage.OFF_HEAP);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch running = new CountDownLatch(THREADS);
+        List<Future<IllegalStateException>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int gate = t;
+                futures.add(executor.submit(() -> {
+                    VehicleType[] types = VehicleType.values();
+                    try {
+                        for (int i = 0; ; i++) {
+                            String vehicleId = "G" + gate + "-" + (i % 40);
+                            if (i == 100) {
+                                running.countDown();
+                            }
+                            if (parkingLot.getVehicleSpaces(vehicleId).isEmpty()) {
+                                parkingLot.parkVehicle(vehicleId, types[i % types.length]);
+                            } else {
+                                parkingLot.removeVehicle(vehicleId);
+                            }
+                            parkingLot.getRowSummaries();
+                        }
+                    } catch (IllegalStateException e) {
+                        return e;
+                    }
+                }));
+            }
+            assertTrue(running.await(60, TimeUnit.SECONDS));
+            parkingLot.close();
+            
+            // Gates in the middle of an operation still read the buffer; none of them may crash the JVM
+            for (Future<IllegalStateException> future : futures) {
+                assertNotNull(future.get(60, TimeUnit.SECONDS));
+            }
+            System.gc();
+            assertThrows(IllegalStateException.class, () -> parkingLot.parkVehicle("LATE", VehicleType.CAR));
+            assertThrows(IllegalStateException.class, parkingLot::getRowSummaries);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testBestFitAllocationFillsEveryEligibleSpaceOnce() throws Exception {
+        ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(10, 100), LotStorage.COMPACT);
+        parkingLot.setBestFit(true);
+        assertFillsEveryRegularSpaceOnce(parkingLot);
+    }
+    
+    @Test
+    void testBestFitMotorcyclesRaceForCompactSpacesFirst() throws Exception {
+        ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(10, 100), LotStorage.COMPACT);
+        parkingLot.setBestFit(true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int gate = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<String> spaces = new ArrayList<>();
+                    for (int i = 0; i < 15; i++) {
+                        spaces.addAll(parkingLot.parkVehicle("G" + gate + "-BIKE" + i, VehicleType.MOTORCYCLE)
+                                .getAllocatedSpaces());
+                    }
+                    return spaces;
+                }));
+            }
+            start.countDown();
+            
+            Set<String> allocated = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                for (String spaceId : future.get(60, TimeUnit.SECONDS)) {
+                    assertTrue(allocated.add(spaceId), "Space allocated twice: " + spaceId);
+                }
+            }
+            // All 200 compact spaces go first, then 40 regular ones
+            parkingLot.setVerifyCounters(true);
+            LotStatus status = parkingLot.getLotStatus();
+            assertEquals(240, allocated.size());
+            assertEquals(200, status.getOccupiedCompactSpaces());
+            assertEquals(40, status.getOccupiedRegularSpaces());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private static void assertFillsEveryRegularSpaceOnce(ConcurrentParkingLot parkingLot) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            final int gate = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<String> spaces = new ArrayList<>();
+                for (int i = 0; ; i++) {
+                    ParkingResult result = parkingLot.parkVehicle("G" + gate + "-CAR" + i, VehicleType.CAR);
+                    if (!result.isSuccess()) {
+                        return spaces;
+                    }
+                    spaces.addAll(result.getAllocatedSpaces());
+                }
+            }));
+        }
+        start.countDown();
+        
+        Set<String> allocated = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            for (String spaceId : future.get(60, TimeUnit.SECONDS)) {
+                assertTrue(allocated.add(spaceId), "Space allocated twice: " + spaceId);
+            }
+        }
+        executor.shutdown();
+        
+        // Every regular space is taken exactly once and compact spaces are left alone
+        parkingLot.setVerifyCounters(true);
+        LotStatus status = parkingLot.getLotStatus();
+        assertEquals(800, allocated.size());
+        assertTrue(status.isAllRegularOccupied());
+        assertEquals(0, status.getOccupiedCompactSpaces());
+    }
+    
+    @Test
+    void testConcurrentParkOfSameVehicleAllocatesOnce() throws Exception {
+        ConcurrentParkingLot parkingLot = new ConcurrentParkingLot(createConfig(4, 10));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ParkingResult>> futures = new ArrayList<>();
+        
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return parkingLot.parkVehicle("VAN001", VehicleType.VAN);
+            }));
+        }
+        start.countDown();
+        
+        int newlyParked = 0;
+        for (Future<ParkingResult> future : futures) {
+            ParkingResult result = future.get(60, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess());
+            assertEquals(2, result.getAllocatedSpaces().size());
+            if (result.getMessage().equals("Vehicle parked successfully")) {
+                newlyParked++;
+            }
+        }
+        executor.shutdown();
+        
+        assertEquals(1, newlyParked);
+        assertEquals(2, parkingLot.getLotStatus().getOccupiedSpaces());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+/**
+ * Unit tests for the gate load simulator
+ */
+public class LoadSimulatorTest {
+
+    private static LoadSimulator.Options shortRun(LoadSimulator.Mode mode) {
+        return new LoadSimulator.Options()
+                .layout(LotLayout.parse("10 * R x8, C x2"))
+                .mode(mode)
+                .gates(200)
+                .arrivalsPerSecond(2000)
+                .meanDwellMillis(200)
+                .duration(Duration.ofMillis(800))
+                .reportInterval(Duration.ofMillis(200))
+                .threads(4);
+    }
+
+    private static void assertConsistent(LoadSimulator.Report report) {
+        long arrivals = 0;
+        long rejectedTotal = 0;
+        long occupiedSpaces = 0;
+        for (VehicleType vehicleType : VehicleType.values()) {
+            assertEquals(report.getArrivals(vehicleType), report.getParked(vehicleType) + report.getRejected(vehicleType));
+            assertTrue(report.getRemoved(vehicleType) <= report.getParked(vehicleType));
+            arrivals += report.getArrivals(vehicleType);
+            rejectedTotal += report.getRejected(vehicleType);
+            long stillParked = report.getParked(vehicleType) - report.getRemoved(vehicleType);
+            occupiedSpaces += stillParked * (vehicleType == VehicleType.VAN ? 2 : 1);
+        }
+        assertTrue(arrivals > 0);
+        assertEquals(arrivals, report.getParkLatency().getCount());
+        assertEquals(arrivals, report.getParkServiceTime().getCount());
+        assertEquals(occupiedSpaces, report.getFinalStatus().getOccupiedSpaces());
+        long rejected = report.getRejectionReasons().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(rejectedTotal, rejected);
+        assertFalse(report.getOccupancySamples().isEmpty());
+        for (LoadSimulator.OccupancySample sample : report.getOccupancySamples()) {
+            assertTrue(sample.getOccupancy() >= 0 && sample.getOccupancy() <= 1);
+        }
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.toString().contains("park latency"));
+    }
+
+    @Test
+    void testSingleThreadedLot() throws InterruptedException {
+        LoadSimulator simulator = new LoadSimulator(shortRun(LoadSimulator.Mode.SINGLE));
+        assertFalse(simulator.getLot() instanceof ConcurrentParkingLot);
+        assertConsistent(simulator.run(null));
+    }
+
+    @Test
+    void testConcurrentLot() throws InterruptedException {
+        LoadSimulator simulator = new LoadSimulator(shortRun(LoadSimulator.Mode.CONCURRENT));
+        assertTrue(simulator.getLot() instanceof ConcurrentParkingLot);
+        LoadSimulator.Report report = simulator.run(null);
+        assertConsistent(report);
+        // 100 spaces against about 400 vehicles in the lot at once: most arrivals are turned away
+        assertTrue(report.getRejectionRate(VehicleType.CAR) > 0);
+        assertFalse(report.getRejectionReasons().isEmpty());
+    }
+
+    @Test
+    void testParsesOptions() {
+        LoadSimulator.Options options = LoadSimulator.Options.parse(
+                "--layout=2 * R x3, C", "--mode=single", "--storage=objects", "--gates=10", "--rate=50",
+                "--dwell-ms=20", "--mix=0,100,0", "--duration=0.5", "--interval=0.1", "--threads=2", "--seed=7");
+        assertNotNull(options);
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--gates"));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--gates=many"));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--mix=50,40"));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--mix=50,40,5"));
+        assertThrows(IllegalArgumentException.class, () -> LoadSimulator.Options.parse("--rate=0"));
+        assertThrows(IllegalArgumentException.class, () -> new LoadSimulator(new LoadSimulator.Options(), null));
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for the immutable occupancy snapshots
+ */
+public class LotSnapshotTest {
+
+    @Test
+    void testPublishedSnapshotsDoNotChange() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x3, C; R x4"), LotStorage.COMPACT);
+        lot.parkVehicle("VAN1", VehicleType.VAN);
+        lot.setSnapshotsEnabled(true);
+        LotSnapshot first = lot.getSnapshot();
+        assertEquals(1, first.getEpoch());
+        assertEquals(1, first.getVehicleCount());
+        assertEquals(Arrays.asList("R1-1", "R1-2"), first.getVehicleSpaces(" VAN1 "));
+        assertSame(first, lot.publishSnapshot()); // Nothing changed
+
+        lot.parkVehicle("CAR1", VehicleType.CAR);
+        lot.removeVehicle("VAN1");
+        assertSame(first, lot.getSnapshot()); // Not published yet
+        LotSnapshot second = lot.publishSnapshot();
+        assertEquals(2, second.getEpoch());
+        assertEquals(Arrays.asList("R1-3"), second.getVehicleSpaces("CAR1"));
+        assertTrue(second.getVehicleSpaces("VAN1").isEmpty());
+        assertEquals(Arrays.asList("Row 1: 1 occupied, 3 available", "Row 2: 0 occupied, 4 available"),
+                second.getRowSummaries());
+        assertEquals(lot.getLotStatus(), second.getLotStatus());
+
+        assertEquals(Arrays.asList("R1-1", "R1-2"), first.getVehicleSpaces("VAN1"));
+        assertTrue(first.getVehicleSpaces("CAR1").isEmpty());
+        assertEquals(Arrays.asList("Row 1: 2 occupied, 2 available", "Row 2: 0 occupied, 4 available"),
+                first.getRowSummaries());
+        assertEquals(2, first.getLotStatus().getOccupiedSpaces());
+        assertTrue(first.getVehicleSpaces(null).isEmpty());
+    }
+
+    @Test
+    void testSnapshotsFollowTheLot() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("300 * R x6, C x2"), LotStorage.OBJECTS);
+        long[] now = {0};
+        lot.clock = () -> now[0];
+        lot.setSnapshotsEnabled(true);
+        Random random = new Random(11);
+        List<LotSnapshot> history = new ArrayList<>();
+        List<List<String>> summaries = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String vehicleId = "V" + random.nextInt(2000);
+            VehicleType vehicleType = VehicleType.values()[Math.floorMod(vehicleId.hashCode(), 3)];
+            switch (random.nextInt(5)) {
+                case 0: lot.reserve(vehicleId, vehicleType, Duration.ofSeconds(1 + random.nextInt(30))); break;
+                case 1: lot.cancelReservation(vehicleId); break;
+                case 2: lot.removeVehicle(vehicleId); break;
+                default: lot.parkVehicle(vehicleId, vehicleType); break;
+            }
+            now[0] += TimeUnit.MILLISECONDS.toNanos(10);
+            if (random.nextInt(50) == 0) {
+                LotSnapshot snapshot = lot.publishSnapshot();
+                assertEquals(lot.getLotStatus(), snapshot.getLotStatus());
+                assertEquals(lot.getRowSummaries(), snapshot.getRowSummaries());
+                for (int v = 0; v < 2000; v += 7) {
+                    assertEquals(lot.getVehicleSpaces("V" + v), snapshot.getVehicleSpaces("V" + v));
+                }
+                history.add(snapshot);
+                summaries.add(snapshot.getRowSummaries());
+            }
+        }
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(summaries.get(i), history.get(i).getRowSummaries(), "snapshot " + i + " changed");
+        }
+
+        // A fresh snapshot built by scanning agrees with the incrementally published one
+        LotSnapshot published = lot.publishSnapshot();
+        lot.setSnapshotsEnabled(true);
+        LotSnapshot scanned = lot.getSnapshot();
+        assertEquals(published.getVehicleCount(), scanned.getVehicleCount());
+        assertEquals(published.getLotStatus(), scanned.getLotStatus());
+        assertEquals(published.getRowSummaries(), scanned.getRowSummaries());
+    }
+
+    @Test
+    void testWriterPublishesBeforeCompleting() throws Exception {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("50 * R x20, C x4"), LotStorage.COMPACT);
+        lot.setSnapshotsEnabled(true);
+        ExecutorService gates = Executors.newFixedThreadPool(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot, 64, ParkingLotWriter.WhenFull.BLOCK)) {
+            Future<Long> dashboard = gates.submit(() -> {
+                long previousEpoch = 0;
+                long reads = 0;
+                while (running.get()) {
+                    LotSnapshot snapshot = writer.getSnapshot();
+                    assertTrue(snapshot.getEpoch() >= previousEpoch);
+                    previousEpoch = snapshot.getEpoch();
+                    LotStatus status = snapshot.getLotStatus();
+                    int occupied = 0;
+                    for (String summary : snapshot.getRowSummaries()) {
+                        occupied += Integer.parseInt(summary.split(" ")[2]);
+                    }
+                    assertEquals(status.getOccupiedSpaces() + status.getHeldSpaces(), occupied);
+                    reads++;
+                }
+                return reads;
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    for (int i = 0; i < 3000; i++) {
+                        String vehicleId = "G" + gate + "-" + (i % 500);
+                        if (i % 1000 < 500) {
+                            ParkingResult result = writer.parkVehicle(vehicleId, VehicleType.CAR).get(60, TimeUnit.SECONDS);
+                            assertEquals(result.getAllocatedSpaces(), writer.getSnapshot().getVehicleSpaces(vehicleId));
+                        } else {
+                            assertTrue(writer.removeVehicle(vehicleId).get(60, TimeUnit.SECONDS));
+                            assertTrue(writer.getSnapshot().getVehicleSpaces(vehicleId).isEmpty());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            assertTrue(dashboard.get(60, TimeUnit.SECONDS) > 0);
+            assertEquals(writer.submit(ParkingLot::getLotStatus).get(60, TimeUnit.SECONDS), writer.getSnapshot().getLotStatus());
+        } finally {
+            running.set(false);
+            gates.shutdown();
+        }
+    }
+
+    @Test
+    void testSnapshotsMustBeEnabled() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x2"), LotStorage.OBJECTS);
+        assertThrows(IllegalStateException.class, lot::getSnapshot);
+        assertThrows(IllegalStateException.class, lot::publishSnapshot);
+        lot.setSnapshotsEnabled(true);
+        lot.setSnapshotsEnabled(false);
+        assertThrows(IllegalStateException.class, lot::getSnapshot);
+        assertThrows(IllegalStateException.class,
+                () -> new ConcurrentParkingLot(LotLayout.parse("R x2"), LotStorage.OBJECTS).getSnapshot());
+    }
+    
+    @Test
+    void testConcurrentLotPublishesWhileGatesPark() throws Exception {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("40 * R x20, C x4"), LotStorage.COMPACT);
+        for (int i = 0; i < 100; i++) {
+            lot.parkVehicle("P" + i, VehicleType.CAR);
+        }
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(3);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    started.countDown();
+                    for (int i = 0; i < 20_000; i++) {
+                        String vehicleId = "G" + gate + "-" + random.nextInt(150);
+                        VehicleType vehicleType = VehicleType.values()[Math.floorMod(vehicleId.hashCode(), 3)];
+                        switch (random.nextInt(4)) {
+                            case 0: lot.reserve(vehicleId, vehicleType, Duration.ofMinutes(5)); break;
+                            case 1: lot.removeVehicle(vehicleId); break;
+                            default: lot.parkVehicle(vehicleId, vehicleType); break;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            // Enable while the gates are running, then publish from a thread of its own
+            started.await(60, TimeUnit.SECONDS);
+            lot.setSnapshotsEnabled(true);
+            Future<List<LotSnapshot>> publisher = gates.submit(() -> {
+                List<LotSnapshot> history = new ArrayList<>();
+                while (running.get()) {
+                    LotSnapshot snapshot = lot.publishSnapshot();
+                    assertSame(snapshot, lot.getSnapshot());
+                    if (history.isEmpty() || history.get(history.size() - 1) != snapshot) {
+                        history.add(snapshot);
+                    }
+                }
+                return history;
+            });
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            List<LotSnapshot> history = publisher.get(60, TimeUnit.SECONDS);
+            List<List<String>> summaries = new ArrayList<>();
+            for (int i = 0; i < history.size(); i++) {
+                if (i > 0) {
+                    assertTrue(history.get(i).getEpoch() > history.get(i - 1).getEpoch());
+                }
+                summaries.add(history.get(i).getRowSummaries());
+            }
+            
+            // With the gates stopped, a publish catches up with every change
+            LotSnapshot published = lot.publishSnapshot();
+            assertEquals(lot.getLotStatus(), published.getLotStatus());
+            assertEquals(lot.getRowSummaries(), published.getRowSummaries());
+            int vehicles = 0;
+            for (int gate = 0; gate < 3; gate++) {
+                for (int v = 0; v < 150; v++) {
+                    String vehicleId = "G" + gate + "-" + v;
+                    assertEquals(lot.getVehicleSpaces(vehicleId), published.getVehicleSpaces(vehicleId), vehicleId);
+                    vehicles += lot.getVehicleSpaces(vehicleId).isEmpty() ? 0 : 1;
+                }
+            }
+            assertEquals(vehicles + 100, published.getVehicleCount());
+            assertEquals(Arrays.asList("R1-1"), published.getVehicleSpaces("P0"));
+            for (int i = 0; i < history.size(); i++) {
+                assertEquals(summaries.get(i), history.get(i).getRowSummaries(), "snapshot " + i + " changed");
+            }
+        } finally {
+            running.set(false);
+            gates.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentSnapshotsAreConsistentCuts() throws Exception {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("30 * R x12, C x4"), LotStorage.COMPACT);
+        lot.setSnapshotsEnabled(true);
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    for (int i = 0; i < 20_000; i++) {
+                        String vehicleId = "G" + gate + "-" + random.nextInt(120);
+                        switch (random.nextInt(5)) {
+                            case 0: lot.reserve(vehicleId, typeOf(vehicleId), Duration.ofMillis(random.nextInt(3) + 1)); break;
+                            case 1: lot.cancelReservation(vehicleId); break;
+                            case 2: lot.removeVehicle(vehicleId); break;
+                            default: lot.parkVehicle(vehicleId, typeOf(vehicleId)); break;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> publisher = gates.submit(() -> {
+                int checked = 0;
+                while (running.get()) {
+                    assertConsistent(lot.publishSnapshot());
+                    checked++;
+                }
+                return checked;
+            });
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            assertTrue(publisher.get(60, TimeUnit.SECONDS) > 0);
+            assertConsistent(lot.publishSnapshot());
+        } finally {
+            running.set(false);
+            gates.shutdown();
+        }
+    }
+
+    private static VehicleType typeOf(String vehicleId) {
+        return VehicleType.values()[Math.floorMod(vehicleId.hashCode(), 3)];
+    }
+
+    /**
+     * Checks that the rows, the lot status and the vehicle lookup of a snapshot describe the same lot.
+     */
+    private static void assertConsistent(LotSnapshot snapshot) {
+        LotStatus status = snapshot.getLotStatus();
+        int[] occupied = new int[SpaceType.values().length];
+        int[] held = new int[SpaceType.values().length];
+        for (RowStatus row : snapshot.getRowStatuses()) {
+            for (SpaceType spaceType : SpaceType.values()) {
+                occupied[spaceType.ordinal()] += row.getOccupiedSpaces(spaceType);
+                held[spaceType.ordinal()] += row.getHeldSpaces(spaceType);
+            }
+        }
+        String epoch = "epoch " + snapshot.getEpoch();
+        assertEquals(status.getOccupiedCompactSpaces(), occupied[SpaceType.COMPACT.ordinal()], epoch);
+        assertEquals(status.getOccupiedRegularSpaces(), occupied[SpaceType.REGULAR.ordinal()], epoch);
+        assertEquals(status.getHeldCompactSpaces(), held[SpaceType.COMPACT.ordinal()], epoch);
+        assertEquals(status.getHeldRegularSpaces(), held[SpaceType.REGULAR.ordinal()], epoch);
+
+        int vehicles = 0;
+        int takenSpaces = 0;
+        int vanSpaces = 0;
+        for (int gate = 0; gate < 3; gate++) {
+            for (int v = 0; v < 120; v++) {
+                String vehicleId = "G" + gate + "-" + v;
+                List<String> spaces = snapshot.getVehicleSpaces(vehicleId);
+                if (spaces.isEmpty()) {
+                    continue;
+                }
+                vehicles++;
+                takenSpaces += spaces.size();
+                if (typeOf(vehicleId) == VehicleType.VAN) {
+                    vanSpaces += spaces.size();
+                    assertEquals(2, spaces.size(), epoch + " " + vehicleId);
+                    long first = SpaceHandle.parse(spaces.get(0));
+                    assertEquals(first + 1, SpaceHandle.parse(spaces.get(1)), epoch + " " + vehicleId);
+                } else {
+                    assertEquals(1, spaces.size(), epoch + " " + vehicleId);
+                }
+            }
+        }
+        assertEquals(vehicles, snapshot.getVehicleCount(), epoch);
+        assertEquals(status.getOccupiedSpaces() + status.getHeldSpaces(), takenSpaces, epoch);
+        assertTrue(status.getVanOccupiedSpaces() <= vanSpaces, epoch);
+    }
+}
@@ -69,6 +69,18 @@ public class ModelTest {
         });
     }
     
+    @Test
+    public void testParkingSpaceTryOccupy() {
+        ParkingSpace space = new ParkingSpace("R1-1", SpaceType.REGULAR);
+        assertTrue(space.tryOccupy("CAR001"));
+        assertFalse(space.tryOccupy("CAR002"));
+        assertEquals("CAR001", space.getOccupiedBy());
+        
+        space.vacate();
+        assertTrue(space.tryOccupy("CAR002"));
+        assertEquals("CAR002", space.getOccupiedBy());
+    }
+    
     @Test
     public void testParkingResultSuccess() {
         ParkingResult result = ParkingResult.success("R1-1");
@@ -95,6 +107,24 @@ public class ModelTest {
         assertEquals(2, result.getAllocatedSpaces().size());
     }
     
+    @Test
+    public void testCompactParkingResult() {
+        ParkingResult result = ParkingResult.success(SpaceHandle.of(1, 4), 2);
+        assertTrue(result.isSuccess());
+        assertFalse(result.isAlreadyParked());
+        assertEquals("Vehicle parked successfully", result.getMessage());
+        assertEquals(SpaceHandle.of(1, 4), result.getFirstSpaceHandle());
+        assertEquals(2, result.getSpaceCount());
+        assertEquals(Arrays.asList("R2-5", "R2-6"), result.getAllocatedSpaces());
+        assertSame(result.getAllocatedSpaces(), result.getAllocatedSpaces());
+        assertEquals(ParkingResult.success(Arrays.asList("R2-5", "R2-6")).toString(), result.toString());
+        
+        ParkingResult alreadyParked = ParkingResult.alreadyParked(List.of("R1-1"));
+        assertTrue(alreadyParked.isAlreadyParked());
+        assertEquals(SpaceHandle.NONE, alreadyParked.getFirstSpaceHandle());
+        assertEquals(1, alreadyParked.getSpaceCount());
+    }
+    
     @Test
     public void testLotStatusCreation() {
         LotStatus status = new LotStatus(10, 3, 7, 8, 2, 6, 2, 1, 1, 0, false, false, false, false);
@@ -107,4 +137,77 @@ public class ModelTest {
         assertFalse(status.isFull());
         assertFalse(status.isEmpty());
     }
-}
\ No newline at end of file
+    
+    @Test
+    public void testSpaceHandleRoundTrip() {
+        long handle = SpaceHandle.parse("R12-345");
+        assertEquals(11, SpaceHandle.rowIndex(handle));
+        assertEquals(344, SpaceHandle.spaceIndex(handle));
+        assertEquals("R12-345", SpaceHandle.format(11, 344));
+        assertEquals(SpaceHandle.of(11, 344), handle);
+    }
+    
+    @Test
+    public void testSpaceHandleRejectsMalformedIdentifiers() {
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse(null));
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse("CUSTOM_SPACE"));
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse("R1-"));
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse("R-1"));
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse("R0-1"));
+        assertEquals(SpaceHandle.NONE, SpaceHandle.parse("R1-x"));
+    }
+    
+    @Test
+    public void testLotLayoutParse() {
+        LotLayout layout = LotLayout.parse("3 * R x4, C x2\nC; R x2, R");
+        assertEquals(5, layout.getRowCount());
+        assertEquals(22, layout.getTotalSpaces());
+        assertEquals(7, layout.getSpaceCount(SpaceType.COMPACT));
+        assertEquals(15, layout.getSpaceCount(SpaceType.REGULAR));
+        assertEquals(6, layout.getRowLength(2));
+        assertEquals(SpaceType.REGULAR, layout.getType(2, 3));
+        assertEquals(SpaceType.COMPACT, layout.getType(2, 4));
+        assertEquals(SpaceType.COMPACT, layout.getType(3, 0));
+        
+        // Adjacent runs of the same type are merged
+        assertEquals(1, layout.getRunCount(4));
+        assertEquals(3, layout.getRunLength(4, 0));
+    }
+    
+    @Test
+    public void testLotLayoutMatchesRowConfigurations() {
+        LotLayout layout = LotLayout.of(Arrays.asList(
+            new SpaceType[]{SpaceType.REGULAR, SpaceType.REGULAR, SpaceType.COMPACT},
+            new SpaceType[]{SpaceType.COMPACT}
+        ));
+        assertEquals(2, layout.getRowCount());
+        assertEquals(2, layout.getRunCount(0));
+        assertEquals(SpaceType.REGULAR, layout.getRunType(0, 0));
+        assertEquals(2, layout.getRunLength(0, 0));
+        assertEquals(SpaceType.COMPACT, layout.getRunType(0, 1));
+        assertEquals(SpaceType.COMPACT, layout.getType(1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> layout.getType(1, 1));
+    }
+    
+    @Test
+    public void testLotLayoutRejectsMalformedDescriptors() {
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse(" ; "));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("X x4"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("R x0"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("R 4"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("R x4,, C"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("-2 * R"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.parse("70000 * R x40000"));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.builder().addRun(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> LotLayout.builder().endRow());
+    }
+    
+    @Test
+    public void testParkingSpaceFormatsIdentifierOnDemand() {
+        ParkingSpace space = new ParkingSpace(11, 344, SpaceType.COMPACT);
+        assertEquals("R12-345", space.getIdentifier());
+        assertSame(space.getIdentifier(), space.getIdentifier());
+        assertEquals(SpaceType.COMPACT, space.getType());
+    }
+}
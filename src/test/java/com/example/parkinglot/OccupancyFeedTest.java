@@ -0,0 +1,190 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the occupancy change feed
+ */
+public class OccupancyFeedTest {
+
+    /**
+     * Keeps a copy of every event it receives.
+     */
+    private static class RecordingConsumer implements OccupancyConsumer {
+        final List<String> events = new ArrayList<>();
+        final List<Long> sequences = new ArrayList<>();
+        long lost;
+
+        @Override
+        public void onEvent(OccupancyEvent event) {
+            StringBuilder spaces = new StringBuilder();
+            for (int i = 0; i < event.getSpaceCount(); i++) {
+                spaces.append(i == 0 ? "" : ",").append(event.getSpaceIdentifier(i));
+            }
+            events.add(event.getKind() + " " + event.getVehicleId() + " " + event.getVehicleType() + " " + spaces);
+            sequences.add(event.getSequence());
+        }
+
+        @Override
+        public void onEventsLost(long count) {
+            lost += count;
+        }
+    }
+
+    @Test
+    void testPublishesParkAndRemove() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x3, C; R x3"), LotStorage.OBJECTS);
+        OccupancyFeed feed = new OccupancyFeed(16);
+        feed.attach(lot);
+        OccupancyFeed.Cursor cursor = feed.newCursor();
+        RecordingConsumer consumer = new RecordingConsumer();
+        assertEquals(0, cursor.poll(consumer, 10));
+
+        long before = System.currentTimeMillis();
+        lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE);
+        lot.parkVehicle("VAN1", VehicleType.VAN);
+        lot.parkVehicle("VAN1", VehicleType.VAN); // Already parked: no change
+        lot.parkVehicles(Arrays.asList(new Vehicle("CAR1", VehicleType.CAR), new Vehicle("VAN2", VehicleType.VAN)));
+        lot.removeVehicle("VAN1");
+        lot.removeVehicle("VAN1"); // Not parked: no change
+        lot.parkVehicle("CAR2", VehicleType.CAR, (spaceHandle, alreadyParked) -> { });
+
+        assertEquals(3, cursor.poll(consumer, 3));
+        assertEquals(3, cursor.poll(consumer, 10));
+        assertEquals(Arrays.asList(
+                "PARKED BIKE1 MOTORCYCLE R1-1",
+                "PARKED VAN1 VAN R1-2,R1-3",
+                "PARKED CAR1 CAR R2-1",
+                "PARKED VAN2 VAN R2-2,R2-3",
+                "REMOVED VAN1 VAN R1-2,R1-3",
+                "PARKED CAR2 CAR R1-2"), consumer.events);
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L, 5L), consumer.sequences);
+        assertEquals(6, feed.getPublishedCount());
+        assertEquals(0, consumer.lost);
+
+        lot.removeVehicle("CAR2");
+        OccupancyEvent[] received = new OccupancyEvent[1];
+        cursor.poll(event -> {
+            assertEquals(OccupancyEvent.Kind.REMOVED, event.getKind());
+            assertEquals(SpaceHandle.of(0, 1), event.getSpaceHandle(0));
+            assertTrue(event.getTimestamp() >= before);
+            received[0] = event;
+        }, 10);
+        assertNotNull(received[0]);
+        assertEquals(7, cursor.getPosition());
+    }
+
+    @Test
+    void testSlowCursorSkipsOverwrittenEvents() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x20"), LotStorage.COMPACT);
+        OccupancyFeed feed = new OccupancyFeed(4);
+        feed.attach(lot);
+        OccupancyFeed.Cursor cursor = feed.newCursor();
+        for (int i = 0; i < 10; i++) {
+            lot.parkVehicle("CAR" + i, VehicleType.CAR);
+        }
+
+        RecordingConsumer consumer = new RecordingConsumer();
+        assertEquals(4, cursor.poll(consumer, 100));
+        assertEquals(6, consumer.lost);
+        assertEquals(Arrays.asList(6L, 7L, 8L, 9L), consumer.sequences);
+        assertEquals("PARKED CAR6 CAR R1-7", consumer.events.get(0));
+
+        OccupancyFeed.Cursor late = feed.newCursor();
+        lot.removeVehicle("CAR0");
+        assertEquals(1, late.poll(new RecordingConsumer(), 100));
+    }
+
+    @Test
+    void testSubscriptionFollowsConcurrentGates() throws Exception {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("20 * R x20, C x5"), LotStorage.COMPACT);
+        OccupancyFeed feed = new OccupancyFeed(1 << 16);
+        feed.attach(lot);
+
+        // Rebuilds the occupancy of every space from the events alone
+        Map<Long, String> occupied = new HashMap<>();
+        long[] lost = new long[1];
+        OccupancyFeed.Subscription subscription = feed.subscribe(new OccupancyConsumer() {
+            @Override
+            public void onEvent(OccupancyEvent event) {
+                for (int i = 0; i < event.getSpaceCount(); i++) {
+                    long space = event.getSpaceHandle(i);
+                    if (event.getKind() == OccupancyEvent.Kind.PARKED) {
+                        assertNull(occupied.put(space, event.getVehicleId()));
+                    } else {
+                        assertEquals(event.getVehicleId(), occupied.remove(space));
+                    }
+                }
+            }
+
+            @Override
+            public void onEventsLost(long count) {
+                lost[0] += count;
+            }
+        });
+
+        ExecutorService gates = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 6; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    for (int i = 0; i < 4000; i++) {
+                        String vehicleId = "V" + random.nextInt(300);
+                        if (random.nextBoolean()) {
+                            lot.removeVehicle(vehicleId);
+                        } else {
+                            lot.parkVehicle(vehicleId, VehicleType.values()[random.nextInt(3)]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            gates.shutdown();
+        }
+        subscription.close();
+
+        assertEquals(0, lost[0]);
+        assertEquals(feed.getPublishedCount(), subscription.getPosition());
+        assertEquals(lot.getLotStatus().getOccupiedSpaces(), occupied.size());
+        for (Map.Entry<Long, String> entry : occupied.entrySet()) {
+            String space = SpaceHandle.format(SpaceHandle.rowIndex(entry.getKey()), SpaceHandle.spaceIndex(entry.getKey()));
+            assertTrue(lot.getVehicleSpaces(entry.getValue()).contains(space));
+        }
+    }
+
+    @Test
+    void testFailingConsumerIsReportedOnClose() throws InterruptedException {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x4"), LotStorage.OBJECTS);
+        OccupancyFeed feed = new OccupancyFeed(8);
+        feed.attach(lot);
+        OccupancyFeed.Subscription subscription = feed.subscribe(event -> {
+            throw new IllegalArgumentException("consumer bug");
+        });
+        lot.parkVehicle("CAR1", VehicleType.CAR);
+        IllegalStateException e = assertThrows(IllegalStateException.class, subscription::close);
+        assertEquals("consumer bug", e.getCause().getMessage());
+    }
+
+    @Test
+    void testInvalidFeeds() {
+        assertThrows(IllegalArgumentException.class, () -> new OccupancyFeed(6));
+        assertThrows(IllegalArgumentException.class, () -> new OccupancyFeed(1));
+
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x4"), LotStorage.OBJECTS);
+        OccupancyFeed feed = new OccupancyFeed(8);
+        feed.attach(lot);
+        assertThrows(IllegalStateException.class, () -> feed.attach(new ParkingLot(LotLayout.parse("R"), LotStorage.OBJECTS)));
+        assertThrows(IllegalStateException.class, () -> new OccupancyFeed(8).attach(lot));
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(null));
+    }
+}
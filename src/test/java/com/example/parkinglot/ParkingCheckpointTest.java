@@ -0,0 +1,172 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static com.example.parkinglot.TestLots.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for checkpoints and recovery from a checkpoint plus the journal tail
+ */
+public class ParkingCheckpointTest {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(5);
+    private static final Duration MANUAL = Duration.ofHours(1); // Checkpoints are taken by the test
+
+    @TempDir
+    Path tempDir;
+
+    private static void runTraffic(ParkingLot lot, Random random, int operations, int vehicles) {
+        for (int i = 0; i < operations; i++) {
+            String vehicleId = "V" + random.nextInt(vehicles);
+            if (random.nextInt(3) == 0) {
+                lot.removeVehicle(vehicleId);
+            } else {
+                lot.parkVehicle(vehicleId, VehicleType.values()[random.nextInt(3)]);
+            }
+        }
+    }
+
+    @Test
+    void testRecoverReplaysOnlyJournalTail() throws IOException {
+        Path journalPath = tempDir.resolve("lot.journal");
+        Path checkpointPath = tempDir.resolve("lot.checkpoint");
+        List<SpaceType[]> config = createConfig(4, 24);
+        ParkingLot original = new ParkingLot(config);
+        Random random = new Random(11);
+
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL);
+             ParkingCheckpoint checkpoint = ParkingCheckpoint.start(startJournal(journal, original), checkpointPath, MANUAL)) {
+            runTraffic(original, random, 500, 80);
+            journal.sync();
+            checkpoint.checkpoint();
+            runTraffic(original, random, 200, 80);
+        }
+
+        // Records covered by the checkpoint are not read again, so damaging them does not matter
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(64), ParkingJournal.HEADER_SIZE);
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL)) {
+            ParkingLot recovered = ParkingCheckpoint.recover(checkpointPath, journal, ParkingCheckpointTest::objectLot);
+            recovered.setVerifyCounters(true);
+            assertSameState(original, recovered, 80);
+        }
+    }
+
+    @Test
+    void testCheckpointsContinueAcrossRestarts() throws IOException {
+        Path journalPath = tempDir.resolve("lot.journal");
+        Path checkpointPath = tempDir.resolve("lot.checkpoint");
+        List<SpaceType[]> config = createConfig(3, 20);
+        ParkingLot expected = new ParkingLot(config);
+
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config, LotStorage.OFF_HEAP);
+            journal.attach(lot);
+            try (ParkingCheckpoint checkpoint = ParkingCheckpoint.start(journal, checkpointPath, MANUAL)) {
+                runTraffic(lot, new Random(1), 300, 60);
+                runTraffic(expected, new Random(1), 300, 60);
+                journal.sync();
+                checkpoint.checkpoint();
+            }
+            lot.close();
+        }
+
+        for (int restart = 2; restart <= 4; restart++) {
+            try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL);
+                 ConcurrentParkingLot lot = ParkingCheckpoint.recover(checkpointPath, journal, ParkingCheckpointTest::concurrentLot)) {
+                assertSameState(expected, lot, 60);
+                try (ParkingCheckpoint checkpoint = ParkingCheckpoint.start(journal, checkpointPath, MANUAL)) {
+                    runTraffic(lot, new Random(restart), 300, 60);
+                    runTraffic(expected, new Random(restart), 300, 60);
+                    journal.sync();
+                    checkpoint.checkpoint();
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPeriodicCheckpointsUnderConcurrentTraffic() throws Exception {
+        Path journalPath = tempDir.resolve("lot.journal");
+        Path checkpointPath = tempDir.resolve("lot.checkpoint");
+        List<SpaceType[]> config = createConfig(4, 25);
+        ConcurrentParkingLot original = new ConcurrentParkingLot(config);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL);
+             ParkingCheckpoint checkpoint = ParkingCheckpoint.start(startJournal(journal, original), checkpointPath,
+                     Duration.ofMillis(2))) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 6; t++) {
+                final int gate = t;
+                futures.add(executor.submit(() -> runTraffic(original, new Random(gate), 4000, 150)));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            journal.sync();
+            checkpoint.checkpoint();
+        } finally {
+            executor.shutdown();
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL)) {
+            ParkingLot recovered = ParkingCheckpoint.recover(checkpointPath, journal, ParkingCheckpointTest::objectLot);
+            recovered.setVerifyCounters(true);
+            assertSameState(original, recovered, 150);
+        }
+    }
+
+    @Test
+    void testCorruptCheckpointIsRejected() throws IOException {
+        Path journalPath = tempDir.resolve("lot.journal");
+        Path checkpointPath = tempDir.resolve("lot.checkpoint");
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL);
+             ParkingCheckpoint checkpoint = ParkingCheckpoint.start(
+                     startJournal(journal, new ParkingLot(createConfig(2, 10))), checkpointPath, MANUAL)) {
+            checkpoint.checkpoint();
+        }
+        try (FileChannel channel = FileChannel.open(checkpointPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {9}), ParkingCheckpoint.HEADER_SIZE + 2);
+        }
+        try (ParkingJournal journal = ParkingJournal.open(journalPath, FLUSH_INTERVAL)) {
+            assertThrows(IOException.class, () -> ParkingCheckpoint.recover(checkpointPath, journal, ParkingCheckpointTest::objectLot));
+            assertThrows(IOException.class,
+                    () -> ParkingCheckpoint.recover(tempDir.resolve("missing.checkpoint"), journal, ParkingCheckpointTest::objectLot));
+        }
+    }
+
+    @Test
+    void testCheckpointNeedsAttachedJournal() throws IOException {
+        try (ParkingJournal journal = ParkingJournal.open(tempDir.resolve("lot.journal"), FLUSH_INTERVAL)) {
+            assertThrows(IllegalStateException.class,
+                    () -> ParkingCheckpoint.start(journal, tempDir.resolve("lot.checkpoint"), MANUAL));
+        }
+    }
+
+    private static ParkingLot objectLot(LotLayout layout) {
+        return new ParkingLot(layout, LotStorage.OBJECTS);
+    }
+
+    private static ConcurrentParkingLot concurrentLot(LotLayout layout) {
+        return new ConcurrentParkingLot(layout, LotStorage.OBJECTS);
+    }
+
+    private static ParkingJournal startJournal(ParkingJournal journal, ParkingLot lot) throws IOException {
+        journal.attach(lot);
+        return journal;
+    }
+}
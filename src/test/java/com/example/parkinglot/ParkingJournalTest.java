@@ -0,0 +1,220 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static com.example.parkinglot.TestLots.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the write-ahead journal and recovery
+ */
+public class ParkingJournalTest {
+
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(5);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecoveryRebuildsLot() throws IOException {
+        Path path = tempDir.resolve("lot.journal");
+        List<SpaceType[]> config = createConfig(5, 30);
+        ParkingLot original = new ParkingLot(config);
+        Random random = new Random(3);
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            journal.attach(original);
+            for (int i = 0; i < 1000; i++) {
+                String vehicleId = "V" + random.nextInt(120);
+                if (random.nextInt(3) == 0) {
+                    original.removeVehicle(vehicleId);
+                } else {
+                    original.parkVehicle(vehicleId, VehicleType.values()[random.nextInt(3)]);
+                }
+            }
+        }
+
+        for (LotStorage storage : LotStorage.values()) {
+            try (ParkingLot recovered = new ParkingLot(config, storage);
+                 ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+                journal.attach(recovered);
+                recovered.setVerifyCounters(true);
+                assertSameState(original, recovered, 120);
+            }
+        }
+    }
+
+    @Test
+    void testRecoveredLotKeepsJournaling() throws IOException {
+        Path path = tempDir.resolve("lot.journal");
+        List<SpaceType[]> config = createConfig(2, 10);
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            lot.parkVehicle("V1", VehicleType.VAN);
+            lot.parkVehicle("V2", VehicleType.CAR);
+        }
+        ParkingLot expected = new ParkingLot(config);
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            assertTrue(lot.parkVehicle("V1", VehicleType.VAN).isAlreadyParked());
+            assertTrue(lot.removeVehicle("V1"));
+            lot.parkVehicle("V3", VehicleType.MOTORCYCLE);
+            journal.sync();
+
+            expected.parkVehicle("V1", VehicleType.VAN);
+            expected.parkVehicle("V2", VehicleType.CAR);
+            expected.removeVehicle("V1");
+            expected.parkVehicle("V3", VehicleType.MOTORCYCLE);
+            assertSameState(expected, lot, 4);
+        }
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            assertSameState(expected, lot, 4);
+        }
+    }
+
+    @Test
+    void testTornRecordIsDiscarded() throws IOException {
+        Path path = tempDir.resolve("lot.journal");
+        List<SpaceType[]> config = createConfig(2, 10);
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            lot.parkVehicle("V1", VehicleType.CAR);
+            lot.parkVehicle("V2", VehicleType.CAR);
+        }
+        // Simulate a crash in the middle of writing the last record
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            assertEquals(Arrays.asList("R1-2"), lot.getVehicleSpaces("V1"));
+            assertTrue(lot.getVehicleSpaces("V2").isEmpty());
+            lot.parkVehicle("V3", VehicleType.CAR);
+        }
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(config);
+            journal.attach(lot);
+            assertEquals(Arrays.asList("R1-3"), lot.getVehicleSpaces("V3"));
+            assertEquals(2, lot.getLotStatus().getOccupiedSpaces());
+        }
+    }
+
+    @Test
+    void testJournalMustMatchLot() throws IOException {
+        Path path = tempDir.resolve("lot.journal");
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot lot = new ParkingLot(createConfig(2, 10));
+            journal.attach(lot);
+            lot.parkVehicle("V1", VehicleType.VAN);
+            lot.parkVehicle("V2", VehicleType.VAN);
+            lot.parkVehicle("V3", VehicleType.VAN);
+            lot.parkVehicle("V4", VehicleType.VAN);
+            lot.parkVehicle("V5", VehicleType.VAN);
+        }
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            assertThrows(IllegalStateException.class, () -> journal.attach(new ParkingLot(createConfig(1, 6))));
+        }
+
+        Path notAJournal = tempDir.resolve("notes.txt");
+        Files.writeString(notAJournal, "not a journal");
+        assertThrows(IOException.class, () -> ParkingJournal.open(notAJournal, FLUSH_INTERVAL));
+    }
+
+    @Test
+    void testClosedJournalRejectsOperations() throws IOException {
+        ParkingLot lot = new ParkingLot(createConfig(1, 10));
+        ParkingJournal journal = ParkingJournal.open(tempDir.resolve("lot.journal"), FLUSH_INTERVAL);
+        journal.attach(lot);
+        assertThrows(IllegalStateException.class, () -> journal.attach(new ParkingLot(createConfig(1, 10))));
+        journal.close();
+        assertThrows(IllegalStateException.class, () -> lot.parkVehicle("V1", VehicleType.CAR));
+    }
+
+    @Test
+    void testRejectedOperationsLeaveLotUnchanged() throws IOException {
+        for (ParkingLot lot : Arrays.asList(new ParkingLot(createConfig(2, 10)), new ConcurrentParkingLot(createConfig(2, 10)))) {
+            lot.setVerifyCounters(true);
+            ParkingJournal journal = ParkingJournal.open(tempDir.resolve(lot.getClass().getSimpleName() + ".journal"), FLUSH_INTERVAL);
+            journal.attach(lot);
+            assertTrue(lot.parkVehicle("V0", VehicleType.VAN).isSuccess());
+            assertTrue(lot.parkVehicle("V1", VehicleType.CAR).isSuccess());
+            assertTrue(lot.reserve("V2", VehicleType.MOTORCYCLE, Duration.ofMinutes(5)).isSuccess());
+            journal.close();
+
+            LotStatus status = lot.getLotStatus();
+            List<String> vanSpaces = lot.getVehicleSpaces("V0");
+            List<String> heldSpaces = lot.getVehicleSpaces("V2");
+            assertThrows(IllegalStateException.class, () -> lot.parkVehicle("V3", VehicleType.VAN));
+            assertThrows(IllegalStateException.class, () -> lot.parkVehicle("V4", VehicleType.CAR));
+            assertThrows(IllegalStateException.class, () -> lot.parkVehicle("V2", VehicleType.MOTORCYCLE));
+            assertThrows(IllegalStateException.class, () -> lot.removeVehicle("V0"));
+            assertThrows(IllegalStateException.class, () -> lot.parkVehicles(Arrays.asList(new Vehicle("V5", VehicleType.CAR))));
+
+            assertEquals(status, lot.getLotStatus());
+            assertEquals(vanSpaces, lot.getVehicleSpaces("V0"));
+            assertEquals(heldSpaces, lot.getVehicleSpaces("V2"));
+            assertTrue(lot.getVehicleSpaces("V3").isEmpty());
+            assertTrue(lot.getVehicleSpaces("V4").isEmpty());
+            assertTrue(lot.cancelReservation("V2")); // Holds are not journaled
+        }
+    }
+
+    @Test
+    void testConcurrentLotJournalReplaysInOrder() throws Exception {
+        Path path = tempDir.resolve("lot.journal");
+        List<SpaceType[]> config = createConfig(4, 25);
+        ConcurrentParkingLot original = new ConcurrentParkingLot(config);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            journal.attach(original);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int gate = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(gate);
+                    for (int i = 0; i < 3000; i++) {
+                        // Gates share vehicles and compete for the same spaces
+                        String vehicleId = "V" + random.nextInt(150);
+                        if (random.nextBoolean()) {
+                            original.removeVehicle(vehicleId);
+                        } else {
+                            original.parkVehicle(vehicleId, VehicleType.values()[random.nextInt(3)]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (ParkingJournal journal = ParkingJournal.open(path, FLUSH_INTERVAL)) {
+            ParkingLot recovered = new ParkingLot(config);
+            journal.attach(recovered);
+            recovered.setVerifyCounters(true);
+            assertSameState(original, recovered, 150);
+        }
+    }
+}
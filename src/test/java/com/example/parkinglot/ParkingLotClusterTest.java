@@ -0,0 +1,147 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the sharded parking lot cluster
+ */
+public class ParkingLotClusterTest {
+
+    private static ParkingLot lot(String descriptor) {
+        return new ParkingLot(LotLayout.parse(descriptor), LotStorage.OBJECTS);
+    }
+
+    @Test
+    void testRoutesAndAggregatesAcrossShards() {
+        try (ParkingLotCluster cluster = ParkingLotCluster.split(LotLayout.parse("6 * R x3, C"), 3,
+                LotStorage.COMPACT, ShardRoutingPolicy.roundRobin())) {
+            assertEquals(3, cluster.getShardCount());
+            for (int i = 0; i < 6; i++) {
+                ParkingResult result = cluster.parkVehicle("CAR" + i, VehicleType.CAR);
+                assertTrue(result.isSuccess());
+                assertEquals(i % 3, cluster.getShard("CAR" + i));
+            }
+            assertEquals(Arrays.asList("R1-2"), cluster.getVehicleSpaces("CAR3"));
+
+            LotStatus status = cluster.getLotStatus();
+            assertEquals(24, status.getTotalSpaces());
+            assertEquals(6, status.getTotalCompactSpaces());
+            assertEquals(6, status.getOccupiedRegularSpaces());
+            assertEquals(2, cluster.getShardStatus(1).getOccupiedSpaces());
+            assertEquals(6, cluster.getAvailableSpaces(1));
+
+            assertTrue(cluster.removeVehicle("CAR4"));
+            assertFalse(cluster.removeVehicle("CAR4"));
+            assertEquals(-1, cluster.getShard("CAR4"));
+            assertTrue(cluster.getVehicleSpaces("CAR4").isEmpty());
+            assertEquals(1, cluster.getShardStatus(1).getOccupiedSpaces());
+        }
+    }
+
+    @Test
+    void testSpillsOverToFollowingShards() {
+        try (ParkingLotCluster cluster = new ParkingLotCluster(
+                Arrays.asList(lot("R x2"), lot("C x2"), lot("R x3")), (vehicleId, vehicleType, c) -> 0)) {
+            assertTrue(cluster.parkVehicle("VAN1", VehicleType.VAN).isSuccess());
+            assertEquals(0, cluster.getShard("VAN1"));
+
+            // Shard 1 has no regular spaces, so the second van lands in shard 2
+            assertEquals(Arrays.asList("R1-1", "R1-2"), cluster.parkVehicle("VAN2", VehicleType.VAN).getAllocatedSpaces());
+            assertEquals(2, cluster.getShard("VAN2"));
+
+            assertTrue(cluster.parkVehicle("BIKE1", VehicleType.MOTORCYCLE).isSuccess());
+            assertEquals(1, cluster.getShard("BIKE1"));
+
+            ParkingResult full = cluster.parkVehicle("VAN3", VehicleType.VAN);
+            assertFalse(full.isSuccess());
+            assertEquals(-1, cluster.getShard("VAN3"));
+        }
+    }
+
+    @Test
+    void testVehicleIsParkedInOneShardOnly() {
+        try (ParkingLotCluster cluster = ParkingLotCluster.split(LotLayout.parse("4 * R x4"), 4,
+                LotStorage.OBJECTS, ShardRoutingPolicy.roundRobin())) {
+            ParkingResult first = cluster.parkVehicle(" CAR1 ", VehicleType.CAR);
+            ParkingResult second = cluster.parkVehicle("CAR1", VehicleType.CAR);
+            assertTrue(second.isAlreadyParked());
+            assertEquals(first.getAllocatedSpaces(), second.getAllocatedSpaces());
+            assertEquals(1, cluster.getLotStatus().getOccupiedSpaces());
+
+            assertFalse(cluster.parkVehicle("", VehicleType.CAR).isSuccess());
+            assertFalse(cluster.parkVehicle("CAR2", null).isSuccess());
+            assertFalse(cluster.removeVehicle(null));
+        }
+    }
+
+    @Test
+    void testMostAvailablePolicyBalancesShards() {
+        try (ParkingLotCluster cluster = new ParkingLotCluster(
+                Arrays.asList(lot("R x10"), lot("R x4"), lot("R x6")), ShardRoutingPolicy.mostAvailable())) {
+            for (int i = 0; i < 8; i++) {
+                cluster.parkVehicle("CAR" + i, VehicleType.CAR);
+            }
+            assertEquals(4, cluster.getAvailableSpaces(0));
+            assertEquals(4, cluster.getAvailableSpaces(1));
+            assertEquals(4, cluster.getAvailableSpaces(2));
+        }
+    }
+
+    @Test
+    void testConcurrentGatesKeepShardsConsistent() throws Exception {
+        ParkingLotCluster cluster = ParkingLotCluster.split(LotLayout.parse("40 * R x20, C x5"), 4,
+                LotStorage.COMPACT, ShardRoutingPolicy.hashed());
+        ExecutorService gates = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    for (int i = 0; i < 3000; i++) {
+                        String vehicleId = "V" + random.nextInt(400);
+                        if (random.nextBoolean()) {
+                            cluster.removeVehicle(vehicleId);
+                        } else {
+                            cluster.parkVehicle(vehicleId, VehicleType.values()[random.nextInt(3)]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            int occupied = 0;
+            for (int shard = 0; shard < cluster.getShardCount(); shard++) {
+                occupied += cluster.getShardStatus(shard).getOccupiedSpaces();
+            }
+            assertEquals(occupied, cluster.getLotStatus().getOccupiedSpaces());
+
+            int indexedSpaces = 0;
+            for (int i = 0; i < 400; i++) {
+                indexedSpaces += cluster.getVehicleSpaces("V" + i).size();
+            }
+            assertEquals(occupied, indexedSpaces); // Every parked vehicle is indexed to the shard holding it
+        } finally {
+            gates.shutdown();
+            cluster.close();
+        }
+        assertThrows(IllegalStateException.class, () -> cluster.parkVehicle("LATE", VehicleType.CAR));
+    }
+
+    @Test
+    void testInvalidClusters() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParkingLotCluster(Collections.emptyList(), ShardRoutingPolicy.hashed()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParkingLotCluster(Arrays.asList(lot("R")), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParkingLotCluster.split(LotLayout.parse("2 * R"), 3, LotStorage.OBJECTS, ShardRoutingPolicy.hashed()));
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.parkinglot;
 
 import com.example.parkinglot.model.*;
+import com.example.parkinglot.strategy.CarParkingStrategy;
+import com.example.parkinglot.strategy.ParkingStrategyFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import static com.example.parkinglot.TestLots.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.*;
@@ -26,6 +29,7 @@ public class ParkingLotTest {
             new SpaceType[]{SpaceType.COMPACT, SpaceType.REGULAR, SpaceType.REGULAR}
         );
         parkingLot = new ParkingLot(config);
+        parkingLot.setVerifyCounters(true); // Cross-check counters against a full scan
     }
     
     @Test
@@ -235,6 +239,334 @@ public class ParkingLotTest {
         assertEquals("Row 3: 0 occupied, 3 available", summaries.get(2));
     }
     
+    @Test
+    void testBestFitLeavesRoomForVans() {
+        for (boolean bestFit : new boolean[]{false, true}) {
+            ParkingLot lot = new ParkingLot(LotLayout.parse("R x2, C; R x3"), LotStorage.COMPACT);
+            lot.setBestFit(bestFit);
+            assertEquals(bestFit ? "R2-1" : "R1-1", lot.parkVehicle("CAR001", VehicleType.CAR).getAllocatedSpaces().get(0));
+            assertEquals(bestFit ? "R1-3" : "R1-2", lot.parkVehicle("BIKE001", VehicleType.MOTORCYCLE).getAllocatedSpaces().get(0));
+            assertTrue(lot.parkVehicle("VAN001", VehicleType.VAN).isSuccess());
+            assertEquals(bestFit, lot.parkVehicle("VAN002", VehicleType.VAN).isSuccess());
+        }
+        
+        // The setting is per lot, and leaves the factory's strategies alone
+        ParkingLot bestFitLot = new ParkingLot(LotLayout.parse("R x2, C; R x3"), LotStorage.COMPACT);
+        ParkingLot firstFitLot = new ParkingLot(LotLayout.parse("R x2, C; R x3"), LotStorage.COMPACT);
+        bestFitLot.setBestFit(true);
+        assertEquals(Arrays.asList("R2-1"), bestFitLot.parkVehicle("CAR001", VehicleType.CAR).getAllocatedSpaces());
+        assertEquals(Arrays.asList("R1-1"), firstFitLot.parkVehicle("CAR001", VehicleType.CAR).getAllocatedSpaces());
+        assertTrue(ParkingStrategyFactory.getStrategy(VehicleType.CAR) instanceof CarParkingStrategy);
+        bestFitLot.setBestFit(false);
+        assertEquals(Arrays.asList("R1-1"), bestFitLot.parkVehicle("CAR002", VehicleType.CAR).getAllocatedSpaces());
+    }
+    
+    @Test
+    void testRowStatusesCountBySpaceTypeAndReuseUnchangedRows() {
+        parkingLot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE); // R1-1
+        parkingLot.parkVehicle("CAR001", VehicleType.CAR);       // R1-2
+        parkingLot.reserve("VAN001", VehicleType.VAN, java.time.Duration.ofMinutes(5)); // R2-1, R2-2 held
+        
+        List<RowStatus> statuses = parkingLot.getRowStatuses();
+        assertEquals(3, statuses.size());
+        RowStatus row1 = statuses.get(0);
+        assertEquals(new RowStatus(1, 1, 2, 0, 2, 0, 0), row1);
+        assertEquals(1, row1.getAvailableSpaces());
+        assertEquals(1, row1.getAvailableSpaces(SpaceType.COMPACT));
+        assertEquals(0, row1.getAvailableSpaces(SpaceType.REGULAR));
+        RowStatus row2 = statuses.get(1);
+        assertEquals(2, row2.getHeldSpaces());
+        assertEquals(2, row2.getHeldSpaces(SpaceType.REGULAR));
+        assertEquals(0, row2.getOccupiedSpaces());
+        assertEquals(1, row2.getAvailableSpaces());
+        assertEquals("Row 2: 2 occupied, 1 available", row2.getSummary()); // Summary lines count holds as occupied
+        assertEquals(parkingLot.getRowSummaries().get(1), row2.getSummary());
+        
+        // Rows whose counts have not changed are not rebuilt
+        parkingLot.parkVehicle("CAR002", VehicleType.CAR); // R2-3
+        assertSame(row1, parkingLot.getRowStatus(0));
+        assertSame(statuses.get(2), parkingLot.getRowStatus(2));
+        assertNotSame(row2, parkingLot.getRowStatus(1));
+        assertEquals(1, parkingLot.getRowStatus(1).getOccupiedSpaces(SpaceType.REGULAR));
+        
+        parkingLot.parkVehicle("VAN001", VehicleType.VAN); // The hold becomes occupied
+        assertEquals(new RowStatus(2, 0, 3, 0, 3, 0, 0), parkingLot.getRowStatus(1));
+        assertEquals(5, parkingLot.getLotStatus().getOccupiedSpaces()); // Also cross-checks the row counters
+        
+        assertThrows(IllegalArgumentException.class, () -> parkingLot.getRowStatus(3));
+        assertThrows(IllegalArgumentException.class, () -> parkingLot.getRowStatus(-1));
+    }
+    
+    @Test
+    void testStatusCountersStayConsistentAcrossParkAndRemove() {
+        parkingLot.parkVehicle("VAN001", VehicleType.VAN);   // R1-1, R1-2
+        parkingLot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE); // R1-3 (compact)
+        parkingLot.parkVehicle("VAN002", VehicleType.VAN);   // R2-1, R2-2
+        parkingLot.parkVehicle("CAR1", VehicleType.CAR);     // R2-3
+        assertTrue(parkingLot.removeVehicle("VAN001"));
+        parkingLot.parkVehicle("BIKE2", VehicleType.MOTORCYCLE); // R1-1
+        
+        LotStatus status = parkingLot.getLotStatus();
+        assertEquals(5, status.getOccupiedSpaces());
+        assertEquals(1, status.getOccupiedCompactSpaces());
+        assertEquals(4, status.getOccupiedRegularSpaces());
+        assertEquals(2, status.getVanOccupiedSpaces());
+        assertEquals(new LotStatus(9, 2, 7, 4, 1, 3, 5, 1, 4, 2, false, false, false, false), status);
+    }
+    
+    @Test
+    void testParkVehiclesBatch() {
+        List<ParkingResult> results = parkingLot.parkVehicles(Arrays.asList(
+            new Vehicle("VAN001", VehicleType.VAN),
+            new Vehicle("CAR001", VehicleType.CAR),
+            null,
+            new Vehicle(" VAN001 ", VehicleType.VAN),
+            new Vehicle("BIKE001", VehicleType.MOTORCYCLE)
+        ));
+        
+        assertEquals(5, results.size());
+        assertEquals(Arrays.asList("R1-1", "R1-2"), results.get(0).getAllocatedSpaces());
+        assertEquals(Arrays.asList("R2-1"), results.get(1).getAllocatedSpaces());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Vehicle is already parked", results.get(3).getMessage());
+        assertEquals(Arrays.asList("R1-3"), results.get(4).getAllocatedSpaces());
+        
+        assertEquals(Arrays.asList(true, false, true), 
+                     parkingLot.removeVehicles(Arrays.asList("VAN001", "VAN001", "CAR001")));
+        assertEquals(1, parkingLot.getLotStatus().getOccupiedSpaces());
+    }
+    
+    @Test
+    void testParkVehiclesBatchMatchesSequentialParking() {
+        List<SpaceType[]> config = new ArrayList<>();
+        Random random = new Random(7);
+        for (int r = 0; r < 8; r++) {
+            SpaceType[] row = new SpaceType[90];
+            for (int s = 0; s < row.length; s++) {
+                row[s] = random.nextInt(3) == 0 ? SpaceType.COMPACT : SpaceType.REGULAR;
+            }
+            config.add(row);
+        }
+        ParkingLot sequential = new ParkingLot(config);
+        ParkingLot batched = new ParkingLot(config);
+        
+        // Several rounds of arrivals and departures, with duplicates and more vehicles than spaces
+        for (int round = 0; round < 5; round++) {
+            List<Vehicle> arrivals = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                VehicleType type = VehicleType.values()[random.nextInt(3)];
+                arrivals.add(new Vehicle("V" + random.nextInt(1000), type));
+            }
+            List<ParkingResult> batchResults = batched.parkVehicles(arrivals);
+            for (int i = 0; i < arrivals.size(); i++) {
+                ParkingResult expected = sequential.parkVehicle(arrivals.get(i).getId(), arrivals.get(i).getType());
+                assertEquals(expected.toString(), batchResults.get(i).toString());
+            }
+            
+            List<String> departures = new ArrayList<>();
+            for (int i = 0; i < 150; i++) {
+                departures.add("V" + random.nextInt(1000));
+            }
+            List<Boolean> removed = batched.removeVehicles(departures);
+            for (int i = 0; i < departures.size(); i++) {
+                assertEquals(sequential.removeVehicle(departures.get(i)), removed.get(i));
+            }
+        }
+        
+        batched.setVerifyCounters(true);
+        assertEquals(sequential.getLotStatus(), batched.getLotStatus());
+        assertEquals(sequential.getRowSummaries(), batched.getRowSummaries());
+    }
+    
+    @Test
+    void testVehicleRegistryRecyclesHandlesAcrossCycles() {
+        List<SpaceType[]> config = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SpaceType[] row = new SpaceType[100];
+            Arrays.fill(row, SpaceType.REGULAR);
+            config.add(row);
+        }
+        ParkingLot lot = new ParkingLot(config);
+        
+        // Grow the registry well past its initial capacity, then churn through removals and re-parks
+        for (int cycle = 0; cycle < 3; cycle++) {
+            for (int i = 0; i < 500; i++) {
+                assertTrue(lot.parkVehicle("CYCLE" + cycle + "-" + i, VehicleType.VAN).isSuccess());
+            }
+            for (int i = 0; i < 500; i += 2) {
+                assertTrue(lot.removeVehicle("CYCLE" + cycle + "-" + i));
+            }
+            for (int i = 1; i < 500; i += 2) {
+                assertEquals(2, lot.getVehicleSpaces("CYCLE" + cycle + "-" + i).size());
+                assertTrue(lot.removeVehicle("CYCLE" + cycle + "-" + i));
+            }
+            assertTrue(lot.getLotStatus().isEmpty());
+        }
+        assertTrue(lot.getVehicleSpaces("CYCLE0-1").isEmpty());
+        assertFalse(lot.removeVehicle("CYCLE2-499"));
+    }
+    
+    @Test
+    void testParkWithCallback() {
+        List<String> spaces = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        ParkingCallback callback = new ParkingCallback() {
+            @Override
+            public void onSpaceAllocated(long spaceHandle, boolean alreadyParked) {
+                spaces.add(SpaceHandle.format(SpaceHandle.rowIndex(spaceHandle), SpaceHandle.spaceIndex(spaceHandle))
+                        + (alreadyParked ? " (already parked)" : ""));
+            }
+            
+            @Override
+            public void onFailure(String reason) {
+                failures.add(reason);
+            }
+        };
+        
+        assertTrue(parkingLot.parkVehicle("VAN1", VehicleType.VAN, callback));
+        assertEquals(Arrays.asList("R1-1", "R1-2"), spaces);
+        assertEquals(Arrays.asList("R1-1", "R1-2"), parkingLot.getVehicleSpaces("VAN1"));
+        
+        spaces.clear();
+        assertTrue(parkingLot.parkVehicle(" VAN1 ", VehicleType.VAN, callback));
+        assertEquals(Arrays.asList("R1-1 (already parked)", "R1-2 (already parked)"), spaces);
+        
+        assertTrue(parkingLot.parkVehicle("VAN2", VehicleType.VAN, callback));
+        assertTrue(parkingLot.parkVehicle("VAN3", VehicleType.VAN, callback));
+        assertFalse(parkingLot.parkVehicle("VAN4", VehicleType.VAN, callback));
+        assertFalse(parkingLot.parkVehicle("", VehicleType.CAR, callback));
+        assertEquals(Arrays.asList("No two contiguous regular spaces available for van",
+                                   "Vehicle ID cannot be null or empty"), failures);
+        assertEquals(6, parkingLot.getLotStatus().getVanOccupiedSpaces());
+    }
+    
+    @Test
+    void testFailureResultsAreShared() {
+        assertSame(parkingLot.parkVehicle(null, VehicleType.CAR), parkingLot.parkVehicle("  ", VehicleType.CAR));
+        
+        for (int i = 0; i < 7; i++) {
+            parkingLot.parkVehicle("CAR" + i, VehicleType.CAR);
+        }
+        ParkingResult first = parkingLot.parkVehicle("CAR7", VehicleType.CAR);
+        assertFalse(first.isSuccess());
+        assertSame(first, parkingLot.parkVehicle("CAR8", VehicleType.CAR));
+    }
+    
+    @Test
+    void testCompactStorageMatchesObjectStorage() {
+        assertMatchesObjectStorage(LotStorage.COMPACT);
+    }
+    
+    @Test
+    void testOffHeapStorageMatchesObjectStorage() {
+        assertMatchesObjectStorage(LotStorage.OFF_HEAP);
+    }
+    
+    private static void assertMatchesObjectStorage(LotStorage storage) {
+        List<SpaceType[]> config = new ArrayList<>();
+        Random random = new Random(11);
+        for (int r = 0; r < 6; r++) {
+            SpaceType[] row = new SpaceType[40 + r * 7];
+            for (int s = 0; s < row.length; s++) {
+                row[s] = random.nextInt(4) == 0 ? SpaceType.COMPACT : SpaceType.REGULAR;
+            }
+            config.add(row);
+        }
+        ParkingLot objects = new ParkingLot(config);
+        ParkingLot compact = new ParkingLot(config, storage);
+        compact.setVerifyCounters(true);
+        
+        for (int i = 0; i < 2000; i++) {
+            String vehicleId = "V" + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(objects.removeVehicle(vehicleId), compact.removeVehicle(vehicleId));
+            } else {
+                VehicleType type = VehicleType.values()[random.nextInt(3)];
+                assertEquals(objects.parkVehicle(vehicleId, type).toString(),
+                             compact.parkVehicle(vehicleId, type).toString());
+            }
+        }
+        
+        assertSameState(objects, compact, 300);
+        
+        // Strategies and callers see the compact spaces as read-only ParkingSpace views
+        List<List<ParkingSpace>> objectRows = objects.spaces.getRows();
+        List<List<ParkingSpace>> compactRows = compact.spaces.getRows();
+        assertEquals(objectRows.size(), compactRows.size());
+        for (int r = 0; r < objectRows.size(); r++) {
+            assertEquals(objectRows.get(r).size(), compactRows.get(r).size());
+            for (int s = 0; s < objectRows.get(r).size(); s++) {
+                assertEquals(objectRows.get(r).get(s).toString(), compactRows.get(r).get(s).toString());
+            }
+        }
+        assertThrows(UnsupportedOperationException.class, () -> compactRows.get(0).get(0).vacate());
+        compact.close();
+    }
+    
+    @Test
+    void testClosedOffHeapLotRejectsOperations() {
+        ParkingLot lot = new ParkingLot(Arrays.asList(
+            new SpaceType[]{SpaceType.REGULAR, SpaceType.REGULAR},
+            new SpaceType[]{SpaceType.COMPACT, SpaceType.REGULAR}
+        ), LotStorage.OFF_HEAP);
+        assertTrue(lot.parkVehicle("CAR1", VehicleType.CAR).isSuccess());
+        assertEquals(Arrays.asList("Row 1: 1 occupied, 1 available", "Row 2: 0 occupied, 2 available"),
+                     lot.getRowSummaries());
+        
+        lot.close();
+        lot.close(); // Closing twice has no effect
+        assertThrows(IllegalStateException.class, lot::getRowSummaries);
+        assertThrows(IllegalStateException.class, () -> lot.parkVehicle("CAR2", VehicleType.CAR));
+        
+        // Heap-backed lots keep working after close
+        parkingLot.close();
+        assertTrue(parkingLot.parkVehicle("CAR1", VehicleType.CAR).isSuccess());
+    }
+    
+    @Test
+    void testLotFromLayoutMatchesRowConfigurations() {
+        LotLayout layout = LotLayout.parse("R x2, C; R x3; C, R x2");
+        for (LotStorage storage : LotStorage.values()) {
+            try (ParkingLot lot = new ParkingLot(layout, storage)) {
+                lot.setVerifyCounters(true);
+                for (String vehicleId : Arrays.asList("VAN1", "BIKE1", "CAR1", "CAR2", "VAN2")) {
+                    VehicleType vehicleType = vehicleId.startsWith("VAN") ? VehicleType.VAN
+                            : vehicleId.startsWith("CAR") ? VehicleType.CAR : VehicleType.MOTORCYCLE;
+                    assertEquals(parkingLot.parkVehicle(vehicleId, vehicleType).getAllocatedSpaces(),
+                                 lot.parkVehicle(vehicleId, vehicleType).getAllocatedSpaces());
+                }
+                assertEquals(parkingLot.getLotStatus(), lot.getLotStatus());
+                assertEquals(parkingLot.getRowSummaries(), lot.getRowSummaries());
+                for (String vehicleId : Arrays.asList("VAN1", "BIKE1", "CAR1", "CAR2", "VAN2")) {
+                    parkingLot.removeVehicle(vehicleId);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLot((LotLayout) null, LotStorage.OBJECTS));
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLot(layout, null));
+    }
+    
+    @Test
+    void testLargeLayoutInitializesRowsInParallel() {
+        // Above the parallel initialization threshold, with runs crossing bitmap word boundaries
+        LotLayout layout = LotLayout.parse("9000 * C x3, R x70, C x30, R x27");
+        assertTrue(layout.getTotalSpaces() >= ParkingLot.PARALLEL_INIT_SPACES);
+        try (ParkingLot lot = new ParkingLot(layout, LotStorage.OFF_HEAP)) {
+            LotStatus status = lot.getLotStatus();
+            assertEquals(9000 * 33, status.getTotalCompactSpaces());
+            assertEquals(9000 * 97, status.getTotalRegularSpaces());
+            assertEquals(Arrays.asList("R1-4", "R1-5"), lot.parkVehicle("VAN1", VehicleType.VAN).getAllocatedSpaces());
+            assertEquals(Arrays.asList("R1-1"), lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE).getAllocatedSpaces());
+            assertEquals("Row 9000: 0 occupied, 130 available", lot.getRowSummaries().get(8999));
+            
+            // Once the first regular run is full, vans skip the compact run to the last regular run
+            for (int i = 2; i <= 35; i++) {
+                lot.parkVehicle("VAN" + i, VehicleType.VAN);
+            }
+            assertEquals(Arrays.asList("R1-104", "R1-105"), lot.parkVehicle("VAN36", VehicleType.VAN).getAllocatedSpaces());
+        }
+    }
+    
     @Test
     void testSpaceTypeSpecificOccupancy() {
         parkingLot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE); // R1-1 (regular)
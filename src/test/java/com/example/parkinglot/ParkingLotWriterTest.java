@@ -0,0 +1,239 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the single-writer parking lot front end
+ */
+public class ParkingLotWriterTest {
+
+    private static ParkingLot lot(String descriptor) {
+        ParkingLot lot = new ParkingLot(LotLayout.parse(descriptor), LotStorage.COMPACT);
+        lot.setVerifyCounters(true);
+        return lot;
+    }
+
+    @Test
+    void testRunsCommandsInSubmissionOrder() throws Exception {
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot("R x3, C x2"), 16, ParkingLotWriter.WhenFull.BLOCK)) {
+            CompletableFuture<ParkingResult> van = writer.parkVehicle("VAN1", VehicleType.VAN);
+            CompletableFuture<ParkingResult> car = writer.parkVehicle("CAR1", VehicleType.CAR);
+            CompletableFuture<ParkingResult> bike = writer.parkVehicle("BIKE1", VehicleType.MOTORCYCLE);
+            CompletableFuture<ParkingResult> again = writer.parkVehicle(" CAR1 ", VehicleType.CAR);
+            CompletableFuture<Boolean> removed = writer.removeVehicle("VAN1");
+            CompletableFuture<ParkingResult> car2 = writer.parkVehicle("CAR2", VehicleType.CAR);
+            CompletableFuture<ParkingResult> reserved = writer.reserve("CAR3", VehicleType.CAR, Duration.ofMinutes(5));
+            CompletableFuture<LotStatus> status = writer.submit(ParkingLot::getLotStatus);
+
+            assertEquals(Arrays.asList("R1-1", "R1-2"), van.get(60, TimeUnit.SECONDS).getAllocatedSpaces());
+            assertEquals(Arrays.asList("R1-3"), car.get(60, TimeUnit.SECONDS).getAllocatedSpaces());
+            assertEquals(Arrays.asList("R1-4"), bike.get(60, TimeUnit.SECONDS).getAllocatedSpaces());
+            assertTrue(again.get(60, TimeUnit.SECONDS).isAlreadyParked());
+            assertTrue(removed.get(60, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("R1-1"), car2.get(60, TimeUnit.SECONDS).getAllocatedSpaces());
+            assertEquals(Arrays.asList("R1-2"), reserved.get(60, TimeUnit.SECONDS).getAllocatedSpaces());
+            LotStatus lotStatus = status.get(60, TimeUnit.SECONDS);
+            assertEquals(3, lotStatus.getOccupiedSpaces());
+            assertEquals(1, lotStatus.getHeldSpaces());
+
+            assertEquals(8, writer.getTakenCount());
+            assertTrue(writer.getBatchCount() >= 1);
+            assertEquals(5, writer.getQueueingDelay(ParkingLotWriter.CommandType.PARK).getCount());
+            assertEquals(1, writer.getQueueingDelay(ParkingLotWriter.CommandType.QUERY).getCount());
+            assertEquals(0, writer.getQueueSize());
+        }
+    }
+
+    @Test
+    void testInvalidRequestsCompleteWithoutTheWriter() throws Exception {
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot("R x2"), 2, ParkingLotWriter.WhenFull.REJECT)) {
+            assertEquals(ParkingLot.INVALID_VEHICLE_ID, writer.parkVehicle(" ", VehicleType.CAR).getNow(null));
+            assertEquals(ParkingLot.MISSING_VEHICLE_TYPE, writer.parkVehicle("CAR1", null).getNow(null));
+            assertFalse(writer.removeVehicle(null).get(60, TimeUnit.SECONDS));
+            assertEquals(ParkingLot.INVALID_RESERVATION_TIME,
+                    writer.reserve("CAR1", VehicleType.CAR, Duration.ZERO).get(60, TimeUnit.SECONDS));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> writer.submit(lot -> {
+                throw new IllegalStateException("boom");
+            }).get(60, TimeUnit.SECONDS));
+            assertEquals("boom", failure.getCause().getMessage());
+            assertTrue(writer.parkVehicle("CAR1", VehicleType.CAR).get(60, TimeUnit.SECONDS).isSuccess());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLotWriter(lot("R"), 3, ParkingLotWriter.WhenFull.BLOCK));
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLotWriter(null, 4, ParkingLotWriter.WhenFull.BLOCK));
+        assertThrows(IllegalArgumentException.class, () -> new ParkingLotWriter(lot("R"), 4, null));
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws Exception {
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot("R x8"), 4, ParkingLotWriter.WhenFull.REJECT)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> blocker = writer.submit(lot -> {
+                started.countDown();
+                try {
+                    return release.await(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(started.await(60, TimeUnit.SECONDS));
+
+            List<CompletableFuture<ParkingResult>> queued = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                queued.add(writer.parkVehicle("CAR" + i, VehicleType.CAR));
+            }
+            assertEquals(4, writer.getQueueSize());
+            CompletableFuture<ParkingResult> rejected = writer.parkVehicle("CAR4", VehicleType.CAR);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(60, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            assertEquals(1, writer.getRejectedCount());
+
+            release.countDown();
+            assertTrue(blocker.get(60, TimeUnit.SECONDS));
+            for (CompletableFuture<ParkingResult> future : queued) {
+                assertTrue(future.get(60, TimeUnit.SECONDS).isSuccess());
+            }
+            assertEquals(4, writer.submit(lot -> lot.getLotStatus().getOccupiedSpaces()).get(60, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testManyGatesShareOneWriter() throws Exception {
+        ParkingLot lot = lot("20 * R x10, C x5");
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot, 8, ParkingLotWriter.WhenFull.BLOCK)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    List<String> parked = new ArrayList<>();
+                    for (int i = 0; i < 5000; i++) {
+                        if (parked.isEmpty() || random.nextInt(3) > 0) {
+                            String vehicleId = "G" + gate + "-" + i;
+                            VehicleType vehicleType = VehicleType.values()[random.nextInt(3)];
+                            if (writer.parkVehicle(vehicleId, vehicleType).get(60, TimeUnit.SECONDS).isSuccess()) {
+                                parked.add(vehicleId);
+                            }
+                        } else {
+                            String vehicleId = parked.remove(random.nextInt(parked.size()));
+                            assertTrue(writer.removeVehicle(vehicleId).get(60, TimeUnit.SECONDS));
+                        }
+                    }
+                    return parked.size();
+                }));
+            }
+            int parked = 0;
+            for (Future<Integer> future : futures) {
+                parked += future.get(60, TimeUnit.SECONDS);
+            }
+            // Counters are cross-checked against a scan on the writer thread
+            LotStatus status = writer.submit(ParkingLot::getLotStatus).get(60, TimeUnit.SECONDS);
+            assertTrue(status.getOccupiedSpaces() >= parked);
+            assertEquals(20_001, writer.getTakenCount());
+            assertEquals(0, writer.getRejectedCount());
+        } finally {
+            gates.shutdown();
+        }
+    }
+
+    @Test
+    void testCloseRunsQueuedCommandsThenRejects() throws Exception {
+        ParkingLotWriter writer = new ParkingLotWriter(lot("R x4"), 8, ParkingLotWriter.WhenFull.BLOCK);
+        List<CompletableFuture<ParkingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(writer.parkVehicle("CAR" + i, VehicleType.CAR));
+        }
+        writer.close();
+        for (CompletableFuture<ParkingResult> future : futures) {
+            assertTrue(future.isDone());
+            assertTrue(future.get().isSuccess());
+        }
+        assertThrows(IllegalStateException.class, () -> writer.parkVehicle("CAR5", VehicleType.CAR));
+        assertThrows(IllegalStateException.class, () -> writer.submit(ParkingLot::getLotStatus));
+        writer.close(); // Closing twice is harmless
+    }
+
+    @Test
+    void testFailedPublishFailsTheBatch() throws Exception {
+        boolean[] failNext = {true};
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x4"), LotStorage.COMPACT) {
+            @Override
+            public LotSnapshot publishSnapshot() {
+                if (failNext[0]) {
+                    failNext[0] = false;
+                    throw new IllegalStateException("publish failed");
+                }
+                return super.publishSnapshot();
+            }
+        };
+        lot.setSnapshotsEnabled(true);
+        try (ParkingLotWriter writer = new ParkingLotWriter(lot, 8, ParkingLotWriter.WhenFull.BLOCK)) {
+            CompletableFuture<ParkingResult> first = writer.parkVehicle("CAR1", VehicleType.CAR);
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> first.get(60, TimeUnit.SECONDS));
+            assertEquals("publish failed", failure.getCause().getMessage());
+
+            // The writer keeps going, and the next snapshot catches up
+            assertTrue(writer.parkVehicle("CAR2", VehicleType.CAR).get(60, TimeUnit.SECONDS).isSuccess());
+            assertEquals(2, lot.getSnapshot().getVehicleCount());
+        }
+    }
+
+    @Test
+    void testDeadWriterFailsQueuedAndLaterCommands() throws Exception {
+        ParkingLotWriter writer = new ParkingLotWriter(lot("R x8"), 4, ParkingLotWriter.WhenFull.BLOCK);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> killer = writer.submit(lot -> {
+            started.countDown();
+            try {
+                release.await(60, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new AssertionError("writer killed");
+        });
+        assertTrue(started.await(60, TimeUnit.SECONDS));
+
+        // Four fill the queue and two more gates wait for room
+        ExecutorService gates = Executors.newFixedThreadPool(2);
+        try {
+            List<CompletableFuture<ParkingResult>> queued = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                queued.add(writer.parkVehicle("CAR" + i, VehicleType.CAR));
+            }
+            List<Future<CompletableFuture<ParkingResult>>> waiting = new ArrayList<>();
+            for (int i = 4; i < 6; i++) {
+                String vehicleId = "CAR" + i;
+                waiting.add(gates.submit(() -> writer.parkVehicle(vehicleId, VehicleType.CAR)));
+            }
+            release.countDown();
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> killer.get(60, TimeUnit.SECONDS));
+            assertEquals("writer killed", failure.getCause().getMessage());
+            for (CompletableFuture<ParkingResult> future : queued) {
+                failure = assertThrows(ExecutionException.class, () -> future.get(60, TimeUnit.SECONDS));
+                assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            }
+            for (Future<CompletableFuture<ParkingResult>> gate : waiting) {
+                CompletableFuture<ParkingResult> future = gate.get(60, TimeUnit.SECONDS);
+                failure = assertThrows(ExecutionException.class, () -> future.get(60, TimeUnit.SECONDS));
+                assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            }
+            CompletableFuture<ParkingResult> later = writer.parkVehicle("CAR9", VehicleType.CAR);
+            failure = assertThrows(ExecutionException.class, () -> later.get(60, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            assertEquals("writer killed", failure.getCause().getCause().getMessage());
+        } finally {
+            gates.shutdownNow();
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Unit tests for the latency histograms and operation metrics
+ */
+public class ParkingMetricsTest {
+
+    @Test
+    void testBucketsCoverValuesWithinOneSixteenth() {
+        int previous = -1;
+        for (long value : new long[] {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous && bucket < LatencyHistogram.BUCKETS);
+            long highest = LatencyHistogram.highestValueIn(bucket);
+            assertTrue(highest >= value && highest - value <= value / 16, "value " + value + " -> " + highest);
+            assertEquals(bucket, LatencyHistogram.bucketOf(highest));
+            previous = bucket;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueIn(LatencyHistogram.BUCKETS - 1));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.summarize().getCount());
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 100L);
+        }
+        histogram.record(-5); // Clock went backwards; counted as zero
+        LatencySummary summary = histogram.summarize();
+        assertEquals(1001, summary.getCount());
+        assertEquals(100_000, summary.getMax());
+        assertEquals(50_000, summary.getP50(), 50_000 / 16.0);
+        assertEquals(99_000, summary.getP99(), 99_000 / 16.0);
+        assertEquals(99_900, summary.getP999(), 99_900 / 16.0);
+        assertTrue(summary.getP999() <= summary.getMax());
+    }
+
+    @Test
+    void testCountsOutcomesPerVehicleType() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x3, C"), LotStorage.COMPACT);
+        assertThrows(IllegalStateException.class, lot::getMetricsSnapshot);
+        lot.setMetricsEnabled(true);
+
+        lot.parkVehicle("VAN1", VehicleType.VAN);
+        lot.parkVehicle("VAN1", VehicleType.VAN);
+        lot.parkVehicle("VAN2", VehicleType.VAN);
+        lot.parkVehicle("", VehicleType.CAR);
+        lot.parkVehicles(Arrays.asList(new Vehicle("CAR1", VehicleType.CAR), new Vehicle("CAR2", VehicleType.CAR)));
+        ParkingCallback callback = (spaceHandle, alreadyParked) -> { };
+        assertTrue(lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE, callback));
+        assertTrue(lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE, callback));
+        assertFalse(lot.parkVehicle("BIKE2", VehicleType.MOTORCYCLE, callback));
+        lot.removeVehicle("VAN1");
+        lot.removeVehicle("VAN1");
+        lot.getLotStatus();
+
+        MetricsSnapshot snapshot = lot.getMetricsSnapshot();
+        assertEquals(1, snapshot.getParkedCount(VehicleType.VAN));
+        assertEquals(1, snapshot.getAlreadyParkedCount(VehicleType.VAN));
+        assertEquals(1, snapshot.getParkedCount(VehicleType.CAR));
+        assertEquals(1, snapshot.getParkedCount(VehicleType.MOTORCYCLE));
+        assertEquals(1, snapshot.getAlreadyParkedCount(VehicleType.MOTORCYCLE));
+        assertEquals(1, snapshot.getRemovedCount(VehicleType.VAN));
+        assertEquals(1, snapshot.getRemoveMissCount());
+
+        Map<String, Long> failures = new TreeMap<>();
+        failures.put("No available regular space for car", 1L);
+        failures.put("No available space for motorcycle", 1L);
+        failures.put("No two contiguous regular spaces available for van", 1L);
+        failures.put("Vehicle ID cannot be null or empty", 1L);
+        assertEquals(failures, snapshot.getFailureCounts());
+        assertEquals(1, snapshot.getFailureCount("Vehicle ID cannot be null or empty"));
+
+        assertEquals(3, snapshot.getParkLatency(VehicleType.VAN).getCount());
+        assertEquals(3, snapshot.getParkLatency(VehicleType.CAR).getCount());
+        assertEquals(3, snapshot.getParkLatency(VehicleType.MOTORCYCLE).getCount());
+        assertEquals(1, snapshot.getRemoveLatency(VehicleType.VAN).getCount());
+        assertEquals(0, snapshot.getRemoveLatency(VehicleType.CAR).getCount());
+        assertEquals(1, snapshot.getStatusLatency().getCount());
+        assertTrue(snapshot.getParkLatency(VehicleType.VAN).getMax() > 0);
+
+        lot.setMetricsEnabled(true); // Starts again from zero
+        assertEquals(0, lot.getMetricsSnapshot().getParkedCount(VehicleType.VAN));
+        lot.setMetricsEnabled(false);
+        assertThrows(IllegalStateException.class, lot::getMetricsSnapshot);
+    }
+
+    @Test
+    void testConcurrentGatesRecordEveryOperation() throws Exception {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("10 * R x10, C x2"), LotStorage.OBJECTS);
+        lot.setMetricsEnabled(true);
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        String vehicleId = "G" + gate + "-" + (i % 50);
+                        lot.parkVehicle(vehicleId, VehicleType.values()[i % 3]);
+                        lot.removeVehicle(vehicleId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            gates.shutdown();
+        }
+
+        MetricsSnapshot snapshot = lot.getMetricsSnapshot();
+        long parks = 0;
+        long removes = 0;
+        for (VehicleType vehicleType : VehicleType.values()) {
+            parks += snapshot.getParkLatency(vehicleType).getCount();
+            removes += snapshot.getRemovedCount(vehicleType);
+            assertEquals(snapshot.getRemovedCount(vehicleType), snapshot.getRemoveLatency(vehicleType).getCount());
+        }
+        assertEquals(8000, parks);
+        assertEquals(8000, removes + snapshot.getRemoveMissCount());
+        long failed = snapshot.getFailureCounts().values().stream().mapToLong(Long::longValue).sum();
+        long parked = 0;
+        for (VehicleType vehicleType : VehicleType.values()) {
+            parked += snapshot.getParkedCount(vehicleType) + snapshot.getAlreadyParkedCount(vehicleType);
+        }
+        assertEquals(8000, parked + failed);
+    }
+}
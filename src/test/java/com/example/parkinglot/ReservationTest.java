@@ -0,0 +1,206 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit tests for timed reservations and their timing wheel
+ */
+public class ReservationTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testArrivalTurnsHoldIntoParkedVehicle() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x3, C; R x3"), LotStorage.COMPACT);
+        lot.setVerifyCounters(true);
+        long[] now = {0};
+        lot.clock = () -> now[0];
+
+        ParkingResult reserved = lot.reserve("VAN1", VehicleType.VAN, Duration.ofMinutes(10));
+        assertTrue(reserved.isSuccess());
+        assertEquals("Spaces reserved for vehicle", reserved.getMessage());
+        assertEquals(Arrays.asList("R1-1", "R1-2"), reserved.getAllocatedSpaces());
+        assertEquals(1, lot.getReservationCount());
+
+        LotStatus status = lot.getLotStatus();
+        assertEquals(2, status.getHeldSpaces());
+        assertEquals(2, status.getHeldRegularSpaces());
+        assertEquals(0, status.getHeldCompactSpaces());
+        assertEquals(0, status.getOccupiedSpaces());
+        assertEquals(5, status.getAvailableSpaces());
+        assertFalse(status.isEmpty());
+
+        assertEquals(Arrays.asList("R1-3"), lot.parkVehicle("CAR1", VehicleType.CAR).getAllocatedSpaces());
+        assertFalse(lot.removeVehicle("VAN1")); // Not arrived yet
+        assertTrue(lot.reserve("VAN1", VehicleType.VAN, Duration.ofMinutes(10)).isAlreadyParked());
+        assertEquals(Arrays.asList("R1-1", "R1-2"), lot.getVehicleSpaces("VAN1"));
+        assertEquals(ParkingLot.RESERVED_FOR_OTHER_TYPE, lot.parkVehicle("VAN1", VehicleType.CAR));
+
+        ParkingResult arrived = lot.parkVehicle(" VAN1 ", VehicleType.VAN);
+        assertTrue(arrived.isSuccess());
+        assertFalse(arrived.isAlreadyParked());
+        assertEquals(Arrays.asList("R1-1", "R1-2"), arrived.getAllocatedSpaces());
+        assertEquals(0, lot.getReservationCount());
+        status = lot.getLotStatus();
+        assertEquals(0, status.getHeldSpaces());
+        assertEquals(3, status.getOccupiedSpaces());
+        assertEquals(2, status.getVanOccupiedSpaces());
+
+        now[0] += 11 * 60 * SECOND; // The hold's timer was cancelled on arrival
+        assertTrue(lot.parkVehicle("VAN1", VehicleType.VAN).isAlreadyParked());
+        assertTrue(lot.removeVehicle("VAN1"));
+        assertEquals(1, lot.getLotStatus().getOccupiedSpaces());
+    }
+
+    @Test
+    void testExpiredHoldsAreReleased() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x3, C; R x3"), LotStorage.OBJECTS);
+        lot.setVerifyCounters(true);
+        long[] now = {-42 * SECOND}; // System.nanoTime may be negative
+        lot.clock = () -> now[0];
+        long start = now[0];
+
+        assertEquals(Arrays.asList("R1-1"), lot.reserve("CAR1", VehicleType.CAR, Duration.ofMinutes(5)).getAllocatedSpaces());
+        assertEquals(Arrays.asList("R1-2"), lot.reserve("BIKE1", VehicleType.MOTORCYCLE, Duration.ofMinutes(1)).getAllocatedSpaces());
+
+        now[0] = start + 30 * SECOND;
+        assertEquals(2, lot.getLotStatus().getHeldSpaces());
+        now[0] = start + 61 * SECOND;
+        assertEquals(1, lot.getLotStatus().getHeldSpaces());
+        assertTrue(lot.getVehicleSpaces("BIKE1").isEmpty());
+        assertEquals(Arrays.asList("R1-2"), lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE).getAllocatedSpaces());
+
+        now[0] = start + 6 * 60 * SECOND;
+        lot.expireReservations();
+        assertEquals(0, lot.getReservationCount());
+        assertFalse(lot.cancelReservation("CAR1"));
+        LotStatus status = lot.getLotStatus();
+        assertEquals(0, status.getHeldSpaces());
+        assertEquals(1, status.getOccupiedSpaces());
+
+        // Arrival through the callback path
+        lot.reserve("CAR2", VehicleType.CAR, Duration.ofMinutes(1));
+        List<Long> reported = new ArrayList<>();
+        assertTrue(lot.parkVehicle("CAR2", VehicleType.CAR, (spaceHandle, alreadyParked) -> {
+            assertFalse(alreadyParked);
+            reported.add(spaceHandle);
+        }));
+        assertEquals(Arrays.asList(SpaceHandle.of(0, 0)), reported);
+        assertEquals(2, lot.getLotStatus().getOccupiedSpaces());
+    }
+
+    @Test
+    void testCancelReservation() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x2"), LotStorage.OBJECTS);
+        lot.setVerifyCounters(true);
+        assertTrue(lot.reserve("CAR1", VehicleType.CAR, Duration.ofHours(1)).isSuccess());
+        assertTrue(lot.reserve("CAR2", VehicleType.CAR, Duration.ofHours(1)).isSuccess());
+        assertTrue(lot.getLotStatus().isFull());
+        assertFalse(lot.parkVehicle("CAR3", VehicleType.CAR).isSuccess());
+
+        assertTrue(lot.cancelReservation(" CAR1"));
+        assertFalse(lot.cancelReservation("CAR1"));
+        assertFalse(lot.cancelReservation(null));
+        assertEquals(1, lot.getReservationCount());
+        assertEquals(Arrays.asList("R1-1"), lot.parkVehicle("CAR3", VehicleType.CAR).getAllocatedSpaces());
+        assertFalse(lot.cancelReservation("CAR3")); // Parked, not held
+        assertEquals(new LotStatus(2, 0, 2, 0, 0, 0, 1, 0, 1, 0, 0, 1, true, false, false, true), lot.getLotStatus());
+    }
+
+    @Test
+    void testInvalidReservations() {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("R x2"), LotStorage.OBJECTS);
+        assertEquals(ParkingLot.INVALID_VEHICLE_ID, lot.reserve(" ", VehicleType.CAR, Duration.ofMinutes(1)));
+        assertEquals(ParkingLot.MISSING_VEHICLE_TYPE, lot.reserve("CAR1", null, Duration.ofMinutes(1)));
+        assertEquals(ParkingLot.INVALID_RESERVATION_TIME, lot.reserve("CAR1", VehicleType.CAR, null));
+        assertEquals(ParkingLot.INVALID_RESERVATION_TIME, lot.reserve("CAR1", VehicleType.CAR, Duration.ZERO));
+        assertEquals(ParkingLot.INVALID_RESERVATION_TIME, lot.reserve("CAR1", VehicleType.CAR, Duration.ofSeconds(-1)));
+        assertEquals(ParkingLot.INVALID_RESERVATION_TIME, lot.reserve("CAR1", VehicleType.CAR, Duration.ofDays(366)));
+        assertEquals(0, lot.getReservationCount());
+    }
+
+    @Test
+    void testWheelExpiresEachHoldOnceWithinOneBucket() {
+        ReservationWheel wheel = new ReservationWheel();
+        Random random = new Random(7);
+        long start = -3 * SECOND;
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Set<Integer> cancelled = new HashSet<>();
+        for (int handle = 0; handle < 50_000; handle++) {
+            long deadline = start + 1 + (long) (random.nextDouble() * 10 * 3600 * SECOND);
+            wheel.schedule(handle, deadline, start);
+            deadlines.put(handle, deadline);
+        }
+        for (int handle = 0; handle < 50_000; handle += 10) {
+            assertTrue(wheel.cancel(handle));
+            cancelled.add(handle);
+        }
+        assertFalse(wheel.cancel(0));
+
+        long bucketNanos = 1L << 26;
+        long[] now = {start};
+        Set<Integer> expired = new HashSet<>();
+        while (!wheel.isEmpty()) {
+            long step = 1 + (long) (random.nextDouble() * 600 * SECOND);
+            now[0] += step;
+            wheel.advance(now[0], handle -> {
+                long deadline = deadlines.get(handle);
+                assertTrue(deadline <= now[0], "expired early");
+                assertTrue(now[0] - deadline < bucketNanos + step, "expired late");
+                assertFalse(cancelled.contains(handle));
+                assertTrue(expired.add(handle), "expired twice");
+            });
+        }
+        assertEquals(45_000, expired.size());
+        assertEquals(0, wheel.advance(now[0] + 3600 * SECOND, handle -> fail("nothing left to expire")));
+    }
+
+    @Test
+    void testConcurrentGatesReserveArriveAndExpire() throws Exception {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("10 * R x10, C x2"), LotStorage.COMPACT);
+        AtomicLong now = new AtomicLong();
+        lot.clock = now::get;
+        ExecutorService gates = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int gate = t;
+                futures.add(gates.submit(() -> {
+                    Random random = new Random(gate);
+                    for (int i = 0; i < 5000; i++) {
+                        String vehicleId = "V" + random.nextInt(200);
+                        VehicleType vehicleType = VehicleType.values()[Math.floorMod(vehicleId.hashCode(), 3)];
+                        switch (random.nextInt(4)) {
+                            case 0: lot.reserve(vehicleId, vehicleType, Duration.ofMillis(1 + random.nextInt(500))); break;
+                            case 1: lot.parkVehicle(vehicleId, vehicleType); break;
+                            case 2: lot.removeVehicle(vehicleId); break;
+                            default: lot.cancelReservation(vehicleId); break;
+                        }
+                        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            gates.shutdown();
+        }
+
+        lot.setVerifyCounters(true);
+        LotStatus status = lot.getLotStatus(); // Cross-checks the counters against a scan
+        now.addAndGet(SECOND);
+        lot.expireReservations();
+        assertEquals(0, lot.getReservationCount());
+        LotStatus expired = lot.getLotStatus();
+        assertEquals(0, expired.getHeldSpaces());
+        assertEquals(status.getOccupiedSpaces(), expired.getOccupiedSpaces());
+        assertEquals(status.getAvailableSpaces() + status.getHeldSpaces(), expired.getAvailableSpaces());
+    }
+}
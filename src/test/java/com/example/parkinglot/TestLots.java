@@ -0,0 +1,44 @@
+package com.example.parkinglot;
+
+import com.example.parkinglot.model.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+/**
+ * Layouts and state comparisons shared by the parking lot tests.
+ */
+final class TestLots {
+
+    private TestLots() {
+    }
+
+    /**
+     * Creates rows of the same length with every fifth space compact.
+     * @param rowCount Number of rows
+     * @param rowLength Number of spaces in each row
+     * @return Row configurations
+     */
+    static List<SpaceType[]> createConfig(int rowCount, int rowLength) {
+        List<SpaceType[]> config = new ArrayList<>();
+        for (int r = 0; r < rowCount; r++) {
+            SpaceType[] row = new SpaceType[rowLength];
+            for (int s = 0; s < rowLength; s++) {
+                row[s] = s % 5 == 0 ? SpaceType.COMPACT : SpaceType.REGULAR;
+            }
+            config.add(row);
+        }
+        return config;
+    }
+
+    /**
+     * Asserts that two lots report the same status, rows and spaces of vehicles "V0" to "V{vehicleCount - 1}".
+     */
+    static void assertSameState(ParkingLot expected, ParkingLot actual, int vehicleCount) {
+        assertEquals(expected.getLotStatus(), actual.getLotStatus());
+        assertEquals(expected.getRowSummaries(), actual.getRowSummaries());
+        for (int i = 0; i < vehicleCount; i++) {
+            assertEquals(expected.getVehicleSpaces("V" + i), actual.getVehicleSpaces("V" + i));
+        }
+    }
+}
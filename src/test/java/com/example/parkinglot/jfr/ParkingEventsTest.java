@@ -0,0 +1,122 @@
+package com.example.parkinglot.jfr;
+
+import com.example.parkinglot.ConcurrentParkingLot;
+import com.example.parkinglot.LotStorage;
+import com.example.parkinglot.ParkingLot;
+import com.example.parkinglot.model.*;
+import com.example.parkinglot.strategy.OccupancyIndex;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the JFR events of the parking lot operations
+ */
+public class ParkingEventsTest {
+
+    private static final String[] EVENT_NAMES = {
+        "com.example.parkinglot.Park", "com.example.parkinglot.Remove",
+        "com.example.parkinglot.Allocation", "com.example.parkinglot.LotStatus"
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private List<RecordedEvent> record(Runnable operations) throws IOException {
+        try (Recording recording = new Recording()) {
+            for (String name : EVENT_NAMES) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+            operations.run();
+            recording.stop();
+            Path file = tempDir.resolve("parking.jfr");
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        }
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testRecordsParkRemoveAllocationAndStatus() throws IOException {
+        ParkingLot lot = new ParkingLot(LotLayout.parse("C, R x2; R x3"), LotStorage.COMPACT);
+        List<RecordedEvent> events = record(() -> {
+            lot.parkVehicle("CAR1", VehicleType.CAR);
+            lot.parkVehicle("CAR1", VehicleType.CAR);
+            lot.parkVehicle("VAN1", VehicleType.VAN, (spaceHandle, alreadyParked) -> { });
+            lot.parkVehicle("VAN2", VehicleType.VAN);
+            lot.removeVehicle("CAR1");
+            lot.removeVehicle("CAR1");
+            lot.getLotStatus();
+        });
+
+        List<RecordedEvent> parks = ofType(events, "com.example.parkinglot.Park");
+        assertEquals(Arrays.asList("PARKED", "ALREADY_PARKED", "PARKED", "FAILED"),
+                parks.stream().map(event -> event.getString("outcome")).collect(Collectors.toList()));
+        assertEquals("CAR1", parks.get(0).getString("vehicleId"));
+        assertEquals("VAN", parks.get(2).getString("vehicleType"));
+        assertEquals(2, parks.get(2).getInt("spaceCount"));
+        assertEquals("No two contiguous regular spaces available for van", parks.get(3).getString("failureReason"));
+
+        List<RecordedEvent> allocations = ofType(events, "com.example.parkinglot.Allocation");
+        assertEquals(3, allocations.size());
+        assertEquals("CarParkingStrategy", allocations.get(0).getString("strategy"));
+        assertEquals(2, allocations.get(0).getLong("spacesInspected")); // C, then R1-2
+        assertEquals(0, allocations.get(0).getInt("rowIndex"));
+        assertEquals("FOUND", allocations.get(1).getString("outcome"));
+        assertEquals(4, allocations.get(1).getLong("spacesInspected")); // Row 1, then R2-1
+        assertEquals(1, allocations.get(1).getInt("rowIndex"));
+        assertEquals("NO_SPACE", allocations.get(2).getString("outcome"));
+        assertEquals(6, allocations.get(2).getLong("spacesInspected"));
+        assertEquals(-1, allocations.get(2).getInt("rowIndex"));
+
+        List<RecordedEvent> removes = ofType(events, "com.example.parkinglot.Remove");
+        assertTrue(removes.get(0).getBoolean("removed"));
+        assertEquals("CAR", removes.get(0).getString("vehicleType"));
+        assertFalse(removes.get(1).getBoolean("removed"));
+
+        List<RecordedEvent> statuses = ofType(events, "com.example.parkinglot.LotStatus");
+        assertEquals(1, statuses.size());
+        assertEquals(2, statuses.get(0).getInt("occupiedSpaces"));
+        assertFalse(statuses.get(0).getBoolean("verified"));
+    }
+
+    @Test
+    void testConcurrentLotRecordsEachAttempt() throws IOException {
+        ConcurrentParkingLot lot = new ConcurrentParkingLot(LotLayout.parse("R x4"), LotStorage.OBJECTS);
+        List<RecordedEvent> events = record(() -> {
+            lot.parkVehicle("BIKE1", VehicleType.MOTORCYCLE);
+            lot.parkVehicle("VAN1", VehicleType.VAN);
+            lot.removeVehicle("VAN1");
+        });
+        List<RecordedEvent> allocations = ofType(events, "com.example.parkinglot.Allocation");
+        assertEquals(Arrays.asList("MOTORCYCLE", "VAN"),
+                allocations.stream().map(event -> event.getString("vehicleType")).collect(Collectors.toList()));
+        assertEquals(2, allocations.get(1).getLong("spacesInspected")); // BIKE1 holds R1-1; the pair starts at R1-2
+        assertEquals(2, ofType(events, "com.example.parkinglot.Park").size());
+        assertEquals(1, ofType(events, "com.example.parkinglot.Remove").size());
+    }
+
+    @Test
+    void testSpacesBetween() {
+        OccupancyIndex index = new OccupancyIndex(LotLayout.parse("R x3; R x5; C x2"), false);
+        assertEquals(1, AllocationEvent.spacesBetween(index, SpaceHandle.of(0, 0), SpaceHandle.of(0, 0)));
+        assertEquals(6, AllocationEvent.spacesBetween(index, SpaceHandle.of(0, 1), SpaceHandle.of(1, 3)));
+        assertEquals(10, AllocationEvent.spacesBetween(index, SpaceHandle.of(0, 0), SpaceHandle.NONE));
+        assertEquals(2, AllocationEvent.spacesBetween(index, SpaceHandle.of(1, 9), SpaceHandle.NONE));
+    }
+}
@@ -197,4 +197,209 @@ public class ParkingStrategyTest {
             ParkingStrategyFactory.registerStrategy(VehicleType.CAR, null);
         });
     }
+    
+    @Test
+    void testIndexedStrategiesMatchRowScan() {
+        MotorcycleParkingStrategy motorcycleStrategy = new MotorcycleParkingStrategy();
+        CarParkingStrategy carStrategy = new CarParkingStrategy();
+        
+        OccupancyIndex index = OccupancyIndex.fromRows(rows);
+        assertEquals(motorcycleStrategy.allocateSpaces("BIKE001", rows).getAllocatedSpaces(),
+                motorcycleStrategy.allocateSpaces("BIKE001", rows, index).getAllocatedSpaces());
+        assertEquals(carStrategy.allocateSpaces("CAR001", rows).getAllocatedSpaces(),
+                carStrategy.allocateSpaces("CAR001", rows, index).getAllocatedSpaces());
+        
+        // Leave only compact spaces free
+        rows.get(0).get(0).occupy("OTHER1");
+        rows.get(0).get(1).occupy("OTHER2");
+        rows.get(1).get(0).occupy("OTHER3");
+        rows.get(1).get(1).occupy("OTHER4");
+        rows.get(1).get(2).occupy("OTHER5");
+        rows.get(2).get(1).occupy("OTHER6");
+        rows.get(2).get(2).occupy("OTHER7");
+        index = OccupancyIndex.fromRows(rows);
+        
+        assertEquals("R1-3", motorcycleStrategy.allocateSpaces("BIKE001", rows, index).getAllocatedSpaces().get(0));
+        ParkingResult carResult = carStrategy.allocateSpaces("CAR001", rows, index);
+        assertFalse(carResult.isSuccess());
+        assertEquals("No available regular space for car", carResult.getMessage());
+    }
+    
+    @Test
+    void testIndexedVanStrategyMatchesRowScan() {
+        VanParkingStrategy strategy = new VanParkingStrategy();
+        
+        // Occupy R1-2 to break contiguous spaces in row 1
+        rows.get(0).get(1).occupy("OTHER_CAR");
+        OccupancyIndex index = OccupancyIndex.fromRows(rows);
+        ParkingResult result = strategy.allocateSpaces("VAN001", rows, index);
+        assertEquals(List.of("R2-1", "R2-2"), result.getAllocatedSpaces());
+        
+        // Breaking R2-2 leaves R2-3 without a regular neighbour; next pair is R3-2/R3-3
+        rows.get(1).get(1).occupy("OTHER_CAR2");
+        index.markOccupied(1, 1);
+        result = strategy.allocateSpaces("VAN001", rows, index);
+        assertEquals(List.of("R3-2", "R3-3"), result.getAllocatedSpaces());
+        
+        // Freeing R1-2 restores the first pair in row 1
+        rows.get(0).get(1).vacate();
+        index.markFree(0, 1);
+        result = strategy.allocateSpaces("VAN001", rows, index);
+        assertEquals(List.of("R1-1", "R1-2"), result.getAllocatedSpaces());
+    }
+    
+    @Test
+    void testSingleSpaceStrategiesResumeFromGivenSpace() {
+        OccupancyIndex index = OccupancyIndex.fromRows(rows);
+        CarParkingStrategy carStrategy = new CarParkingStrategy();
+        MotorcycleParkingStrategy motorcycleStrategy = new MotorcycleParkingStrategy();
+        
+        // Resuming after R1-2 skips the compact R1-3 for cars but not for motorcycles
+        assertEquals("R2-1", carStrategy.allocateSpaces("CAR001", rows, index, SpaceHandle.of(0, 2))
+                .getAllocatedSpaces().get(0));
+        assertEquals("R1-3", motorcycleStrategy.allocateSpaces("BIKE001", rows, index, SpaceHandle.of(0, 2))
+                .getAllocatedSpaces().get(0));
+        // An index past the end of a row continues with the next row
+        assertEquals("R3-1", motorcycleStrategy.allocateSpaces("BIKE001", rows, index, SpaceHandle.of(1, 3))
+                .getAllocatedSpaces().get(0));
+        assertFalse(carStrategy.allocateSpaces("CAR001", rows, index, SpaceHandle.of(2, 3)).isSuccess());
+    }
+    
+    @Test
+    void testIndexedStrategiesAcrossWordBoundaries() {
+        // Two rows of 150 spaces with a random mix of types and occupancy
+        Random random = new Random(42);
+        List<List<ParkingSpace>> largeRows = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            List<ParkingSpace> row = new ArrayList<>();
+            for (int s = 0; s < 150; s++) {
+                SpaceType type = random.nextInt(4) == 0 ? SpaceType.COMPACT : SpaceType.REGULAR;
+                row.add(new ParkingSpace(SpaceHandle.format(r, s), type));
+            }
+            largeRows.add(row);
+        }
+        OccupancyIndex index = OccupancyIndex.fromRows(largeRows);
+        
+        List<ParkingStrategy> strategies = List.of(new MotorcycleParkingStrategy(),
+                new CarParkingStrategy(), new VanParkingStrategy());
+        for (int i = 0; i < 600; i++) {
+            ParkingStrategy strategy = strategies.get(random.nextInt(strategies.size()));
+            ParkingResult expected = strategy.allocateSpaces("V" + i, largeRows);
+            ParkingResult actual = strategy.allocateSpaces("V" + i, largeRows, index);
+            assertEquals(expected.isSuccess(), actual.isSuccess());
+            assertEquals(expected.getAllocatedSpaces(), actual.getAllocatedSpaces());
+            
+            for (String spaceId : actual.getAllocatedSpaces()) {
+                long handle = SpaceHandle.parse(spaceId);
+                largeRows.get(SpaceHandle.rowIndex(handle)).get(SpaceHandle.spaceIndex(handle)).occupy("V" + i);
+                index.markOccupied(SpaceHandle.rowIndex(handle), SpaceHandle.spaceIndex(handle));
+            }
+            // Randomly free a space to fragment the rows
+            int r = random.nextInt(2);
+            int s = random.nextInt(150);
+            largeRows.get(r).get(s).vacate();
+            index.markFree(r, s);
+        }
+    }
+    
+    @Test
+    void testBestFitStrategiesKeepPairsForVans() {
+        OccupancyIndex index = OccupancyIndex.fromRows(rows);
+        BestFitCarParkingStrategy carStrategy = new BestFitCarParkingStrategy();
+        BestFitMotorcycleParkingStrategy motorcycleStrategy = new BestFitMotorcycleParkingStrategy();
+        assertArrayEquals(new int[]{0, 1}, Arrays.copyOf(index.getFreeRegularRuns(0), 2));
+        assertEquals(1, index.getFreeRegularRuns(1)[2]);
+        
+        // The odd run of row 2 can give up a space without losing its pair; first fit would break up R1-1/R1-2
+        assertEquals("R2-1", carStrategy.allocateSpaces("CAR001", rows).getAllocatedSpaces().get(0));
+        assertEquals("R2-1", carStrategy.allocateSpaces("CAR001", rows, index, SpaceHandle.of(2, 0))
+                .getAllocatedSpaces().get(0));
+        // Motorcycles take compact spaces first
+        assertEquals("R1-3", motorcycleStrategy.allocateSpaces("BIKE001", rows, index).getAllocatedSpaces().get(0));
+        
+        rows.get(1).get(0).occupy("CAR001");
+        index.markOccupied(1, 0);
+        rows.get(0).get(2).occupy("BIKE001");
+        index.markOccupied(0, 2);
+        rows.get(2).get(0).occupy("BIKE002");
+        index.markOccupied(2, 0);
+        assertEquals(0, index.getFreeRegularRuns(1)[2]);
+        assertEquals(1, index.getFreeRegularRuns(1)[1]);
+        
+        // Only pairs are left, so the first one is broken up
+        assertEquals("R1-1", motorcycleStrategy.allocateSpaces("BIKE003", rows, index).getAllocatedSpaces().get(0));
+        assertEquals("R1-1", carStrategy.allocateSpaces("CAR002", rows, index).getAllocatedSpaces().get(0));
+        
+        for (List<ParkingSpace> row : rows) {
+            for (ParkingSpace space : row) {
+                if (!space.isOccupied()) {
+                    space.occupy("OTHER");
+                }
+            }
+        }
+        index = OccupancyIndex.fromRows(rows);
+        assertEquals("No available regular space for car", carStrategy.allocateSpaces("CAR003", rows, index).getMessage());
+        assertEquals("No available space for motorcycle", motorcycleStrategy.allocateSpaces("BIKE004", rows, index).getMessage());
+    }
+    
+    @Test
+    void testBestFitSkipsSpaceLostToAnotherGate() {
+        OccupancyIndex index = OccupancyIndex.fromRows(rows);
+        BestFitCarParkingStrategy carStrategy = new BestFitCarParkingStrategy();
+        BestFitMotorcycleParkingStrategy motorcycleStrategy = new BestFitMotorcycleParkingStrategy();
+        CarParkingStrategy firstFit = new CarParkingStrategy();
+        
+        // The index still shows a lost space as free, so it must not be returned again
+        assertEquals(SpaceHandle.of(1, 0), carStrategy.findSpaces(index, SpaceHandle.of(0, 0)));
+        assertEquals(SpaceHandle.of(1, 1), carStrategy.findSpacesExcluding(index, SpaceHandle.of(1, 0)));
+        assertEquals(SpaceHandle.of(0, 2), motorcycleStrategy.findSpaces(index, SpaceHandle.of(0, 0)));
+        assertEquals(SpaceHandle.of(2, 0), motorcycleStrategy.findSpacesExcluding(index, SpaceHandle.of(0, 2)));
+        // First fit continues after the lost space
+        assertEquals(SpaceHandle.of(0, 1), firstFit.findSpacesExcluding(index, SpaceHandle.of(0, 0)));
+        
+        // A lost space that is a whole run leaves the next run
+        for (int s = 1; s < 3; s++) {
+            rows.get(1).get(s).occupy("OTHER" + s);
+            index.markOccupied(1, s);
+        }
+        assertEquals(SpaceHandle.of(1, 0), carStrategy.findSpaces(index, SpaceHandle.of(0, 0)));
+        assertEquals(SpaceHandle.of(0, 0), carStrategy.findSpacesExcluding(index, SpaceHandle.of(1, 0)));
+    }
+    
+    @Test
+    void testFreeRegularRunsFollowOccupancy() {
+        // Rows longer than a word, with long runs of regular spaces broken up by compact ones
+        Random random = new Random(7);
+        List<List<ParkingSpace>> largeRows = new ArrayList<>();
+        for (int r = 0; r < 70; r++) {
+            List<ParkingSpace> row = new ArrayList<>();
+            for (int s = 0; s < 150; s++) {
+                SpaceType type = random.nextInt(40) == 0 ? SpaceType.COMPACT : SpaceType.REGULAR;
+                row.add(new ParkingSpace(SpaceHandle.format(r, s), type));
+            }
+            largeRows.add(row);
+        }
+        OccupancyIndex index = OccupancyIndex.fromRows(largeRows);
+        
+        for (int i = 0; i < 20_000; i++) {
+            int r = random.nextInt(largeRows.size());
+            int s = random.nextInt(150);
+            ParkingSpace space = largeRows.get(r).get(s);
+            if (space.isOccupied()) {
+                space.vacate();
+                index.markFree(r, s);
+            } else {
+                space.occupy("V" + i);
+                index.markOccupied(r, s);
+            }
+            if (i % 500 == 0) {
+                OccupancyIndex rebuilt = OccupancyIndex.fromRows(largeRows);
+                for (int row = 0; row < largeRows.size(); row++) {
+                    assertArrayEquals(rebuilt.getFreeRegularRuns(row), index.getFreeRegularRuns(row), "row " + row);
+                }
+                assertEquals(rebuilt.findBestFitRegular(), index.findBestFitRegular());
+            }
+        }
+    }
+    
 }
\ No newline at end of file